@@ -0,0 +1,64 @@
+package com.mavengraph.bench;
+
+import com.mavengraph.GraphAnalytics;
+import com.mavengraph.GraphStore;
+import com.mavengraph.SccAnalyzer;
+import com.mavengraph.TestGraphLoader;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Аналитика всего графа на синтетическом графе (4M рёбер - около миллиона узлов)
+ * в пуле из одного потока и во всех ядрах - насколько метрики масштабируются.
+ * Компоненты считаются заранее, как в DependencyGraph после построения.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = { "-Xmx3g" })
+public class AnalyticsBenchmark {
+
+    @Param({ "4000000" })
+    public int edges;
+
+    @Param({ "false", "true" })
+    public boolean cyclic;
+
+    // 0 - все ядра
+    @Param({ "1", "0" })
+    public int threads;
+
+    private GraphStore store;
+    private SccAnalyzer.Result scc;
+    private ForkJoinPool pool;
+
+    @Setup(Level.Trial)
+    public void load() throws IOException {
+        Path file = Files.createTempFile("graph-" + edges + "-", ".txt");
+        try {
+            SyntheticGraphGenerator.generate(edges, cyclic, 42, file);
+            store = new GraphStore();
+            TestGraphLoader.load(file, store, 1);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+        scc = SccAnalyzer.analyze(store);
+        pool = new ForkJoinPool(threads > 0 ? threads : Runtime.getRuntime().availableProcessors());
+    }
+
+    @TearDown(Level.Trial)
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public GraphAnalytics.Report analyze() {
+        return new GraphAnalytics(store, scc, new int[0], pool).analyze();
+    }
+}
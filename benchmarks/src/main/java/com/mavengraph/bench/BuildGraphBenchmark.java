@@ -0,0 +1,61 @@
+package com.mavengraph.bench;
+
+import com.mavengraph.DependencyGraph;
+import com.mavengraph.DependencyNode;
+import com.mavengraph.MavenParser;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DependencyGraph.buildGraph против локального репозитория-заглушки:
+ * 500 артефактов, у каждого до 4 зависимостей, глубина обхода 4.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class BuildGraphBenchmark {
+    private static final int ARTIFACTS = 500;
+
+    @Param({ "1", "8" })
+    public int parallelism;
+
+    @Param({ "0", "5" })
+    public int latencyMs;
+
+    private StubRepositoryServer server;
+
+    @Setup(Level.Trial)
+    public void startServer() throws IOException {
+        server = new StubRepositoryServer(32);
+        Random random = new Random(42);
+        for (int i = 0; i < ARTIFACTS; i++) {
+            List<String> deps = new ArrayList<>();
+            int remaining = ARTIFACTS - i - 1;
+            for (int d = 0; d < Math.min(4, remaining); d++) {
+                deps.add("org.example:lib" + (i + 1 + random.nextInt(remaining)) + ":1.0");
+            }
+            server.put("org.example", "lib" + i, "1.0", deps);
+        }
+        server.setDelayMs(latencyMs);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopServer() {
+        server.close();
+    }
+
+    @Benchmark
+    public DependencyGraph buildGraph() {
+        DependencyGraph graph = new DependencyGraph(4);
+        graph.setParallelism(parallelism);
+        DependencyNode root = graph.getOrCreateNode("org.example", "lib0", "1.0");
+        graph.buildGraph(root, new MavenParser(), server.getUrl());
+        return graph;
+    }
+}
@@ -0,0 +1,174 @@
+package com.mavengraph.bench;
+
+import com.mavengraph.Crawler;
+import com.mavengraph.DependencyGraph;
+import com.mavengraph.MavenParser;
+import com.mavengraph.PomFetcher;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.*;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Обход экосистемы, в которой узлов больше, чем помещается в кучу: заглушка
+ * генерирует POM на лету - корень зависит от libs артефактов org.eco, каждый из
+ * них - от двух других и от leaves листьев вне группы (по умолчанию 1000 * 1000,
+ * около миллиона узлов). Обход раскрывает только org.eco, граф держит вне кучи
+ * с маленьким бюджетом, чтобы часть ушла в файлы подкачки. Первый проход
+ * прерывается на трети узлов, второй продолжает его с контрольной точки.
+ * Проверяет число узлов, раскрытых и рёбер; завершается с кодом 1 при расхождении.
+ *
+ * Запуск с фиксированной кучей, меньше, чем занял бы тот же граф в GraphStore:
+ *   java -Xmx96m -cp ... com.mavengraph.bench.CrawlDemo [libs] [leaves] [offheap МБ]
+ */
+public class CrawlDemo {
+    private static final String GROUP = "org.eco";
+
+    public static void main(String[] args) throws Exception {
+        int libs = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int leaves = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        long offHeapMb = args.length > 2 ? Long.parseLong(args[2]) : 16;
+        long expectedNodes = 1 + libs + (long) libs * leaves;
+        long expectedEdges = libs + (long) libs * (leaves + 2) - duplicateLibEdges(libs);
+        System.out.printf("Куча: -Xmx %d МБ; ожидается узлов: %d, рёбер: %d%n",
+            Runtime.getRuntime().maxMemory() / (1024 * 1024), expectedNodes, expectedEdges);
+
+        Path dir = Files.createTempDirectory("crawl-demo");
+        boolean ok = true;
+        try (StubRepositoryServer server = new StubRepositoryServer(4)) {
+            server.setGenerator(path -> generate(path, libs, leaves));
+            List<String> seeds = List.of(GROUP + ":root:1.0");
+
+            // Первый проход: отмена после трети узлов
+            Crawler.Stats first;
+            try (Crawler crawler = crawler(server, dir, offHeapMb)) {
+                crawler.setListener(new DependencyGraph.Listener() {
+                    private long nodes;
+
+                    @Override
+                    public void onNode(String id, int depth) {
+                        if (++nodes == expectedNodes / 3) {
+                            crawler.cancel();
+                        }
+                    }
+
+                    @Override
+                    public void onEdge(String from, String to) {
+                    }
+
+                    @Override
+                    public void onFailure(String id, String error) {
+                    }
+                });
+                first = crawler.crawl(seeds);
+            }
+            print("Первый проход (отменён)", first);
+            if (!DependencyGraph.STOP_CANCELLED.equals(first.getStopReason()) || first.getRemaining() == 0) {
+                System.out.println("Первый проход не остановился на отмене");
+                ok = false;
+            }
+
+            Crawler.Stats second;
+            try (Crawler crawler = crawler(server, dir, offHeapMb)) {
+                second = crawler.crawl(seeds);
+            }
+            print("Продолжение", second);
+            if (second.getStopReason() != null || second.getRemaining() != 0 || second.getFailed() != 0
+                    || second.getNodes() != expectedNodes || second.getExpanded() != libs + 1
+                    || second.getEdges() != expectedEdges) {
+                System.out.println("Граф после продолжения не совпадает с ожидаемым");
+                ok = false;
+            }
+            if (second.getSpilledBytes() == 0) {
+                System.out.println("Бюджет не превышен - уменьшите offheap МБ, чтобы проверить файлы подкачки");
+            }
+            System.out.println("Запросов POM: " + server.getRequestCount()
+                + " (раскрытых узлов " + (libs + 1) + ", повторы - узлы после контрольной точки)");
+        } finally {
+            try (Stream<Path> files = Files.walk(dir)) {
+                files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+
+        System.out.printf("Пик кучи: %d МБ из %d МБ%n", heapPeak() / (1024 * 1024),
+            Runtime.getRuntime().maxMemory() / (1024 * 1024));
+        System.out.println(ok ? "OK" : "Проверки не пройдены");
+        if (!ok) {
+            System.exit(1);
+        }
+    }
+
+    private static Crawler crawler(StubRepositoryServer server, Path dir, long offHeapMb) throws Exception {
+        PomFetcher fetcher = new PomFetcher(5000, 5000, 16);
+        Crawler crawler = new Crawler(new MavenParser(fetcher), server.getUrl(), dir, offHeapMb * 1024 * 1024);
+        crawler.setGroupPrefixes(List.of(GROUP));
+        crawler.setParallelism(16);
+        return crawler;
+    }
+
+    private static void print(String name, Crawler.Stats stats) {
+        System.out.printf("%-24s узлов: %8d, рёбер: %8d, раскрыто: %5d, в очереди: %5d, "
+                + "вне кучи: %d МБ, подкачка: %d МБ, %d мс%n",
+            name, stats.getNodes(), stats.getEdges(), stats.getExpanded(), stats.getRemaining(),
+            stats.getDirectBytes() / (1024 * 1024), stats.getSpilledBytes() / (1024 * 1024), stats.getElapsedMs());
+    }
+
+    /**
+     * POM по пути запроса: корень, org.eco:libN или null (404) для остального.
+     */
+    private static byte[] generate(String path, int libs, int leaves) {
+        String prefix = "/" + GROUP.replace('.', '/') + "/";
+        if (!path.startsWith(prefix)) {
+            return null;
+        }
+        String artifactId = path.substring(prefix.length(), path.indexOf('/', prefix.length()));
+        List<String> dependencies = new ArrayList<>();
+        if (artifactId.equals("root")) {
+            for (int i = 0; i < libs; i++) {
+                dependencies.add(GROUP + ":lib" + i + ":1.0");
+            }
+        } else if (artifactId.startsWith("lib")) {
+            int i = Integer.parseInt(artifactId.substring(3));
+            for (int lib : libDependencies(i, libs)) {
+                dependencies.add(GROUP + ":lib" + lib + ":1.0");
+            }
+            for (int j = 0; j < leaves; j++) {
+                dependencies.add("org.leaf.g" + (i % 100) + ":leaf" + i + "-" + j + ":1.0");
+            }
+        } else {
+            return null;
+        }
+        return StubRepositoryServer.pom(GROUP, artifactId, "1.0", dependencies);
+    }
+
+    private static int[] libDependencies(int i, int libs) {
+        return new int[] { (i + 1) % libs, (i * 31 + 7) % libs };
+    }
+
+    /**
+     * Рёбра между lib, которые совпадают (обе ссылки на один артефакт): в графе одно ребро.
+     */
+    private static long duplicateLibEdges(int libs) {
+        long duplicates = 0;
+        for (int i = 0; i < libs; i++) {
+            int[] targets = libDependencies(i, libs);
+            if (targets[0] == targets[1]) {
+                duplicates++;
+            }
+        }
+        return duplicates;
+    }
+
+    private static long heapPeak() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+}
@@ -0,0 +1,50 @@
+package com.mavengraph.bench;
+
+import com.mavengraph.DependencyCycle;
+import com.mavengraph.GraphStore;
+import com.mavengraph.SccAnalyzer;
+import com.mavengraph.TestGraphLoader;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Поиск циклов (SCC) на уже загруженных синтетических графах - то, что делает
+ * DependencyGraph.detectCycles после построения.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = { "-Xmx3g" })
+public class CycleDetectionBenchmark {
+
+    @Param({ "1000", "100000", "1000000", "10000000" })
+    public int edges;
+
+    @Param({ "false", "true" })
+    public boolean cyclic;
+
+    private GraphStore store;
+
+    @Setup(Level.Trial)
+    public void load() throws IOException {
+        Path file = Files.createTempFile("graph-" + edges + "-", ".txt");
+        try {
+            SyntheticGraphGenerator.generate(edges, cyclic, 42, file);
+            store = new GraphStore();
+            TestGraphLoader.load(file, store, 1);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Benchmark
+    public List<DependencyCycle> detectCycles() {
+        return SccAnalyzer.analyze(store).cycles();
+    }
+}
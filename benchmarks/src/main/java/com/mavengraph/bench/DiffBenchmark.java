@@ -0,0 +1,76 @@
+package com.mavengraph.bench;
+
+import com.mavengraph.DependencyGraph;
+import com.mavengraph.GraphDiff;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сравнение двух синтетических графов (800k рёбер - 200k узлов), которые отличаются
+ * одной строкой: у узла на доле position файла последняя зависимость заменена новой.
+ * Рёбра идут к узлам с большими номерами, поэтому чем дальше узел, тем больше у него
+ * зависимых и тем больше отпечатков меняется: 0.001 - артефакт у корня, 0.9999 -
+ * общая библиотека, от которой зависит почти весь граф. compare - только сравнение,
+ * оба графа загружены и отпечатки посчитаны заранее; fingerprint - цена отпечатков
+ * одного графа после загрузки.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = { "-Xmx2g" })
+public class DiffBenchmark {
+
+    @Param({ "800000" })
+    public int edges;
+
+    @Param({ "false", "true" })
+    public boolean cyclic;
+
+    @Param({ "0.001", "0.5", "0.9999" })
+    public double position;
+
+    private DependencyGraph oldGraph;
+    private DependencyGraph newGraph;
+
+    @Setup(Level.Trial)
+    public void load() throws IOException {
+        Path oldFile = Files.createTempFile("diff-old-", ".txt");
+        Path newFile = Files.createTempFile("diff-new-", ".txt");
+        try {
+            SyntheticGraphGenerator.generate(edges, cyclic, 42, oldFile);
+            List<String> lines = Files.readAllLines(oldFile, StandardCharsets.US_ASCII);
+            int line = (int) (position * (lines.size() - 1));
+            String text = lines.get(line);
+            lines.set(line, text.substring(0, text.lastIndexOf(',') + 1) + "changed" + line);
+            Files.write(newFile, lines, StandardCharsets.US_ASCII);
+
+            oldGraph = new DependencyGraph();
+            oldGraph.buildFromTestFile(oldFile.toString());
+            oldGraph.getFingerprints();
+            newGraph = new DependencyGraph();
+            newGraph.buildFromTestFile(newFile.toString());
+            newGraph.getFingerprints();
+        } finally {
+            Files.deleteIfExists(oldFile);
+            Files.deleteIfExists(newFile);
+        }
+    }
+
+    @Benchmark
+    public GraphDiff.Result compare() {
+        return new GraphDiff(oldGraph.getStore(), oldGraph.getFingerprints(),
+            newGraph.getStore(), newGraph.getFingerprints()).compare();
+    }
+
+    @Benchmark
+    public GraphDiff.Fingerprints fingerprint() {
+        return GraphDiff.fingerprint(newGraph.getStore(), newGraph.getComponents(), newGraph.getRoots());
+    }
+}
@@ -0,0 +1,84 @@
+package com.mavengraph.bench;
+
+import com.mavengraph.GraphExporter;
+import com.mavengraph.GraphStore;
+import com.mavengraph.SccAnalyzer;
+import com.mavengraph.TestGraphLoader;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Выгрузка графа (GraphExporter) в канал, который только считает байты, -
+ * чистая стоимость форматирования без диска.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = { "-Xmx3g" })
+public class ExportBenchmark {
+
+    @Param({ "100000", "1000000" })
+    public int edges;
+
+    @Param({ "mermaid", "dot", "graphml" })
+    public String format;
+
+    @Param({ "false", "true" })
+    public boolean collapse;
+
+    private GraphStore store;
+    private SccAnalyzer.Result components;
+
+    @Setup(Level.Trial)
+    public void load() throws IOException {
+        Path file = Files.createTempFile("graph-" + edges + "-", ".txt");
+        try {
+            SyntheticGraphGenerator.generate(edges, true, 42, file);
+            store = new GraphStore();
+            TestGraphLoader.load(file, store, 1);
+            components = SccAnalyzer.analyze(store);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Benchmark
+    public long export() throws IOException {
+        GraphExporter exporter = new GraphExporter(store);
+        exporter.setFormat(GraphExporter.Format.fromName(format));
+        if (collapse) {
+            exporter.setCollapse(components);
+        }
+        CountingChannel channel = new CountingChannel();
+        exporter.write(channel);
+        return channel.bytes;
+    }
+
+    private static class CountingChannel implements WritableByteChannel {
+        long bytes;
+
+        @Override
+        public int write(ByteBuffer src) {
+            int n = src.remaining();
+            src.position(src.limit());
+            bytes += n;
+            return n;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.mavengraph.bench;
+
+import com.mavengraph.PomCache;
+import com.mavengraph.PomFetcher;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Сравнение прежней загрузки (HttpURLConnection + disconnect) с PomFetcher
+ * на локальном репозитории-заглушке: число TCP-соединений и общее время.
+ * Завершается с кодом 1, если PomFetcher не дал выигрыша или по одному тратит на запрос
+ * больше чем на SEQUENTIAL_OVERHEAD_MS дольше прежнего пути.
+ * <p>
+ * По одному PomFetcher на одном ядре медленнее на 1.5-2.5 мс на запрос: заглушка
+ * сжимает ответ gzip (прежний путь его не просит), а ответ HttpClient передаётся
+ * ожидающему потоку из потока селектора. Цена постоянная, не растёт с задержкой.
+ * DependencyGraph по одному не ждёт: разрешение идёт через getDependenciesAsync
+ * (сравнение с прежним путём на графе - DependencyGraphTest).
+ *
+ * Запуск: java -cp ... com.mavengraph.bench.FetcherComparison [число POM] [задержка мс]
+ */
+public class FetcherComparison {
+    private static final int SEQUENTIAL_OVERHEAD_MS = 3;
+    private static final int WARMUP_PASSES = 3;
+
+    public static void main(String[] args) throws Exception {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int delayMs = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        try (StubRepositoryServer server = new StubRepositoryServer(32)) {
+            List<String> urls = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                // Каждый пятый POM отсутствует: на реальных деревьях 404 встречаются постоянно
+                if (i % 5 != 4) {
+                    server.put("org.example", "lib" + i, "1.0", List.of("org.example:dep" + i + ":1.0"));
+                }
+                urls.add(server.getUrl() + StubRepositoryServer.path("org.example", "lib" + i, "1.0").substring(1));
+            }
+            server.setDelayMs(delayMs);
+            PomFetcher fetcher = new PomFetcher(5000, 5000, 16);
+
+            // Прогрев обоих путей без замера: на одном ядре компиляция JIT иначе достаётся
+            // тому, кто идёт первым по холодному коду HttpClient, и сравнение по одному
+            // показывает не задержку запросов, а прогрев
+            for (int i = 0; i < WARMUP_PASSES; i++) {
+                legacy(urls);
+                sequential(fetcher, urls);
+            }
+
+            server.resetCounters();
+            long start = System.nanoTime();
+            legacy(urls);
+            long legacyMs = (System.nanoTime() - start) / 1_000_000;
+            int legacyConnections = server.getConnectionCount();
+            report("HttpURLConnection, по одному", server, legacyMs);
+
+            server.resetCounters();
+            start = System.nanoTime();
+            sequential(fetcher, urls);
+            long sequentialMs = (System.nanoTime() - start) / 1_000_000;
+            int sequentialConnections = server.getConnectionCount();
+            report("PomFetcher, по одному", server, sequentialMs);
+
+            server.resetCounters();
+            start = System.nanoTime();
+            List<CompletableFuture<PomCache.Entry>> futures = new ArrayList<>();
+            for (String url : urls) {
+                futures.add(fetcher.fetchAsync(url, null));
+            }
+            int bytes = 0;
+            for (CompletableFuture<PomCache.Entry> future : futures) {
+                PomCache.Entry entry = future.join();
+                bytes += entry.isMissing() ? 0 : entry.getContent().length;
+            }
+            long asyncMs = (System.nanoTime() - start) / 1_000_000;
+            report("PomFetcher, асинхронно (16 в полёте)", server, asyncMs);
+            System.out.println("Получено байт: " + bytes);
+
+            boolean ok = sequentialConnections < legacyConnections && asyncMs < legacyMs
+                && sequentialMs - legacyMs <= (long) count * SEQUENTIAL_OVERHEAD_MS;
+            System.out.printf("Разница по одному: %.2f мс на запрос (допустимо %d)%n",
+                (sequentialMs - legacyMs) / (double) count, SEQUENTIAL_OVERHEAD_MS);
+            System.out.println(ok ? "OK" : "PomFetcher медленнее прежнего пути");
+            if (!ok) {
+                System.exit(1);
+            }
+        }
+    }
+
+    private static void legacy(List<String> urls) {
+        for (String url : urls) {
+            try {
+                LegacyUrlConnectionFetcher.download(url);
+            } catch (java.io.IOException e) {
+                // 404 - как и в MavenParser, просто пропускаем
+            }
+        }
+    }
+
+    private static void sequential(PomFetcher fetcher, List<String> urls) throws java.io.IOException {
+        for (String url : urls) {
+            fetcher.fetch(url, null);
+        }
+    }
+
+    private static void report(String name, StubRepositoryServer server, long elapsedMs) {
+        System.out.printf("%-40s запросов: %4d, соединений: %4d, время: %5d мс%n",
+            name, server.getRequestCount(), server.getConnectionCount(), elapsedMs);
+    }
+}
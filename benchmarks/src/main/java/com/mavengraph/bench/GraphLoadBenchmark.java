@@ -0,0 +1,60 @@
+package com.mavengraph.bench;
+
+import com.mavengraph.DependencyGraph;
+import com.mavengraph.GraphSnapshot;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DependencyGraph.buildFromTestFile (загрузка + поиск циклов) на синтетических графах
+ * и чтение того же графа из двоичного снимка.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgs = { "-Xmx3g" })
+public class GraphLoadBenchmark {
+
+    @Param({ "1000", "100000", "1000000", "10000000" })
+    public int edges;
+
+    @Param({ "false", "true" })
+    public boolean cyclic;
+
+    private Path file;
+    private Path snapshot;
+
+    @Setup(Level.Trial)
+    public void generate() throws IOException {
+        file = Files.createTempFile("graph-" + edges + "-", ".txt");
+        SyntheticGraphGenerator.generate(edges, cyclic, 42, file);
+
+        snapshot = Files.createTempFile("graph-" + edges + "-", ".snap");
+        DependencyGraph graph = new DependencyGraph();
+        graph.buildFromTestFile(file.toString());
+        graph.toSnapshot().write(snapshot);
+    }
+
+    @TearDown(Level.Trial)
+    public void cleanup() throws IOException {
+        Files.deleteIfExists(file);
+        Files.deleteIfExists(snapshot);
+    }
+
+    @Benchmark
+    public DependencyGraph buildFromTestFile() throws IOException {
+        DependencyGraph graph = new DependencyGraph();
+        graph.buildFromTestFile(file.toString());
+        return graph;
+    }
+
+    @Benchmark
+    public GraphSnapshot readSnapshot() throws IOException {
+        return GraphSnapshot.read(snapshot);
+    }
+}
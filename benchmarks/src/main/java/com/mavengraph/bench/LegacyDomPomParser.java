@@ -0,0 +1,64 @@
+package com.mavengraph.bench;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import javax.xml.parsers.*;
+import org.w3c.dom.*;
+import java.util.*;
+
+/**
+ * Прежний DOM-разбор из MavenParser (до перехода на StAX), оставлен для сравнения.
+ * Повторяет и чтение ответа построчно в String без переводов строк.
+ */
+public class LegacyDomPomParser {
+
+    public static List<String> parse(InputStream in) throws Exception {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        StringBuilder content = new StringBuilder();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            content.append(line);
+        }
+        return parseDependenciesFromPom(content.toString());
+    }
+
+    private static List<String> parseDependenciesFromPom(String pomContent) throws Exception {
+        List<String> dependencies = new ArrayList<>();
+
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        DocumentBuilder builder = factory.newDocumentBuilder();
+        Document doc = builder.parse(new ByteArrayInputStream(pomContent.getBytes(StandardCharsets.UTF_8)));
+
+        NodeList dependencyNodes = doc.getElementsByTagName("dependency");
+
+        for (int i = 0; i < dependencyNodes.getLength(); i++) {
+            Element dependency = (Element) dependencyNodes.item(i);
+
+            String groupId = getElementText(dependency, "groupId");
+            String artifactId = getElementText(dependency, "artifactId");
+            String version = getElementText(dependency, "version");
+            String scope = getElementText(dependency, "scope");
+
+            if ("test".equals(scope)) {
+                continue;
+            }
+            if (version == null || version.contains("$")) {
+                continue;
+            }
+
+            if (groupId != null && artifactId != null) {
+                dependencies.add(groupId + ":" + artifactId + ":" + version);
+            }
+        }
+
+        return dependencies;
+    }
+
+    private static String getElementText(Element parent, String tagName) {
+        NodeList nodes = parent.getElementsByTagName(tagName);
+        if (nodes.getLength() > 0) {
+            return nodes.item(0).getTextContent().trim();
+        }
+        return null;
+    }
+}
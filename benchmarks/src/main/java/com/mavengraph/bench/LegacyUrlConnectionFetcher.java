@@ -0,0 +1,45 @@
+package com.mavengraph.bench;
+
+import java.io.*;
+import java.net.*;
+
+/**
+ * Прежняя загрузка из MavenParser: новое HttpURLConnection на каждый POM,
+ * чтение построчно и disconnect() в finally.
+ */
+public class LegacyUrlConnectionFetcher {
+
+    public static String download(String url) throws IOException {
+        HttpURLConnection connection = null;
+        try {
+            URL pomUrl = new URL(url);
+            connection = (HttpURLConnection) pomUrl.openConnection();
+            connection.setRequestMethod("GET");
+            connection.setConnectTimeout(5000);
+            connection.setReadTimeout(5000);
+
+            int responseCode = connection.getResponseCode();
+            if (responseCode != 200) {
+                throw new IOException("HTTP ошибка: " + responseCode);
+            }
+
+            BufferedReader reader = new BufferedReader(
+                new InputStreamReader(connection.getInputStream())
+            );
+
+            StringBuilder content = new StringBuilder();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                content.append(line);
+            }
+            reader.close();
+
+            return content.toString();
+
+        } finally {
+            if (connection != null) {
+                connection.disconnect();
+            }
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.mavengraph.bench;
+
+import com.mavengraph.PomCache;
+import com.mavengraph.PomFetcher;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Предел одновременных запросов, повторы и предохранитель PomFetcher против
+ * репозитория-заглушки, который обрабатывает не больше capacity запросов сразу
+ * (остальным - 503). Три этапа:
+ * 1) постоянный предел 32 против адаптивного: адаптивный должен загрузить все POM
+ *    с пропускной способностью не ниже половины возможностей сервера;
+ * 2) 429 с Retry-After: 1 - отправка приостанавливается на секунду, POM не теряются;
+ * 3) сервер отвечает только 503 - предохранитель размыкается и запросы перестают
+ *    уходить, после восстановления пробный запрос снова его замыкает.
+ * Завершается с кодом 1, если хоть одна проверка не прошла.
+ *
+ * Запуск: java -cp ... com.mavengraph.bench.LimiterComparison [число POM] [capacity] [задержка мс]
+ */
+public class LimiterComparison {
+
+    public static void main(String[] args) throws Exception {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 600;
+        int capacity = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        int delayMs = args.length > 2 ? Integer.parseInt(args[2]) : 50;
+        boolean ok = true;
+
+        try (StubRepositoryServer server = new StubRepositoryServer(64)) {
+            List<String> urls = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                server.put("org.example", "lib" + i, "1.0", List.of("org.example:dep" + i + ":1.0"));
+                urls.add(server.getUrl() + StubRepositoryServer.path("org.example", "lib" + i, "1.0").substring(1));
+            }
+            server.setDelayMs(delayMs);
+            server.setCapacity(capacity);
+            double serverRate = capacity * 1000.0 / delayMs;
+            System.out.printf("Сервер: %d запросов одновременно по %d мс, не больше %.0f POM/с%n",
+                capacity, delayMs, serverRate);
+
+            PomFetcher fixed = new PomFetcher(5000, 5000, 32);
+            fixed.setAdaptive(false);
+            run("Постоянный предел 32", fixed, server, urls);
+
+            PomFetcher adaptive = new PomFetcher(5000, 5000, 32);
+            Run result = run("Адаптивный предел (до 32)", adaptive, server, urls);
+            int limit = adaptive.getConcurrencyLimits().values().iterator().next();
+            System.out.println("Предел после загрузки: " + limit);
+            if (result.failed > 0 || result.rate < serverRate / 2) {
+                System.out.println("Адаптивный предел: потеряны POM или пропускная способность ниже половины сервера");
+                ok = false;
+            }
+
+            // Retry-After: первый же ответ - 429, остальные запросы ждут секунду
+            server.setCapacity(0);
+            server.setRetryAfterSeconds(1);
+            server.failNext(1, 429);
+            List<String> few = urls.subList(0, 40);
+            Run paused = run("429 + Retry-After: 1", new PomFetcher(5000, 5000, 32), server, few);
+            if (paused.failed > 0 || paused.elapsedMs < 900 || server.getRequestCount() != few.size() + 1) {
+                System.out.println("Retry-After не выдержан или POM потеряны");
+                ok = false;
+            }
+
+            // Предохранитель: сервер отвечает только 503
+            server.setRetryAfterSeconds(0);
+            server.setFailureStatus(503);
+            PomFetcher breaker = new PomFetcher(5000, 5000, 32);
+            Run down = run("Сервер недоступен (503)", breaker, server, urls);
+            System.out.println("Отклонено предохранителем: " + breaker.getMetrics().getBreakerRejections()
+                + ", без него запросов было бы " + urls.size() * (breaker.getMaxRetries() + 1));
+            if (down.failed != urls.size() || server.getRequestCount() >= urls.size()) {
+                System.out.println("Предохранитель не остановил запросы к недоступному серверу");
+                ok = false;
+            }
+
+            server.setFailureStatus(0);
+            server.setCapacity(capacity);
+            Thread.sleep(2100);
+            breaker.fetch(urls.get(0), null);
+            Run restored = run("После восстановления", breaker, server, urls);
+            if (restored.failed > 0) {
+                System.out.println("Предохранитель не замкнулся после восстановления сервера");
+                ok = false;
+            }
+        }
+
+        System.out.println(ok ? "OK" : "Проверки не пройдены");
+        if (!ok) {
+            System.exit(1);
+        }
+    }
+
+    private static class Run {
+        int failed;
+        long elapsedMs;
+        double rate;
+    }
+
+    private static Run run(String name, PomFetcher fetcher, StubRepositoryServer server, List<String> urls) {
+        server.resetCounters();
+        long start = System.nanoTime();
+        List<CompletableFuture<PomCache.Entry>> futures = new ArrayList<>();
+        for (String url : urls) {
+            futures.add(fetcher.fetchAsync(url, null));
+        }
+        Run run = new Run();
+        for (CompletableFuture<PomCache.Entry> future : futures) {
+            try {
+                if (future.join().isMissing()) {
+                    run.failed++;
+                }
+            } catch (CompletionException e) {
+                run.failed++;
+            }
+        }
+        run.elapsedMs = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        run.rate = (urls.size() - run.failed) * 1000.0 / run.elapsedMs;
+        System.out.printf("%-30s потеряно: %4d, запросов: %5d, отказов сервера: %5d, повторов: %5d, %5d мс, %6.0f POM/с%n",
+            name, run.failed, server.getRequestCount(), server.getRejectedCount(),
+            fetcher.getMetrics().getRetries(), run.elapsedMs, run.rate);
+        return run;
+    }
+}
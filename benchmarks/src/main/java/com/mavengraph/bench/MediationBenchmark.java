@@ -0,0 +1,125 @@
+package com.mavengraph.bench;
+
+import com.mavengraph.DependencyGraph;
+import com.mavengraph.DependencyNode;
+import com.mavengraph.GraphStore;
+import com.mavengraph.MavenParser;
+import com.mavengraph.VersionMediator;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Выбор версий "ближайший побеждает".
+ * mediate - VersionMediator на готовом графе: 250k артефактов по 4 версии, 1M узлов, 4M рёбер.
+ * buildGraph - построение против репозитория-заглушки (400 артефактов по 3 версии,
+ * у каждого POM 4 зависимости на случайные версии, ответ через 2 мс) с выбором версий
+ * и без него; число загруженных POM печатается после каждого прогона.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = { "-Xmx3g" })
+public class MediationBenchmark {
+    private static final int VERSIONS = 4;
+    private static final int OUT_DEGREE = 4;
+
+    @State(Scope.Benchmark)
+    public static class LargeGraph {
+        @Param({ "250000" })
+        public int artifacts;
+
+        GraphStore store;
+
+        @Setup(Level.Trial)
+        public void build() {
+            store = new GraphStore();
+            Random random = new Random(42);
+            int nodes = artifacts * VERSIONS;
+            for (int a = 0; a < artifacts; a++) {
+                for (int v = 0; v < VERSIONS; v++) {
+                    store.getOrCreateNode("org.example", "lib" + a, v + ".0");
+                }
+            }
+            // Рёбра только к артефактам с большим номером: DAG с конфликтами на каждом уровне
+            int[] from = new int[nodes * OUT_DEGREE];
+            int[] to = new int[nodes * OUT_DEGREE];
+            int count = 0;
+            for (int node = 0; node < nodes; node++) {
+                int artifact = node / VERSIONS;
+                int remaining = artifacts - artifact - 1;
+                for (int d = 0; d < OUT_DEGREE && remaining > 0; d++) {
+                    int target = artifact + 1 + random.nextInt(Math.min(remaining, 1000));
+                    from[count] = node;
+                    to[count++] = target * VERSIONS + random.nextInt(VERSIONS);
+                }
+            }
+            store.addEdges(from, to, count);
+            store.compact();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Repository {
+        private static final int ARTIFACTS = 400;
+
+        @Param({ "false", "true" })
+        public boolean mediate;
+
+        StubRepositoryServer server;
+        private int builds;
+
+        @Setup(Level.Trial)
+        public void startServer() throws IOException {
+            server = new StubRepositoryServer(32);
+            Random random = new Random(42);
+            for (int i = 0; i < ARTIFACTS; i++) {
+                int remaining = ARTIFACTS - i - 1;
+                for (int v = 0; v < 3; v++) {
+                    List<String> deps = new ArrayList<>();
+                    for (int d = 0; d < Math.min(OUT_DEGREE, remaining); d++) {
+                        deps.add("org.example:lib" + (i + 1 + random.nextInt(remaining)) + ":" + random.nextInt(3) + ".0");
+                    }
+                    server.put("org.example", "lib" + i, v + ".0", deps);
+                }
+            }
+            server.setDelayMs(2);
+        }
+
+        @Setup(Level.Iteration)
+        public void resetCounters() {
+            server.resetCounters();
+            builds = 0;
+        }
+
+        @TearDown(Level.Iteration)
+        public void report() {
+            if (builds > 0) {
+                System.out.printf("%n  POM на построение: %d%n", server.getRequestCount() / builds);
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void stopServer() {
+            server.close();
+        }
+    }
+
+    @Benchmark
+    public VersionMediator.Result mediate(LargeGraph graph) {
+        return VersionMediator.mediate(graph.store, 0, Integer.MAX_VALUE);
+    }
+
+    @Benchmark
+    public DependencyGraph buildGraph(Repository repository) {
+        DependencyGraph graph = new DependencyGraph(5);
+        graph.setMediate(repository.mediate);
+        DependencyNode root = graph.getOrCreateNode("org.example", "lib0", "0.0");
+        graph.buildGraph(root, new MavenParser(), repository.server.getUrl());
+        repository.builds++;
+        return graph;
+    }
+}
@@ -0,0 +1,56 @@
+package com.mavengraph.bench;
+
+import com.mavengraph.PomReader;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.*;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Разбор реальных POM: StAX (PomReader, используется в MavenParser.parseDependenciesFromPom)
+ * против прежнего DOM-разбора.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PomParserBenchmark {
+
+    @Param({
+        "spring-context-6.1.0.pom",
+        "hibernate-core-6.4.1.Final.pom",
+        "maven-core-3.9.6.pom",
+        "gson-2.10.1.pom",
+        "guava-33.0.0-jre.pom",
+        "netty-bom-4.1.104.Final.pom",
+        "jackson-databind-2.16.0.pom",
+        "commons-lang3-3.14.0.pom",
+        "spring-boot-dependencies-3.2.0.pom"
+    })
+    public String pom;
+
+    private byte[] content;
+
+    @Setup
+    public void load() throws IOException {
+        try (InputStream in = PomParserBenchmark.class.getResourceAsStream("/poms/" + pom)) {
+            if (in == null) {
+                throw new FileNotFoundException(pom);
+            }
+            content = in.readAllBytes();
+        }
+    }
+
+    @Benchmark
+    public List<String> stax() throws Exception {
+        return PomReader.readDependencies(new ByteArrayInputStream(content));
+    }
+
+    @Benchmark
+    public List<String> legacyDom() throws Exception {
+        return LegacyDomPomParser.parse(new ByteArrayInputStream(content));
+    }
+}
@@ -0,0 +1,102 @@
+package com.mavengraph.bench;
+
+import com.mavengraph.DependencyGraph;
+import com.mavengraph.DependencyNode;
+import com.mavengraph.LocalRepository;
+import com.mavengraph.MavenParser;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * DependencyGraph.buildGraph на графе BuildGraphBenchmark (500 артефактов, глубина 4),
+ * POM из разных источников: http - репозиторий-заглушка, local - каталог с раскладкой
+ * ~/.m2 (чтение через NIO), mirror - пустой локальный репозиторий, затем зеркало на диске.
+ * В режимах local и mirror заглушка не должна получить ни одного запроса.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class PomSourceBenchmark {
+    private static final int ARTIFACTS = 500;
+
+    @Param({ "http", "local", "mirror" })
+    public String source;
+
+    private StubRepositoryServer server;
+    private Path local;
+    private Path mirror;
+    private List<LocalRepository> repositories;
+
+    @Setup(Level.Trial)
+    public void prepare() throws IOException {
+        server = new StubRepositoryServer(32);
+        local = Files.createTempDirectory("pom-local-");
+        mirror = Files.createTempDirectory("pom-mirror-");
+        LocalRepository tree = new LocalRepository(local);
+        Random random = new Random(42);
+        for (int i = 0; i < ARTIFACTS; i++) {
+            List<String> deps = new ArrayList<>();
+            int remaining = ARTIFACTS - i - 1;
+            for (int d = 0; d < Math.min(4, remaining); d++) {
+                deps.add("org.example:lib" + (i + 1 + random.nextInt(remaining)) + ":1.0");
+            }
+            byte[] pom = StubRepositoryServer.pom("org.example", "lib" + i, "1.0", deps);
+            server.put("org.example", "lib" + i, "1.0", pom);
+            Path file = tree.pomPath("org.example", "lib" + i, "1.0");
+            Files.createDirectories(file.getParent());
+            Files.write(file, pom);
+        }
+
+        switch (source) {
+            case "http":
+                repositories = Collections.emptyList();
+                break;
+            case "local":
+                repositories = List.of(tree);
+                break;
+            default:
+                // Промах в пустом локальном репозитории, затем то же дерево как file:// зеркало
+                repositories = List.of(new LocalRepository(mirror), LocalRepository.of(local.toUri().toString()));
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void resetCounters() {
+        server.resetCounters();
+    }
+
+    @TearDown(Level.Iteration)
+    public void checkNoNetwork() {
+        if (!"http".equals(source) && server.getRequestCount() > 0) {
+            throw new IllegalStateException("POM загружены по сети: " + server.getRequestCount());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void cleanUp() throws IOException {
+        server.close();
+        for (Path dir : new Path[] { local, mirror }) {
+            try (Stream<Path> files = Files.walk(dir)) {
+                files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+
+    @Benchmark
+    public DependencyGraph buildGraph() {
+        DependencyGraph graph = new DependencyGraph(4);
+        MavenParser parser = new MavenParser();
+        parser.setLocalRepositories(repositories);
+        DependencyNode root = graph.getOrCreateNode("org.example", "lib0", "1.0");
+        graph.buildGraph(root, parser, server.getUrl());
+        return graph;
+    }
+}
@@ -0,0 +1,103 @@
+package com.mavengraph.bench;
+
+import com.mavengraph.GraphQuery;
+import com.mavengraph.GraphStore;
+import com.mavengraph.SccAnalyzer;
+import com.mavengraph.TestGraphLoader;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Запросы GraphQuery на синтетическом графе (2M рёбер - 500k узлов) со 128 корнями:
+ * каждый вызов берёт следующий случайный узел, чтобы не мерить один и тот же путь.
+ * Случайный DAG генератора - худший случай для why: у узла почти все предыдущие узлы в предках.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = { "-Xmx3g" })
+public class QueryBenchmark {
+
+    @Param({ "2000000" })
+    public int edges;
+
+    @Param({ "false", "true" })
+    public boolean cyclic;
+
+    @Param({ "128" })
+    public int roots;
+
+    private GraphStore store;
+    private GraphQuery query;
+    private int[] probes;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void load() throws IOException {
+        Path file = Files.createTempFile("graph-" + edges + "-", ".txt");
+        try {
+            SyntheticGraphGenerator.generate(edges, cyclic, 42, file);
+            store = new GraphStore();
+            TestGraphLoader.load(file, store, 1);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+        // Корни - как в пакетном режиме: несколько узлов без входящих рёбер
+        SccAnalyzer.Result scc = SccAnalyzer.analyze(store);
+        int[] sources = new GraphQuery(store, scc, new int[0]).getRoots();
+        Random random = new Random(7);
+        int[] chosen = new int[Math.min(roots, sources.length)];
+        for (int i = 0; i < chosen.length; i++) {
+            chosen[i] = sources[random.nextInt(sources.length)];
+        }
+        query = new GraphQuery(store, scc, Arrays.stream(chosen).distinct().toArray());
+        probes = new int[1024];
+        for (int i = 0; i < probes.length; i++) {
+            probes[i] = random.nextInt(store.nodeCount());
+        }
+    }
+
+    private int probe() {
+        cursor = (cursor + 1) & (probes.length - 1);
+        return probes[cursor];
+    }
+
+    @Benchmark
+    public int[] matchExact() {
+        int node = probe();
+        return query.match(store.groupId(node) + ":" + store.artifactId(node));
+    }
+
+    @Benchmark
+    public int[] matchWildcard() {
+        return query.match("n12345*");
+    }
+
+    @Benchmark
+    public int[] dependents() {
+        return query.dependents(probe());
+    }
+
+    @Benchmark
+    public int[] rootsReaching() {
+        return query.rootsReaching(probe());
+    }
+
+    @Benchmark
+    public List<int[]> why() {
+        return query.why(probe());
+    }
+
+    @Benchmark
+    public boolean reaches() {
+        return query.reaches(probe(), probe());
+    }
+}
@@ -0,0 +1,211 @@
+package com.mavengraph.bench;
+
+import com.sun.net.httpserver.*;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Локальный Maven-репозиторий на HttpServer из JDK.
+ * Отдаёт сгенерированные POM (или заданные явно), считает запросы и
+ * отдельные TCP-соединения и может добавлять задержку к каждому ответу.
+ * Для проверки повторов умеет изображать перегрузку: больше capacity запросов
+ * одновременно - ответ 503, а также отвечать заданным статусом с Retry-After.
+ */
+public class StubRepositoryServer implements AutoCloseable {
+    private final HttpServer server;
+    private final Map<String, byte[]> poms = new ConcurrentHashMap<>();
+    private final Set<String> connections = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger rejected = new AtomicInteger();
+    private final AtomicInteger failNext = new AtomicInteger();
+    private volatile int delayMs;
+    private volatile int capacity;
+    private volatile int failureStatus;
+    private volatile int failNextStatus;
+    private volatile int retryAfterSeconds;
+    private volatile Function<String, byte[]> generator;
+
+    public StubRepositoryServer(int threads) throws IOException {
+        // Без TCP_NODELAY заголовки и тело уходят разными пакетами и каждый ответ
+        // ждёт delayed ACK (~40 мс), что смазывает любые измерения
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newFixedThreadPool(threads));
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    public String getUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+    }
+
+    public void setDelayMs(int delayMs) { this.delayMs = delayMs; }
+    public int getRequestCount() { return requests.get(); }
+    public int getConnectionCount() { return connections.size(); }
+
+    /**
+     * Ответов 503/429 из-за перегрузки или заданного статуса.
+     */
+    public int getRejectedCount() { return rejected.get(); }
+
+    /**
+     * Сколько запросов обрабатывается одновременно; сверх этого - сразу 503 (0 - без ограничения).
+     */
+    public void setCapacity(int capacity) { this.capacity = capacity; }
+
+    /**
+     * Отвечать на все запросы этим статусом (0 - обычная работа).
+     */
+    public void setFailureStatus(int failureStatus) { this.failureStatus = failureStatus; }
+
+    /**
+     * Ответить статусом status на следующие count запросов.
+     */
+    public void failNext(int count, int status) {
+        failNextStatus = status;
+        failNext.set(count);
+    }
+
+    /**
+     * Заголовок Retry-After у отказов (0 - без заголовка).
+     */
+    public void setRetryAfterSeconds(int retryAfterSeconds) { this.retryAfterSeconds = retryAfterSeconds; }
+
+    /**
+     * Генерировать POM по пути запроса, если он не положен явно (null - 404):
+     * так заглушка изображает репозиторий из миллионов POM, не держа их в памяти.
+     */
+    public void setGenerator(Function<String, byte[]> generator) { this.generator = generator; }
+
+    public void resetCounters() {
+        requests.set(0);
+        rejected.set(0);
+        connections.clear();
+    }
+
+    /**
+     * Положить POM по координате groupId:artifactId:version.
+     */
+    public void put(String groupId, String artifactId, String version, byte[] pom) {
+        poms.put(path(groupId, artifactId, version), pom);
+    }
+
+    /**
+     * Положить POM с указанными прямыми зависимостями (groupId:artifactId:version).
+     */
+    public void put(String groupId, String artifactId, String version, List<String> dependencies) {
+        put(groupId, artifactId, version, pom(groupId, artifactId, version, dependencies));
+    }
+
+    /**
+     * Минимальный POM с прямыми зависимостями (groupId:artifactId:version).
+     */
+    public static byte[] pom(String groupId, String artifactId, String version, List<String> dependencies) {
+        StringBuilder xml = new StringBuilder();
+        xml.append("<project>\n  <modelVersion>4.0.0</modelVersion>\n");
+        xml.append("  <groupId>").append(groupId).append("</groupId>\n");
+        xml.append("  <artifactId>").append(artifactId).append("</artifactId>\n");
+        xml.append("  <version>").append(version).append("</version>\n");
+        xml.append("  <dependencies>\n");
+        for (String dep : dependencies) {
+            String[] parts = dep.split(":");
+            xml.append("    <dependency>\n");
+            xml.append("      <groupId>").append(parts[0]).append("</groupId>\n");
+            xml.append("      <artifactId>").append(parts[1]).append("</artifactId>\n");
+            xml.append("      <version>").append(parts[2]).append("</version>\n");
+            xml.append("    </dependency>\n");
+        }
+        xml.append("  </dependencies>\n</project>\n");
+        return xml.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    public static String path(String groupId, String artifactId, String version) {
+        return "/" + groupId.replace('.', '/') + "/" + artifactId + "/" + version + "/"
+            + artifactId + "-" + version + ".pom";
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        connections.add(exchange.getRemoteAddress().toString());
+
+        int status = failureStatus;
+        if (status == 0 && failNext.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+            status = failNextStatus;
+        }
+        if (status != 0) {
+            reject(exchange, status);
+            return;
+        }
+        // Перегруженный сервер отказывает сразу, не тратя времени на запрос
+        int limit = capacity;
+        if (active.incrementAndGet() > limit && limit > 0) {
+            active.decrementAndGet();
+            reject(exchange, 503);
+            return;
+        }
+        try {
+            if (delayMs > 0) {
+                Thread.sleep(delayMs);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            // До отправки ответа: следующий запрос клиента не должен застать эту работу
+            active.decrementAndGet();
+        }
+
+        String path = exchange.getRequestURI().getPath();
+        byte[] body = poms.get(path);
+        Function<String, byte[]> generate = generator;
+        if (body == null && generate != null) {
+            body = generate.apply(path);
+        }
+        if (body == null) {
+            // Как у настоящих репозиториев: 404 с небольшим телом
+            byte[] notFound = "<html><body>404 Not Found</body></html>".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(404, notFound.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(notFound);
+            }
+            return;
+        }
+
+        String encoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+        if (encoding != null && encoding.contains("gzip")) {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+            try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+                gzip.write(body);
+            }
+            body = compressed.toByteArray();
+            exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+        }
+
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private void reject(HttpExchange exchange, int status) throws IOException {
+        rejected.incrementAndGet();
+        if (retryAfterSeconds > 0) {
+            exchange.getResponseHeaders().set("Retry-After", Integer.toString(retryAfterSeconds));
+        }
+        exchange.sendResponseHeaders(status, -1);
+        exchange.close();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        ((ExecutorService) server.getExecutor()).shutdownNow();
+    }
+}
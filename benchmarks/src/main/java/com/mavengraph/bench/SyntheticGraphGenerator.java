@@ -0,0 +1,60 @@
+package com.mavengraph.bench;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * Генератор синтетических графов в тестовом формате ("A -> B,C").
+ * Средняя полустепень исхода 4. Без циклов рёбра идут только к узлам
+ * с большим номером (DAG); с циклами каждый 50-й узел получает обратное ребро.
+ *
+ * Запуск: java -cp benchmarks.jar com.mavengraph.bench.SyntheticGraphGenerator <рёбер> <cyclic> <файл> [seed]
+ */
+public class SyntheticGraphGenerator {
+    private static final int OUT_DEGREE = 4;
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3) {
+            System.err.println("Использование: SyntheticGraphGenerator <рёбер> <true|false> <файл> [seed]");
+            System.exit(1);
+        }
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : 42;
+        long written = generate(Integer.parseInt(args[0]), Boolean.parseBoolean(args[1]), seed, Paths.get(args[2]));
+        System.out.println("Записано рёбер: " + written);
+    }
+
+    /**
+     * Записать граф примерно с заданным числом рёбер. Возвращает точное число рёбер.
+     */
+    public static long generate(int edges, boolean cyclic, long seed, Path target) throws IOException {
+        int nodes = Math.max(2, edges / OUT_DEGREE);
+        Random random = new Random(seed);
+        long written = 0;
+
+        try (Writer out = new BufferedWriter(
+                new OutputStreamWriter(Files.newOutputStream(target), StandardCharsets.US_ASCII), 1 << 16)) {
+            for (int i = 0; i < nodes; i++) {
+                out.write('n');
+                out.write(Integer.toString(i));
+                out.write(" ->");
+
+                int remaining = nodes - i - 1;
+                int degree = Math.min(OUT_DEGREE, remaining);
+                for (int d = 0; d < degree; d++) {
+                    out.write(d == 0 ? " n" : ",n");
+                    out.write(Integer.toString(i + 1 + random.nextInt(remaining)));
+                    written++;
+                }
+                if (cyclic && i > 0 && i % 50 == 0) {
+                    out.write(degree == 0 ? " n" : ",n");
+                    out.write(Integer.toString(random.nextInt(i)));
+                    written++;
+                }
+                out.write('\n');
+            }
+        }
+        return written;
+    }
+}
@@ -0,0 +1,105 @@
+package com.mavengraph;
+
+import java.util.*;
+import java.util.function.ToLongBiFunction;
+
+/**
+ * LRU-кэш в памяти с ограничением по суммарному весу записей (примерный размер в байтах).
+ * При переполнении вытесняются давно не использованные записи. Потокобезопасен;
+ * все операции короткие, поэтому достаточно одной блокировки.
+ */
+class BoundedCache<K, V> {
+    private final long maxWeight;
+    private final ToLongBiFunction<K, V> weigher;
+    private final LinkedHashMap<K, V> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private long weight;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    BoundedCache(long maxWeight, ToLongBiFunction<K, V> weigher) {
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
+    }
+
+    synchronized V get(K key) {
+        V value = entries.get(key);
+        if (value != null) {
+            hits++;
+        } else {
+            misses++;
+        }
+        return value;
+    }
+
+    /**
+     * Запись тяжелее всего кэша не сохраняется.
+     */
+    synchronized void put(K key, V value) {
+        long entryWeight = weigher.applyAsLong(key, value);
+        V old = entries.remove(key);
+        if (old != null) {
+            weight -= weigher.applyAsLong(key, old);
+        }
+        if (entryWeight > maxWeight) {
+            return;
+        }
+        entries.put(key, value);
+        weight += entryWeight;
+        trim(maxWeight);
+    }
+
+    /**
+     * Как put, но существующая запись не заменяется, а возвращается; null - ключа не было.
+     */
+    synchronized V putIfAbsent(K key, V value) {
+        V existing = entries.get(key);
+        if (existing != null) {
+            return existing;
+        }
+        put(key, value);
+        return null;
+    }
+
+    /**
+     * Вытеснить старые записи, пока вес не станет не больше доли fraction от предела.
+     */
+    synchronized void shrink(double fraction) {
+        trim((long) (maxWeight * fraction));
+    }
+
+    /**
+     * Удалить запись, только если по ключу всё ещё лежит value.
+     */
+    synchronized boolean remove(K key, V value) {
+        V current = entries.get(key);
+        if (current == null || current != value) {
+            return false;
+        }
+        entries.remove(key);
+        weight -= weigher.applyAsLong(key, current);
+        return true;
+    }
+
+    synchronized void clear() {
+        entries.clear();
+        weight = 0;
+    }
+
+    synchronized int size() { return entries.size(); }
+    synchronized long getWeight() { return weight; }
+    long getMaxWeight() { return maxWeight; }
+    synchronized long getHits() { return hits; }
+    synchronized long getMisses() { return misses; }
+    synchronized long getEvictions() { return evictions; }
+
+    private void trim(long limit) {
+        Iterator<Map.Entry<K, V>> it = entries.entrySet().iterator();
+        while (weight > limit && it.hasNext()) {
+            Map.Entry<K, V> eldest = it.next();
+            weight -= weigher.applyAsLong(eldest.getKey(), eldest.getValue());
+            it.remove();
+            evictions++;
+        }
+    }
+}
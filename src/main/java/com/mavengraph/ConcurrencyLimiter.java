@@ -0,0 +1,94 @@
+package com.mavengraph;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Адаптивный предел одновременных запросов к одному репозиторию (AIMD).
+ * Успешный ответ, пока предел действительно используется, добавляет 1/limit -
+ * примерно +1 за время ответа. Перегрузка (429/503, таймаут, обрыв) уменьшает
+ * предел вдвое, рост задержки выше допуска над базовой - на 10%; уменьшение
+ * не чаще раза за сглаженное время ответа, чтобы одна волна отказов от уже
+ * отправленных запросов не сбрасывала предел до единицы.
+ */
+public class ConcurrencyLimiter {
+    // Задержка считается выросшей, если сглаженная больше базовой в TOLERANCE раз
+    // и хотя бы на MIN_QUEUE_NANOS: у ответов за доли миллисекунды шум больше сигнала
+    private static final double TOLERANCE = 2.0;
+    private static final long MIN_QUEUE_NANOS = 20_000_000L;
+    private static final double DROP_RATIO = 0.5;
+    private static final double LATENCY_RATIO = 0.9;
+    // Базовая задержка - минимум за последние BASELINE_WINDOW ответов, чтобы она могла и расти
+    private static final int BASELINE_WINDOW = 500;
+
+    private final int maxLimit;
+    private final LongSupplier clock;
+    private double limit;
+    private long baselineNanos = Long.MAX_VALUE;
+    private long windowMinNanos = Long.MAX_VALUE;
+    private int windowSamples;
+    private double smoothedNanos;
+    private long lastDecreaseNanos;
+    private long decreases;
+
+    public ConcurrencyLimiter(int initialLimit, int maxLimit) {
+        this(initialLimit, maxLimit, System::nanoTime);
+    }
+
+    /**
+     * clock - время в наносекундах (System.nanoTime; в тестах - управляемые часы).
+     */
+    ConcurrencyLimiter(int initialLimit, int maxLimit, LongSupplier clock) {
+        if (maxLimit < 1 || initialLimit < 1) {
+            throw new IllegalArgumentException("предел должен быть >= 1");
+        }
+        this.maxLimit = maxLimit;
+        this.clock = clock;
+        this.limit = Math.min(initialLimit, maxLimit);
+    }
+
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    public synchronized long getDecreases() {
+        return decreases;
+    }
+
+    /**
+     * Успешный ответ за rttNanos; inFlight - сколько запросов было в работе при отправке.
+     */
+    public synchronized void onSuccess(long rttNanos, int inFlight) {
+        smoothedNanos = smoothedNanos == 0 ? rttNanos : smoothedNanos * 0.9 + rttNanos * 0.1;
+        windowMinNanos = Math.min(windowMinNanos, rttNanos);
+        baselineNanos = Math.min(baselineNanos, rttNanos);
+        if (++windowSamples >= BASELINE_WINDOW) {
+            baselineNanos = windowMinNanos;
+            windowMinNanos = Long.MAX_VALUE;
+            windowSamples = 0;
+        }
+
+        if (smoothedNanos > baselineNanos * TOLERANCE && smoothedNanos - baselineNanos > MIN_QUEUE_NANOS) {
+            decrease(LATENCY_RATIO);
+        } else if (inFlight * 2 >= limit) {
+            // Не растём, пока предел не используется хотя бы наполовину
+            limit = Math.min(maxLimit, limit + 1.0 / limit);
+        }
+    }
+
+    /**
+     * Отказ от перегрузки: 429/503, таймаут или обрыв соединения.
+     */
+    public synchronized void onDrop() {
+        decrease(DROP_RATIO);
+    }
+
+    private void decrease(double ratio) {
+        long now = clock.getAsLong();
+        if (decreases > 0 && now - lastDecreaseNanos < (long) smoothedNanos) {
+            return;
+        }
+        lastDecreaseNanos = now;
+        decreases++;
+        limit = Math.max(1, limit * ratio);
+    }
+}
@@ -1,6 +1,8 @@
 package com.mavengraph;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -14,6 +16,48 @@ public class Config {
     private boolean testMode = false;
     private String testRepoPath;
     private String outputFile = "graph.png";
+    private int parallelism = 1;
+    private String cacheDir;
+    private boolean offline = false;
+    private long cacheMaxMb = 512;
+    private boolean condensation = false;
+    private int connectTimeoutMs = 5000;
+    private int readTimeoutMs = 5000;
+    private int maxInFlight = 16;
+    private String metricsFile;
+    private boolean effectivePom = true;
+    private String snapshotIn;
+    private String snapshotOut;
+    private String rootsFile;
+    private boolean daemon = false;
+    private int daemonPort = ResolverDaemon.DEFAULT_PORT;
+    private long daemonMaxMb = 256;
+    private boolean noDaemon = false;
+    private boolean export = false;
+    private String exportFormat;
+    private int exportDepth = -1;
+    private String exportRoot;
+    private boolean collapseCycles = false;
+    private String whyPattern;
+    private String dependentsPattern;
+    private String closurePattern;
+    private boolean mediate = false;
+    private String localRepo;
+    private boolean noLocalRepo = false;
+    private List<String> mirrors = new ArrayList<>();
+    private int maxRetries = 3;
+    private boolean fixedConcurrency = false;
+    private String streamFile;
+    private int streamFlush = 64;
+    private long streamFlushMs = 1000;
+    private double deadlineSeconds = 0;
+    private String crawlDir;
+    private List<String> crawlGroups = new ArrayList<>();
+    private int crawlDepth = -1;
+    private long offHeapMb = 256;
+    private long modelCache = 0;
+    private String analyticsFile;
+    private String diffFile;
     
     // Геттеры
     public String getPackageName() { return packageName; }
@@ -22,6 +66,48 @@ public class Config {
     public boolean isTestMode() { return testMode; }
     public String getTestRepoPath() { return testRepoPath; }
     public String getOutputFile() { return outputFile; }
+    public int getParallelism() { return parallelism; }
+    public String getCacheDir() { return cacheDir; }
+    public boolean isOffline() { return offline; }
+    public long getCacheMaxMb() { return cacheMaxMb; }
+    public boolean isCondensation() { return condensation; }
+    public int getConnectTimeoutMs() { return connectTimeoutMs; }
+    public int getReadTimeoutMs() { return readTimeoutMs; }
+    public int getMaxInFlight() { return maxInFlight; }
+    public String getMetricsFile() { return metricsFile; }
+    public boolean isEffectivePom() { return effectivePom; }
+    public String getSnapshotIn() { return snapshotIn; }
+    public String getSnapshotOut() { return snapshotOut; }
+    public String getRootsFile() { return rootsFile; }
+    public boolean isDaemon() { return daemon; }
+    public int getDaemonPort() { return daemonPort; }
+    public long getDaemonMaxMb() { return daemonMaxMb; }
+    public boolean isNoDaemon() { return noDaemon; }
+    public boolean isExport() { return export; }
+    public String getExportFormat() { return exportFormat; }
+    public int getExportDepth() { return exportDepth; }
+    public String getExportRoot() { return exportRoot; }
+    public boolean isCollapseCycles() { return collapseCycles; }
+    public String getWhyPattern() { return whyPattern; }
+    public String getDependentsPattern() { return dependentsPattern; }
+    public String getClosurePattern() { return closurePattern; }
+    public boolean isMediate() { return mediate; }
+    public String getLocalRepo() { return localRepo; }
+    public boolean isNoLocalRepo() { return noLocalRepo; }
+    public List<String> getMirrors() { return mirrors; }
+    public int getMaxRetries() { return maxRetries; }
+    public boolean isFixedConcurrency() { return fixedConcurrency; }
+    public String getStreamFile() { return streamFile; }
+    public int getStreamFlush() { return streamFlush; }
+    public long getStreamFlushMs() { return streamFlushMs; }
+    public double getDeadlineSeconds() { return deadlineSeconds; }
+    public String getCrawlDir() { return crawlDir; }
+    public List<String> getCrawlGroups() { return crawlGroups; }
+    public int getCrawlDepth() { return crawlDepth; }
+    public long getOffHeapMb() { return offHeapMb; }
+    public long getModelCache() { return modelCache; }
+    public String getAnalyticsFile() { return analyticsFile; }
+    public String getDiffFile() { return diffFile; }
     
     // Сеттеры
     public void setPackageName(String packageName) { this.packageName = packageName; }
@@ -30,6 +116,48 @@ public class Config {
     public void setTestMode(boolean testMode) { this.testMode = testMode; }
     public void setTestRepoPath(String testRepoPath) { this.testRepoPath = testRepoPath; }
     public void setOutputFile(String outputFile) { this.outputFile = outputFile; }
+    public void setParallelism(int parallelism) { this.parallelism = parallelism; }
+    public void setCacheDir(String cacheDir) { this.cacheDir = cacheDir; }
+    public void setOffline(boolean offline) { this.offline = offline; }
+    public void setCacheMaxMb(long cacheMaxMb) { this.cacheMaxMb = cacheMaxMb; }
+    public void setCondensation(boolean condensation) { this.condensation = condensation; }
+    public void setConnectTimeoutMs(int connectTimeoutMs) { this.connectTimeoutMs = connectTimeoutMs; }
+    public void setReadTimeoutMs(int readTimeoutMs) { this.readTimeoutMs = readTimeoutMs; }
+    public void setMaxInFlight(int maxInFlight) { this.maxInFlight = maxInFlight; }
+    public void setMetricsFile(String metricsFile) { this.metricsFile = metricsFile; }
+    public void setEffectivePom(boolean effectivePom) { this.effectivePom = effectivePom; }
+    public void setSnapshotIn(String snapshotIn) { this.snapshotIn = snapshotIn; }
+    public void setSnapshotOut(String snapshotOut) { this.snapshotOut = snapshotOut; }
+    public void setRootsFile(String rootsFile) { this.rootsFile = rootsFile; }
+    public void setDaemon(boolean daemon) { this.daemon = daemon; }
+    public void setDaemonPort(int daemonPort) { this.daemonPort = daemonPort; }
+    public void setDaemonMaxMb(long daemonMaxMb) { this.daemonMaxMb = daemonMaxMb; }
+    public void setNoDaemon(boolean noDaemon) { this.noDaemon = noDaemon; }
+    public void setExport(boolean export) { this.export = export; }
+    public void setExportFormat(String exportFormat) { this.exportFormat = exportFormat; }
+    public void setExportDepth(int exportDepth) { this.exportDepth = exportDepth; }
+    public void setExportRoot(String exportRoot) { this.exportRoot = exportRoot; }
+    public void setCollapseCycles(boolean collapseCycles) { this.collapseCycles = collapseCycles; }
+    public void setWhyPattern(String whyPattern) { this.whyPattern = whyPattern; }
+    public void setDependentsPattern(String dependentsPattern) { this.dependentsPattern = dependentsPattern; }
+    public void setClosurePattern(String closurePattern) { this.closurePattern = closurePattern; }
+    public void setMediate(boolean mediate) { this.mediate = mediate; }
+    public void setLocalRepo(String localRepo) { this.localRepo = localRepo; }
+    public void setNoLocalRepo(boolean noLocalRepo) { this.noLocalRepo = noLocalRepo; }
+    public void addMirror(String mirror) { this.mirrors.add(mirror); }
+    public void setMaxRetries(int maxRetries) { this.maxRetries = maxRetries; }
+    public void setFixedConcurrency(boolean fixedConcurrency) { this.fixedConcurrency = fixedConcurrency; }
+    public void setStreamFile(String streamFile) { this.streamFile = streamFile; }
+    public void setStreamFlush(int streamFlush) { this.streamFlush = streamFlush; }
+    public void setStreamFlushMs(long streamFlushMs) { this.streamFlushMs = streamFlushMs; }
+    public void setDeadlineSeconds(double deadlineSeconds) { this.deadlineSeconds = deadlineSeconds; }
+    public void setCrawlDir(String crawlDir) { this.crawlDir = crawlDir; }
+    public void addCrawlGroup(String crawlGroup) { this.crawlGroups.add(crawlGroup); }
+    public void setCrawlDepth(int crawlDepth) { this.crawlDepth = crawlDepth; }
+    public void setOffHeapMb(long offHeapMb) { this.offHeapMb = offHeapMb; }
+    public void setModelCache(long modelCache) { this.modelCache = modelCache; }
+    public void setAnalyticsFile(String analyticsFile) { this.analyticsFile = analyticsFile; }
+    public void setDiffFile(String diffFile) { this.diffFile = diffFile; }
     
     /**
      * Получить все параметры в формате ключ-значение
@@ -43,6 +171,46 @@ public class Config {
         params.put("testMode", Boolean.toString(testMode));
         params.put("testRepoPath", testRepoPath != null ? testRepoPath : "не указан");
         params.put("outputFile", outputFile);
+        params.put("parallelism", Integer.toString(parallelism));
+        params.put("cacheDir", cacheDir != null ? cacheDir : "не указан");
+        params.put("offline", Boolean.toString(offline));
+        params.put("cacheMaxMb", Long.toString(cacheMaxMb));
+        params.put("condensation", Boolean.toString(condensation));
+        params.put("connectTimeoutMs", Integer.toString(connectTimeoutMs));
+        params.put("readTimeoutMs", Integer.toString(readTimeoutMs));
+        params.put("maxInFlight", Integer.toString(maxInFlight));
+        params.put("metricsFile", metricsFile != null ? metricsFile : "не указан");
+        params.put("effectivePom", Boolean.toString(effectivePom));
+        params.put("snapshotIn", snapshotIn != null ? snapshotIn : "не указан");
+        params.put("snapshotOut", snapshotOut != null ? snapshotOut : "не указан");
+        params.put("rootsFile", rootsFile != null ? rootsFile : "не указан");
+        params.put("daemon", Boolean.toString(daemon));
+        params.put("daemonPort", Integer.toString(daemonPort));
+        params.put("daemonMaxMb", Long.toString(daemonMaxMb));
+        params.put("noDaemon", Boolean.toString(noDaemon));
+        params.put("export", Boolean.toString(export));
+        params.put("exportFormat", exportFormat != null ? exportFormat : "по расширению");
+        params.put("exportDepth", exportDepth >= 0 ? Integer.toString(exportDepth) : "не ограничена");
+        params.put("exportRoot", exportRoot != null ? exportRoot : "не указан");
+        params.put("collapseCycles", Boolean.toString(collapseCycles));
+        params.put("why", whyPattern != null ? whyPattern : "не указан");
+        params.put("dependents", dependentsPattern != null ? dependentsPattern : "не указан");
+        params.put("closure", closurePattern != null ? closurePattern : "не указан");
+        params.put("mediate", Boolean.toString(mediate));
+        params.put("localRepo", noLocalRepo ? "отключён" : localRepo != null ? localRepo : "~/.m2/repository");
+        params.put("mirrors", !mirrors.isEmpty() ? String.join(", ", mirrors) : "не указаны");
+        params.put("maxRetries", Integer.toString(maxRetries));
+        params.put("fixedConcurrency", Boolean.toString(fixedConcurrency));
+        params.put("stream", streamFile != null ? ("-".equals(streamFile) ? "stdout" : streamFile) : "не указан");
+        params.put("streamFlush", streamFlush + " записей / " + streamFlushMs + " мс");
+        params.put("deadline", deadlineSeconds > 0 ? deadlineSeconds + " с" : "не указан");
+        params.put("crawl", crawlDir != null ? crawlDir : "не указан");
+        params.put("crawlGroups", !crawlGroups.isEmpty() ? String.join(", ", crawlGroups) : "все");
+        params.put("crawlDepth", crawlDepth >= 0 ? Integer.toString(crawlDepth) : "не ограничена");
+        params.put("offHeapMb", Long.toString(offHeapMb));
+        params.put("modelCache", modelCache > 0 ? Long.toString(modelCache) : "не ограничен");
+        params.put("analytics", analyticsFile != null ? analyticsFile : "не указан");
+        params.put("diff", diffFile != null ? diffFile : "не указан");
         return params;
     }
 }
\ No newline at end of file
@@ -0,0 +1,164 @@
+package com.mavengraph;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+
+/**
+ * Очередь обхода на диске: строки "groupId:artifactId:version\tглубина" дописываются
+ * в конец файла и читаются с головы. В памяти - только буферы записи и чтения,
+ * поэтому фронт из миллионов координат не занимает кучу. Позиции головы и хвоста
+ * сохраняет Crawler в контрольной точке; после перезапуска очередь продолжается с них.
+ * Не потокобезопасна.
+ */
+public class CrawlFrontier implements Closeable {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Элемент очереди и смещение его строки в файле.
+     */
+    public static class Entry {
+        private final String id;
+        private final int depth;
+        private final long offset;
+
+        Entry(String id, int depth, long offset) {
+            this.id = id;
+            this.depth = depth;
+            this.offset = offset;
+        }
+
+        public String getId() { return id; }
+        public int getDepth() { return depth; }
+        public long getOffset() { return offset; }
+    }
+
+    private final FileChannel channel;
+    private final ByteBuffer writeBuffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private final ByteBuffer readBuffer = ByteBuffer.allocate(BUFFER_SIZE);
+    // Байт в файле (без буфера записи) и смещение следующей непрочитанной строки
+    private long fileSize;
+    private long head;
+    // Смещение в файле, с которого заполнен readBuffer
+    private long readBase;
+    private long size;
+
+    /**
+     * Открыть очередь: head и tail - сохранённые позиции (0, 0 - новая очередь);
+     * всё после tail - хвост, не попавший в контрольную точку, и отбрасывается.
+     */
+    public CrawlFrontier(Path file, long head, long tail, long size) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+            StandardOpenOption.WRITE);
+        channel.truncate(tail);
+        this.fileSize = tail;
+        this.head = head;
+        this.readBase = head;
+        this.size = size;
+        readBuffer.flip();
+    }
+
+    public long size() { return size; }
+    public boolean isEmpty() { return size == 0; }
+
+    /**
+     * Смещение следующей непрочитанной строки.
+     */
+    public long getHead() { return head; }
+
+    /**
+     * Конец очереди с учётом ещё не записанного буфера.
+     */
+    public long getTail() { return fileSize + writeBuffer.position(); }
+
+    public void add(String id, int depth) throws IOException {
+        byte[] line = (id + "\t" + depth + "\n").getBytes(StandardCharsets.UTF_8);
+        if (line.length > writeBuffer.remaining()) {
+            flush();
+        }
+        if (line.length > writeBuffer.capacity()) {
+            writeFully(ByteBuffer.wrap(line));
+        } else {
+            writeBuffer.put(line);
+        }
+        size++;
+    }
+
+    /**
+     * Следующий элемент или null, если очередь пуста.
+     */
+    public Entry poll() throws IOException {
+        if (size == 0) {
+            return null;
+        }
+        boolean refilled = false;
+        while (true) {
+            int start = readBuffer.position();
+            for (int i = start; i < readBuffer.limit(); i++) {
+                if (readBuffer.get(i) == '\n') {
+                    String line = new String(readBuffer.array(), start, i - start, StandardCharsets.UTF_8);
+                    readBuffer.position(i + 1);
+                    long offset = head;
+                    head = readBase + i + 1;
+                    size--;
+                    int tab = line.lastIndexOf('\t');
+                    return new Entry(line.substring(0, tab), Integer.parseInt(line.substring(tab + 1)), offset);
+                }
+            }
+            if (refilled || !fill()) {
+                throw new IOException("очередь обхода повреждена или строка длиннее "
+                    + BUFFER_SIZE + " байт: смещение " + head);
+            }
+            refilled = true;
+        }
+    }
+
+    /**
+     * Перечитать файл с головы; буфер записи сначала записывается, чтобы в файле
+     * были все строки - они попадают в буфер только целиком.
+     */
+    private boolean fill() throws IOException {
+        if (writeBuffer.position() > 0) {
+            flush();
+        }
+        if (head >= fileSize) {
+            return false;
+        }
+        readBuffer.clear();
+        readBase = head;
+        int n = channel.read(readBuffer, head);
+        readBuffer.flip();
+        return n > 0;
+    }
+
+    /**
+     * Записать буфер в файл (без fsync).
+     */
+    public void flush() throws IOException {
+        writeBuffer.flip();
+        writeFully(writeBuffer);
+        writeBuffer.clear();
+    }
+
+    private void writeFully(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            fileSize += channel.write(buffer, fileSize);
+        }
+    }
+
+    /**
+     * Записать буфер и сбросить файл на диск - перед сохранением контрольной точки.
+     */
+    public void sync() throws IOException {
+        flush();
+        channel.force(false);
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+        channel.close();
+    }
+}
@@ -0,0 +1,479 @@
+package com.mavengraph;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Обход экосистемы в ширину с ограниченной памятью: граф лежит в OffHeapGraph,
+ * очередь - в CrawlFrontier на диске, в куче - только окно из parallelism * 4
+ * загрузок. Раскрываются узлы, groupId которых начинается с одного из префиксов
+ * (без префиксов - все), остальные остаются листьями.
+ *
+ * В каталоге обхода:
+ *   graph.tsv   - журнал: строка на раскрытый узел, "id\tзависимость,зависимость"
+ *                 или "id\t!ошибка", если зависимости получить не удалось;
+ *   frontier    - очередь CrawlFrontier;
+ *   crawl.state - контрольная точка: длина журнала и позиции очереди;
+ *   spill/      - файлы подкачки OffHeapGraph.
+ *
+ * Контрольная точка пишется каждые checkpointEvery раскрытых узлов и при остановке.
+ * Повторный запуск с тем же каталогом обрезает журнал и очередь до неё, восстанавливает
+ * граф из журнала и продолжает обход; узлы после контрольной точки загружаются заново.
+ * Наблюдатель получает только узлы и рёбра, найденные в текущем запуске.
+ */
+public class Crawler implements Closeable {
+    static final String JOURNAL = "graph.tsv";
+    static final String FRONTIER = "frontier";
+    static final String STATE = "crawl.state";
+    private static final long STOP_POLL_MS = 50;
+    private static final int JOURNAL_BUFFER = 64 * 1024;
+
+    /**
+     * Итоги обхода.
+     */
+    public static class Stats {
+        private final int nodes;
+        private final long edges;
+        private final int expanded;
+        private final long failed;
+        private final long remaining;
+        private final long directBytes;
+        private final long spilledBytes;
+        private final long elapsedMs;
+        private final String stopReason;
+
+        Stats(int nodes, long edges, int expanded, long failed, long remaining,
+              long directBytes, long spilledBytes, long elapsedMs, String stopReason) {
+            this.nodes = nodes;
+            this.edges = edges;
+            this.expanded = expanded;
+            this.failed = failed;
+            this.remaining = remaining;
+            this.directBytes = directBytes;
+            this.spilledBytes = spilledBytes;
+            this.elapsedMs = elapsedMs;
+            this.stopReason = stopReason;
+        }
+
+        public int getNodes() { return nodes; }
+        public long getEdges() { return edges; }
+        public int getExpanded() { return expanded; }
+        public long getFailed() { return failed; }
+        public long getRemaining() { return remaining; }
+        public long getDirectBytes() { return directBytes; }
+        public long getSpilledBytes() { return spilledBytes; }
+        public long getElapsedMs() { return elapsedMs; }
+
+        /**
+         * DependencyGraph.STOP_DEADLINE, STOP_CANCELLED или null, если обход завершён.
+         */
+        public String getStopReason() { return stopReason; }
+    }
+
+    /**
+     * Загрузка, ожидающая обработки в окне.
+     */
+    private static class Pending {
+        final CrawlFrontier.Entry entry;
+        final int node;
+        final CompletableFuture<List<String>> future;
+
+        Pending(CrawlFrontier.Entry entry, int node, CompletableFuture<List<String>> future) {
+            this.entry = entry;
+            this.node = node;
+            this.future = future;
+        }
+    }
+
+    private final MavenParser parser;
+    private final String repoUrl;
+    private final Path dir;
+    private final OffHeapGraph graph;
+    private final CrawlFrontier frontier;
+    private final FileChannel journal;
+    private final ByteArrayOutputStream journalBuffer = new ByteArrayOutputStream(JOURNAL_BUFFER * 2);
+    private final ArrayDeque<Pending> window = new ArrayDeque<>();
+    private long journalBytes;
+    private long failed;
+    private List<String> groupPrefixes = Collections.emptyList();
+    private int maxDepth = -1;
+    private int parallelism = 8;
+    private int checkpointEvery = 1000;
+    private DependencyGraph.Listener listener;
+    private volatile long deadlineNanos;
+    private volatile boolean cancelled;
+    private String stopReason;
+
+    /**
+     * Открыть каталог обхода (продолжить, если в нём есть контрольная точка);
+     * offHeapBytes - бюджет памяти графа вне кучи, сверх него - файлы подкачки.
+     */
+    public Crawler(MavenParser parser, String repoUrl, Path dir, long offHeapBytes) throws IOException {
+        this.parser = parser;
+        this.repoUrl = repoUrl;
+        this.dir = dir;
+        Files.createDirectories(dir);
+
+        Properties state = new Properties();
+        Path stateFile = dir.resolve(STATE);
+        if (Files.exists(stateFile)) {
+            try (Reader in = Files.newBufferedReader(stateFile, StandardCharsets.UTF_8)) {
+                state.load(in);
+            }
+        }
+        long head = Long.parseLong(state.getProperty("frontierHead", "0"));
+        long tail = Long.parseLong(state.getProperty("frontierTail", "0"));
+        long size = Long.parseLong(state.getProperty("frontierSize", "0"));
+        this.journalBytes = Long.parseLong(state.getProperty("journalBytes", "0"));
+
+        this.graph = new OffHeapGraph(new SpillBuffer.Budget(offHeapBytes), dir.resolve("spill"));
+        this.journal = FileChannel.open(dir.resolve(JOURNAL), StandardOpenOption.CREATE,
+            StandardOpenOption.READ, StandardOpenOption.WRITE);
+        journal.truncate(journalBytes);
+        replayJournal();
+        this.frontier = new CrawlFrontier(dir.resolve(FRONTIER), head, tail, size);
+        replayFrontier(head, tail);
+    }
+
+    /**
+     * Раскрывать только groupId с этими префиксами (пустой список - все).
+     */
+    public void setGroupPrefixes(List<String> groupPrefixes) { this.groupPrefixes = groupPrefixes; }
+
+    /**
+     * Наибольшая глубина раскрываемых узлов от семян (-1 - без ограничения).
+     */
+    public void setMaxDepth(int maxDepth) { this.maxDepth = maxDepth; }
+
+    public void setParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism должен быть >= 1");
+        }
+        this.parallelism = parallelism;
+    }
+
+    public void setCheckpointEvery(int checkpointEvery) { this.checkpointEvery = checkpointEvery; }
+    public void setListener(DependencyGraph.Listener listener) { this.listener = listener; }
+
+    /**
+     * Крайний срок обхода по System.nanoTime() (0 - без срока).
+     */
+    public void setDeadline(long deadlineNanos) { this.deadlineNanos = deadlineNanos; }
+
+    /**
+     * Остановить обход; можно вызывать из другого потока (например, обработчика SIGINT).
+     */
+    public void cancel() { cancelled = true; }
+
+    public OffHeapGraph getGraph() { return graph; }
+
+    /**
+     * Обойти граф от семян (groupId:artifactId:version) до конца очереди или остановки;
+     * семена, уже встреченные в прошлых запусках, не добавляются повторно.
+     */
+    public Stats crawl(List<String> seeds) throws IOException {
+        long start = System.nanoTime();
+        stopReason = null;
+        for (String seed : seeds) {
+            discover(seed, 0);
+        }
+
+        int sinceCheckpoint = 0;
+        while (!stopRequested()) {
+            fillWindow();
+            Pending pending = window.peekFirst();
+            if (pending == null) {
+                break;
+            }
+            List<String> dependencies = await(pending.future);
+            if (dependencies == null) {
+                break;
+            }
+            window.pollFirst();
+            expand(pending, dependencies);
+            if (++sinceCheckpoint >= checkpointEvery) {
+                checkpoint();
+                sinceCheckpoint = 0;
+            }
+        }
+
+        for (Pending pending : window) {
+            pending.future.cancel(true);
+        }
+        checkpoint();
+        return new Stats(graph.nodeCount(), graph.edgeCount(), graph.expandedCount(), failed,
+            frontier.size() + window.size(), graph.getDirectBytes(), graph.getSpilledBytes(),
+            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), stopReason);
+    }
+
+    private void fillWindow() throws IOException {
+        while (window.size() < parallelism * 4) {
+            CrawlFrontier.Entry entry = frontier.poll();
+            if (entry == null) {
+                return;
+            }
+            String[] parts = entry.getId().split(":");
+            window.addLast(new Pending(entry, graph.find(entry.getId()),
+                parser.getDependenciesAsync(parts[0], parts[1], parts[2], repoUrl)));
+        }
+    }
+
+    /**
+     * Результат загрузки; null, если обход остановлен раньше.
+     */
+    private List<String> await(CompletableFuture<List<String>> future) {
+        while (true) {
+            try {
+                return future.get(STOP_POLL_MS, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                if (stopRequested()) {
+                    return null;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                cancel();
+                return null;
+            } catch (ExecutionException e) {
+                // getDependenciesAsync сообщает об ошибке через getFailure и пустой список
+                return Collections.emptyList();
+            }
+        }
+    }
+
+    private void expand(Pending pending, List<String> dependencies) throws IOException {
+        String id = pending.entry.getId();
+        String[] parts = id.split(":");
+        String error = parser.getFailure(parts[0], parts[1], parts[2]);
+        parser.forget(parts[0], parts[1], parts[2]);
+
+        StringBuilder line = new StringBuilder(id).append('\t');
+        int[] targets = new int[dependencies.size()];
+        int count = 0;
+        if (error != null) {
+            failed++;
+            line.append('!').append(error.replaceAll("\\s+", " "));
+            if (listener != null) {
+                listener.onFailure(id, error);
+            }
+        } else {
+            Set<String> seen = new HashSet<>();
+            for (String dependency : dependencies) {
+                String target = coordinate(dependency);
+                if (target == null || !seen.add(target)) {
+                    continue;
+                }
+                targets[count++] = discover(target, pending.entry.getDepth() + 1);
+                if (listener != null) {
+                    listener.onEdge(id, target);
+                }
+                line.append(count == 1 ? "" : ",").append(target);
+            }
+        }
+        graph.setEdges(pending.node, targets, count);
+        byte[] bytes = line.append('\n').toString().getBytes(StandardCharsets.UTF_8);
+        journalBuffer.write(bytes, 0, bytes.length);
+        if (journalBuffer.size() >= JOURNAL_BUFFER) {
+            writeJournal();
+        }
+    }
+
+    /**
+     * Дописать накопленные строки журнала (без fsync); всё после контрольной
+     * точки при продолжении обхода всё равно отбрасывается.
+     */
+    private void writeJournal() throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(journalBuffer.toByteArray());
+        while (buffer.hasRemaining()) {
+            journalBytes += journal.write(buffer, journalBytes);
+        }
+        journalBuffer.reset();
+    }
+
+    /**
+     * Номер узла; новый узел сообщается наблюдателю и, если его нужно раскрыть, ставится в очередь.
+     */
+    private int discover(String id, int depth) throws IOException {
+        int before = graph.nodeCount();
+        int node = graph.getOrAdd(id);
+        if (graph.nodeCount() != before) {
+            if (listener != null) {
+                listener.onNode(id, depth);
+            }
+            if (depth == 0 || shouldExpand(id, depth)) {
+                frontier.add(id, depth);
+            }
+        }
+        return node;
+    }
+
+    private boolean shouldExpand(String id, int depth) {
+        if (maxDepth >= 0 && depth > maxDepth) {
+            return false;
+        }
+        if (groupPrefixes.isEmpty()) {
+            return true;
+        }
+        for (String prefix : groupPrefixes) {
+            if (id.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * groupId:artifactId:version из строки зависимости; null для неполных координат
+     * и переменных версий - как в DependencyGraph.
+     */
+    private static String coordinate(String dependency) {
+        String[] parts = dependency.split(":");
+        if (parts.length < 3 || parts[2].contains("$")) {
+            return null;
+        }
+        return parts.length == 3 ? dependency : parts[0] + ":" + parts[1] + ":" + parts[2];
+    }
+
+    private boolean stopRequested() {
+        if (stopReason != null) {
+            return true;
+        }
+        if (cancelled) {
+            stopReason = DependencyGraph.STOP_CANCELLED;
+        } else if (deadlineNanos != 0 && System.nanoTime() - deadlineNanos >= 0) {
+            stopReason = DependencyGraph.STOP_DEADLINE;
+        }
+        return stopReason != null;
+    }
+
+    /**
+     * Сбросить журнал и очередь на диск и атомарно заменить контрольную точку.
+     * Голова очереди - первая ещё не обработанная загрузка окна: всё до неё уже в журнале.
+     */
+    private void checkpoint() throws IOException {
+        writeJournal();
+        journal.force(false);
+        frontier.sync();
+
+        Pending first = window.peekFirst();
+        Properties state = new Properties();
+        state.setProperty("journalBytes", Long.toString(journalBytes));
+        state.setProperty("frontierHead", Long.toString(first != null ? first.entry.getOffset() : frontier.getHead()));
+        state.setProperty("frontierTail", Long.toString(frontier.getTail()));
+        state.setProperty("frontierSize", Long.toString(frontier.size() + window.size()));
+        Path temp = dir.resolve(STATE + ".tmp");
+        try (Writer out = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            state.store(out, "mavengraph crawl");
+        }
+        Files.move(temp, dir.resolve(STATE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Восстановить раскрытые узлы и их рёбра из журнала (до контрольной точки).
+     */
+    private void replayJournal() throws IOException {
+        if (journalBytes == 0) {
+            return;
+        }
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(
+                LimitedInput.limit(journal, journalBytes), StandardCharsets.UTF_8), 64 * 1024)) {
+            int[] targets = new int[16];
+            String line;
+            while ((line = in.readLine()) != null) {
+                int tab = line.indexOf('\t');
+                int node = graph.getOrAdd(line.substring(0, tab));
+                int count = 0;
+                if (line.startsWith("!", tab + 1)) {
+                    failed++;
+                } else if (tab + 1 < line.length()) {
+                    for (String target : line.substring(tab + 1).split(",")) {
+                        if (count == targets.length) {
+                            targets = Arrays.copyOf(targets, count * 2);
+                        }
+                        targets[count++] = graph.getOrAdd(target);
+                    }
+                }
+                graph.setEdges(node, targets, count);
+            }
+        }
+    }
+
+    /**
+     * Узлы в очереди после контрольной точки: семена и зависимости, ещё не раскрытые.
+     * Почти все уже встречены в журнале; новыми оказываются только семена.
+     */
+    private void replayFrontier(long head, long tail) throws IOException {
+        if (tail <= head) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(dir.resolve(FRONTIER), StandardOpenOption.READ);
+             BufferedReader in = new BufferedReader(new InputStreamReader(
+                 LimitedInput.limit(channel.position(head), tail - head), StandardCharsets.UTF_8), 64 * 1024)) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                graph.getOrAdd(line.substring(0, line.lastIndexOf('\t')));
+            }
+        }
+    }
+
+    /**
+     * Чтение первых limit байт канала с его текущей позиции.
+     */
+    private static class LimitedInput extends InputStream {
+        private final InputStream in;
+        private long remaining;
+
+        private LimitedInput(FileChannel channel, long limit) {
+            this.in = Channels.newInputStream(channel);
+            this.remaining = limit;
+        }
+
+        static InputStream limit(FileChannel channel, long limit) {
+            return new LimitedInput(channel, limit);
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int b = in.read();
+            if (b >= 0) {
+                remaining--;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int n = in.read(b, off, (int) Math.min(len, remaining));
+            if (n > 0) {
+                remaining -= n;
+            }
+            return n;
+        }
+
+        @Override
+        public void close() {
+            // Канал закрывает владелец
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            frontier.close();
+            journal.close();
+        } finally {
+            graph.close();
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.mavengraph;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.ConnectException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.*;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+/**
+ * Тонкий клиент сервера (ResolverDaemon): если на порту слушает сервер с тем же
+ * репозиторием, режимом разбора и источниками POM (локальный репозиторий, зеркала,
+ * кэш, --offline), граф строится там, а здесь только печатается ответ.
+ */
+public class DaemonClient {
+    // Сервер локальный: если он не ответил на соединение за это время, его нет
+    private static final Duration CONNECT_TIMEOUT = Duration.ofMillis(300);
+
+    private DaemonClient() {
+    }
+
+    /**
+     * Разрешить корень через сервер и напечатать результат в out.
+     * false - сервера нет или он не может обслужить запрос; тогда граф строится локально.
+     */
+    public static boolean forward(Config config, PrintStream out) {
+        String root = config.getPackageName() + ":" + config.getVersion();
+        String query = "root=" + encode(root)
+            + "&depth=2&format=text"
+            + "&repo=" + encode(config.getRepoUrl())
+            + "&effectivePom=" + config.isEffectivePom()
+            + "&sources=" + encode(ResolverDaemon.sources(config))
+            + (config.isCondensation() ? "&condensation=true" : "");
+
+        HttpClient client = HttpClient.newBuilder().connectTimeout(CONNECT_TIMEOUT).build();
+        HttpRequest request = HttpRequest.newBuilder(
+            URI.create("http://127.0.0.1:" + config.getDaemonPort() + "/resolve?" + query)).GET().build();
+        try {
+            HttpResponse<String> response = client.send(request,
+                HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+            if (response.statusCode() != 200) {
+                System.err.println("Сервер не обработал запрос (" + response.statusCode() + "): "
+                    + response.body() + ", разрешаем локально");
+                return false;
+            }
+            out.println("\nОтвет сервера 127.0.0.1:" + config.getDaemonPort());
+            out.print(response.body());
+            return true;
+        } catch (ConnectException | HttpConnectTimeoutException e) {
+            return false;
+        } catch (IOException e) {
+            System.err.println("Ошибка связи с сервером: " + e.getMessage() + ", разрешаем локально");
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+}
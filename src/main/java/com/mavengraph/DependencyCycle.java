@@ -0,0 +1,32 @@
+package com.mavengraph;
+
+import java.util.*;
+
+/**
+ * Циклическая зависимость: сильно связная компонента графа
+ * и один пример цикла внутри неё.
+ */
+public class DependencyCycle {
+    private final List<String> members;
+    private final List<String> examplePath;
+
+    public DependencyCycle(List<String> members, List<String> examplePath) {
+        this.members = members;
+        this.examplePath = examplePath;
+    }
+
+    /**
+     * Все узлы компоненты.
+     */
+    public List<String> getMembers() { return members; }
+
+    /**
+     * Пример цикла: первый и последний элементы совпадают.
+     */
+    public List<String> getExamplePath() { return examplePath; }
+
+    @Override
+    public String toString() {
+        return "Цикл: " + String.join(" -> ", examplePath);
+    }
+}
@@ -1,195 +1,961 @@
 package com.mavengraph;
 
 import java.io.*;
+import java.nio.file.*;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
 
 public class DependencyGraph {
-    private Map<String, DependencyNode> nodes;
+
+    /**
+     * Наблюдатель за построением: узлы и рёбра сообщаются сразу при обнаружении,
+     * до конца обхода. onFailure вызывается из потоков загрузки, поэтому реализация
+     * должна быть потокобезопасной.
+     */
+    public interface Listener {
+        /**
+         * Новый узел; depth - глубина, на которой он встречен впервые.
+         */
+        void onNode(String id, int depth);
+
+        /**
+         * Новое ребро; оба узла уже сообщены через onNode.
+         */
+        void onEdge(String from, String to);
+
+        /**
+         * Зависимости узла получить не удалось, его поддерево будет неполным.
+         */
+        void onFailure(String id, String error);
+    }
+
+    public static final String STOP_DEADLINE = "deadline";
+    public static final String STOP_CANCELLED = "cancelled";
+    // Как часто ожидание загрузки проверяет крайний срок и отмену
+    private static final long STOP_POLL_MS = 50;
+
+    private GraphStore store;
     private List<String> cycles;
+    private List<DependencyCycle> cycleComponents;
+    private SccAnalyzer.Result components;
+    private GraphQuery query;
+    private List<VersionMediator.Result> mediation;
+    private GraphAnalytics.Report analytics;
+    private GraphDiff.Fingerprints fingerprints;
     private int maxDepth;
+    private int parallelism = 1;
+    private boolean mediate;
+    private TestGraphLoader.Stats loadStats;
+    private ResolutionMetrics metrics = new ResolutionMetrics();
+
+    // Снимок предыдущего запуска: раскрытые релизные узлы берутся из него без загрузки
+    private GraphSnapshot baseline;
+    // Снимок, из которого загружен текущий граф (buildFromTestFile)
+    private GraphSnapshot loadedSnapshot;
+    // Граф из файла полный: все узлы считаются раскрытыми
+    private boolean loadedFromFile;
+    // groupId:artifactId:version -> {хэш POM, время разрешения} для раскрытых узлов
+    private final ConcurrentHashMap<String, long[]> resolution = new ConcurrentHashMap<>();
+    private final List<Integer> roots = new ArrayList<>();
+    private int snapshotFlags;
+    private final LongAdder reusedNodes = new LongAdder();
+    private final LongAdder fetchedNodes = new LongAdder();
+    private final LongAdder changedNodes = new LongAdder();
+    // Узлы, зависимости которых получить не удалось: id -> ошибка
+    private final ConcurrentHashMap<String, String> failures = new ConcurrentHashMap<>();
+    private Listener listener;
+    // Узлы, уже сообщённые наблюдателю
+    private BitSet announced = new BitSet();
+    // Крайний срок построения по System.nanoTime() (0 - без срока) и причина остановки
+    private volatile long deadlineNanos;
+    private volatile boolean cancelled;
+    private volatile String stopReason;
+
+    // Состояние обхода на время buildGraphs: наименьшая глубина, на которой узел
+    // проходился, и дети уже раскрытых узлов
+    private int[] bestDepth;
+    private Map<Integer, int[]> expandedChildren;
 
     public DependencyGraph() {
         this(3); // По умолчанию глубина 3
     }
 
     public DependencyGraph(int maxDepth) {
-        nodes = new HashMap<>();
+        store = new GraphStore();
         cycles = new ArrayList<>();
+        cycleComponents = new ArrayList<>();
         this.maxDepth = maxDepth;
     }
 
-    public DependencyNode getOrCreateNode(String groupId, String artifactId, String version) {
-        String id = groupId + ":" + artifactId + ":" + version;
-        if (!nodes.containsKey(id)) {
-            nodes.put(id, new DependencyNode(groupId, artifactId, version));
+    public int getParallelism() { return parallelism; }
+
+    /**
+     * Число одновременных загрузок POM. 1 - последовательный обход как раньше.
+     */
+    public void setParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism должен быть >= 1");
         }
-        return nodes.get(id);
+        this.parallelism = parallelism;
+    }
+
+    public boolean isMediate() { return mediate; }
+
+    /**
+     * Строить граф с выбором версий "ближайший побеждает": обход в ширину, версия,
+     * проигравшая уже выбранной версии того же артефакта, добавляется ребром,
+     * но её POM не загружается и поддерево не раскрывается.
+     */
+    public void setMediate(boolean mediate) { this.mediate = mediate; }
+
+    public ResolutionMetrics getMetrics() { return metrics; }
+
+    /**
+     * Куда записывать время этапов и статистику графа; обычно тот же объект, что у MavenParser.
+     */
+    public void setMetrics(ResolutionMetrics metrics) { this.metrics = metrics; }
+
+    /**
+     * Включить инкрементальный режим: релизные узлы, раскрытые в снимке, не загружаются
+     * заново (релизы в репозитории неизменны), SNAPSHOT-версии и новые узлы загружаются.
+     * Снимок, построенный в другом режиме разбора POM, игнорируется при buildGraph.
+     */
+    public void setBaseline(GraphSnapshot baseline) { this.baseline = baseline; }
+
+    /**
+     * Сообщать о каждом узле и ребре по мере обхода (null - не сообщать).
+     */
+    public void setListener(Listener listener) { this.listener = listener; }
+
+    /**
+     * Крайний срок построения по System.nanoTime() (0 - без срока). После него новые
+     * POM не запрашиваются, обход заканчивается, граф остаётся корректным, но неполным:
+     * нераскрытые узлы в снимке помечаются нераскрытыми. Уже отправленный запрос
+     * при parallelism = 1 дожидается ответа.
+     */
+    public void setDeadline(long deadlineNanos) { this.deadlineNanos = deadlineNanos; }
+
+    /**
+     * Остановить текущее и последующие построения так же, как по крайнему сроку;
+     * можно вызывать из любого потока.
+     */
+    public void cancel() { cancelled = true; }
+
+    /**
+     * Почему последнее построение остановлено раньше (STOP_DEADLINE или STOP_CANCELLED);
+     * null, если граф достроен.
+     */
+    public String getStopReason() { return stopReason; }
+
+    public DependencyNode getOrCreateNode(String groupId, String artifactId, String version) {
+        return new DependencyNode(store, store.getOrCreateNode(groupId, artifactId, version));
     }
 
     public void buildGraph(DependencyNode startNode, MavenParser parser, String repoUrl) {
+        buildGraphs(Collections.singletonList(startNode), parser, repoUrl);
+    }
+
+    /**
+     * Разрешить несколько корней в один общий граф. Узлы и загрузки общие:
+     * подграф, нужный нескольким корням, загружается и разбирается один раз.
+     * При parallelism > 1 загрузки для всех корней идут одновременно.
+     */
+    public void buildGraphs(List<DependencyNode> startNodes, MavenParser parser, String repoUrl) {
         resetVisited();
         cycles.clear();
-        buildGraphRecursive(startNode, parser, repoUrl, new HashSet<>(), new ArrayDeque<>(), 0);
+        roots.clear();
+        failures.clear();
+        announced = new BitSet();
+        stopReason = null;
+        List<String> rootIds = new ArrayList<>(startNodes.size());
+        for (DependencyNode startNode : startNodes) {
+            roots.add(startNode.getIndex());
+            rootIds.add(startNode.getId());
+            announce(startNode.getIndex(), 0);
+        }
+        loadedSnapshot = null;
+        loadedFromFile = false;
+        snapshotFlags = parser.isEffectivePom() ? GraphSnapshot.FLAG_EFFECTIVE_POM : 0;
+
+        GraphSnapshot reuse = baseline;
+        if (reuse != null && reuse.getFlags() != snapshotFlags) {
+            System.err.println("Предупреждение: снимок построен в другом режиме разбора POM, не используется");
+            reuse = null;
+        }
+        Function<String, CompletableFuture<List<String>>> loader = resolvingLoader(parser, repoUrl, reuse);
+
+        ResolutionEvents.ResolutionStage event = stageEvent();
+        long start = System.nanoTime();
+        bestDepth = new int[0];
+        expandedChildren = new HashMap<>();
+        try {
+            if (mediate) {
+                buildMediated(startNodes, loader);
+            } else if (parallelism <= 1) {
+                for (DependencyNode startNode : startNodes) {
+                    buildGraphRecursive(startNode, n -> loader.apply(n.getId()).join(), 0);
+                }
+            } else {
+                ParallelPrefetcher prefetcher = new ParallelPrefetcher(loader, parallelism);
+                try {
+                    prefetcher.start(rootIds);
+                    // Обход тот же, что и в последовательном режиме, поэтому граф и циклы совпадают;
+                    // меняется только то, что ответы берутся из уже запущенных загрузок
+                    for (DependencyNode startNode : startNodes) {
+                        buildGraphRecursive(startNode, n -> prefetcher.get(n.getId()), 0);
+                    }
+                } finally {
+                    prefetcher.shutdown();
+                }
+            }
+        } finally {
+            bestDepth = null;
+            expandedChildren = null;
+        }
+        finishStage(ResolutionMetrics.Stage.EXPAND, event, start);
+
+        // Циклы ищутся по готовому графу: рекурсия обхода ограничена maxDepth,
+        // а поиск компонент не зависит от порядка посещения
+        detectCycles();
     }
 
-    private void buildGraphRecursive(DependencyNode node, MavenParser parser, String repoUrl,
-                                     Set<String> visitedInPath, Deque<String> path, int depth) {
+    /**
+     * Зависимости узла по его id: из снимка, если узел там раскрыт и это релиз,
+     * иначе через getDependenciesAsync - поток обхода не занят ожиданием ответа.
+     * Для каждого узла запоминается хэш POM и время разрешения.
+     */
+    private Function<String, CompletableFuture<List<String>>> resolvingLoader(MavenParser parser, String repoUrl,
+                                                                              GraphSnapshot reuse) {
+        return id -> {
+            String[] parts = id.split(":");
+            int old = reuse != null ? reuse.getStore().findNode(parts[0], parts[1], parts[2]) : -1;
+
+            if (old >= 0 && reuse.isExpanded(old) && !parts[2].endsWith("-SNAPSHOT")) {
+                resolution.put(id, new long[] { reuse.getPomHash(old), reuse.getResolvedAt(old) });
+                reusedNodes.increment();
+                return CompletableFuture.completedFuture(reuse.dependencyIds(old));
+            }
+
+            return parser.getDependenciesAsync(parts[0], parts[1], parts[2], repoUrl).thenApply(deps -> {
+                String failure = parser.getFailure(parts[0], parts[1], parts[2]);
+                if (failure != null) {
+                    // Не запоминаем как разрешённый: в снимке узел останется нераскрытым
+                    // и следующий инкрементальный запуск загрузит его снова
+                    failures.put(id, failure);
+                    if (listener != null) {
+                        listener.onFailure(id, failure);
+                    }
+                    return deps;
+                }
+                long hash = parser.getPomHash(parts[0], parts[1], parts[2]);
+                resolution.put(id, new long[] { hash, System.currentTimeMillis() });
+                fetchedNodes.increment();
+                if (old >= 0 && reuse.getPomHash(old) != hash) {
+                    changedNodes.increment();
+                }
+                return deps;
+            });
+        };
+    }
+
+    /**
+     * Обход в глубину до maxDepth. Зависимости узла загружаются один раз; если позже
+     * узел встречается ближе к корню (другой путь или другой корень), его поддерево
+     * проходится ещё раз по уже известным рёбрам, чтобы глубина считалась от ближайшего корня.
+     */
+    private void buildGraphRecursive(DependencyNode node, Function<DependencyNode, List<String>> source,
+                                     int depth) {
         if (depth >= maxDepth) {
             return;
         }
 
-        String nodeId = node.getId();
-
-        if (visitedInPath.contains(nodeId)) {
-            cycles.add("Цикл: " + String.join(" -> ", path) + " -> " + nodeId);
+        int index = node.getIndex();
+        if (index < bestDepth.length && bestDepth[index] <= depth) {
             return;
         }
+        if (index >= bestDepth.length) {
+            int oldLength = bestDepth.length;
+            bestDepth = Arrays.copyOf(bestDepth, Math.max(index + 1, oldLength * 2));
+            Arrays.fill(bestDepth, oldLength, bestDepth.length, Integer.MAX_VALUE);
+        }
+        bestDepth[index] = depth;
 
         if (node.isVisited()) {
+            for (int child : expandedChildren.get(index)) {
+                buildGraphRecursive(new DependencyNode(store, child), source, depth + 1);
+            }
+            return;
+        }
+        if (stopRequested()) {
+            // Узел остаётся нераскрытым; при повторном проходе ближе к корню - тоже
+            bestDepth[index] = Integer.MAX_VALUE;
             return;
         }
 
+        List<String> directDeps = source.apply(node);
+        if (directDeps == null) {
+            bestDepth[index] = Integer.MAX_VALUE;
+            return;
+        }
         node.setVisited(true);
-        visitedInPath.add(nodeId);
-        path.addLast(nodeId);
-
-        List<String> directDeps = parser.getDependencies(
-                node.getGroupId(), node.getArtifactId(), node.getVersion(), repoUrl
-        );
+        metrics.recordNodeDepth(depth);
+        int[] children = new int[directDeps.size()];
+        int childCount = 0;
 
         for (String dep : directDeps) {
-            String[] parts = dep.split(":");
-            if (parts.length >= 3) {
-                String depGroupId = parts[0];
-                String depArtifactId = parts[1];
-                String depVersion = parts[2];
-
-                // Пропускаем переменные версии
-                if (depVersion.contains("$")) {
-                    continue;
-                }
-
-                DependencyNode depNode = getOrCreateNode(depGroupId, depArtifactId, depVersion);
-                node.addDependency(depNode);
+            DependencyNode depNode = dependencyNode(dep);
+            if (depNode != null) {
+                addEdge(node, depNode, depth + 1);
+                children[childCount++] = depNode.getIndex();
 
-                buildGraphRecursive(depNode, parser, repoUrl, visitedInPath, path, depth + 1);
+                buildGraphRecursive(depNode, source, depth + 1);
             }
         }
+        expandedChildren.put(index, Arrays.copyOf(children, childCount));
+    }
 
-        visitedInPath.remove(nodeId);
-        path.removeLast();
+    private void addEdge(DependencyNode from, DependencyNode to, int depth) {
+        from.addDependency(to);
+        if (listener != null) {
+            announce(to.getIndex(), depth);
+            listener.onEdge(from.getId(), to.getId());
+        }
     }
 
-    public void buildFromTestFile(String filePath) throws IOException {
-        nodes.clear();
-        cycles.clear();
+    private void announce(int node, int depth) {
+        if (listener != null && !announced.get(node)) {
+            announced.set(node);
+            listener.onNode(store.id(node), depth);
+        }
+    }
 
-        BufferedReader reader = new BufferedReader(new FileReader(filePath));
-        String line;
+    /**
+     * Пора ли остановить построение: вызван cancel() или прошёл крайний срок.
+     */
+    private boolean stopRequested() {
+        if (stopReason != null) {
+            return true;
+        }
+        if (cancelled) {
+            stopReason = STOP_CANCELLED;
+        } else if (deadlineNanos != 0 && System.nanoTime() - deadlineNanos >= 0) {
+            stopReason = STOP_DEADLINE;
+        }
+        return stopReason != null;
+    }
 
-        while ((line = reader.readLine()) != null) {
-            line = line.trim();
-            if (line.isEmpty() || line.startsWith("#")) {
-                continue;
+    /**
+     * Узел для строки groupId:artifactId:version из списка зависимостей;
+     * null для неполных координат и переменных версий.
+     */
+    private DependencyNode dependencyNode(String dep) {
+        String[] parts = dep.split(":");
+        // Пропускаем переменные версии
+        if (parts.length < 3 || parts[2].contains("$")) {
+            return null;
+        }
+        return getOrCreateNode(parts[0], parts[1], parts[2]);
+    }
+
+    /**
+     * Построение с выбором версий: для каждого корня обход в ширину до maxDepth,
+     * раскрываются только узлы, выбранные для своего groupId:artifactId (первый
+     * встреченный - ближайший, при равной глубине объявленный раньше). Узел,
+     * выбранный для нескольких корней, загружается один раз. При parallelism > 1
+     * POM одного уровня загружаются одновременно.
+     */
+    private void buildMediated(List<DependencyNode> startNodes,
+                               Function<String, CompletableFuture<List<String>>> loader) {
+        ParallelPrefetcher prefetcher = parallelism > 1 ? new ParallelPrefetcher(loader, parallelism) : null;
+        try {
+            for (DependencyNode startNode : startNodes) {
+                VersionMediator.Winners winners = new VersionMediator.Winners(64);
+                winners.putIfAbsent(VersionMediator.key(store, startNode.getIndex()), startNode.getIndex());
+                List<DependencyNode> frontier = Collections.singletonList(startNode);
+
+                for (int depth = 0; depth < maxDepth && !frontier.isEmpty(); depth++) {
+                    if (prefetcher != null) {
+                        for (DependencyNode node : frontier) {
+                            if (!node.isVisited() && !stopRequested()) {
+                                prefetcher.fetch(node.getId());
+                            }
+                        }
+                    }
+                    List<DependencyNode> next = new ArrayList<>();
+                    for (DependencyNode node : frontier) {
+                        int[] children = expandedChildren.get(node.getIndex());
+                        if (children == null) {
+                            List<String> directDeps = stopRequested() ? null
+                                : prefetcher != null ? prefetcher.get(node.getId()) : loader.apply(node.getId()).join();
+                            if (directDeps == null) {
+                                continue;
+                            }
+                            node.setVisited(true);
+                            metrics.recordNodeDepth(depth);
+                            children = new int[directDeps.size()];
+                            int childCount = 0;
+                            for (String dep : directDeps) {
+                                DependencyNode depNode = dependencyNode(dep);
+                                if (depNode != null) {
+                                    addEdge(node, depNode, depth + 1);
+                                    children[childCount++] = depNode.getIndex();
+                                }
+                            }
+                            children = Arrays.copyOf(children, childCount);
+                            expandedChildren.put(node.getIndex(), children);
+                        }
+                        for (int child : children) {
+                            if (winners.putIfAbsent(VersionMediator.key(store, child), child) < 0) {
+                                next.add(new DependencyNode(store, child));
+                            }
+                        }
+                    }
+                    frontier = next;
+                }
             }
+        } finally {
+            if (prefetcher != null) {
+                prefetcher.shutdown();
+            }
+        }
+    }
 
-            String[] parts = line.split("->");
-            if (parts.length != 2) {
-                continue;
+    /**
+     * Параллельная загрузка зависимостей: фронт обхода расширяется по уровням (BFS)
+     * до maxDepth, каждая координата загружается ровно один раз. Загрузки асинхронные:
+     * одновременно их не больше parallelism, следующая запускается по завершении
+     * предыдущей, а не потоком, ждущим ответа.
+     */
+    private class ParallelPrefetcher {
+        private final Function<String, CompletableFuture<List<String>>> loader;
+        private final int parallelism;
+        private final ConcurrentHashMap<String, CompletableFuture<List<String>>> fetched = new ConcurrentHashMap<>();
+        // Ещё не запущенные загрузки и число идущих; под общей блокировкой
+        private final ArrayDeque<String> queued = new ArrayDeque<>();
+        private int running;
+        private volatile boolean stopped;
+
+        ParallelPrefetcher(Function<String, CompletableFuture<List<String>>> loader, int parallelism) {
+            this.loader = loader;
+            this.parallelism = parallelism;
+        }
+
+        void start(List<String> rootIds) {
+            Thread coordinator = new Thread(() -> expandLevels(rootIds), "pom-prefetch");
+            coordinator.setDaemon(true);
+            coordinator.start();
+        }
+
+        private void expandLevels(List<String> rootIds) {
+            Set<String> seen = new LinkedHashSet<>(rootIds);
+            List<String> frontier = new ArrayList<>(seen);
+
+            for (int depth = 0; depth < maxDepth && !frontier.isEmpty() && !stopped && !stopRequested(); depth++) {
+                List<CompletableFuture<List<String>>> level = new ArrayList<>();
+                for (String id : frontier) {
+                    level.add(fetch(id));
+                }
+
+                List<String> next = new ArrayList<>();
+                for (CompletableFuture<List<String>> future : level) {
+                    List<String> deps;
+                    try {
+                        deps = future.join();
+                    } catch (CancellationException | CompletionException e) {
+                        return;
+                    }
+                    for (String dep : deps) {
+                        String[] parts = dep.split(":");
+                        if (parts.length >= 3 && !parts[2].contains("$")) {
+                            String depId = parts[0] + ":" + parts[1] + ":" + parts[2];
+                            if (seen.add(depId)) {
+                                next.add(depId);
+                            }
+                        }
+                    }
+                }
+                frontier = next;
             }
+        }
 
-            String parent = parts[0].trim();
-            String childrenStr = parts[1].trim();
+        /**
+         * Запустить загрузку (если ещё не запущена); без start() это единственный
+         * способ пополнить очередь - так работает построение с выбором версий.
+         */
+        CompletableFuture<List<String>> fetch(String id) {
+            CompletableFuture<List<String>> created = new CompletableFuture<>();
+            CompletableFuture<List<String>> existing = fetched.putIfAbsent(id, created);
+            if (existing != null) {
+                return existing;
+            }
+            synchronized (queued) {
+                queued.addLast(id);
+            }
+            startQueued();
+            return created;
+        }
 
-            DependencyNode parentNode = getOrCreateNode(parent, parent, "1.0");
+        private void startQueued() {
+            while (true) {
+                String id;
+                synchronized (queued) {
+                    if (stopped || running >= parallelism || queued.isEmpty()) {
+                        return;
+                    }
+                    id = queued.pollFirst();
+                    running++;
+                }
+                CompletableFuture<List<String>> target = fetched.get(id);
+                CompletableFuture<List<String>> load = load(id);
+                if (load.isDone()) {
+                    // Узел из снимка: без рекурсии через whenComplete на каждом таком узле
+                    finish(load, target);
+                } else {
+                    load.whenComplete((deps, error) -> {
+                        finish(load, target);
+                        startQueued();
+                    });
+                }
+            }
+        }
+
+        private CompletableFuture<List<String>> load(String id) {
+            try {
+                return loader.apply(id);
+            } catch (RuntimeException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+
+        private void finish(CompletableFuture<List<String>> load, CompletableFuture<List<String>> target) {
+            synchronized (queued) {
+                running--;
+            }
+            load.whenComplete((deps, error) -> {
+                if (error != null) {
+                    target.completeExceptionally(error);
+                } else {
+                    target.complete(deps);
+                }
+            });
+        }
 
-            if (!childrenStr.isEmpty()) {
-                String[] children = childrenStr.split(",");
-                for (String child : children) {
-                    child = child.trim();
-                    if (!child.isEmpty()) {
-                        DependencyNode childNode = getOrCreateNode(child, child, "1.0");
-                        parentNode.addDependency(childNode);
+        /**
+         * Зависимости узла; null, если построение остановлено раньше, чем они получены.
+         */
+        List<String> get(String id) {
+            CompletableFuture<List<String>> future = fetch(id);
+            while (true) {
+                try {
+                    return future.get(STOP_POLL_MS, TimeUnit.MILLISECONDS);
+                } catch (TimeoutException e) {
+                    if (stopRequested()) {
+                        return null;
                     }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    cancel();
+                    return null;
+                } catch (ExecutionException e) {
+                    throw new CompletionException(e.getCause());
                 }
             }
         }
-        reader.close();
 
-        detectCycles();
+        void shutdown() {
+            synchronized (queued) {
+                stopped = true;
+                queued.clear();
+            }
+            for (CompletableFuture<List<String>> future : fetched.values()) {
+                future.cancel(true);
+            }
+        }
     }
 
-    private void detectCycles() {
+    /**
+     * Загрузить граф из файла: тестовый формат ("A -> B,C") или двоичный снимок
+     * (GraphSnapshot) - формат определяется по содержимому.
+     */
+    public void buildFromTestFile(String filePath) throws IOException {
+        store = new GraphStore();
+        components = null;
+        query = null;
+        mediation = null;
+        analytics = null;
+        fingerprints = null;
         cycles.clear();
-        resetVisited();
+        roots.clear();
+        resolution.clear();
+        loadedSnapshot = null;
+        loadedFromFile = true;
+
+        ResolutionEvents.ResolutionStage event = stageEvent();
+        long start = System.nanoTime();
+        Path path = Paths.get(filePath);
+        if (GraphSnapshot.isSnapshot(path)) {
+            loadedSnapshot = GraphSnapshot.read(path);
+            store = loadedSnapshot.getStore();
+            snapshotFlags = loadedSnapshot.getFlags();
+            for (int root : loadedSnapshot.getRoots()) {
+                roots.add(root);
+            }
+            loadStats = new TestGraphLoader.Stats(store.nodeCount(), store.edgeCount(), Files.size(path),
+                System.nanoTime() - start);
+        } else {
+            loadStats = TestGraphLoader.load(path, store, parallelism);
+        }
+        finishStage(ResolutionMetrics.Stage.LOAD, event, start);
+
+        detectCycles();
+    }
+
+    /**
+     * Корни последнего построения (номера узлов в store).
+     */
+    public int[] getRoots() {
+        int[] result = new int[roots.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = roots.get(i);
+        }
+        return result;
+    }
 
-        for (DependencyNode node : nodes.values()) {
-            if (!node.isVisited()) {
-                detectCyclesDFS(node, new HashSet<>(), new ArrayDeque<>());
+    /**
+     * Замыкание корня: узлы, достижимые из него не дальше maxDepth рёбер,
+     * включая сам корень, в порядке обхода в ширину.
+     */
+    public int[] getClosure(int root) {
+        int[] offsets = store.offsets();
+        int[] targets = store.targets();
+        BitSet seen = new BitSet(store.nodeCount());
+        int[] queue = new int[16];
+        int[] depth = new int[16];
+        int head = 0;
+        int tail = 0;
+        queue[tail] = root;
+        depth[tail++] = 0;
+        seen.set(root);
+
+        while (head < tail) {
+            int v = queue[head];
+            int d = depth[head++];
+            if (d >= maxDepth) {
+                continue;
+            }
+            for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+                int w = targets[e];
+                if (!seen.get(w)) {
+                    seen.set(w);
+                    if (tail == queue.length) {
+                        queue = Arrays.copyOf(queue, tail * 2);
+                        depth = Arrays.copyOf(depth, tail * 2);
+                    }
+                    queue[tail] = w;
+                    depth[tail++] = d + 1;
+                }
             }
         }
+        return Arrays.copyOf(queue, tail);
     }
 
-    private void detectCyclesDFS(DependencyNode node, Set<String> visitedInPath, Deque<String> path) {
-        String nodeId = node.getId();
+    /**
+     * Вывести замыкание каждого корня и сколько его узлов нужны и другим корням.
+     */
+    public void printClosures() {
+        int[] rootIds = getRoots();
+        int[][] closures = new int[rootIds.length][];
+        int[] usage = new int[store.nodeCount()];
+        for (int i = 0; i < rootIds.length; i++) {
+            closures[i] = getClosure(rootIds[i]);
+            for (int node : closures[i]) {
+                usage[node]++;
+            }
+        }
 
-        if (visitedInPath.contains(nodeId)) {
-            cycles.add("Цикл: " + String.join(" -> ", path) + " -> " + nodeId);
-            return;
+        System.out.println("\n=== Замыкания корней ===");
+        for (int i = 0; i < rootIds.length; i++) {
+            int shared = 0;
+            List<String> ids = new ArrayList<>(closures[i].length);
+            for (int node : closures[i]) {
+                if (usage[node] > 1) {
+                    shared++;
+                }
+                ids.add(store.id(node));
+            }
+            System.out.println(store.id(rootIds[i]) + " (" + closures[i].length + " узлов, общих с другими корнями: "
+                + shared + "): " + String.join(", ", ids));
         }
+    }
 
-        if (node.isVisited()) {
-            return;
+    /**
+     * Снимок текущего графа для GraphSnapshot.write. Узел считается раскрытым,
+     * если его зависимости были получены в этом запуске (или граф загружен из файла).
+     */
+    public GraphSnapshot toSnapshot() {
+        store.compact();
+        int nodes = store.nodeCount();
+        BitSet expanded = new BitSet(nodes);
+        long[] pomHashes = new long[nodes];
+        long[] resolvedAt = new long[nodes];
+
+        for (int n = 0; n < nodes; n++) {
+            if (loadedSnapshot != null) {
+                pomHashes[n] = loadedSnapshot.getPomHash(n);
+                resolvedAt[n] = loadedSnapshot.getResolvedAt(n);
+                expanded.set(n, loadedSnapshot.isExpanded(n));
+                continue;
+            }
+            long[] meta = resolution.get(store.id(n));
+            if (meta != null) {
+                pomHashes[n] = meta[0];
+                resolvedAt[n] = meta[1];
+            }
+            expanded.set(n, loadedFromFile || (meta != null && store.isVisited(n)));
         }
 
-        node.setVisited(true);
-        visitedInPath.add(nodeId);
-        path.addLast(nodeId);
+        return new GraphSnapshot(store, expanded, pomHashes, resolvedAt, getRoots(), snapshotFlags, maxDepth,
+            System.currentTimeMillis());
+    }
 
-        for (DependencyNode dep : node.getDependencies()) {
-            detectCyclesDFS(dep, visitedInPath, path);
+    /**
+     * Итог инкрементального разрешения: сколько узлов взято из снимка,
+     * сколько загружено и у скольких загруженных изменился POM.
+     */
+    public String getIncrementalSummary() {
+        return "Из снимка: " + reusedNodes.sum() + " узлов, загружено: " + fetchedNodes.sum()
+            + ", изменилось POM: " + changedNodes.sum();
+    }
+
+    /**
+     * Узлы последнего построения, зависимости которых не удалось получить
+     * (groupId:artifactId:version -> ошибка): их поддеревья в графе неполные.
+     */
+    public Map<String, String> getFailures() {
+        return new TreeMap<>(failures);
+    }
+
+    /**
+     * Статистика последней загрузки из тестового файла.
+     */
+    public TestGraphLoader.Stats getLoadStats() {
+        return loadStats;
+    }
+
+    private void detectCycles() {
+        ResolutionEvents.ResolutionStage event = stageEvent();
+        long start = System.nanoTime();
+        components = SccAnalyzer.analyze(store);
+        query = null;
+        mediation = null;
+        analytics = null;
+        fingerprints = null;
+        cycleComponents = components.cycles();
+        cycles.clear();
+        for (DependencyCycle cycle : cycleComponents) {
+            cycles.add(cycle.toString());
         }
+        finishStage(ResolutionMetrics.Stage.CYCLES, event, start);
+        metrics.recordGraph(store, components);
+    }
 
-        visitedInPath.remove(nodeId);
-        path.removeLast();
+    private static ResolutionEvents.ResolutionStage stageEvent() {
+        ResolutionEvents.ResolutionStage event = new ResolutionEvents.ResolutionStage();
+        event.begin();
+        return event;
     }
 
-    private void resetVisited() {
-        for (DependencyNode node : nodes.values()) {
-            node.setVisited(false);
+    private void finishStage(ResolutionMetrics.Stage stage, ResolutionEvents.ResolutionStage event, long start) {
+        metrics.recordStage(stage, System.nanoTime() - start);
+        event.end();
+        if (event.shouldCommit()) {
+            event.stage = stage.getKey();
+            event.nodes = store.nodeCount();
+            event.edges = store.edgeCount();
+            event.commit();
         }
     }
 
+    private void resetVisited() {
+        store.clearVisited();
+    }
+
     public List<DependencyNode> getAllNodes() {
-        return new ArrayList<>(nodes.values());
+        List<DependencyNode> result = new ArrayList<>(store.nodeCount());
+        for (int i = 0; i < store.nodeCount(); i++) {
+            result.add(new DependencyNode(store, i));
+        }
+        return result;
+    }
+
+    /**
+     * Компактное хранилище, на котором построен граф.
+     */
+    public GraphStore getStore() {
+        return store;
     }
 
     public List<String> getCycles() {
         return cycles;
     }
 
+    /**
+     * Циклы в виде компонент: все участники и пример цикла.
+     */
+    public List<DependencyCycle> getCycleComponents() {
+        return cycleComponents;
+    }
+
+    /**
+     * Разбиение на сильно связные компоненты последнего построенного графа.
+     */
+    public SccAnalyzer.Result getComponents() {
+        if (components == null) {
+            components = SccAnalyzer.analyze(store);
+        }
+        return components;
+    }
+
+    /**
+     * Индексы для запросов (обратные рёбра, поиск по шаблону, пути "почему");
+     * строятся при первом обращении.
+     */
+    public GraphQuery getQuery() {
+        if (query == null) {
+            query = new GraphQuery(store, getComponents(), getRoots());
+        }
+        return query;
+    }
+
+    /**
+     * Метрики всего графа (глубина, степени, общие узлы, критический путь),
+     * посчитанные параллельно в общем ForkJoinPool; считаются при первом обращении.
+     */
+    public GraphAnalytics.Report getAnalytics() {
+        if (analytics == null) {
+            analytics = new GraphAnalytics(store, getComponents(), getRoots(), ForkJoinPool.commonPool()).analyze();
+        }
+        return analytics;
+    }
+
+    /**
+     * Отпечатки подграфов для сравнения с другим графом (GraphDiff);
+     * считаются при первом обращении.
+     */
+    public GraphDiff.Fingerprints getFingerprints() {
+        if (fingerprints == null) {
+            fingerprints = GraphDiff.fingerprint(store, getComponents(), getRoots());
+        }
+        return fingerprints;
+    }
+
+    /**
+     * Выбор версий "ближайший побеждает" для каждого корня (для графа из файла -
+     * для первого узла каждой компоненты без входящих рёбер); считается при первом обращении.
+     */
+    public List<VersionMediator.Result> getMediation() {
+        if (mediation == null) {
+            int[] starts = roots.isEmpty() ? getComponents().sources() : getRoots();
+            int depth = loadedFromFile ? Integer.MAX_VALUE : maxDepth;
+            mediation = new ArrayList<>(starts.length);
+            for (int root : starts) {
+                mediation.add(VersionMediator.mediate(store, root, depth));
+            }
+        }
+        return mediation;
+    }
+
+    public void printMediation(PrintStream out) {
+        List<VersionMediator.Result> results = getMediation();
+        out.println("\n=== Выбор версий (ближайшая побеждает) ===");
+        BitSet losers = new BitSet(store.nodeCount());
+        for (VersionMediator.Result result : results) {
+            result.print(out);
+            for (int node : result.getLosers()) {
+                losers.set(node);
+            }
+        }
+        if (!loadedFromFile) {
+            int skipped = 0;
+            for (int node = losers.nextSetBit(0); node >= 0; node = losers.nextSetBit(node + 1)) {
+                if (!store.isVisited(node)) {
+                    skipped++;
+                }
+            }
+            out.println("Отброшенных версий: " + losers.cardinality() + ", из них POM не загружались: " + skipped);
+        }
+    }
+
+    /**
+     * Вывести DAG конденсации: каждая компонента - одна вершина.
+     */
+    public void printCondensation() {
+        printCondensation(System.out);
+    }
+
+    public void printCondensation(PrintStream out) {
+        SccAnalyzer.Result scc = getComponents();
+        out.println("\n=== Конденсация графа ===");
+        out.println("Всего компонент: " + scc.componentCount());
+
+        for (int[] edge : scc.condensationEdges()) {
+            out.println(componentLabel(scc, edge[0]) + " -> " + componentLabel(scc, edge[1]));
+        }
+    }
+
+    private String componentLabel(SccAnalyzer.Result scc, int comp) {
+        int[] members = scc.members(comp);
+        if (members.length == 1) {
+            return store.id(members[0]);
+        }
+        List<String> ids = new ArrayList<>(members.length);
+        for (int node : members) {
+            ids.add(store.id(node));
+        }
+        return "{" + String.join(", ", ids) + "}";
+    }
+
     public void printGraph() {
-        System.out.println("\n=== Граф зависимостей (глубина: " + maxDepth + ") ===");
-        System.out.println("Всего узлов: " + nodes.size());
+        printGraph(System.out);
+    }
 
-        for (DependencyNode node : nodes.values()) {
-            System.out.print(node.getId() + " -> ");
-            if (node.getDependencies().isEmpty()) {
-                System.out.println("(нет зависимостей)");
-            } else {
-                List<String> depIds = new ArrayList<>();
-                for (DependencyNode dep : node.getDependencies()) {
-                    depIds.add(dep.getId());
+    public void printGraph(PrintStream out) {
+        out.println("\n=== Граф зависимостей (глубина: " + maxDepth + ") ===");
+        out.println("Всего узлов: " + store.nodeCount());
+
+        // Прямо по CSR: без списка узлов-обёрток и склеенной строки на каждый узел
+        int[] offsets = store.offsets();
+        int[] targets = store.targets();
+        for (int v = 0; v < store.nodeCount(); v++) {
+            printId(out, v);
+            out.print(" -> ");
+            if (offsets[v] == offsets[v + 1]) {
+                out.print("(нет зависимостей)");
+            }
+            for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+                if (e > offsets[v]) {
+                    out.print(", ");
                 }
-                System.out.println(String.join(", ", depIds));
+                printId(out, targets[e]);
             }
+            out.println();
         }
 
         if (!cycles.isEmpty()) {
-            System.out.println("\n=== Обнаружены циклические зависимости ===");
+            out.println("\n=== Обнаружены циклические зависимости ===");
             for (String cycle : cycles) {
-                System.out.println(cycle);
+                out.println(cycle);
             }
         }
     }
-}
\ No newline at end of file
+
+    private void printId(PrintStream out, int node) {
+        out.print(store.groupId(node));
+        out.print(':');
+        out.print(store.artifactId(node));
+        out.print(':');
+        out.print(store.version(node));
+    }
+}
@@ -2,50 +2,56 @@ package com.mavengraph;
 
 import java.util.*;
 
+/**
+ * Узел графа - лёгкое представление поверх GraphStore (хранилище + номер узла).
+ */
 public class DependencyNode {
-    private String id; // groupId:artifactId:version
-    private String groupId;
-    private String artifactId;
-    private String version;
-    private List<DependencyNode> dependencies;
-    private boolean visited;
-    
-    public DependencyNode(String groupId, String artifactId, String version) {
-        this.groupId = groupId;
-        this.artifactId = artifactId;
-        this.version = version;
-        this.id = groupId + ":" + artifactId + ":" + version;
-        this.dependencies = new ArrayList<>();
-        this.visited = false;
+    private final GraphStore store;
+    private final int index;
+
+    DependencyNode(GraphStore store, int index) {
+        this.store = store;
+        this.index = index;
+    }
+
+    public int getIndex() { return index; }
+    public String getId() { return store.id(index); } // groupId:artifactId:version
+    public String getGroupId() { return store.groupId(index); }
+    public String getArtifactId() { return store.artifactId(index); }
+    public String getVersion() { return store.version(index); }
+    public boolean isVisited() { return store.isVisited(index); }
+    public void setVisited(boolean visited) { store.setVisited(index, visited); }
+
+    public List<DependencyNode> getDependencies() {
+        int start = store.edgesStart(index);
+        int end = store.edgesEnd(index);
+        int[] targets = store.targets();
+        List<DependencyNode> dependencies = new ArrayList<>(end - start);
+        for (int e = start; e < end; e++) {
+            dependencies.add(new DependencyNode(store, targets[e]));
+        }
+        return dependencies;
     }
-    
-    public String getId() { return id; }
-    public String getGroupId() { return groupId; }
-    public String getArtifactId() { return artifactId; }
-    public String getVersion() { return version; }
-    public List<DependencyNode> getDependencies() { return dependencies; }
-    public boolean isVisited() { return visited; }
-    public void setVisited(boolean visited) { this.visited = visited; }
-    
+
     public void addDependency(DependencyNode node) {
-        dependencies.add(node);
+        store.addEdge(index, node.index);
     }
-    
+
     @Override
     public boolean equals(Object obj) {
         if (this == obj) return true;
         if (obj == null || getClass() != obj.getClass()) return false;
         DependencyNode that = (DependencyNode) obj;
-        return id.equals(that.id);
+        return store == that.store && index == that.index;
     }
-    
+
     @Override
     public int hashCode() {
-        return id.hashCode();
+        return index;
     }
-    
+
     @Override
     public String toString() {
-        return id;
+        return getId();
     }
 }
\ No newline at end of file
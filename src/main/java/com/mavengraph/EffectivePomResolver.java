@@ -0,0 +1,324 @@
+package com.mavengraph;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Построение эффективного POM: цепочка parent, подстановка ${...},
+ * dependencyManagement и импорт BOM (scope import, type pom).
+ *
+ * Родительские POM и BOM общие для сотен артефактов, поэтому они запоминаются:
+ * каждый загружается и разбирается один раз за запуск, а результат наследования
+ * и импортированные управляемые версии переиспользуются. Один объект можно
+ * вызывать из нескольких потоков. Для обхода целых экосистем число запомненных
+ * моделей ограничивается: давно не использованные вытесняются (LRU) и при
+ * следующей встрече загружаются снова - из кэша POM или локального репозитория.
+ */
+public class EffectivePomResolver {
+    private static final int MAX_INTERPOLATION_DEPTH = 10;
+
+    /**
+     * Откуда брать POM родителей и BOM.
+     */
+    public interface ModelSource {
+        PomModel load(String groupId, String artifactId, String version) throws Exception;
+    }
+
+    /**
+     * Модель после наследования, но до подстановки свойств: в Maven свойства
+     * подставляются уже в наследнике, поэтому потомок может переопределить
+     * версию, заданную свойством в родителе.
+     */
+    private static class Inherited {
+        final String groupId;
+        final String artifactId;
+        final String version;
+        final String parentGroupId;
+        final String parentVersion;
+        final Map<String, String> properties;
+        final LinkedHashMap<String, PomModel.Dependency> managed;
+        final LinkedHashMap<String, PomModel.Dependency> dependencies;
+
+        Inherited(PomModel model, Inherited parent) {
+            groupId = model.getEffectiveGroupId();
+            artifactId = model.getArtifactId();
+            version = model.getEffectiveVersion();
+            parentGroupId = model.getParentGroupId();
+            parentVersion = model.getParentVersion();
+            properties = parent != null ? new HashMap<>(parent.properties) : new HashMap<>();
+            managed = parent != null ? new LinkedHashMap<>(parent.managed) : new LinkedHashMap<>();
+            dependencies = parent != null ? new LinkedHashMap<>(parent.dependencies) : new LinkedHashMap<>();
+
+            properties.putAll(model.getProperties());
+            for (PomModel.Dependency dependency : model.getManagedDependencies()) {
+                managed.put(dependency.getManagementKey(), dependency);
+            }
+            for (PomModel.Dependency dependency : model.getDependencies()) {
+                dependencies.put(dependency.getManagementKey(), dependency);
+            }
+        }
+    }
+
+    // Загрузки parent/BOM: future гарантирует одну загрузку даже при одновременных запросах
+    private final BoundedCache<String, CompletableFuture<PomModel>> sharedModels;
+    // Производные данные дёшевы, поэтому при гонке допускается повторное вычисление
+    private final BoundedCache<String, Inherited> inherited;
+    private final BoundedCache<String, Map<String, PomModel.Dependency>> importedManagement;
+
+    public EffectivePomResolver() {
+        this(Long.MAX_VALUE);
+    }
+
+    /**
+     * maxModels - сколько parent/BOM (и столько же производных записей) держать в памяти.
+     */
+    public EffectivePomResolver(long maxModels) {
+        sharedModels = new BoundedCache<>(maxModels, (key, value) -> 1);
+        inherited = new BoundedCache<>(maxModels, (key, value) -> 1);
+        importedManagement = new BoundedCache<>(maxModels, (key, value) -> 1);
+    }
+
+    /**
+     * Зависимости артефакта в формате groupId:artifactId:version после применения
+     * parent, свойств и dependencyManagement. Как и раньше, scope test пропускается,
+     * а зависимости, версию которых определить не удалось, отбрасываются.
+     * Если parent или BOM не загрузился, список был бы неполным: бросается IOException.
+     */
+    public List<String> resolveDependencies(PomModel model, ModelSource source) throws IOException {
+        Inherited effective = inherit(model, source, new HashSet<>());
+        Map<String, String> properties = properties(effective);
+        Map<String, PomModel.Dependency> managed = management(effective, properties, source, new HashSet<>());
+
+        Set<String> result = new LinkedHashSet<>();
+        for (PomModel.Dependency declared : effective.dependencies.values()) {
+            PomModel.Dependency dependency = interpolate(declared, properties);
+            PomModel.Dependency rule = managed.get(dependency.getManagementKey());
+            if (rule != null) {
+                rule = interpolate(rule, properties);
+            }
+
+            String version = dependency.getVersion();
+            if (version == null && rule != null) {
+                version = rule.getVersion();
+            }
+            String scope = dependency.getScope() != null ? dependency.getScope()
+                : rule != null ? rule.getScope() : null;
+
+            if ("test".equals(scope) || "import".equals(scope)
+                    || version == null || version.contains("$")
+                    || dependency.getGroupId().contains("$") || dependency.getArtifactId().contains("$")) {
+                continue;
+            }
+            result.add(dependency.getGroupId() + ":" + dependency.getArtifactId() + ":" + version);
+        }
+        return new ArrayList<>(result);
+    }
+
+    /**
+     * Число parent/BOM, загруженных через общий кэш.
+     */
+    public int getSharedModelCount() {
+        return sharedModels.size();
+    }
+
+    /**
+     * Сколько parent/BOM вытеснено из памяти из-за ограничения maxModels.
+     */
+    public long getModelEvictions() {
+        return sharedModels.getEvictions();
+    }
+
+    private Inherited inherit(PomModel model, ModelSource source, Set<String> chain) throws IOException {
+        Inherited parent = null;
+        if (model.hasParent()) {
+            String parentKey = key(model.getParentGroupId(), model.getParentArtifactId(), model.getParentVersion());
+            parent = inherited.get(parentKey);
+            if (parent == null) {
+                if (!chain.add(parentKey)) {
+                    System.err.println("Ошибка: циклическая цепочка parent через " + parentKey);
+                } else {
+                    PomModel parentModel = loadShared("parent", model.getParentGroupId(),
+                        model.getParentArtifactId(), model.getParentVersion(), source);
+                    parent = inherit(parentModel, source, chain);
+                    inherited.put(parentKey, parent);
+                    chain.remove(parentKey);
+                }
+            }
+        }
+        return new Inherited(model, parent);
+    }
+
+    /**
+     * Свойства модели плюс встроенные project.* (и устаревшие pom.*).
+     */
+    private static Map<String, String> properties(Inherited model) {
+        Map<String, String> properties = new HashMap<>(model.properties);
+        putBuiltIn(properties, "groupId", model.groupId);
+        putBuiltIn(properties, "artifactId", model.artifactId);
+        putBuiltIn(properties, "version", model.version);
+        putBuiltIn(properties, "parent.groupId", model.parentGroupId);
+        putBuiltIn(properties, "parent.version", model.parentVersion);
+        return properties;
+    }
+
+    private static void putBuiltIn(Map<String, String> properties, String name, String value) {
+        if (value != null) {
+            properties.put("project." + name, value);
+            properties.put("pom." + name, value);
+        }
+    }
+
+    /**
+     * Управляемые версии по ключу groupId:artifactId:type[:classifier]; значения
+     * ещё могут содержать ${...}. Записи самой модели и её
+     * родителей важнее импортированных; из нескольких BOM побеждает объявленный раньше.
+     */
+    private Map<String, PomModel.Dependency> management(Inherited model, Map<String, String> properties,
+                                                        ModelSource source, Set<String> chain)
+            throws IOException {
+        Map<String, PomModel.Dependency> managed = new HashMap<>();
+        List<PomModel.Dependency> imports = new ArrayList<>();
+        for (PomModel.Dependency declared : model.managed.values()) {
+            // В родителях вроде spring-boot-dependencies тысячи записей, а нужны единицы:
+            // сразу подставляются только ключи со ссылками, версии - при обращении
+            PomModel.Dependency dependency = declared;
+            if (hasReference(declared.getManagementKey()) || hasReference(declared.getScope())) {
+                dependency = interpolate(declared, properties);
+            }
+            if (dependency.isImport()) {
+                imports.add(interpolate(dependency, properties));
+            } else {
+                managed.put(dependency.getManagementKey(), dependency);
+            }
+        }
+
+        for (PomModel.Dependency bom : imports) {
+            for (Map.Entry<String, PomModel.Dependency> entry
+                    : importBom(bom.getGroupId(), bom.getArtifactId(), bom.getVersion(), source, chain).entrySet()) {
+                managed.putIfAbsent(entry.getKey(), entry.getValue());
+            }
+        }
+        return managed;
+    }
+
+    private Map<String, PomModel.Dependency> importBom(String groupId, String artifactId, String version,
+                                                       ModelSource source, Set<String> chain)
+            throws IOException {
+        if (version == null || version.contains("$")) {
+            return Collections.emptyMap();
+        }
+        String bomKey = key(groupId, artifactId, version);
+        Map<String, PomModel.Dependency> cached = importedManagement.get(bomKey);
+        if (cached != null) {
+            return cached;
+        }
+        if (!chain.add(bomKey)) {
+            System.err.println("Ошибка: циклический импорт BOM " + bomKey);
+            return Collections.emptyMap();
+        }
+
+        PomModel bom = loadShared("BOM", groupId, artifactId, version, source);
+        Inherited effective = inherit(bom, source, new HashSet<>());
+        Map<String, String> bomProperties = properties(effective);
+        // Версии BOM определяются его собственными свойствами, а не свойствами импортирующего
+        Map<String, PomModel.Dependency> resolved = new HashMap<>();
+        for (Map.Entry<String, PomModel.Dependency> entry
+                : management(effective, bomProperties, source, chain).entrySet()) {
+            resolved.put(entry.getKey(), interpolate(entry.getValue(), bomProperties));
+        }
+        Map<String, PomModel.Dependency> managed = Collections.unmodifiableMap(resolved);
+        importedManagement.put(bomKey, managed);
+        chain.remove(bomKey);
+        return managed;
+    }
+
+    /**
+     * Загрузить parent или BOM один раз за запуск; одновременные запросы ждут одну загрузку.
+     * Ошибка не запоминается: future убирается из кэша, и следующий наследник пробует
+     * снова, а не получает до конца работы процесса неполный список из-за одного сбоя сети.
+     */
+    private PomModel loadShared(String role, String groupId, String artifactId, String version,
+                                ModelSource source) throws IOException {
+        String modelKey = key(groupId, artifactId, version);
+        CompletableFuture<PomModel> future = sharedModels.get(modelKey);
+        if (future == null) {
+            CompletableFuture<PomModel> created = new CompletableFuture<>();
+            future = sharedModels.putIfAbsent(modelKey, created);
+            if (future == null) {
+                future = created;
+                try {
+                    created.complete(source.load(groupId, artifactId, version));
+                } catch (Exception e) {
+                    sharedModels.remove(modelKey, created);
+                    created.completeExceptionally(e);
+                }
+            }
+        }
+
+        try {
+            return future.join();
+        } catch (CompletionException | CancellationException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            throw new IOException("не удалось загрузить " + role + " " + modelKey + ": " + cause.getMessage(), cause);
+        }
+    }
+
+    private static PomModel.Dependency interpolate(PomModel.Dependency dependency, Map<String, String> properties) {
+        return new PomModel.Dependency(
+            interpolate(dependency.getGroupId(), properties),
+            interpolate(dependency.getArtifactId(), properties),
+            interpolate(dependency.getVersion(), properties),
+            interpolate(dependency.getType(), properties),
+            interpolate(dependency.getClassifier(), properties),
+            interpolate(dependency.getScope(), properties),
+            dependency.getOptional());
+    }
+
+    /**
+     * Подставить ${name}. Значения свойств сами могут содержать ссылки, поэтому
+     * подстановка повторяется; неизвестные и циклические ссылки остаются как есть.
+     */
+    static String interpolate(String value, Map<String, String> properties) {
+        if (value == null || value.indexOf("${") < 0) {
+            return value;
+        }
+
+        String current = value;
+        for (int pass = 0; pass < MAX_INTERPOLATION_DEPTH; pass++) {
+            StringBuilder sb = new StringBuilder(current.length() + 16);
+            boolean changed = false;
+            int pos = 0;
+            while (pos < current.length()) {
+                int start = current.indexOf("${", pos);
+                int end = start < 0 ? -1 : current.indexOf('}', start + 2);
+                if (end < 0) {
+                    sb.append(current, pos, current.length());
+                    break;
+                }
+                String replacement = properties.get(current.substring(start + 2, end));
+                sb.append(current, pos, start);
+                if (replacement != null) {
+                    sb.append(replacement);
+                    changed = true;
+                } else {
+                    sb.append(current, start, end + 1);
+                }
+                pos = end + 1;
+            }
+            current = sb.toString();
+            if (!changed || current.indexOf("${") < 0) {
+                break;
+            }
+        }
+        return current;
+    }
+
+    private static boolean hasReference(String value) {
+        return value != null && value.contains("${");
+    }
+
+    private static String key(String groupId, String artifactId, String version) {
+        return groupId + ":" + artifactId + ":" + version;
+    }
+}
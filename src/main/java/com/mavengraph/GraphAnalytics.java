@@ -0,0 +1,681 @@
+package com.mavengraph;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.BinaryOperator;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Метрики "здоровья" всего графа, посчитанные параллельно в ForkJoinPool:
+ * <ul>
+ * <li>глубина узлов - кратчайшее расстояние от ближайшего корня (обход в ширину
+ * по уровням, каждый уровень делится между потоками);</li>
+ * <li>распределения входящих и исходящих степеней (корзины по степеням двойки);</li>
+ * <li>артефакты, от которых больше всего прямых зависимых;</li>
+ * <li>узлы, достижимые из нескольких корней: биты корней распространяются по DAG
+ * конденсации, каждая задача - своё слово из 64 корней;</li>
+ * <li>критический путь DAG конденсации - самая длинная цепочка зависимостей
+ * со свёрнутыми циклами.</li>
+ * </ul>
+ * Диапазоны узлов делятся пополам до CHUNK, поэтому все ядра заняты и на графах
+ * в миллионы узлов. Критический путь - один проход по компонентам в порядке
+ * номеров, он идёт параллельно с остальными метриками.
+ */
+public class GraphAnalytics {
+    // Узлов в листовой задаче: меньше - дороже разбиение, больше - хуже балансировка
+    private static final int CHUNK = 1 << 13;
+    private static final int TOP = 20;
+    // Корзины степеней: 0, 1, 2-3, 4-7, ..., 2^31 и больше
+    private static final int DEGREE_BUCKETS = 33;
+    // До стольких корней их число для каждого узла считается точно, дальше - оценка
+    private static final int EXACT_ROOTS = 4096;
+    private static final int SKETCH_SIZE = 16;
+
+    private final GraphStore store;
+    private final SccAnalyzer.Result scc;
+    private final int[] requestedRoots;
+    private final ForkJoinPool pool;
+    private final int[] offsets;
+    private final int[] targets;
+    private final int n;
+
+    /**
+     * Итог анализа; массивы по узлам (depth, fanIn, rootCount) нужны для CSV.
+     */
+    public static class Report {
+        private int nodes;
+        private int edges;
+        private int[] roots;
+        private int reachable;
+        private int[] depth;
+        private int maxDepth;
+        private double avgDepth;
+        private long[] nodesAtDepth;
+        private int[] fanIn;
+        private long[] fanInBuckets;
+        private long[] fanOutBuckets;
+        private int maxFanIn;
+        private int maxFanOut;
+        private int[] topDependedUpon;
+        private int[] rootCount;
+        private int sharedNodes;
+        private boolean rootsEstimated;
+        private int[] topShared;
+        private int components;
+        private int cyclicComponents;
+        private int[] criticalPath;
+        private long elapsedNanos;
+        private GraphStore store;
+        private SccAnalyzer.Result scc;
+
+        public int getNodes() { return nodes; }
+        public int getEdges() { return edges; }
+        public int getRootCount() { return roots.length; }
+        public int getReachable() { return reachable; }
+        public int getMaxDepth() { return maxDepth; }
+        public double getAvgDepth() { return avgDepth; }
+        public int getMaxFanIn() { return maxFanIn; }
+        public int getMaxFanOut() { return maxFanOut; }
+        public double getAvgFanOut() { return nodes == 0 ? 0 : (double) edges / nodes; }
+
+        /**
+         * Среднее число прямых зависимых; совпадает со средним числом зависимостей.
+         */
+        public double getAvgFanIn() { return getAvgFanOut(); }
+
+        public int getSharedNodes() { return sharedNodes; }
+
+        /**
+         * Числа корней по узлам - оценка (корней больше EXACT_ROOTS); 0 и 1 всё равно точные.
+         */
+        public boolean isRootsEstimated() { return rootsEstimated; }
+        public int getComponents() { return components; }
+        public int getCyclicComponents() { return cyclicComponents; }
+        public long getElapsedNanos() { return elapsedNanos; }
+
+        /**
+         * Рёбер на самом длинном пути DAG конденсации.
+         */
+        public int getCriticalPathLength() { return Math.max(0, criticalPath.length - 1); }
+
+        /**
+         * Компоненты самого длинного пути, от начала к концу.
+         */
+        public List<String> getCriticalPath() {
+            List<String> path = new ArrayList<>(criticalPath.length);
+            for (int comp : criticalPath) {
+                path.add(componentLabel(comp));
+            }
+            return path;
+        }
+
+        /**
+         * Глубина узла от ближайшего корня; -1 - недостижим из корней.
+         */
+        public int depth(int node) { return depth[node]; }
+        public int fanIn(int node) { return fanIn[node]; }
+
+        /**
+         * Из скольких корней достижим узел.
+         */
+        public int roots(int node) { return rootCount[scc.componentOf(node)]; }
+
+        private String componentLabel(int comp) {
+            int size = scc.componentSize(comp);
+            String first = store.id(scc.memberAt(scc.memberStart(comp)));
+            return size == 1 ? first : first + " (+" + (size - 1) + " в цикле)";
+        }
+
+        public String toJson() {
+            StringBuilder sb = new StringBuilder(8192);
+            sb.append("{\n");
+            sb.append("  \"nodes\": ").append(nodes).append(",\n");
+            sb.append("  \"edges\": ").append(edges).append(",\n");
+            sb.append("  \"roots\": ").append(roots.length).append(",\n");
+            sb.append("  \"reachable\": ").append(reachable).append(",\n");
+            sb.append("  \"depth\": {\"max\": ").append(maxDepth)
+                .append(", \"avg\": ").append(Json.number(avgDepth)).append(", \"nodesAtDepth\": [");
+            for (int d = 0; d < nodesAtDepth.length; d++) {
+                sb.append(d == 0 ? "" : ", ").append(nodesAtDepth[d]);
+            }
+            sb.append("]},\n");
+            appendDistribution(sb, "fanOut", maxFanOut, getAvgFanOut(), fanOutBuckets);
+            appendDistribution(sb, "fanIn", maxFanIn, getAvgFanIn(), fanInBuckets);
+
+            sb.append("  \"mostDependedUpon\": [");
+            for (int i = 0; i < topDependedUpon.length; i++) {
+                int node = topDependedUpon[i];
+                sb.append(i == 0 ? "\n" : ",\n").append("    {\"artifact\": ").append(Json.quote(store.id(node)))
+                    .append(", \"dependents\": ").append(fanIn[node])
+                    .append(", \"roots\": ").append(roots(node)).append('}');
+            }
+            sb.append(topDependedUpon.length == 0 ? "],\n" : "\n  ],\n");
+
+            sb.append("  \"shared\": {\"nodes\": ").append(sharedNodes)
+                .append(", \"rootsEstimated\": ").append(rootsEstimated).append(", \"top\": [");
+            for (int i = 0; i < topShared.length; i++) {
+                int node = topShared[i];
+                sb.append(i == 0 ? "\n" : ",\n").append("    {\"artifact\": ").append(Json.quote(store.id(node)))
+                    .append(", \"roots\": ").append(roots(node)).append('}');
+            }
+            sb.append(topShared.length == 0 ? "]},\n" : "\n  ]},\n");
+
+            sb.append("  \"components\": {\"total\": ").append(components)
+                .append(", \"cyclic\": ").append(cyclicComponents).append("},\n");
+            sb.append("  \"criticalPath\": {\"length\": ").append(getCriticalPathLength()).append(", \"path\": [");
+            List<String> path = getCriticalPath();
+            for (int i = 0; i < path.size(); i++) {
+                sb.append(i == 0 ? "" : ", ").append(Json.quote(path.get(i)));
+            }
+            sb.append("]},\n");
+            sb.append("  \"elapsedMs\": ").append(Json.number(elapsedNanos / 1e6)).append('\n');
+            sb.append("}\n");
+            return sb.toString();
+        }
+
+        private static void appendDistribution(StringBuilder sb, String name, int max, double avg, long[] buckets) {
+            int last = buckets.length - 1;
+            while (last > 0 && buckets[last] == 0) {
+                last--;
+            }
+            sb.append("  ").append(Json.quote(name)).append(": {\"max\": ").append(max)
+                .append(", \"avg\": ").append(Json.number(avg)).append(", \"buckets\": [");
+            for (int b = 0; b <= last; b++) {
+                sb.append(b == 0 ? "" : ", ").append("{\"from\": ").append(b == 0 ? 0 : 1L << (b - 1))
+                    .append(", \"nodes\": ").append(buckets[b]).append('}');
+            }
+            sb.append("]},\n");
+        }
+
+        /**
+         * Таблица по узлам: artifact,depth,fan_in,fan_out,roots,in_cycle.
+         */
+        public void writeCsv(Writer out) throws IOException {
+            out.write("artifact,depth,fan_in,fan_out,roots,in_cycle\n");
+            StringBuilder sb = new StringBuilder(128);
+            for (int v = 0; v < nodes; v++) {
+                sb.setLength(0);
+                sb.append(store.id(v)).append(',').append(depth[v]).append(',').append(fanIn[v]).append(',')
+                    .append(store.degree(v)).append(',').append(roots(v)).append(',')
+                    .append(scc.isCyclic(scc.componentOf(v))).append('\n');
+                out.write(sb.toString());
+            }
+        }
+
+        /**
+         * Записать отчёт: .csv - таблица по узлам, иначе JSON-сводка.
+         */
+        public void write(Path file) throws IOException {
+            try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                if (file.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".csv")) {
+                    writeCsv(out);
+                } else {
+                    out.write(toJson());
+                }
+            }
+        }
+
+        public void print(PrintStream out) {
+            out.println("\n=== Аналитика графа ===");
+            out.printf(Locale.ROOT, "Узлов: %d, рёбер: %d, корней: %d, достижимо: %d%n",
+                nodes, edges, roots.length, reachable);
+            out.printf(Locale.ROOT, "Глубина: макс. %d, средняя %.2f%n", maxDepth, avgDepth);
+            out.printf(Locale.ROOT, "Исходящих зависимостей: макс. %d, в среднем %.2f; зависимых: макс. %d%n",
+                maxFanOut, getAvgFanOut(), maxFanIn);
+            out.println("Общих для нескольких корней: " + sharedNodes
+                + (rootsEstimated ? " (число корней у узлов - оценка)" : ""));
+            out.println("Компонент: " + components + ", циклических: " + cyclicComponents);
+            out.println("Критический путь (рёбер): " + getCriticalPathLength());
+            List<String> path = getCriticalPath();
+            if (!path.isEmpty()) {
+                out.println("  " + String.join(" -> ", path));
+            }
+            out.println("Больше всего зависимых:");
+            for (int i = 0; i < Math.min(10, topDependedUpon.length); i++) {
+                int node = topDependedUpon[i];
+                out.println("  " + store.id(node) + ": " + fanIn[node] + " (корней: " + roots(node) + ")");
+            }
+            out.printf(Locale.ROOT, "Время: %.1f мс%n", elapsedNanos / 1e6);
+        }
+    }
+
+    /**
+     * roots - корни графа; пустой массив - по узлу из каждой компоненты без входящих рёбер.
+     */
+    public GraphAnalytics(GraphStore store, SccAnalyzer.Result scc, int[] roots, ForkJoinPool pool) {
+        this.store = store;
+        this.scc = scc;
+        this.requestedRoots = roots;
+        this.pool = pool;
+        this.offsets = store.offsets();
+        this.targets = store.targets();
+        this.n = store.nodeCount();
+    }
+
+    public Report analyze() {
+        long start = System.nanoTime();
+        Report report = new Report();
+        report.store = store;
+        report.scc = scc;
+        report.nodes = n;
+        report.edges = offsets[n];
+        report.components = scc.componentCount();
+
+        // Критический путь не зависит от остальных метрик - считается одновременно с ними
+        ForkJoinTask<int[]> criticalPath = pool.submit(this::criticalPath);
+
+        AtomicIntegerArray inDegree = new AtomicIntegerArray(n);
+        parallelFor(n, (from, to) -> {
+            for (int v = from; v < to; v++) {
+                for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+                    inDegree.incrementAndGet(targets[e]);
+                }
+            }
+        });
+        int[] fanIn = new int[n];
+        parallelFor(n, (from, to) -> {
+            for (int v = from; v < to; v++) {
+                fanIn[v] = inDegree.get(v);
+            }
+        });
+        report.fanIn = fanIn;
+        report.roots = requestedRoots.length > 0 ? requestedRoots.clone() : scc.sources();
+
+        long[] fanInStats = reduce(n, (from, to) -> histogram(from, to, v -> fanIn[v]), GraphAnalytics::mergeHistograms);
+        long[] fanOutStats = reduce(n, (from, to) -> histogram(from, to, v -> offsets[v + 1] - offsets[v]),
+            GraphAnalytics::mergeHistograms);
+        report.fanInBuckets = Arrays.copyOf(fanInStats, DEGREE_BUCKETS);
+        report.maxFanIn = (int) fanInStats[DEGREE_BUCKETS];
+        report.fanOutBuckets = Arrays.copyOf(fanOutStats, DEGREE_BUCKETS);
+        report.maxFanOut = (int) fanOutStats[DEGREE_BUCKETS];
+        report.topDependedUpon = top(v -> fanIn[v] > 0 ? fanIn[v] : -1);
+
+        // Число корней на компоненту - последовательный проход при многих корнях,
+        // идёт одновременно с обходом в ширину
+        int[] roots = report.roots;
+        ForkJoinTask<int[]> rootCounts = pool.submit(() -> rootCounts(roots));
+        depths(report);
+
+        int[] rootCount = rootCounts.join();
+        report.rootCount = rootCount;
+        report.rootsEstimated = roots.length > EXACT_ROOTS;
+        report.sharedNodes = reduce(n, (from, to) -> {
+            int shared = 0;
+            for (int v = from; v < to; v++) {
+                if (rootCount[scc.componentOf(v)] > 1) {
+                    shared++;
+                }
+            }
+            return shared;
+        }, Integer::sum);
+        report.topShared = top(v -> rootCount[scc.componentOf(v)] > 1 ? rootCount[scc.componentOf(v)] : -1);
+
+        report.cyclicComponents = reduce(scc.componentCount(), (from, to) -> {
+            int cyclic = 0;
+            for (int c = from; c < to; c++) {
+                if (scc.isCyclic(c)) {
+                    cyclic++;
+                }
+            }
+            return cyclic;
+        }, Integer::sum);
+        report.criticalPath = criticalPath.join();
+        report.elapsedNanos = System.nanoTime() - start;
+        return report;
+    }
+
+    /**
+     * Обход в ширину от всех корней сразу, по уровням: узлы уровня делятся между
+     * задачами, новый узел забирает та, что первой поставит ему глубину (CAS),
+     * и дописывает его в следующий уровень блоком через общий счётчик.
+     */
+    private void depths(Report report) {
+        AtomicIntegerArray depth = new AtomicIntegerArray(n);
+        parallelFor(n, (from, to) -> {
+            for (int v = from; v < to; v++) {
+                depth.set(v, -1);
+            }
+        });
+
+        int[] frontier = new int[n];
+        int size = 0;
+        for (int root : report.roots) {
+            if (depth.compareAndSet(root, -1, 0)) {
+                frontier[size++] = root;
+            }
+        }
+        int[] next = new int[n];
+        List<Long> levels = new ArrayList<>();
+        long reachable = 0;
+        long depthSum = 0;
+        for (int level = 0; size > 0; level++) {
+            levels.add((long) size);
+            reachable += size;
+            depthSum += (long) size * level;
+            int[] current = frontier;
+            int[] output = next;
+            int nextLevel = level + 1;
+            AtomicInteger tail = new AtomicInteger();
+            parallelFor(size, (from, to) -> {
+                int[] local = new int[64];
+                int count = 0;
+                for (int i = from; i < to; i++) {
+                    int v = current[i];
+                    for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+                        int w = targets[e];
+                        if (depth.get(w) == -1 && depth.compareAndSet(w, -1, nextLevel)) {
+                            if (count == local.length) {
+                                System.arraycopy(local, 0, output, tail.getAndAdd(count), count);
+                                count = 0;
+                            }
+                            local[count++] = w;
+                        }
+                    }
+                }
+                System.arraycopy(local, 0, output, tail.getAndAdd(count), count);
+            });
+            size = tail.get();
+            next = frontier;
+            frontier = output;
+        }
+
+        int[] result = new int[n];
+        parallelFor(n, (from, to) -> {
+            for (int v = from; v < to; v++) {
+                result[v] = depth.get(v);
+            }
+        });
+        report.depth = result;
+        report.reachable = (int) reachable;
+        report.maxDepth = levels.size() - 1;
+        report.avgDepth = reachable == 0 ? 0 : (double) depthSum / reachable;
+        report.nodesAtDepth = levels.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    /**
+     * Из скольких корней достижима каждая компонента. До EXACT_ROOTS корней - точно:
+     * задача на слово из 64 корней проходит компоненты от большего номера к меньшему
+     * (это топологический порядок) и передаёт биты по рёбрам конденсации, число
+     * корней - сумма popcount по словам. Для большего числа корней (граф из файла,
+     * где корни - все истоки) это O(корней * рёбер), поэтому считается оценка.
+     */
+    private int[] rootCounts(int[] roots) {
+        if (roots.length > EXACT_ROOTS) {
+            return estimatedRootCounts(roots);
+        }
+        int components = scc.componentCount();
+        int words = (roots.length + 63) / 64;
+        AtomicIntegerArray counts = new AtomicIntegerArray(components);
+        reduce(words, (fromWord, toWord) -> {
+            long[] reach = new long[components];
+            for (int word = fromWord; word < toWord; word++) {
+                Arrays.fill(reach, 0);
+                for (int r = word * 64; r < Math.min(roots.length, word * 64 + 64); r++) {
+                    reach[scc.componentOf(roots[r])] |= 1L << r;
+                }
+                for (int c = components - 1; c >= 0; c--) {
+                    long bits = reach[c];
+                    if (bits == 0) {
+                        continue;
+                    }
+                    counts.addAndGet(c, Long.bitCount(bits));
+                    for (int i = scc.memberStart(c); i < scc.memberEnd(c); i++) {
+                        int v = scc.memberAt(i);
+                        for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+                            reach[scc.componentOf(targets[e])] |= bits;
+                        }
+                    }
+                }
+            }
+            return null;
+        }, (a, b) -> null, 1);
+
+        int[] rootCount = new int[components];
+        parallelFor(components, (from, to) -> {
+            for (int c = from; c < to; c++) {
+                rootCount[c] = counts.get(c);
+            }
+        });
+        return rootCount;
+    }
+
+    /**
+     * Оценка числа корней по K наименьшим хэшам корней в каждой компоненте
+     * (K minimum values): меньше SKETCH_SIZE корней считаются точно, поэтому
+     * "общий для нескольких корней" определяется без ошибки, а большие числа -
+     * с погрешностью около 1 / sqrt(SKETCH_SIZE). Один проход по DAG конденсации,
+     * слияние двух отсортированных наборов на ребро.
+     */
+    private int[] estimatedRootCounts(int[] roots) {
+        int components = scc.componentCount();
+        int[] hashes = new int[components * SKETCH_SIZE];
+        int[] sizes = new int[components];
+        int[] merged = new int[SKETCH_SIZE];
+        for (int r = 0; r < roots.length; r++) {
+            int c = scc.componentOf(roots[r]);
+            sizes[c] = mergeSketch(hashes, c * SKETCH_SIZE, sizes[c], new int[] { rootHash(r) }, 0, 1, merged);
+        }
+        for (int c = components - 1; c >= 0; c--) {
+            if (sizes[c] == 0) {
+                continue;
+            }
+            for (int i = scc.memberStart(c); i < scc.memberEnd(c); i++) {
+                int v = scc.memberAt(i);
+                for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+                    int d = scc.componentOf(targets[e]);
+                    if (d != c) {
+                        sizes[d] = mergeSketch(hashes, d * SKETCH_SIZE, sizes[d],
+                            hashes, c * SKETCH_SIZE, sizes[c], merged);
+                    }
+                }
+            }
+        }
+
+        int[] rootCount = new int[components];
+        parallelFor(components, (from, to) -> {
+            for (int c = from; c < to; c++) {
+                if (sizes[c] < SKETCH_SIZE) {
+                    rootCount[c] = sizes[c];
+                } else {
+                    // k-й наименьший из равномерных на [0, 2^31) хэшей: n ~ (k - 1) / (h_k / 2^31)
+                    double kth = (hashes[c * SKETCH_SIZE + SKETCH_SIZE - 1] + 1.0) / (1L << 31);
+                    rootCount[c] = (int) Math.min(roots.length, Math.round((SKETCH_SIZE - 1) / kth));
+                }
+            }
+        });
+        return rootCount;
+    }
+
+    /**
+     * Слить отсортированный набор source в набор target на месте (без повторов,
+     * не больше SKETCH_SIZE наименьших); возвращает новый размер target.
+     */
+    private static int mergeSketch(int[] target, int targetFrom, int targetSize,
+                                   int[] source, int sourceFrom, int sourceSize, int[] buffer) {
+        int i = 0;
+        int j = 0;
+        int k = 0;
+        while (k < SKETCH_SIZE && (i < targetSize || j < sourceSize)) {
+            int a = i < targetSize ? target[targetFrom + i] : Integer.MAX_VALUE;
+            int b = j < sourceSize ? source[sourceFrom + j] : Integer.MAX_VALUE;
+            if (a <= b) {
+                buffer[k++] = a;
+                i++;
+                if (a == b) {
+                    j++;
+                }
+            } else {
+                buffer[k++] = b;
+                j++;
+            }
+        }
+        System.arraycopy(buffer, 0, target, targetFrom, k);
+        return k;
+    }
+
+    /**
+     * Хэш номера корня в [0, 2^31): перемешивание murmur3 fmix32.
+     */
+    private static int rootHash(int root) {
+        int h = root * 0x9E3779B9;
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        h *= 0xC2B2AE35;
+        h ^= h >>> 16;
+        return h & Integer.MAX_VALUE;
+    }
+
+    /**
+     * Самый длинный путь DAG конденсации в рёбрах: рёбра ведут от большего номера
+     * компоненты к меньшему, поэтому при проходе по возрастанию номеров длины
+     * путей от всех преемников уже известны.
+     */
+    private int[] criticalPath() {
+        int components = scc.componentCount();
+        if (components == 0) {
+            return new int[0];
+        }
+        int[] height = new int[components];
+        int[] successor = new int[components];
+        int best = 0;
+        for (int c = 0; c < components; c++) {
+            successor[c] = -1;
+            for (int i = scc.memberStart(c); i < scc.memberEnd(c); i++) {
+                int v = scc.memberAt(i);
+                for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+                    int d = scc.componentOf(targets[e]);
+                    if (d != c && height[d] + 1 > height[c]) {
+                        height[c] = height[d] + 1;
+                        successor[c] = d;
+                    }
+                }
+            }
+            if (height[c] > height[best]) {
+                best = c;
+            }
+        }
+        int[] path = new int[height[best] + 1];
+        for (int i = 0, c = best; c >= 0; c = successor[c]) {
+            path[i++] = c;
+        }
+        return path;
+    }
+
+    /**
+     * Корзины степеней и максимум (последний элемент массива).
+     */
+    private static long[] histogram(int from, int to, IntUnaryOperator degree) {
+        long[] result = new long[DEGREE_BUCKETS + 1];
+        for (int v = from; v < to; v++) {
+            int d = degree.applyAsInt(v);
+            result[32 - Integer.numberOfLeadingZeros(d)]++;
+            result[DEGREE_BUCKETS] = Math.max(result[DEGREE_BUCKETS], d);
+        }
+        return result;
+    }
+
+    private static long[] mergeHistograms(long[] a, long[] b) {
+        for (int i = 0; i < DEGREE_BUCKETS; i++) {
+            a[i] += b[i];
+        }
+        a[DEGREE_BUCKETS] = Math.max(a[DEGREE_BUCKETS], b[DEGREE_BUCKETS]);
+        return a;
+    }
+
+    /**
+     * TOP узлов с наибольшим ключом (ключ < 0 - не участвует); при равенстве - меньший номер.
+     */
+    private int[] top(IntUnaryOperator key) {
+        Comparator<Integer> order = (a, b) -> {
+            int byKey = Integer.compare(key.applyAsInt(b), key.applyAsInt(a));
+            return byKey != 0 ? byKey : Integer.compare(a, b);
+        };
+        List<Integer> result = reduce(n, (from, to) -> {
+            // Куча из TOP лучших на диапазоне: в корне - худший из них
+            PriorityQueue<Integer> heap = new PriorityQueue<>(TOP + 1, order.reversed());
+            for (int v = from; v < to; v++) {
+                if (key.applyAsInt(v) < 0) {
+                    continue;
+                }
+                heap.add(v);
+                if (heap.size() > TOP) {
+                    heap.poll();
+                }
+            }
+            List<Integer> best = new ArrayList<>(heap);
+            best.sort(order);
+            return best;
+        }, (a, b) -> {
+            List<Integer> merged = new ArrayList<>(a);
+            merged.addAll(b);
+            merged.sort(order);
+            return merged.size() > TOP ? new ArrayList<>(merged.subList(0, TOP)) : merged;
+        });
+        return result.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Тело задачи на диапазоне [from, to).
+     */
+    private interface RangeTask<T> {
+        T compute(int from, int to);
+    }
+
+    private interface RangeBody {
+        void run(int from, int to);
+    }
+
+    private void parallelFor(int size, RangeBody body) {
+        reduce(size, (from, to) -> {
+            body.run(from, to);
+            return null;
+        }, (a, b) -> null);
+    }
+
+    private <T> T reduce(int size, RangeTask<T> body, BinaryOperator<T> merge) {
+        return reduce(size, body, merge, CHUNK);
+    }
+
+    private <T> T reduce(int size, RangeTask<T> body, BinaryOperator<T> merge, int chunk) {
+        return pool.invoke(new Split<>(0, size, chunk, body, merge));
+    }
+
+    /**
+     * Делит диапазон пополам, пока он больше chunk; результаты половин сливаются merge.
+     */
+    private static class Split<T> extends RecursiveTask<T> {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+        private final int chunk;
+        private final transient RangeTask<T> body;
+        private final transient BinaryOperator<T> merge;
+
+        Split(int from, int to, int chunk, RangeTask<T> body, BinaryOperator<T> merge) {
+            this.from = from;
+            this.to = to;
+            this.chunk = chunk;
+            this.body = body;
+            this.merge = merge;
+        }
+
+        @Override
+        protected T compute() {
+            if (to - from <= chunk) {
+                return body.compute(from, to);
+            }
+            int middle = (from + to) >>> 1;
+            Split<T> left = new Split<>(from, middle, chunk, body, merge);
+            left.fork();
+            T right = new Split<>(middle, to, chunk, body, merge).compute();
+            return merge.apply(left.join(), right);
+        }
+    }
+}
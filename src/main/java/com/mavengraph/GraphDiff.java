@@ -0,0 +1,460 @@
+package com.mavengraph;
+
+import java.io.PrintStream;
+import java.util.*;
+
+/**
+ * Сравнение двух графов по отпечаткам подграфов (дерево Меркла): отпечаток узла -
+ * хэш его координаты и отпечатков зависимостей, отпечаток цикла - хэш всех его
+ * участников, внутренних рёбер и внешних зависимостей. Совпадение отпечатков
+ * означает одинаковый транзитивный подграф, поэтому обход в ширину от корней
+ * не спускается в узел, который есть во втором графе с тем же отпечатком:
+ * на почти одинаковых графах проверяются только пути к изменениям.
+ * <p>
+ * Отпечатки считаются один раз на граф (Fingerprints, DependencyGraph.getFingerprints);
+ * само сравнение - два обхода, в новом графе и в старом. Узлы без пары по
+ * groupId:artifactId:version делятся на добавленные, удалённые и сменившие версию
+ * (groupId:artifactId есть в обоих графах); для каждого - кратчайший путь от корня.
+ */
+public class GraphDiff {
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    private static final long GOLDEN = 0x9e3779b97f4a7c15L;
+    private static final int UNVISITED = -2;
+
+    private final GraphStore oldStore;
+    private final Fingerprints oldPrints;
+    private final GraphStore newStore;
+    private final Fingerprints newPrints;
+
+    /**
+     * Отпечатки подграфов одного графа, узлы, с которых начинается обход (корни,
+     * для графа из файла - узлы компонент без входящих рёбер), и индекс узлов
+     * по groupId:artifactId - все версии артефакта.
+     */
+    public static class Fingerprints {
+        private final long[] prints;
+        private final HashSet64 printSet;
+        // Хэши координат: есть ли узел во втором графе, без поиска по строкам
+        private final long[] coordinates;
+        private final HashSet64 coordinateSet;
+        private final int[] starts;
+        // Первый узел артефакта по (groupIndex << 32 | artifactIndex) и следующий узел той же пары
+        private final Map<Long, Integer> firstVersion;
+        private final int[] nextVersion;
+        private final long elapsedNanos;
+
+        private Fingerprints(long[] prints, long[] coordinates, int[] starts, Map<Long, Integer> firstVersion,
+                             int[] nextVersion, long elapsedNanos) {
+            this.prints = prints;
+            this.printSet = new HashSet64(prints);
+            this.coordinates = coordinates;
+            this.coordinateSet = new HashSet64(coordinates);
+            this.starts = starts;
+            this.firstVersion = firstVersion;
+            this.nextVersion = nextVersion;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public long print(int node) { return prints[node]; }
+        public int[] getStarts() { return starts.clone(); }
+        public long getElapsedNanos() { return elapsedNanos; }
+
+        /**
+         * Есть ли узел с таким отпечатком: отпечаток включает координату, поэтому
+         * совпадение - тот же узел с тем же подграфом (с точностью до коллизии 64-битного хэша).
+         */
+        public boolean contains(long print) {
+            return printSet.contains(print);
+        }
+
+        /**
+         * Узлы всех версий groupId:artifactId в store, для которого посчитаны отпечатки.
+         */
+        int[] versions(GraphStore store, String groupId, String artifactId) {
+            int g = store.stringIndex(groupId);
+            int a = store.stringIndex(artifactId);
+            Integer first = g < 0 || a < 0 ? null : firstVersion.get(artifactKey(g, a));
+            if (first == null) {
+                return new int[0];
+            }
+            int count = 0;
+            for (int node = first; node >= 0; node = nextVersion[node]) {
+                count++;
+            }
+            int[] result = new int[count];
+            int i = 0;
+            for (int node = first; node >= 0; node = nextVersion[node]) {
+                result[i++] = node;
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Множество 64-битных хэшей с открытой адресацией; хэши уже перемешаны, поэтому
+     * ячейка - младшие биты. 0 - пустая ячейка, сам хэш 0 хранится флагом.
+     */
+    private static final class HashSet64 {
+        private final long[] table;
+        private final boolean hasZero;
+
+        HashSet64(long[] values) {
+            table = new long[Integer.highestOneBit(Math.max(1, values.length)) * 4];
+            boolean zero = false;
+            int mask = table.length - 1;
+            for (long value : values) {
+                if (value == 0) {
+                    zero = true;
+                    continue;
+                }
+                int slot = (int) value & mask;
+                while (table[slot] != 0 && table[slot] != value) {
+                    slot = (slot + 1) & mask;
+                }
+                table[slot] = value;
+            }
+            hasZero = zero;
+        }
+
+        boolean contains(long value) {
+            if (value == 0) {
+                return hasZero;
+            }
+            int mask = table.length - 1;
+            for (int slot = (int) value & mask; table[slot] != 0; slot = (slot + 1) & mask) {
+                if (table[slot] == value) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Артефакт, который есть только в одном графе или сменил версию.
+     */
+    public static class Change {
+        private final String artifact;
+        private final List<String> oldVersions;
+        private final List<String> newVersions;
+        private final List<String> path;
+
+        Change(String artifact, List<String> oldVersions, List<String> newVersions, List<String> path) {
+            this.artifact = artifact;
+            this.oldVersions = oldVersions;
+            this.newVersions = newVersions;
+            this.path = path;
+        }
+
+        /**
+         * groupId:artifactId.
+         */
+        public String getArtifact() { return artifact; }
+        public List<String> getOldVersions() { return oldVersions; }
+        public List<String> getNewVersions() { return newVersions; }
+
+        /**
+         * Кратчайший путь от корня: в новом графе, для удалённых - в старом.
+         */
+        public List<String> getPath() { return path; }
+    }
+
+    /**
+     * Итог сравнения.
+     */
+    public static class Result {
+        private final List<Change> added = new ArrayList<>();
+        private final List<Change> removed = new ArrayList<>();
+        private final List<Change> changed = new ArrayList<>();
+        private int checkedOld;
+        private int checkedNew;
+        private int oldNodes;
+        private int newNodes;
+        private long elapsedNanos;
+
+        public List<Change> getAdded() { return added; }
+        public List<Change> getRemoved() { return removed; }
+        public List<Change> getChanged() { return changed; }
+        public boolean isEmpty() { return added.isEmpty() && removed.isEmpty() && changed.isEmpty(); }
+
+        /**
+         * Узлов, в которые спустился обход (остальные отсечены по отпечатку).
+         */
+        public int getCheckedOld() { return checkedOld; }
+        public int getCheckedNew() { return checkedNew; }
+        public long getElapsedNanos() { return elapsedNanos; }
+
+        /**
+         * Сводка и изменения, не больше limit строк на вид изменения.
+         */
+        public void print(PrintStream out, int limit) {
+            out.println("Добавлено: " + added.size() + ", удалено: " + removed.size()
+                + ", сменили версию: " + changed.size());
+            out.printf(Locale.ROOT, "Проверено узлов: %d из %d (новый граф), %d из %d (старый), %.3f мс%n",
+                checkedNew, newNodes, checkedOld, oldNodes, elapsedNanos / 1_000_000.0);
+            if (isEmpty()) {
+                out.println("Графы совпадают");
+                return;
+            }
+            print(out, "+", added, limit);
+            print(out, "-", removed, limit);
+            print(out, "~", changed, limit);
+        }
+
+        private static void print(PrintStream out, String sign, List<Change> changes, int limit) {
+            for (int i = 0; i < changes.size() && i < limit; i++) {
+                Change change = changes.get(i);
+                String versions = change.oldVersions.isEmpty() ? String.join(", ", change.newVersions)
+                    : change.newVersions.isEmpty() ? String.join(", ", change.oldVersions)
+                    : String.join(", ", change.oldVersions) + " -> " + String.join(", ", change.newVersions);
+                out.println("  " + sign + " " + change.artifact + " " + versions);
+                out.println("      " + String.join(" -> ", change.path));
+            }
+            if (changes.size() > limit) {
+                out.println("  ... и ещё " + (changes.size() - limit));
+            }
+        }
+    }
+
+    public GraphDiff(GraphStore oldStore, Fingerprints oldPrints, GraphStore newStore, Fingerprints newPrints) {
+        this.oldStore = oldStore;
+        this.oldPrints = oldPrints;
+        this.newStore = newStore;
+        this.newPrints = newPrints;
+    }
+
+    /**
+     * Посчитать отпечатки: компоненты по возрастанию номеров (зависимости раньше
+     * зависимых), сумма отпечатков зависимостей не зависит от порядка рёбер.
+     * roots пуст - обход начинается с компонент без входящих рёбер.
+     */
+    public static Fingerprints fingerprint(GraphStore store, SccAnalyzer.Result scc, int[] roots) {
+        long start = System.nanoTime();
+        int nodes = store.nodeCount();
+        int[] offsets = store.offsets();
+        int[] targets = store.targets();
+        long[] stringHashes = new long[store.stringCount()];
+        for (int i = 0; i < stringHashes.length; i++) {
+            stringHashes[i] = fnv(store.string(i));
+        }
+        long[] coordinates = new long[nodes];
+        for (int node = 0; node < nodes; node++) {
+            coordinates[node] = mix(mix(mix(stringHashes[store.groupIndex(node)])
+                ^ stringHashes[store.artifactIndex(node)]) ^ stringHashes[store.versionIndex(node)]);
+        }
+
+        long[] prints = new long[nodes];
+        boolean[] hasIncoming = new boolean[scc.componentCount()];
+        for (int comp = 0; comp < scc.componentCount(); comp++) {
+            if (!scc.isCyclic(comp)) {
+                int node = scc.memberAt(scc.memberStart(comp));
+                long sum = 0;
+                for (int e = offsets[node]; e < offsets[node + 1]; e++) {
+                    sum += mix(prints[targets[e]]);
+                    hasIncoming[scc.componentOf(targets[e])] = true;
+                }
+                prints[node] = mix(coordinates[node] ^ mix(sum + offsets[node + 1] - offsets[node]));
+                continue;
+            }
+            // Цикл: один отпечаток на компоненту, участники различаются координатой
+            long sum = 0;
+            for (int i = scc.memberStart(comp); i < scc.memberEnd(comp); i++) {
+                int node = scc.memberAt(i);
+                sum += mix(coordinates[node]);
+                for (int e = offsets[node]; e < offsets[node + 1]; e++) {
+                    int target = targets[e];
+                    if (scc.componentOf(target) == comp) {
+                        sum += mix(coordinates[node] * 31 + coordinates[target]);
+                    } else {
+                        sum += mix(prints[target] ^ GOLDEN);
+                        hasIncoming[scc.componentOf(target)] = true;
+                    }
+                }
+            }
+            long componentPrint = mix(sum);
+            for (int i = scc.memberStart(comp); i < scc.memberEnd(comp); i++) {
+                int node = scc.memberAt(i);
+                prints[node] = mix(coordinates[node] * GOLDEN + componentPrint);
+            }
+        }
+
+        int[] starts = roots;
+        if (starts.length == 0) {
+            int count = 0;
+            for (int node = 0; node < nodes; node++) {
+                if (!hasIncoming[scc.componentOf(node)]) {
+                    count++;
+                }
+            }
+            starts = new int[count];
+            count = 0;
+            for (int node = 0; node < nodes; node++) {
+                if (!hasIncoming[scc.componentOf(node)]) {
+                    starts[count++] = node;
+                }
+            }
+        }
+
+        Map<Long, Integer> firstVersion = new HashMap<>();
+        int[] nextVersion = new int[nodes];
+        for (int node = nodes - 1; node >= 0; node--) {
+            Integer next = firstVersion.put(artifactKey(store.groupIndex(node), store.artifactIndex(node)), node);
+            nextVersion[node] = next != null ? next : -1;
+        }
+        return new Fingerprints(prints, coordinates, starts.clone(), firstVersion, nextVersion, System.nanoTime() - start);
+    }
+
+    /**
+     * Сравнить графы: изменения нового графа относительно старого.
+     */
+    public Result compare() {
+        long start = System.nanoTime();
+        Result result = new Result();
+        result.oldNodes = oldStore.nodeCount();
+        result.newNodes = newStore.nodeCount();
+
+        int[] newParents = new int[newStore.nodeCount()];
+        List<Integer> newOnly = new ArrayList<>();
+        result.checkedNew = walk(newStore, newPrints, oldPrints, newParents, newOnly);
+        int[] oldParents = new int[oldStore.nodeCount()];
+        List<Integer> oldOnly = new ArrayList<>();
+        result.checkedOld = walk(oldStore, oldPrints, newPrints, oldParents, oldOnly);
+
+        // Версии без пары, сгруппированные по groupId:artifactId в порядке обнаружения
+        Map<String, Change> changes = new LinkedHashMap<>();
+        for (int node : newOnly) {
+            String artifact = newStore.groupId(node) + ":" + newStore.artifactId(node);
+            Change change = changes.computeIfAbsent(artifact, key -> new Change(key, new ArrayList<>(),
+                new ArrayList<>(), path(newStore, newParents, node)));
+            change.newVersions.add(newStore.version(node));
+        }
+        for (int node : oldOnly) {
+            String artifact = oldStore.groupId(node) + ":" + oldStore.artifactId(node);
+            Change change = changes.computeIfAbsent(artifact, key -> new Change(key, new ArrayList<>(),
+                new ArrayList<>(), path(oldStore, oldParents, node)));
+            change.oldVersions.add(oldStore.version(node));
+        }
+        for (Change change : changes.values()) {
+            String[] parts = change.artifact.split(":", 2);
+            if (change.oldVersions.isEmpty()) {
+                if (oldPrints.versions(oldStore, parts[0], parts[1]).length == 0) {
+                    result.added.add(change);
+                } else {
+                    // Новая версия рядом с оставшимися: прежние версии - из старого графа
+                    change.oldVersions.addAll(versionNames(oldStore, oldPrints.versions(oldStore, parts[0], parts[1])));
+                    result.changed.add(change);
+                }
+            } else if (change.newVersions.isEmpty()) {
+                if (newPrints.versions(newStore, parts[0], parts[1]).length == 0) {
+                    result.removed.add(change);
+                } else {
+                    change.newVersions.addAll(versionNames(newStore, newPrints.versions(newStore, parts[0], parts[1])));
+                    result.changed.add(change);
+                }
+            } else {
+                result.changed.add(change);
+            }
+        }
+        result.elapsedNanos = System.nanoTime() - start;
+        return result;
+    }
+
+    /**
+     * Обход в ширину от начальных узлов store, не заходящий в узлы с тем же отпечатком
+     * во втором графе (otherPrints). Узлы без пары по координате попадают в only, parents - дерево кратчайших
+     * путей для проверенных узлов. Возвращает число проверенных узлов.
+     */
+    private static int walk(GraphStore store, Fingerprints prints, Fingerprints otherPrints, int[] parents,
+                            List<Integer> only) {
+        Arrays.fill(parents, UNVISITED);
+        int[] offsets = store.offsets();
+        int[] targets = store.targets();
+        int[] queue = new int[64];
+        int head = 0;
+        int tail = 0;
+        int checked = 0;
+        for (int root : prints.starts) {
+            if (parents[root] != UNVISITED) {
+                continue;
+            }
+            parents[root] = -1;
+            if (unchanged(prints, otherPrints, root, only)) {
+                continue;
+            }
+            if (tail == queue.length) {
+                queue = Arrays.copyOf(queue, queue.length * 2);
+            }
+            queue[tail++] = root;
+        }
+        while (head < tail) {
+            int node = queue[head++];
+            checked++;
+            for (int e = offsets[node]; e < offsets[node + 1]; e++) {
+                int target = targets[e];
+                if (parents[target] != UNVISITED) {
+                    continue;
+                }
+                parents[target] = node;
+                if (unchanged(prints, otherPrints, target, only)) {
+                    continue;
+                }
+                if (tail == queue.length) {
+                    queue = Arrays.copyOf(queue, queue.length * 2);
+                }
+                queue[tail++] = target;
+            }
+        }
+        return checked;
+    }
+
+    /**
+     * Узел есть в other с тем же отпечатком - подграф совпадает, спускаться не нужно.
+     * Узла в other нет (по хэшу координаты) - он добавляется в only.
+     */
+    private static boolean unchanged(Fingerprints prints, Fingerprints otherPrints, int node, List<Integer> only) {
+        if (otherPrints.printSet.contains(prints.prints[node])) {
+            return true;
+        }
+        if (!otherPrints.coordinateSet.contains(prints.coordinates[node])) {
+            only.add(node);
+        }
+        return false;
+    }
+
+    private static List<String> path(GraphStore store, int[] parents, int node) {
+        List<String> path = new ArrayList<>();
+        for (int current = node; current >= 0; current = parents[current]) {
+            path.add(store.id(current));
+        }
+        Collections.reverse(path);
+        return path;
+    }
+
+    private static List<String> versionNames(GraphStore store, int[] nodes) {
+        List<String> versions = new ArrayList<>(nodes.length);
+        for (int node : nodes) {
+            versions.add(store.version(node));
+        }
+        return versions;
+    }
+
+    private static long artifactKey(int groupIndex, int artifactIndex) {
+        return (long) groupIndex << 32 | (artifactIndex & 0xffffffffL);
+    }
+
+    private static long fnv(String value) {
+        long hash = FNV_OFFSET;
+        for (int i = 0; i < value.length(); i++) {
+            hash = (hash ^ value.charAt(i)) * FNV_PRIME;
+        }
+        return hash;
+    }
+
+    // Финальное перемешивание splitmix64
+    private static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xbf58476d1ce4e5b9L;
+        value = (value ^ (value >>> 27)) * 0x94d049bb133111ebL;
+        return value ^ (value >>> 31);
+    }
+}
@@ -0,0 +1,511 @@
+package com.mavengraph;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Выгрузка графа для визуализации (Этап 5): Mermaid, Graphviz DOT и GraphML.
+ *
+ * Граф пишется потоком прямо из массивов GraphStore в канал через один буфер:
+ * координаты кодируются в UTF-8 по частям (groupId, artifactId, version), номера
+ * узлов - цифрами в буфер, без промежуточных строк на узел или ребро. Дополнительная
+ * память - битовое множество выбранных узлов и очередь обхода при фильтре по глубине.
+ *
+ * Узлы можно ограничить поддеревом и глубиной от корней, а сильно связные
+ * компоненты - свернуть в один узел (рёбра между компонентами без повторов).
+ */
+public class GraphExporter {
+    // Сколько участников компоненты показывать в подписи свёрнутого узла
+    private static final int LABEL_MEMBERS = 10;
+
+    public enum Format {
+        MERMAID("mermaid"), DOT("dot"), GRAPHML("graphml");
+
+        private final String key;
+
+        Format(String key) {
+            this.key = key;
+        }
+
+        public String getKey() { return key; }
+
+        public static Format fromName(String name) {
+            for (Format format : values()) {
+                if (format.key.equalsIgnoreCase(name)) {
+                    return format;
+                }
+            }
+            throw new IllegalArgumentException("неизвестный формат: " + name + " (mermaid, dot, graphml)");
+        }
+
+        /**
+         * Формат по расширению файла; PNG рисуется Graphviz из DOT.
+         */
+        public static Format forFile(String file) {
+            String name = file.toLowerCase(Locale.ROOT);
+            if (name.endsWith(".mmd") || name.endsWith(".mermaid")) {
+                return MERMAID;
+            }
+            if (name.endsWith(".graphml")) {
+                return GRAPHML;
+            }
+            return DOT;
+        }
+    }
+
+    /**
+     * Сколько узлов и рёбер записано.
+     */
+    public static class Stats {
+        private final int nodes;
+        private final long edges;
+
+        Stats(int nodes, long edges) {
+            this.nodes = nodes;
+            this.edges = edges;
+        }
+
+        public int getNodes() { return nodes; }
+        public long getEdges() { return edges; }
+    }
+
+    private final GraphStore store;
+    private Format format = Format.DOT;
+    private int[] roots = new int[0];
+    private int maxDepth = -1;
+    private SccAnalyzer.Result collapse;
+
+    public GraphExporter(GraphStore store) {
+        this.store = store;
+    }
+
+    public void setFormat(Format format) { this.format = format; }
+
+    /**
+     * Корни для фильтра по глубине. Если maxDepth не задан, выгружается
+     * всё, что достижимо из корней; пустой массив и maxDepth < 0 - весь граф.
+     * Пустой массив при maxDepth >= 0 - глубина от компонент без входящих рёбер
+     * (SccAnalyzer.Result.sources), так что выгружаются и циклы у корня.
+     */
+    public void setRoots(int[] roots) { this.roots = roots; }
+
+    /**
+     * Наибольшее число рёбер от корня до узла; -1 - без ограничения.
+     */
+    public void setMaxDepth(int maxDepth) { this.maxDepth = maxDepth; }
+
+    /**
+     * Свернуть компоненты из данного разбиения; null - выгружать узлы как есть.
+     */
+    public void setCollapse(SccAnalyzer.Result collapse) { this.collapse = collapse; }
+
+    /**
+     * Записать в файл. Для .png данные DOT передаются на вход Graphviz (dot -Tpng).
+     */
+    public Stats export(Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        if (file.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".png")) {
+            return renderPng(file);
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            return write(channel);
+        }
+    }
+
+    private Stats renderPng(Path file) throws IOException {
+        if (format != Format.DOT) {
+            throw new IOException("PNG строится только из DOT, а выбран формат " + format.getKey());
+        }
+        Process process;
+        try {
+            process = new ProcessBuilder("dot", "-Tpng", "-o", file.toString())
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+        } catch (IOException e) {
+            throw new IOException("для PNG нужен Graphviz (dot) в PATH; укажите файл .dot, .mmd или .graphml", e);
+        }
+
+        Stats stats;
+        try (WritableByteChannel channel = Channels.newChannel(process.getOutputStream())) {
+            stats = write(channel);
+        }
+        try {
+            if (!process.waitFor(10, TimeUnit.MINUTES) || process.exitValue() != 0) {
+                process.destroyForcibly();
+                throw new IOException("Graphviz завершился с ошибкой");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            process.destroyForcibly();
+            throw new InterruptedIOException("прервано ожидание Graphviz");
+        }
+        return stats;
+    }
+
+    public Stats write(WritableByteChannel channel) throws IOException {
+        BitSet selected = selectNodes();
+        Output out = new Output(channel);
+        Stats stats;
+        header(out);
+        if (collapse == null) {
+            stats = writeNodes(out, selected);
+        } else {
+            stats = writeComponents(out, selected);
+        }
+        footer(out);
+        out.flush();
+        return stats;
+    }
+
+    /**
+     * Узлы в пределах maxDepth от корней (обход в ширину); null - все узлы.
+     */
+    private BitSet selectNodes() {
+        if (roots.length == 0 && maxDepth < 0) {
+            return null;
+        }
+        int[] offsets = store.offsets();
+        int[] targets = store.targets();
+        int n = store.nodeCount();
+        int[] roots = this.roots.length > 0 ? this.roots
+            : (collapse != null ? collapse : SccAnalyzer.analyze(store)).sources();
+        BitSet selected = new BitSet(n);
+        int[] queue = new int[Math.max(16, roots.length)];
+        int head = 0;
+        int tail = 0;
+        for (int root : roots) {
+            if (!selected.get(root)) {
+                selected.set(root);
+                queue[tail++] = root;
+            }
+        }
+
+        // Уровни обхода разделяются по границе levelEnd, чтобы не хранить глубину каждого узла
+        int depth = 0;
+        int levelEnd = tail;
+        while (head < tail && (maxDepth < 0 || depth < maxDepth)) {
+            int v = queue[head++];
+            for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+                int w = targets[e];
+                if (!selected.get(w)) {
+                    selected.set(w);
+                    if (tail == queue.length) {
+                        queue = Arrays.copyOf(queue, Math.min(n, tail * 2));
+                    }
+                    queue[tail++] = w;
+                }
+            }
+            if (head == levelEnd) {
+                depth++;
+                levelEnd = tail;
+            }
+        }
+        return selected;
+    }
+
+    private Stats writeNodes(Output out, BitSet selected) throws IOException {
+        int[] offsets = store.offsets();
+        int[] targets = store.targets();
+        int nodes = 0;
+        long edges = 0;
+        for (int v = 0; v < store.nodeCount(); v++) {
+            if (selected == null || selected.get(v)) {
+                nodeStart(out, v);
+                putCoordinates(out, v);
+                nodeEnd(out);
+                nodes++;
+            }
+        }
+        for (int v = 0; v < store.nodeCount(); v++) {
+            if (selected != null && !selected.get(v)) {
+                continue;
+            }
+            for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+                if (selected == null || selected.get(targets[e])) {
+                    edge(out, v, targets[e]);
+                    edges++;
+                }
+            }
+        }
+        return new Stats(nodes, edges);
+    }
+
+    /**
+     * Каждая компонента - один узел; рёбра внутри компонент отбрасываются,
+     * повторы между парой компонент отсекаются массивом lastSource, как в
+     * SccAnalyzer.Result.condensationEdges, но без списка рёбер.
+     */
+    private Stats writeComponents(Output out, BitSet selected) throws IOException {
+        int[] offsets = store.offsets();
+        int[] targets = store.targets();
+        int count = collapse.componentCount();
+        int nodes = 0;
+        long edges = 0;
+
+        for (int c = 0; c < count; c++) {
+            int shown = 0;
+            for (int i = collapse.memberStart(c); i < collapse.memberEnd(c); i++) {
+                int v = collapse.memberAt(i);
+                if (selected != null && !selected.get(v)) {
+                    continue;
+                }
+                if (shown == 0) {
+                    nodeStart(out, c);
+                } else if (shown < LABEL_MEMBERS) {
+                    memberSeparator(out);
+                }
+                if (shown < LABEL_MEMBERS) {
+                    putCoordinates(out, v);
+                }
+                shown++;
+            }
+            if (shown > 0) {
+                if (shown > LABEL_MEMBERS) {
+                    out.ascii(" (+");
+                    out.number(shown - LABEL_MEMBERS);
+                    out.ascii(")");
+                }
+                nodeEnd(out);
+                nodes++;
+            }
+        }
+
+        int[] lastSource = new int[count];
+        Arrays.fill(lastSource, -1);
+        for (int c = 0; c < count; c++) {
+            for (int i = collapse.memberStart(c); i < collapse.memberEnd(c); i++) {
+                int v = collapse.memberAt(i);
+                if (selected != null && !selected.get(v)) {
+                    continue;
+                }
+                for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+                    int w = targets[e];
+                    int d = collapse.componentOf(w);
+                    if (d != c && lastSource[d] != c && (selected == null || selected.get(w))) {
+                        lastSource[d] = c;
+                        edge(out, c, d);
+                        edges++;
+                    }
+                }
+            }
+        }
+        return new Stats(nodes, edges);
+    }
+
+    private void header(Output out) throws IOException {
+        switch (format) {
+            case MERMAID:
+                out.ascii("graph LR\n");
+                break;
+            case DOT:
+                out.ascii("digraph dependencies {\n  rankdir=LR;\n  node [shape=box];\n");
+                break;
+            case GRAPHML:
+                out.ascii("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+                    + "<graphml xmlns=\"http://graphml.graphdrawing.org/xmlns\">\n"
+                    + "  <key id=\"label\" for=\"node\" attr.name=\"label\" attr.type=\"string\"/>\n"
+                    + "  <graph id=\"dependencies\" edgedefault=\"directed\">\n");
+                break;
+        }
+    }
+
+    private void footer(Output out) throws IOException {
+        switch (format) {
+            case MERMAID:
+                break;
+            case DOT:
+                out.ascii("}\n");
+                break;
+            case GRAPHML:
+                out.ascii("  </graph>\n</graphml>\n");
+                break;
+        }
+    }
+
+    private void nodeStart(Output out, int id) throws IOException {
+        switch (format) {
+            case MERMAID:
+                out.ascii("  n");
+                out.number(id);
+                out.ascii("[\"");
+                break;
+            case DOT:
+                out.ascii("  n");
+                out.number(id);
+                out.ascii(" [label=\"");
+                break;
+            case GRAPHML:
+                out.ascii("    <node id=\"n");
+                out.number(id);
+                out.ascii("\"><data key=\"label\">");
+                break;
+        }
+    }
+
+    private void nodeEnd(Output out) throws IOException {
+        switch (format) {
+            case MERMAID:
+                out.ascii("\"]\n");
+                break;
+            case DOT:
+                out.ascii("\"];\n");
+                break;
+            case GRAPHML:
+                out.ascii("</data></node>\n");
+                break;
+        }
+    }
+
+    private void memberSeparator(Output out) throws IOException {
+        switch (format) {
+            case MERMAID:
+                out.ascii("<br/>");
+                break;
+            case DOT:
+                out.ascii("\\n");
+                break;
+            case GRAPHML:
+                out.ascii(", ");
+                break;
+        }
+    }
+
+    private void edge(Output out, int from, int to) throws IOException {
+        switch (format) {
+            case MERMAID:
+                out.ascii("  n");
+                out.number(from);
+                out.ascii(" --> n");
+                out.number(to);
+                out.ascii("\n");
+                break;
+            case DOT:
+                out.ascii("  n");
+                out.number(from);
+                out.ascii(" -> n");
+                out.number(to);
+                out.ascii(";\n");
+                break;
+            case GRAPHML:
+                out.ascii("    <edge source=\"n");
+                out.number(from);
+                out.ascii("\" target=\"n");
+                out.number(to);
+                out.ascii("\"/>\n");
+                break;
+        }
+    }
+
+    private void putCoordinates(Output out, int node) throws IOException {
+        out.text(store.groupId(node), format);
+        out.ascii(":");
+        out.text(store.artifactId(node), format);
+        out.ascii(":");
+        out.text(store.version(node), format);
+    }
+
+    /**
+     * Буферизованная запись в канал: UTF-8 и экранирование по формату без
+     * создания строк.
+     */
+    private static class Output {
+        private final WritableByteChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16);
+
+        Output(WritableByteChannel channel) {
+            this.channel = channel;
+        }
+
+        void ascii(String value) throws IOException {
+            for (int i = 0; i < value.length(); i++) {
+                put((byte) value.charAt(i));
+            }
+        }
+
+        void number(int value) throws IOException {
+            if (value < 10) {
+                put((byte) ('0' + value));
+                return;
+            }
+            number(value / 10);
+            put((byte) ('0' + value % 10));
+        }
+
+        void text(String value, Format format) throws IOException {
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                switch (format) {
+                    case MERMAID:
+                        if (c == '"') {
+                            ascii("#quot;");
+                            continue;
+                        }
+                        break;
+                    case DOT:
+                        if (c == '"' || c == '\\') {
+                            put((byte) '\\');
+                        }
+                        break;
+                    case GRAPHML:
+                        if (c == '&') {
+                            ascii("&amp;");
+                            continue;
+                        } else if (c == '<') {
+                            ascii("&lt;");
+                            continue;
+                        } else if (c == '>') {
+                            ascii("&gt;");
+                            continue;
+                        } else if (c == '"') {
+                            ascii("&quot;");
+                            continue;
+                        }
+                        break;
+                }
+                if (c < 0x80) {
+                    put((byte) c);
+                } else if (c < 0x800) {
+                    put((byte) (0xC0 | (c >> 6)));
+                    put((byte) (0x80 | (c & 0x3F)));
+                } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                        && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    int cp = Character.toCodePoint(c, value.charAt(++i));
+                    put((byte) (0xF0 | (cp >> 18)));
+                    put((byte) (0x80 | ((cp >> 12) & 0x3F)));
+                    put((byte) (0x80 | ((cp >> 6) & 0x3F)));
+                    put((byte) (0x80 | (cp & 0x3F)));
+                } else {
+                    put((byte) (0xE0 | (c >> 12)));
+                    put((byte) (0x80 | ((c >> 6) & 0x3F)));
+                    put((byte) (0x80 | (c & 0x3F)));
+                }
+            }
+        }
+
+        private void put(byte b) throws IOException {
+            if (!buffer.hasRemaining()) {
+                flush();
+            }
+            buffer.put(b);
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+}
@@ -0,0 +1,457 @@
+package com.mavengraph;
+
+import java.util.*;
+
+/**
+ * Запросы к готовому графу: кто зависит от артефакта, какие корни его тянут
+ * и по какому кратчайшему пути, что достижимо из узла.
+ *
+ * При создании строятся индексы за O(узлов + рёбер):
+ * <ul>
+ * <li>обратные рёбра в формате CSR (rOffsets/rSources);</li>
+ * <li>узлы по artifactId (CSR по номеру строки), чтобы точный поиск не перебирал граф;</li>
+ * <li>для каждой компоненты конденсации - битовое множество корней, из которых она
+ * достижима (если помещается в PRECOMPUTE_LIMIT_BYTES): ответ "какие корни тянут X"
+ * - одно чтение без обхода.</li>
+ * </ul>
+ * Обходы используют общие рабочие массивы с меткой запроса вместо очистки,
+ * поэтому объект не потокобезопасен.
+ */
+public class GraphQuery {
+    private static final long PRECOMPUTE_LIMIT_BYTES = 64L * 1024 * 1024;
+
+    private final GraphStore store;
+    private final SccAnalyzer.Result scc;
+    private final int[] roots;
+    private final BitSet rootSet;
+    private final int[] offsets;
+    private final int[] targets;
+    private final int[] rOffsets;
+    private final int[] rSources;
+    private final int[] artifactOffsets;
+    private final int[] artifactNodes;
+    // Различные artifactId по алфавиту: шаблон с буквальным префиксом ищется двоичным поиском
+    private final String[] sortedArtifacts;
+    // rootReach[c * rootWords + w] - биты корней, из которых достижима компонента c; null - не посчитано
+    private final long[] rootReach;
+    private final int rootWords;
+
+    // Рабочие массивы обходов: mark[v] == epoch - узел посещён в текущем запросе
+    private final int[] mark;
+    private final int[] next;
+    private final int[] queue;
+    private int epoch;
+
+    /**
+     * roots - корни графа; пустой массив - по узлу из каждой компоненты без входящих
+     * рёбер (граф из файла, SccAnalyzer.Result.sources).
+     */
+    public GraphQuery(GraphStore store, SccAnalyzer.Result scc, int[] roots) {
+        this.store = store;
+        this.scc = scc;
+        this.offsets = store.offsets();
+        this.targets = store.targets();
+        int n = store.nodeCount();
+
+        rOffsets = new int[n + 1];
+        for (int e = 0; e < offsets[n]; e++) {
+            rOffsets[targets[e] + 1]++;
+        }
+        for (int v = 0; v < n; v++) {
+            rOffsets[v + 1] += rOffsets[v];
+        }
+        rSources = new int[offsets[n]];
+        int[] fill = Arrays.copyOf(rOffsets, n);
+        for (int v = 0; v < n; v++) {
+            for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+                rSources[fill[targets[e]]++] = v;
+            }
+        }
+
+        int strings = store.stringCount();
+        artifactOffsets = new int[strings + 1];
+        for (int v = 0; v < n; v++) {
+            artifactOffsets[store.artifactIndex(v) + 1]++;
+        }
+        for (int s = 0; s < strings; s++) {
+            artifactOffsets[s + 1] += artifactOffsets[s];
+        }
+        artifactNodes = new int[n];
+        fill = Arrays.copyOf(artifactOffsets, strings);
+        for (int v = 0; v < n; v++) {
+            artifactNodes[fill[store.artifactIndex(v)]++] = v;
+        }
+        int distinct = 0;
+        for (int i = 0; i < strings; i++) {
+            if (artifactOffsets[i] != artifactOffsets[i + 1]) {
+                distinct++;
+            }
+        }
+        sortedArtifacts = new String[distinct];
+        distinct = 0;
+        for (int i = 0; i < strings; i++) {
+            if (artifactOffsets[i] != artifactOffsets[i + 1]) {
+                sortedArtifacts[distinct++] = store.string(i);
+            }
+        }
+        Arrays.sort(sortedArtifacts);
+
+        this.roots = roots.length > 0 ? roots.clone() : scc.sources();
+        rootSet = new BitSet(n);
+        for (int root : this.roots) {
+            rootSet.set(root);
+        }
+        rootWords = (this.roots.length + 63) / 64;
+        rootReach = (long) scc.componentCount() * rootWords * 8 <= PRECOMPUTE_LIMIT_BYTES
+            ? precomputeRootReach() : null;
+
+        mark = new int[n];
+        next = new int[n];
+        queue = new int[n];
+    }
+
+    public int[] getRoots() { return roots.clone(); }
+
+    /**
+     * Корни тянут компоненту, если тянут любого её предшественника. Компоненты
+     * пронумерованы в обратном топологическом порядке, поэтому один проход от
+     * большего номера к меньшему распространяет биты по всему DAG.
+     */
+    private long[] precomputeRootReach() {
+        int count = scc.componentCount();
+        long[] reach = new long[count * rootWords];
+        for (int r = 0; r < roots.length; r++) {
+            reach[scc.componentOf(roots[r]) * rootWords + (r >>> 6)] |= 1L << r;
+        }
+        for (int c = count - 1; c >= 0; c--) {
+            int from = c * rootWords;
+            for (int i = scc.memberStart(c); i < scc.memberEnd(c); i++) {
+                int v = scc.memberAt(i);
+                for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+                    int d = scc.componentOf(targets[e]);
+                    if (d != c) {
+                        int to = d * rootWords;
+                        for (int w = 0; w < rootWords; w++) {
+                            reach[to + w] |= reach[from + w];
+                        }
+                    }
+                }
+            }
+        }
+        return reach;
+    }
+
+    private boolean isRoot(int node) {
+        return rootSet.get(node);
+    }
+
+    /**
+     * Узлы по шаблону groupId:artifactId[:version] или просто artifactId.
+     * В каждой части * - любая последовательность символов, ? - один символ.
+     */
+    public int[] match(String pattern) {
+        String[] parts = pattern.split(":", -1);
+        if (parts.length > 3 || Arrays.asList(parts).contains("")) {
+            throw new IllegalArgumentException("шаблон должен быть artifactId, groupId:artifactId "
+                + "или groupId:artifactId:version: " + pattern);
+        }
+        String groupPattern = parts.length > 1 ? parts[0] : null;
+        String artifactPattern = parts.length > 1 ? parts[1] : parts[0];
+        String versionPattern = parts.length > 2 ? parts[2] : null;
+
+        PartMatcher group = new PartMatcher(groupPattern);
+        PartMatcher version = new PartMatcher(versionPattern);
+        Matches result = new Matches();
+        if (!hasWildcard(artifactPattern)) {
+            // Точный artifactId - одна строка таблицы
+            int s = store.stringIndex(artifactPattern);
+            if (s >= 0) {
+                collect(s, group, version, result);
+            }
+        } else {
+            // Перебираются только artifactId с тем же буквальным префиксом
+            String prefix = artifactPattern.substring(0, wildcardStart(artifactPattern));
+            int from = Arrays.binarySearch(sortedArtifacts, prefix);
+            for (int i = from >= 0 ? from : -from - 1;
+                 i < sortedArtifacts.length && sortedArtifacts[i].startsWith(prefix); i++) {
+                if (glob(artifactPattern, sortedArtifacts[i])) {
+                    collect(store.stringIndex(sortedArtifacts[i]), group, version, result);
+                }
+            }
+        }
+        int[] nodes = Arrays.copyOf(result.nodes, result.count);
+        Arrays.sort(nodes);
+        return nodes;
+    }
+
+    /**
+     * Найденные узлы: массив растёт удвоением.
+     */
+    private static class Matches {
+        int[] nodes = new int[16];
+        int count;
+
+        void add(int node) {
+            if (count == nodes.length) {
+                nodes = Arrays.copyOf(nodes, count * 2);
+            }
+            nodes[count++] = node;
+        }
+    }
+
+    /**
+     * Добавить узлы с artifactId номер artifact, прошедшие проверку group и version.
+     */
+    private void collect(int artifact, PartMatcher group, PartMatcher version, Matches result) {
+        for (int i = artifactOffsets[artifact]; i < artifactOffsets[artifact + 1]; i++) {
+            int v = artifactNodes[i];
+            if (group.test(store.groupIndex(v)) && version.test(store.versionIndex(v))) {
+                result.add(v);
+            }
+        }
+    }
+
+    private static int wildcardStart(String pattern) {
+        int star = pattern.indexOf('*');
+        int question = pattern.indexOf('?');
+        return star < 0 ? question : question < 0 ? star : Math.min(star, question);
+    }
+
+    /**
+     * Проверка части координаты по номеру строки: точное значение - сравнение номеров,
+     * шаблон - каждая строка таблицы сопоставляется не больше одного раза.
+     */
+    private class PartMatcher {
+        private final String pattern;
+        private final int exact;
+        private byte[] memo;
+
+        PartMatcher(String pattern) {
+            this.pattern = pattern;
+            this.exact = pattern != null && !hasWildcard(pattern) ? store.stringIndex(pattern) : -1;
+        }
+
+        boolean test(int string) {
+            if (pattern == null) {
+                return true;
+            }
+            if (!hasWildcard(pattern)) {
+                return string == exact;
+            }
+            if (memo == null) {
+                memo = new byte[store.stringCount()];
+            }
+            if (memo[string] == 0) {
+                memo[string] = glob(pattern, store.string(string)) ? (byte) 1 : (byte) 2;
+            }
+            return memo[string] == 1;
+        }
+    }
+
+    private static boolean hasWildcard(String pattern) {
+        return pattern.indexOf('*') >= 0 || pattern.indexOf('?') >= 0;
+    }
+
+    /**
+     * Сопоставление с * и ?; при несовпадении после * откатывается к последней звёздочке.
+     */
+    static boolean glob(String pattern, String value) {
+        int p = 0;
+        int v = 0;
+        int star = -1;
+        int starValue = 0;
+        while (v < value.length()) {
+            if (p < pattern.length() && (pattern.charAt(p) == '?' || pattern.charAt(p) == value.charAt(v))) {
+                p++;
+                v++;
+            } else if (p < pattern.length() && pattern.charAt(p) == '*') {
+                star = p++;
+                starValue = v;
+            } else if (star >= 0) {
+                p = star + 1;
+                v = ++starValue;
+            } else {
+                return false;
+            }
+        }
+        while (p < pattern.length() && pattern.charAt(p) == '*') {
+            p++;
+        }
+        return p == pattern.length();
+    }
+
+    /**
+     * Прямые зависимые: узлы с ребром в node.
+     */
+    public int[] dependents(int node) {
+        return Arrays.copyOfRange(rSources, rOffsets[node], rOffsets[node + 1]);
+    }
+
+    /**
+     * Все узлы, достижимые из node (без него самого, если он не в цикле).
+     */
+    public BitSet closure(int node) {
+        return traverse(node, offsets, targets);
+    }
+
+    /**
+     * Все узлы, из которых достижим node: транзитивные зависимые.
+     */
+    public BitSet dependentsClosure(int node) {
+        return traverse(node, rOffsets, rSources);
+    }
+
+    private BitSet traverse(int start, int[] edgeOffsets, int[] edgeTargets) {
+        BitSet result = new BitSet(store.nodeCount());
+        int stamp = nextEpoch();
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = start;
+        mark[start] = stamp;
+        while (head < tail) {
+            int v = queue[head++];
+            for (int e = edgeOffsets[v]; e < edgeOffsets[v + 1]; e++) {
+                int w = edgeTargets[e];
+                result.set(w);
+                if (mark[w] != stamp) {
+                    mark[w] = stamp;
+                    queue[tail++] = w;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Зависит ли from от to транзитивно. Рёбра ведут только к компонентам с меньшим
+     * номером, поэтому ветви, ушедшие ниже компоненты to, отсекаются; попав в компоненту
+     * to через любого её участника, from достигает и to.
+     */
+    public boolean reaches(int from, int to) {
+        int target = scc.componentOf(to);
+        int source = scc.componentOf(from);
+        if (target > source) {
+            return false;
+        }
+        if (target == source) {
+            return from != to || scc.isCyclic(source);
+        }
+
+        int stamp = nextEpoch();
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = from;
+        mark[from] = stamp;
+        while (head < tail) {
+            int v = queue[head++];
+            for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+                int w = targets[e];
+                if (scc.componentOf(w) == target) {
+                    return true;
+                }
+                if (mark[w] != stamp && scc.componentOf(w) > target) {
+                    mark[w] = stamp;
+                    queue[tail++] = w;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Корни, из которых достижим node (сам корень тоже считается).
+     */
+    public int[] rootsReaching(int node) {
+        int[] result = new int[roots.length];
+        int count = 0;
+        if (rootReach != null) {
+            int base = scc.componentOf(node) * rootWords;
+            for (int r = 0; r < roots.length; r++) {
+                if ((rootReach[base + (r >>> 6)] & (1L << r)) != 0) {
+                    result[count++] = roots[r];
+                }
+            }
+            return Arrays.copyOf(result, count);
+        }
+
+        BitSet ancestors = dependentsClosure(node);
+        ancestors.set(node);
+        for (int root : roots) {
+            if (ancestors.get(root)) {
+                result[count++] = root;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    /**
+     * Кратчайший путь от каждого корня, тянущего target, до него: массивы
+     * узлов от корня к target, в порядке корней. Один обратный обход в ширину от
+     * target даёт для всех предков следующий шаг кратчайшего пути.
+     */
+    public List<int[]> why(int target) {
+        // Если известно, сколько корней тянут target, обход останавливается на последнем из них
+        int expected = rootReach != null ? rootsReaching(target).length : roots.length;
+        int found = isRoot(target) ? 1 : 0;
+        int stamp = nextEpoch();
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = target;
+        mark[target] = stamp;
+        next[target] = -1;
+        while (head < tail && found < expected) {
+            int v = queue[head++];
+            for (int e = rOffsets[v]; e < rOffsets[v + 1]; e++) {
+                int w = rSources[e];
+                if (mark[w] != stamp) {
+                    mark[w] = stamp;
+                    next[w] = v;
+                    queue[tail++] = w;
+                    if (isRoot(w)) {
+                        found++;
+                    }
+                }
+            }
+        }
+
+        List<int[]> paths = new ArrayList<>();
+        for (int root : roots) {
+            if (mark[root] != stamp) {
+                continue;
+            }
+            int length = 1;
+            for (int v = root; v != target; v = next[v]) {
+                length++;
+            }
+            int[] path = new int[length];
+            int i = 0;
+            for (int v = root; v != -1 && i < length; v = next[v]) {
+                path[i++] = v;
+            }
+            paths.add(path);
+        }
+        return paths;
+    }
+
+    /**
+     * Путь в виде groupId:artifactId:version -> ... -> target.
+     */
+    public String formatPath(int[] path) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < path.length; i++) {
+            if (i > 0) {
+                sb.append(" -> ");
+            }
+            sb.append(store.id(path[i]));
+        }
+        return sb.toString();
+    }
+
+    private int nextEpoch() {
+        if (++epoch == 0) {
+            Arrays.fill(mark, 0);
+            epoch = 1;
+        }
+        return epoch;
+    }
+}
@@ -0,0 +1,308 @@
+package com.mavengraph;
+
+import java.io.*;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * Двоичный снимок разрешённого графа: таблица строк, координаты узлов, CSR рёбер
+ * и для каждого узла - был ли он раскрыт, хэш его POM и время разрешения.
+ *
+ * Формат (little-endian, секции выровнены на 8 байт):
+ * <pre>
+ * magic "MDGS", int версия, int флаги, int maxDepth
+ * int строк, int узлов, int рёбер, int корней, long время создания
+ * int[строк + 1] смещения строк, byte[] UTF-8 строки
+ * int[узлов] groupId, int[узлов] artifactId, int[узлов] version  (индексы строк)
+ * long[(узлов + 63) / 64] раскрытые узлы (битовое множество)
+ * long[узлов] хэш POM, long[узлов] время разрешения (мс)
+ * int[узлов + 1] offsets, int[рёбер] targets, int[корней] корни
+ * </pre>
+ * При чтении все секции копируются в массивы в куче (массовое копирование, без разбора
+ * по элементам): граф снимка не остаётся отображённым в память, потому что GraphStore
+ * изменяемый - в инкрементальном режиме к нему добавляются новые узлы и рёбра.
+ * Отображение используется только как источник для копирования.
+ */
+public class GraphSnapshot {
+    private static final int MAGIC = 0x5347444D; // "MDGS" в little-endian
+    private static final int FORMAT_VERSION = 1;
+    public static final int FLAG_EFFECTIVE_POM = 1;
+
+    private final GraphStore store;
+    private final BitSet expanded;
+    private final long[] pomHashes;
+    private final long[] resolvedAt;
+    private final int[] roots;
+    private final int flags;
+    private final int maxDepth;
+    private final long createdAt;
+
+    public GraphSnapshot(GraphStore store, BitSet expanded, long[] pomHashes, long[] resolvedAt,
+                         int[] roots, int flags, int maxDepth, long createdAt) {
+        this.store = store;
+        this.expanded = expanded;
+        this.pomHashes = pomHashes;
+        this.resolvedAt = resolvedAt;
+        this.roots = roots;
+        this.flags = flags;
+        this.maxDepth = maxDepth;
+        this.createdAt = createdAt;
+    }
+
+    public GraphStore getStore() { return store; }
+    public int[] getRoots() { return roots; }
+    public int getFlags() { return flags; }
+    public int getMaxDepth() { return maxDepth; }
+    public long getCreatedAt() { return createdAt; }
+
+    /**
+     * Раскрыт ли узел: его прямые зависимости были получены и записаны как рёбра.
+     * Листья на границе глубины не раскрыты.
+     */
+    public boolean isExpanded(int node) { return expanded.get(node); }
+    public long getPomHash(int node) { return pomHashes[node]; }
+    public long getResolvedAt(int node) { return resolvedAt[node]; }
+
+    /**
+     * Прямые зависимости узла в формате groupId:artifactId:version, в исходном порядке.
+     */
+    public List<String> dependencyIds(int node) {
+        int[] offsets = store.offsets();
+        int[] targets = store.targets();
+        List<String> ids = new ArrayList<>(offsets[node + 1] - offsets[node]);
+        for (int e = offsets[node]; e < offsets[node + 1]; e++) {
+            ids.add(store.id(targets[e]));
+        }
+        return ids;
+    }
+
+    public void write(Path file) throws IOException {
+        int[] offsets = store.offsets();
+        int[] targets = store.targets();
+        int nodes = store.nodeCount();
+        int strings = store.stringCount();
+
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            SectionWriter out = new SectionWriter(channel);
+            out.putInt(MAGIC);
+            out.putInt(FORMAT_VERSION);
+            out.putInt(flags);
+            out.putInt(maxDepth);
+            out.putInt(strings);
+            out.putInt(nodes);
+            out.putInt(targets.length);
+            out.putInt(roots.length);
+            out.putLong(createdAt);
+
+            // Строки: сначала смещения, потом байты; смещения нужно знать заранее
+            byte[][] encoded = new byte[strings][];
+            int[] stringOffsets = new int[strings + 1];
+            for (int i = 0; i < strings; i++) {
+                encoded[i] = store.string(i).getBytes(StandardCharsets.UTF_8);
+                stringOffsets[i + 1] = stringOffsets[i] + encoded[i].length;
+            }
+            out.putInts(stringOffsets, stringOffsets.length);
+            out.align();
+            for (byte[] bytes : encoded) {
+                out.putBytes(bytes);
+            }
+            out.align();
+
+            int[] column = new int[nodes];
+            for (int n = 0; n < nodes; n++) column[n] = store.groupIndex(n);
+            out.putInts(column, nodes);
+            for (int n = 0; n < nodes; n++) column[n] = store.artifactIndex(n);
+            out.putInts(column, nodes);
+            for (int n = 0; n < nodes; n++) column[n] = store.versionIndex(n);
+            out.putInts(column, nodes);
+            out.align();
+
+            long[] bits = Arrays.copyOf(expanded.toLongArray(), (nodes + 63) / 64);
+            out.putLongs(bits, bits.length);
+            out.putLongs(pomHashes, nodes);
+            out.putLongs(resolvedAt, nodes);
+            out.putInts(offsets, nodes + 1);
+            out.putInts(targets, targets.length);
+            out.putInts(roots, roots.length);
+            out.flush();
+            channel.force(false);
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Проверить по первым байтам, что файл - снимок графа.
+     */
+    public static boolean isSnapshot(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // читаем заголовок целиком
+            }
+            return !header.hasRemaining() && header.getInt(0) == MAGIC;
+        }
+    }
+
+    public static GraphSnapshot read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            ByteBuffer in = mapped.order(ByteOrder.LITTLE_ENDIAN);
+
+            try {
+                if (in.getInt() != MAGIC) {
+                    throw new IOException("не снимок графа: " + file);
+                }
+                int version = in.getInt();
+                if (version != FORMAT_VERSION) {
+                    throw new IOException("неподдерживаемая версия снимка: " + version);
+                }
+                int flags = in.getInt();
+                int maxDepth = in.getInt();
+                int strings = in.getInt();
+                int nodes = in.getInt();
+                int edges = in.getInt();
+                int rootCount = in.getInt();
+                long createdAt = in.getLong();
+
+                int[] stringOffsets = getInts(in, strings + 1);
+                align(in);
+                String[] table = new String[strings];
+                int base = in.position();
+                byte[] blob = new byte[stringOffsets[strings]];
+                in.get(blob);
+                for (int i = 0; i < strings; i++) {
+                    table[i] = new String(blob, stringOffsets[i], stringOffsets[i + 1] - stringOffsets[i],
+                        StandardCharsets.UTF_8);
+                }
+                in.position(base + blob.length);
+                align(in);
+
+                int[] groupIds = getInts(in, nodes);
+                int[] artifactIds = getInts(in, nodes);
+                int[] versions = getInts(in, nodes);
+                align(in);
+                BitSet expanded = BitSet.valueOf(getLongs(in, (nodes + 63) / 64));
+                long[] pomHashes = getLongs(in, nodes);
+                long[] resolvedAt = getLongs(in, nodes);
+                int[] offsets = getInts(in, nodes + 1);
+                int[] targets = getInts(in, edges);
+                int[] roots = getInts(in, rootCount);
+
+                GraphStore store = GraphStore.restore(table, groupIds, artifactIds, versions, offsets, targets);
+                return new GraphSnapshot(store, expanded, pomHashes, resolvedAt, roots, flags, maxDepth, createdAt);
+            } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException
+                     | NegativeArraySizeException e) {
+                throw new IOException("снимок повреждён: " + file, e);
+            }
+        }
+    }
+
+    private static int[] getInts(ByteBuffer in, int count) {
+        int[] result = new int[count];
+        in.asIntBuffer().get(result);
+        in.position(in.position() + count * 4);
+        return result;
+    }
+
+    private static long[] getLongs(ByteBuffer in, int count) {
+        long[] result = new long[count];
+        in.asLongBuffer().get(result);
+        in.position(in.position() + count * 8);
+        return result;
+    }
+
+    private static void align(ByteBuffer in) {
+        in.position((in.position() + 7) & ~7);
+    }
+
+    /**
+     * Последовательная запись в канал через прямой буфер.
+     */
+    private static class SectionWriter {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+        private long written;
+
+        SectionWriter(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        void putInt(int value) throws IOException {
+            ensure(4);
+            buffer.putInt(value);
+        }
+
+        void putLong(long value) throws IOException {
+            ensure(8);
+            buffer.putLong(value);
+        }
+
+        void putInts(int[] values, int count) throws IOException {
+            int pos = 0;
+            while (pos < count) {
+                ensure(4);
+                int chunk = Math.min(count - pos, buffer.remaining() / 4);
+                buffer.asIntBuffer().put(values, pos, chunk);
+                buffer.position(buffer.position() + chunk * 4);
+                pos += chunk;
+            }
+        }
+
+        void putLongs(long[] values, int count) throws IOException {
+            int pos = 0;
+            while (pos < count) {
+                ensure(8);
+                int chunk = Math.min(count - pos, buffer.remaining() / 8);
+                buffer.asLongBuffer().put(values, pos, chunk);
+                buffer.position(buffer.position() + chunk * 8);
+                pos += chunk;
+            }
+        }
+
+        void putBytes(byte[] bytes) throws IOException {
+            int pos = 0;
+            while (pos < bytes.length) {
+                ensure(1);
+                int chunk = Math.min(bytes.length - pos, buffer.remaining());
+                buffer.put(bytes, pos, chunk);
+                pos += chunk;
+            }
+        }
+
+        void align() throws IOException {
+            long position = written + buffer.position();
+            int padding = (int) ((8 - (position & 7)) & 7);
+            for (int i = 0; i < padding; i++) {
+                ensure(1);
+                buffer.put((byte) 0);
+            }
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                written += channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+    }
+}
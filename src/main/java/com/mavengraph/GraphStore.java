@@ -0,0 +1,330 @@
+package com.mavengraph;
+
+import java.util.*;
+
+/**
+ * Компактное хранилище графа: строки groupId/artifactId/version интернированы,
+ * узлы - плотные int-идентификаторы, рёбра - CSR (offsets + targets).
+ * Состояние обхода хранится в битовых множествах, а не в узлах.
+ */
+public class GraphStore {
+    private static final int NO_NODE = -1;
+
+    // Таблица строк
+    private String[] strings = new String[64];
+    private int stringCount;
+    private int[] stringSlots = newSlots(128);
+
+    // Узлы: индексы строк координаты
+    private int[] groupIds = new int[64];
+    private int[] artifactIds = new int[64];
+    private int[] versions = new int[64];
+    private int nodeCount;
+
+    // Открытая адресация: координата -> id узла
+    private int[] slots = newSlots(128);
+
+    // CSR рёбер + буфер рёбер, добавленных после последнего уплотнения
+    private int[] offsets = new int[1];
+    private int[] targets = new int[0];
+    private int[] pendingSrc = new int[16];
+    private int[] pendingDst = new int[16];
+    private int pendingCount;
+
+    private final BitSet visited = new BitSet();
+
+    public synchronized int getOrCreateNode(String groupId, String artifactId, String version) {
+        int g = intern(groupId);
+        int a = intern(artifactId);
+        int v = intern(version);
+
+        int mask = slots.length - 1;
+        int slot = hash(g, a, v) & mask;
+        while (slots[slot] != NO_NODE) {
+            int id = slots[slot];
+            if (groupIds[id] == g && artifactIds[id] == a && versions[id] == v) {
+                return id;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        int id = nodeCount++;
+        if (id == groupIds.length) {
+            int capacity = id * 2;
+            groupIds = Arrays.copyOf(groupIds, capacity);
+            artifactIds = Arrays.copyOf(artifactIds, capacity);
+            versions = Arrays.copyOf(versions, capacity);
+        }
+        groupIds[id] = g;
+        artifactIds[id] = a;
+        versions[id] = v;
+        slots[slot] = id;
+
+        if (nodeCount * 2 > slots.length) {
+            rehash(slots.length * 2);
+        }
+        return id;
+    }
+
+    /**
+     * Найти узел без создания. Возвращает -1, если такого узла нет.
+     */
+    public synchronized int findNode(String groupId, String artifactId, String version) {
+        int g = findString(groupId);
+        int a = findString(artifactId);
+        int v = findString(version);
+        if (g == NO_NODE || a == NO_NODE || v == NO_NODE) {
+            return NO_NODE;
+        }
+
+        int mask = slots.length - 1;
+        int slot = hash(g, a, v) & mask;
+        while (slots[slot] != NO_NODE) {
+            int id = slots[slot];
+            if (groupIds[id] == g && artifactIds[id] == a && versions[id] == v) {
+                return id;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return NO_NODE;
+    }
+
+    public synchronized void addEdge(int from, int to) {
+        if (pendingCount == pendingSrc.length) {
+            pendingSrc = Arrays.copyOf(pendingSrc, pendingCount * 2);
+            pendingDst = Arrays.copyOf(pendingDst, pendingCount * 2);
+        }
+        pendingSrc[pendingCount] = from;
+        pendingDst[pendingCount] = to;
+        pendingCount++;
+    }
+
+    /**
+     * Добавить пачку рёбер одним вызовом (для массовой загрузки).
+     */
+    public synchronized void addEdges(int[] from, int[] to, int count) {
+        int required = pendingCount + count;
+        if (required > pendingSrc.length) {
+            int capacity = Math.max(required, pendingSrc.length * 2);
+            pendingSrc = Arrays.copyOf(pendingSrc, capacity);
+            pendingDst = Arrays.copyOf(pendingDst, capacity);
+        }
+        System.arraycopy(from, 0, pendingSrc, pendingCount, count);
+        System.arraycopy(to, 0, pendingDst, pendingCount, count);
+        pendingCount = required;
+    }
+
+    public int nodeCount() { return nodeCount; }
+
+    public synchronized int edgeCount() {
+        return targets.length + pendingCount;
+    }
+
+    public String groupId(int node) { return strings[groupIds[node]]; }
+    public String artifactId(int node) { return strings[artifactIds[node]]; }
+    public String version(int node) { return strings[versions[node]]; }
+
+    public String id(int node) {
+        return groupId(node) + ":" + artifactId(node) + ":" + version(node);
+    }
+
+    /**
+     * Начало списка соседей узла в массиве targets().
+     */
+    public int edgesStart(int node) {
+        compact();
+        return offsets[node];
+    }
+
+    public int edgesEnd(int node) {
+        compact();
+        return offsets[node + 1];
+    }
+
+    /**
+     * Массив CSR целиком; соседи узла n лежат в [edgesStart(n), edgesEnd(n)).
+     */
+    public int[] targets() {
+        compact();
+        return targets;
+    }
+
+    public int[] offsets() {
+        compact();
+        return offsets;
+    }
+
+    public int degree(int node) {
+        compact();
+        return offsets[node + 1] - offsets[node];
+    }
+
+    // Доступ к таблице строк для двоичного снимка (GraphSnapshot)
+    int stringCount() { return stringCount; }
+    // Номер строки в таблице или -1
+    synchronized int stringIndex(String value) { return findString(value); }
+    String string(int index) { return strings[index]; }
+    int groupIndex(int node) { return groupIds[node]; }
+    int artifactIndex(int node) { return artifactIds[node]; }
+    int versionIndex(int node) { return versions[node]; }
+
+    /**
+     * Собрать хранилище из готовых массивов (таблица строк, координаты узлов
+     * как индексы строк, CSR). Массивы не копируются; строятся только хэш-таблицы.
+     */
+    static GraphStore restore(String[] strings, int[] groupIds, int[] artifactIds, int[] versions,
+                              int[] offsets, int[] targets) {
+        GraphStore store = new GraphStore();
+        store.strings = strings.length > 0 ? strings : new String[1];
+        store.stringCount = strings.length;
+        store.groupIds = groupIds.length > 0 ? groupIds : new int[1];
+        store.artifactIds = artifactIds.length > 0 ? artifactIds : new int[1];
+        store.versions = versions.length > 0 ? versions : new int[1];
+        store.nodeCount = groupIds.length;
+        store.offsets = offsets;
+        store.targets = targets;
+
+        store.stringSlots = newSlots(tableCapacity(store.stringCount));
+        int mask = store.stringSlots.length - 1;
+        for (int i = 0; i < store.stringCount; i++) {
+            int slot = spread(strings[i].hashCode()) & mask;
+            while (store.stringSlots[slot] != NO_NODE) {
+                slot = (slot + 1) & mask;
+            }
+            store.stringSlots[slot] = i;
+        }
+        store.rehash(tableCapacity(store.nodeCount));
+        return store;
+    }
+
+    /**
+     * Размер открытой таблицы с заполнением не больше половины.
+     */
+    private static int tableCapacity(int count) {
+        int capacity = 128;
+        while (count * 2 > capacity) {
+            capacity *= 2;
+        }
+        return capacity;
+    }
+
+    public boolean isVisited(int node) { return visited.get(node); }
+    public void setVisited(int node, boolean value) { visited.set(node, value); }
+    public void clearVisited() { visited.clear(); }
+
+    /**
+     * Перестроить CSR с учётом добавленных рёбер. Порядок соседей сохраняется:
+     * сначала уже уплотнённые рёбра, затем новые в порядке добавления.
+     */
+    public synchronized void compact() {
+        if (pendingCount == 0 && offsets.length == nodeCount + 1) {
+            return;
+        }
+
+        int oldNodes = offsets.length - 1;
+        int[] newOffsets = new int[nodeCount + 1];
+        for (int n = 0; n < oldNodes; n++) {
+            newOffsets[n + 1] = offsets[n + 1] - offsets[n];
+        }
+        for (int i = 0; i < pendingCount; i++) {
+            newOffsets[pendingSrc[i] + 1]++;
+        }
+        for (int n = 0; n < nodeCount; n++) {
+            newOffsets[n + 1] += newOffsets[n];
+        }
+
+        int[] newTargets = new int[newOffsets[nodeCount]];
+        int[] fill = Arrays.copyOf(newOffsets, nodeCount);
+        for (int n = 0; n < oldNodes; n++) {
+            for (int e = offsets[n]; e < offsets[n + 1]; e++) {
+                newTargets[fill[n]++] = targets[e];
+            }
+        }
+        for (int i = 0; i < pendingCount; i++) {
+            newTargets[fill[pendingSrc[i]]++] = pendingDst[i];
+        }
+
+        offsets = newOffsets;
+        targets = newTargets;
+        pendingCount = 0;
+        if (pendingSrc.length > 1024) {
+            pendingSrc = new int[16];
+            pendingDst = new int[16];
+        }
+    }
+
+    private int findString(String value) {
+        int mask = stringSlots.length - 1;
+        int slot = spread(value.hashCode()) & mask;
+        while (stringSlots[slot] != NO_NODE) {
+            int index = stringSlots[slot];
+            if (strings[index].equals(value)) {
+                return index;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return NO_NODE;
+    }
+
+    private int intern(String value) {
+        int mask = stringSlots.length - 1;
+        int slot = spread(value.hashCode()) & mask;
+        while (stringSlots[slot] != NO_NODE) {
+            int index = stringSlots[slot];
+            if (strings[index].equals(value)) {
+                return index;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        if (stringCount == strings.length) {
+            strings = Arrays.copyOf(strings, stringCount * 2);
+        }
+        strings[stringCount] = value;
+        stringSlots[slot] = stringCount;
+        stringCount++;
+
+        if (stringCount * 2 > stringSlots.length) {
+            stringSlots = newSlots(stringSlots.length * 2);
+            int newMask = stringSlots.length - 1;
+            for (int i = 0; i < stringCount; i++) {
+                int s = spread(strings[i].hashCode()) & newMask;
+                while (stringSlots[s] != NO_NODE) {
+                    s = (s + 1) & newMask;
+                }
+                stringSlots[s] = i;
+            }
+        }
+        return stringCount - 1;
+    }
+
+    private static int spread(int h) {
+        h *= 0x9E3779B1;
+        return h ^ (h >>> 16);
+    }
+
+    private void rehash(int capacity) {
+        slots = newSlots(capacity);
+        int mask = capacity - 1;
+        for (int id = 0; id < nodeCount; id++) {
+            int slot = hash(groupIds[id], artifactIds[id], versions[id]) & mask;
+            while (slots[slot] != NO_NODE) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = id;
+        }
+    }
+
+    private static int[] newSlots(int capacity) {
+        int[] result = new int[capacity];
+        Arrays.fill(result, NO_NODE);
+        return result;
+    }
+
+    private static int hash(int g, int a, int v) {
+        int h = g * 0x9E3779B1;
+        h = (h ^ a) * 0x85EBCA6B;
+        h = (h ^ v) * 0xC2B2AE35;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,67 @@
+package com.mavengraph;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.*;
+
+/**
+ * Репозиторий с раскладкой Maven на диске: локальный ~/.m2/repository или
+ * зеркало (каталог, смонтированная NFS-шара, file://). POM читаются через NIO,
+ * без URL-соединений; отсутствие файла - не ошибка, а промах.
+ */
+public class LocalRepository {
+    private final Path root;
+
+    public LocalRepository(Path root) {
+        this.root = root;
+    }
+
+    /**
+     * Каталог или file:// URL. Другие схемы (http, https) здесь не принимаются -
+     * это удалённые репозитории.
+     */
+    public static LocalRepository of(String location) {
+        if (location.startsWith("file:")) {
+            return new LocalRepository(Paths.get(URI.create(location)));
+        }
+        if (location.contains("://")) {
+            throw new IllegalArgumentException("ожидается каталог или file:// URL: " + location);
+        }
+        return new LocalRepository(Paths.get(location));
+    }
+
+    /**
+     * ~/.m2/repository текущего пользователя.
+     */
+    public static Path defaultPath() {
+        return Paths.get(System.getProperty("user.home"), ".m2", "repository");
+    }
+
+    public Path getRoot() { return root; }
+
+    /**
+     * Путь к POM в раскладке Maven: group/path/artifactId/version/artifactId-version.pom.
+     */
+    public Path pomPath(String groupId, String artifactId, String version) {
+        return root.resolve(groupId.replace('.', '/'))
+            .resolve(artifactId)
+            .resolve(version)
+            .resolve(artifactId + "-" + version + ".pom");
+    }
+
+    /**
+     * Содержимое POM или null, если его в репозитории нет.
+     */
+    public byte[] read(String groupId, String artifactId, String version) throws IOException {
+        try {
+            return Files.readAllBytes(pomPath(groupId, artifactId, version));
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return root.toString();
+    }
+}
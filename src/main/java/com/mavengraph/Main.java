@@ -1,44 +1,95 @@
 package com.mavengraph;
 
 import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 
 public class Main {
+    // Сколько узлов выводить в ответе на запрос, остальные только считаются
+    private static final int QUERY_PRINT_LIMIT = 50;
+    // Сколько ловушка завершения (Ctrl+C) ждёт итоговую запись потока NDJSON
+    private static final long STREAM_SHUTDOWN_WAIT_MS = 10_000;
+    // Исходный stdout: при --stream - он занят потоком NDJSON
+    private static final PrintStream STDOUT = System.out;
+    private static final long START_NANOS = System.nanoTime();
+    // Обход экосистемы: родителей и BOM в памяти, если --model-cache не указан,
+    // и артефактов с отдельными ошибками и задержками в метриках
+    private static final long CRAWL_MODEL_CACHE = 10_000;
+    private static final int CRAWL_TRACKED_LIMIT = 1000;
+    
     public static void main(String[] args) {
         Config config = parseArguments(args);
+        ResolutionMetrics metrics = new ResolutionMetrics();
+        if ("-".equals(config.getStreamFile())) {
+            // Поток NDJSON в stdout: остальной вывод уходит в stderr, чтобы не смешиваться с ним
+            System.setOut(System.err);
+        }
         
         System.out.println("=== Параметры конфигурации ===");
         for (Map.Entry<String, String> entry : config.getAllParams().entrySet()) {
             System.out.println(entry.getKey() + " = " + entry.getValue());
         }
         
-        if (config.isTestMode()) {
-            runTestMode(config);
+        if (config.isDaemon()) {
+            runDaemon(config, metrics);
+        } else if (config.isTestMode()) {
+            runTestMode(config, metrics);
+        } else if (config.getCrawlDir() != null) {
+            runCrawlMode(config, metrics);
+        } else if (config.getRootsFile() != null) {
+            runBatchMode(config, metrics);
         } else {
-            runRealMode(config);
+            runRealMode(config, metrics);
+        }
+        
+        if (config.getMetricsFile() != null) {
+            try {
+                metrics.writeJson(Paths.get(config.getMetricsFile()));
+                System.out.println("\nМетрики записаны в " + config.getMetricsFile());
+            } catch (IOException e) {
+                System.err.println("Ошибка записи метрик: " + e.getMessage());
+            }
         }
         
         System.out.println("\nВыполнение завершено");
     }
     
-    private static void runTestMode(Config config) {
+    private static void runTestMode(Config config, ResolutionMetrics metrics) {
         System.out.println("\n=== Тестовый режим ===");
         
         try {
             DependencyGraph graph = new DependencyGraph();
+            graph.setParallelism(config.getParallelism());
+            graph.setMetrics(metrics);
             graph.buildFromTestFile(config.getTestRepoPath());
             graph.printGraph();
+            if (config.isCondensation()) {
+                graph.printCondensation();
+            }
+            if (config.isMediate()) {
+                graph.printMediation(System.out);
+            }
             
             System.out.println("\nВсего узлов: " + graph.getAllNodes().size());
+            System.out.println(graph.getLoadStats());
             if (!graph.getCycles().isEmpty()) {
                 System.out.println("Обнаружено циклов: " + graph.getCycles().size());
             }
+            saveSnapshot(config, graph);
+            exportGraph(config, graph);
+            runQueries(config, graph);
+            writeAnalytics(config, graph);
+            printDiff(config, graph);
         } catch (IOException e) {
             System.err.println("Ошибка чтения файла: " + e.getMessage());
         }
     }
     
-    private static void runRealMode(Config config) {
+    private static void runRealMode(Config config, ResolutionMetrics metrics) {
         String[] parts = config.getPackageName().split(":");
         if (parts.length != 2) {
             System.err.println("Ошибка: неверный формат package");
@@ -48,27 +99,595 @@ public class Main {
         String groupId = parts[0];
         String artifactId = parts[1];
         
+        // Снимки, выгрузка, метрики, запросы, выбор версий, поток, срок, аналитика и сравнение
+        // требуют локального графа, остальное может построить сервер
+        if (!config.isNoDaemon() && config.getSnapshotIn() == null && config.getSnapshotOut() == null
+                && !config.isExport() && config.getMetricsFile() == null && !hasQueries(config)
+                && !config.isMediate() && config.getStreamFile() == null && config.getDeadlineSeconds() == 0
+                && config.getAnalyticsFile() == null && config.getDiffFile() == null
+                && DaemonClient.forward(config, System.out)) {
+            return;
+        }
+        
         System.out.println("\n=== Этап 2: Прямые зависимости ===");
-        MavenParser parser = new MavenParser();
-        List<String> dependencies = parser.getDependencies(
-            groupId, artifactId, config.getVersion(), config.getRepoUrl()
-        );
+        MavenParser parser = createParser(config, metrics);
+        GraphSnapshot baseline = loadBaseline(config);
+        
+        List<String> dependencies = baseline != null
+            ? snapshotDependencies(baseline, groupId, artifactId, config.getVersion())
+            : null;
+        if (dependencies == null) {
+            dependencies = parser.getDependencies(
+                groupId, artifactId, config.getVersion(), config.getRepoUrl()
+            );
+        }
+        
+        printDependencies(System.out, dependencies);
+        
+        System.out.println("\n=== Этап 3: Граф зависимостей ===");
+        DependencyGraph graph = new DependencyGraph(2); // Глубина 2 для теста
+        graph.setParallelism(config.getParallelism());
+        graph.setMetrics(metrics);
+        graph.setBaseline(baseline);
+        graph.setMediate(config.isMediate());
+        DependencyNode rootNode = graph.getOrCreateNode(groupId, artifactId, config.getVersion());
+        
+        buildGraphs(config, graph, Collections.singletonList(rootNode), parser);
+        graph.printGraph();
+        printFailures(graph);
+        if (config.isCondensation()) {
+            graph.printCondensation();
+        }
+        if (config.isMediate()) {
+            graph.printMediation(System.out);
+        }
+        if (baseline != null) {
+            System.out.println("\n" + graph.getIncrementalSummary());
+        }
+        saveSnapshot(config, graph);
+        exportGraph(config, graph);
+        runQueries(config, graph);
+        writeAnalytics(config, graph);
+        printDiff(config, graph);
+    }
+    
+    /**
+     * Построение графа с --stream и --deadline: узлы и рёбра пишутся в поток NDJSON
+     * по мере обнаружения, итоговая запись - после построения, в том числе остановленного
+     * по сроку или Ctrl+C (ловушка завершения отменяет построение и ждёт её).
+     */
+    private static void buildGraphs(Config config, DependencyGraph graph, List<DependencyNode> rootNodes,
+                                    MavenParser parser) {
+        if (config.getDeadlineSeconds() > 0) {
+            graph.setDeadline(START_NANOS + (long) (config.getDeadlineSeconds() * 1e9));
+        }
+        NdjsonStream stream = openStream(config);
+        if (stream == null) {
+            graph.buildGraphs(rootNodes, parser, config.getRepoUrl());
+            printStopReason(graph);
+            return;
+        }
         
+        graph.setListener(stream);
+        CountDownLatch finished = new CountDownLatch(1);
+        Thread hook = new Thread(() -> {
+            graph.cancel();
+            try {
+                finished.await(STREAM_SHUTDOWN_WAIT_MS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "stream-shutdown");
+        Runtime.getRuntime().addShutdownHook(hook);
+        try {
+            graph.buildGraphs(rootNodes, parser, config.getRepoUrl());
+        } finally {
+            stream.summary(graph);
+            try {
+                stream.close();
+            } catch (IOException e) {
+                System.err.println("Ошибка закрытия потока NDJSON: " + e.getMessage());
+            }
+            graph.setListener(null);
+            finished.countDown();
+        }
+        try {
+            Runtime.getRuntime().removeShutdownHook(hook);
+        } catch (IllegalStateException e) {
+            // завершение уже идёт (Ctrl+C) - ловушка дождалась итоговой записи
+        }
+        if (!"-".equals(config.getStreamFile())) {
+            System.out.println("Поток NDJSON записан в " + config.getStreamFile() + ": "
+                + stream.getNodes() + " узлов, " + stream.getEdges() + " рёбер");
+        }
+        printStopReason(graph);
+    }
+    
+    private static NdjsonStream openStream(Config config) {
+        if (config.getStreamFile() == null) {
+            return null;
+        }
+        OutputStream out;
+        if ("-".equals(config.getStreamFile())) {
+            out = STDOUT;
+        } else {
+            try {
+                out = Files.newOutputStream(Paths.get(config.getStreamFile()));
+            } catch (IOException e) {
+                System.err.println("Ошибка открытия потока NDJSON: " + e.getMessage());
+                System.exit(1);
+                return null;
+            }
+        }
+        return new NdjsonStream(out, config.getStreamFlush(), config.getStreamFlushMs());
+    }
+    
+    private static void printStopReason(DependencyGraph graph) {
+        String reason = graph.getStopReason();
+        if (reason != null) {
+            System.out.println("\n=== Разрешение остановлено ("
+                + (DependencyGraph.STOP_DEADLINE.equals(reason) ? "истёк --deadline" : "отменено")
+                + "): граф неполный, нераскрытые узлы загрузятся при следующем запуске ===");
+        }
+    }
+    
+    /**
+     * Артефакты, зависимости которых не удалось получить после всех повторов.
+     */
+    private static void printFailures(DependencyGraph graph) {
+        Map<String, String> failures = graph.getFailures();
+        if (failures.isEmpty()) {
+            return;
+        }
+        System.out.println("\n=== Не удалось разрешить: " + failures.size() + " (их поддеревья неполные) ===");
+        int printed = 0;
+        for (Map.Entry<String, String> failure : failures.entrySet()) {
+            if (printed++ == QUERY_PRINT_LIMIT) {
+                System.out.println("  ... и ещё " + (failures.size() - QUERY_PRINT_LIMIT));
+                break;
+            }
+            System.out.println("  " + failure.getKey() + ": " + failure.getValue());
+        }
+    }
+    
+    static void printDependencies(PrintStream out, List<String> dependencies) {
         if (dependencies.isEmpty()) {
-            System.out.println("Зависимостей не найдено");
+            out.println("Зависимостей не найдено");
         } else {
             for (int i = 0; i < dependencies.size(); i++) {
-                System.out.println((i + 1) + ". " + dependencies.get(i));
+                out.println((i + 1) + ". " + dependencies.get(i));
             }
-            System.out.println("Всего: " + dependencies.size() + " зависимостей");
+            out.println("Всего: " + dependencies.size() + " зависимостей");
+        }
+    }
+    
+    /**
+     * Режим сервера: работает до POST /shutdown, кэши и разобранные POM живут между запросами.
+     */
+    private static void runDaemon(Config config, ResolutionMetrics metrics) {
+        ResolverDaemon daemon = new ResolverDaemon(config, createParser(config, metrics), metrics);
+        try {
+            daemon.start();
+        } catch (IOException e) {
+            System.err.println("Ошибка запуска сервера на порту " + config.getDaemonPort() + ": " + e.getMessage());
+            System.exit(1);
+        }
+        System.out.println("\n=== Сервер запущен: http://127.0.0.1:" + daemon.getPort() + "/ ===");
+        System.out.println("Остановка: curl -X POST http://127.0.0.1:" + daemon.getPort() + "/shutdown");
+        try {
+            daemon.awaitShutdown();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            daemon.stop();
+        }
+        System.out.println("Сервер остановлен");
+    }
+    
+    /**
+     * Пакетный режим: все корни из файла разрешаются в одном процессе с общими
+     * узлами, кэшем POM и загрузками.
+     */
+    private static void runBatchMode(Config config, ResolutionMetrics metrics) {
+        List<String[]> coordinates;
+        try {
+            coordinates = readRoots(config.getRootsFile());
+        } catch (IOException e) {
+            System.err.println("Ошибка чтения файла корней: " + e.getMessage());
+            System.exit(1);
+            return;
+        }
+        if (coordinates.isEmpty()) {
+            System.err.println("Ошибка: в " + config.getRootsFile() + " нет корней");
+            System.exit(1);
         }
         
-        System.out.println("\n=== Этап 3: Граф зависимостей ===");
-        DependencyGraph graph = new DependencyGraph(2); // Глубина 2 для теста
-        DependencyNode rootNode = graph.getOrCreateNode(groupId, artifactId, config.getVersion());
+        System.out.println("\n=== Пакетный режим (корней: " + coordinates.size() + ") ===");
+        MavenParser parser = createParser(config, metrics);
+        DependencyGraph graph = new DependencyGraph(2); // Глубина 2, как в обычном режиме
+        graph.setParallelism(config.getParallelism());
+        graph.setMetrics(metrics);
+        graph.setBaseline(loadBaseline(config));
+        graph.setMediate(config.isMediate());
         
-        graph.buildGraph(rootNode, parser, config.getRepoUrl());
+        List<DependencyNode> rootNodes = new ArrayList<>();
+        for (String[] root : coordinates) {
+            rootNodes.add(graph.getOrCreateNode(root[0], root[1], root[2]));
+        }
+        buildGraphs(config, graph, rootNodes, parser);
         graph.printGraph();
+        printFailures(graph);
+        graph.printClosures();
+        if (config.isCondensation()) {
+            graph.printCondensation();
+        }
+        if (config.isMediate()) {
+            graph.printMediation(System.out);
+        }
+        if (config.getSnapshotIn() != null) {
+            System.out.println("\n" + graph.getIncrementalSummary());
+        }
+        saveSnapshot(config, graph);
+        exportGraph(config, graph);
+        runQueries(config, graph);
+        writeAnalytics(config, graph);
+        printDiff(config, graph);
+    }
+    
+    /**
+     * Обход экосистемы с ограниченной памятью (Crawler): граф вне кучи, очередь и журнал
+     * в каталоге --crawl. Ctrl+C и --deadline останавливают обход с контрольной точкой,
+     * повторный запуск с тем же каталогом его продолжает.
+     */
+    private static void runCrawlMode(Config config, ResolutionMetrics metrics) {
+        List<String> seeds = new ArrayList<>();
+        if (config.getRootsFile() != null) {
+            try {
+                for (String[] root : readRoots(config.getRootsFile())) {
+                    seeds.add(String.join(":", root));
+                }
+            } catch (IOException e) {
+                System.err.println("Ошибка чтения файла корней: " + e.getMessage());
+                System.exit(1);
+            }
+        } else {
+            seeds.add(config.getPackageName() + ":" + config.getVersion());
+        }
+        
+        System.out.println("\n=== Обход экосистемы (семян: " + seeds.size() + ", каталог: "
+            + config.getCrawlDir() + ") ===");
+        metrics.setTrackedLimit(CRAWL_TRACKED_LIMIT);
+        MavenParser parser = createParser(config, metrics);
+        if (config.getModelCache() == 0) {
+            parser.setResolver(new EffectivePomResolver(CRAWL_MODEL_CACHE));
+        }
+        
+        Crawler.Stats stats = null;
+        try (Crawler crawler = new Crawler(parser, config.getRepoUrl(), Paths.get(config.getCrawlDir()),
+                config.getOffHeapMb() * 1024 * 1024)) {
+            if (crawler.getGraph().nodeCount() > 0) {
+                System.out.println("Продолжение: восстановлено узлов " + crawler.getGraph().nodeCount()
+                    + ", раскрыто " + crawler.getGraph().expandedCount());
+            }
+            crawler.setGroupPrefixes(config.getCrawlGroups());
+            crawler.setMaxDepth(config.getCrawlDepth());
+            crawler.setParallelism(config.getParallelism());
+            if (config.getDeadlineSeconds() > 0) {
+                crawler.setDeadline(START_NANOS + (long) (config.getDeadlineSeconds() * 1e9));
+            }
+            NdjsonStream stream = openStream(config);
+            crawler.setListener(stream);
+            
+            CountDownLatch finished = new CountDownLatch(1);
+            Thread hook = new Thread(() -> {
+                crawler.cancel();
+                try {
+                    finished.await(STREAM_SHUTDOWN_WAIT_MS, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }, "crawl-shutdown");
+            Runtime.getRuntime().addShutdownHook(hook);
+            try {
+                stats = crawler.crawl(seeds);
+            } finally {
+                if (stream != null) {
+                    stream.summary(stats != null ? stats.getStopReason() : DependencyGraph.STOP_CANCELLED);
+                    try {
+                        stream.close();
+                    } catch (IOException e) {
+                        System.err.println("Ошибка закрытия потока NDJSON: " + e.getMessage());
+                    }
+                }
+                finished.countDown();
+            }
+            try {
+                Runtime.getRuntime().removeShutdownHook(hook);
+            } catch (IllegalStateException e) {
+                // завершение уже идёт (Ctrl+C) - контрольная точка записана
+            }
+        } catch (IOException e) {
+            System.err.println("Ошибка обхода: " + e.getMessage());
+            System.exit(1);
+            return;
+        }
+        
+        Runtime runtime = Runtime.getRuntime();
+        System.out.println("Узлов: " + stats.getNodes() + ", рёбер: " + stats.getEdges()
+            + ", раскрыто: " + stats.getExpanded() + ", ошибок: " + stats.getFailed()
+            + ", в очереди: " + stats.getRemaining());
+        System.out.println("Граф вне кучи: " + stats.getDirectBytes() / (1024 * 1024) + " МБ в памяти, "
+            + stats.getSpilledBytes() / (1024 * 1024) + " МБ в файлах подкачки; куча: "
+            + (runtime.totalMemory() - runtime.freeMemory()) / (1024 * 1024) + " из "
+            + runtime.maxMemory() / (1024 * 1024) + " МБ");
+        System.out.println("Время: " + stats.getElapsedMs() + " мс; журнал: "
+            + Paths.get(config.getCrawlDir(), Crawler.JOURNAL));
+        if (stats.getStopReason() != null) {
+            System.out.println("\n=== Обход остановлен ("
+                + (DependencyGraph.STOP_DEADLINE.equals(stats.getStopReason()) ? "истёк --deadline" : "отменён")
+                + "): повторный запуск с тем же --crawl продолжит его ===");
+        }
+    }
+    
+    /**
+     * Корни по одному на строку: groupId:artifactId:version. Пустые строки и
+     * строки с # пропускаются, повторы тоже.
+     */
+    private static List<String[]> readRoots(String path) throws IOException {
+        List<String[]> roots = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        int lineNumber = 0;
+        for (String line : Files.readAllLines(Paths.get(path))) {
+            lineNumber++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] parts = line.split(":");
+            if (parts.length != 3 || parts[0].isEmpty() || parts[1].isEmpty() || parts[2].isEmpty()) {
+                throw new IOException("строка " + lineNumber + ": ожидается groupId:artifactId:version");
+            }
+            if (seen.add(line)) {
+                roots.add(parts);
+            }
+        }
+        return roots;
+    }
+    
+    /**
+     * Выгрузить граф для визуализации, если указан --output или --format.
+     */
+    private static void exportGraph(Config config, DependencyGraph graph) {
+        if (!config.isExport()) {
+            return;
+        }
+        GraphExporter exporter = new GraphExporter(graph.getStore());
+        GraphExporter.Format format = config.getExportFormat() != null
+            ? GraphExporter.Format.fromName(config.getExportFormat())
+            : GraphExporter.Format.forFile(config.getOutputFile());
+        exporter.setFormat(format);
+        exporter.setMaxDepth(config.getExportDepth());
+        if (config.getExportRoot() != null) {
+            String[] root = config.getExportRoot().split(":");
+            int node = graph.getStore().findNode(root[0], root[1], root[2]);
+            if (node < 0) {
+                System.err.println("Ошибка: узла " + config.getExportRoot() + " нет в графе, выгрузка пропущена");
+                return;
+            }
+            exporter.setRoots(new int[] { node });
+        } else if (config.getExportDepth() >= 0) {
+            int[] roots = graph.getRoots();
+            exporter.setRoots(roots.length > 0 ? roots : graph.getComponents().sources());
+        }
+        if (config.isCollapseCycles()) {
+            exporter.setCollapse(graph.getComponents());
+        }
+        
+        long start = System.nanoTime();
+        try {
+            GraphExporter.Stats stats = exporter.export(Paths.get(config.getOutputFile()));
+            System.out.printf("%nГраф записан в %s (%s): %d узлов, %d рёбер за %d мс%n",
+                config.getOutputFile(), format.getKey(), stats.getNodes(), stats.getEdges(),
+                (System.nanoTime() - start) / 1_000_000);
+        } catch (IOException e) {
+            System.err.println("Ошибка выгрузки графа: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Запросы --why, --dependents и --closure к построенному графу.
+     */
+    private static void runQueries(Config config, DependencyGraph graph) {
+        if (!hasQueries(config)) {
+            return;
+        }
+        long start = System.nanoTime();
+        GraphQuery query = graph.getQuery();
+        System.out.println("\nИндекс запросов построен за " + millis(start) + " мс");
+        GraphStore store = graph.getStore();
+        
+        if (config.getWhyPattern() != null) {
+            System.out.println("\n=== Почему в графе: " + config.getWhyPattern() + " ===");
+            for (int node : matchOrReport(query, config.getWhyPattern())) {
+                start = System.nanoTime();
+                List<int[]> paths = query.why(node);
+                String elapsed = millis(start);
+                System.out.println(store.id(node) + " (тянут корней: " + paths.size() + ", " + elapsed + " мс)");
+                for (int[] path : paths) {
+                    System.out.println("  " + query.formatPath(path));
+                }
+            }
+        }
+        if (config.getDependentsPattern() != null) {
+            System.out.println("\n=== Зависимые: " + config.getDependentsPattern() + " ===");
+            for (int node : matchOrReport(query, config.getDependentsPattern())) {
+                start = System.nanoTime();
+                int[] direct = query.dependents(node);
+                BitSet transitive = query.dependentsClosure(node);
+                String elapsed = millis(start);
+                System.out.println(store.id(node) + ": прямых " + direct.length + ", транзитивных "
+                    + transitive.cardinality() + " (" + elapsed + " мс)");
+                printNodes(store, direct);
+            }
+        }
+        if (config.getClosurePattern() != null) {
+            System.out.println("\n=== Транзитивные зависимости: " + config.getClosurePattern() + " ===");
+            for (int node : matchOrReport(query, config.getClosurePattern())) {
+                start = System.nanoTime();
+                BitSet closure = query.closure(node);
+                String elapsed = millis(start);
+                System.out.println(store.id(node) + ": " + closure.cardinality() + " узлов (" + elapsed + " мс)");
+                printNodes(store, closure.stream().toArray());
+            }
+        }
+    }
+    
+    /**
+     * Аналитика графа с --analytics: сводка в консоль, отчёт - JSON или CSV по узлам (.csv).
+     */
+    private static void writeAnalytics(Config config, DependencyGraph graph) {
+        if (config.getAnalyticsFile() == null) {
+            return;
+        }
+        GraphAnalytics.Report report = graph.getAnalytics();
+        report.print(System.out);
+        try {
+            report.write(Paths.get(config.getAnalyticsFile()));
+            System.out.println("Отчёт аналитики записан в " + config.getAnalyticsFile());
+        } catch (IOException e) {
+            System.err.println("Ошибка записи отчёта аналитики: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Сравнение с --diff: граф из снимка или тестового файла - старый, построенный - новый.
+     * Отпечатки подграфов считаются отдельно от сравнения, оно проверяет только пути к изменениям.
+     */
+    private static void printDiff(Config config, DependencyGraph graph) {
+        if (config.getDiffFile() == null) {
+            return;
+        }
+        DependencyGraph previous = new DependencyGraph();
+        previous.setParallelism(config.getParallelism());
+        try {
+            previous.buildFromTestFile(config.getDiffFile());
+        } catch (IOException e) {
+            System.err.println("Ошибка чтения графа для сравнения: " + e.getMessage());
+            return;
+        }
+        long start = System.nanoTime();
+        GraphDiff.Fingerprints oldPrints = previous.getFingerprints();
+        GraphDiff.Fingerprints newPrints = graph.getFingerprints();
+        System.out.println("\n=== Сравнение с " + config.getDiffFile() + " ===");
+        System.out.println("Отпечатки подграфов посчитаны за " + millis(start) + " мс");
+        new GraphDiff(previous.getStore(), oldPrints, graph.getStore(), newPrints).compare()
+            .print(System.out, QUERY_PRINT_LIMIT);
+    }
+    
+    private static boolean hasQueries(Config config) {
+        return config.getWhyPattern() != null || config.getDependentsPattern() != null
+            || config.getClosurePattern() != null;
+    }
+    
+    private static int[] matchOrReport(GraphQuery query, String pattern) {
+        long start = System.nanoTime();
+        int[] nodes = query.match(pattern);
+        System.out.println("Совпадений: " + nodes.length + " (" + millis(start) + " мс)");
+        return nodes;
+    }
+    
+    private static void printNodes(GraphStore store, int[] nodes) {
+        for (int i = 0; i < nodes.length && i < QUERY_PRINT_LIMIT; i++) {
+            System.out.println("  " + store.id(nodes[i]));
+        }
+        if (nodes.length > QUERY_PRINT_LIMIT) {
+            System.out.println("  ... и ещё " + (nodes.length - QUERY_PRINT_LIMIT));
+        }
+    }
+    
+    private static String millis(long startNanos) {
+        return String.format(Locale.ROOT, "%.3f", (System.nanoTime() - startNanos) / 1_000_000.0);
+    }
+    
+    /**
+     * Источники на диске в порядке опроса: локальный репозиторий (по умолчанию
+     * ~/.m2/repository, если он есть), затем зеркала --mirror.
+     */
+    private static List<LocalRepository> localRepositories(Config config) {
+        List<LocalRepository> repositories = new ArrayList<>();
+        if (!config.isNoLocalRepo()) {
+            Path path = config.getLocalRepo() != null ? Paths.get(config.getLocalRepo()) : LocalRepository.defaultPath();
+            if (Files.isDirectory(path)) {
+                repositories.add(new LocalRepository(path));
+            }
+        }
+        for (String mirror : config.getMirrors()) {
+            repositories.add(LocalRepository.of(mirror));
+        }
+        return repositories;
+    }
+    
+    private static MavenParser createParser(Config config, ResolutionMetrics metrics) {
+        PomFetcher fetcher = new PomFetcher(
+            config.getConnectTimeoutMs(), config.getReadTimeoutMs(), config.getMaxInFlight());
+        fetcher.setMaxRetries(config.getMaxRetries());
+        fetcher.setAdaptive(!config.isFixedConcurrency());
+        MavenParser parser = new MavenParser(fetcher);
+        parser.setMetrics(metrics);
+        parser.setEffectivePom(config.isEffectivePom());
+        parser.setLocalRepositories(localRepositories(config));
+        if (config.getModelCache() > 0) {
+            parser.setResolver(new EffectivePomResolver(config.getModelCache()));
+        }
+        if (config.getCacheDir() != null) {
+            try {
+                parser.setCache(new PomCache(Paths.get(config.getCacheDir()),
+                    config.getCacheMaxMb() * 1024 * 1024, config.isOffline()));
+            } catch (IOException e) {
+                System.err.println("Ошибка открытия кэша: " + e.getMessage());
+                System.exit(1);
+            }
+        }
+        return parser;
+    }
+    
+    private static GraphSnapshot loadBaseline(Config config) {
+        if (config.getSnapshotIn() == null) {
+            return null;
+        }
+        if (!Files.exists(Paths.get(config.getSnapshotIn()))) {
+            System.out.println("Снимок " + config.getSnapshotIn() + " не найден, полное разрешение");
+            return null;
+        }
+        try {
+            return GraphSnapshot.read(Paths.get(config.getSnapshotIn()));
+        } catch (IOException e) {
+            System.err.println("Ошибка чтения снимка, полное разрешение: " + e.getMessage());
+            return null;
+        }
+    }
+    
+    /**
+     * Прямые зависимости корня из снимка, если он там раскрыт и это релиз; иначе null.
+     */
+    private static List<String> snapshotDependencies(GraphSnapshot snapshot, String groupId,
+                                                     String artifactId, String version) {
+        int node = snapshot.getStore().findNode(groupId, artifactId, version);
+        if (node < 0 || !snapshot.isExpanded(node) || version.endsWith("-SNAPSHOT")) {
+            return null;
+        }
+        return snapshot.dependencyIds(node);
+    }
+    
+    private static void saveSnapshot(Config config, DependencyGraph graph) {
+        if (config.getSnapshotOut() == null) {
+            return;
+        }
+        try {
+            graph.toSnapshot().write(Paths.get(config.getSnapshotOut()));
+            System.out.println("Снимок графа записан в " + config.getSnapshotOut());
+        } catch (IOException e) {
+            System.err.println("Ошибка записи снимка: " + e.getMessage());
+        }
     }
     
     private static Config parseArguments(String[] args) {
@@ -99,6 +718,167 @@ public class Main {
                     case "--output":
                         checkArgumentExists(args, i, "--output");
                         config.setOutputFile(args[++i]);
+                        config.setExport(true);
+                        break;
+                    case "--format":
+                        checkArgumentExists(args, i, "--format");
+                        config.setExportFormat(args[++i]);
+                        config.setExport(true);
+                        break;
+                    case "--export-depth":
+                        checkArgumentExists(args, i, "--export-depth");
+                        config.setExportDepth(Integer.parseInt(args[++i]));
+                        break;
+                    case "--export-root":
+                        checkArgumentExists(args, i, "--export-root");
+                        config.setExportRoot(args[++i]);
+                        break;
+                    case "--collapse-cycles":
+                        config.setCollapseCycles(true);
+                        break;
+                    case "--why":
+                        checkArgumentExists(args, i, "--why");
+                        config.setWhyPattern(args[++i]);
+                        break;
+                    case "--dependents":
+                        checkArgumentExists(args, i, "--dependents");
+                        config.setDependentsPattern(args[++i]);
+                        break;
+                    case "--closure":
+                        checkArgumentExists(args, i, "--closure");
+                        config.setClosurePattern(args[++i]);
+                        break;
+                    case "--parallelism":
+                        checkArgumentExists(args, i, "--parallelism");
+                        config.setParallelism(Integer.parseInt(args[++i]));
+                        break;
+                    case "--cache-dir":
+                        checkArgumentExists(args, i, "--cache-dir");
+                        config.setCacheDir(args[++i]);
+                        break;
+                    case "--offline":
+                        config.setOffline(true);
+                        break;
+                    case "--cache-max-mb":
+                        checkArgumentExists(args, i, "--cache-max-mb");
+                        config.setCacheMaxMb(Long.parseLong(args[++i]));
+                        break;
+                    case "--condensation":
+                        config.setCondensation(true);
+                        break;
+                    case "--mediate":
+                        config.setMediate(true);
+                        break;
+                    case "--local-repo":
+                        checkArgumentExists(args, i, "--local-repo");
+                        config.setLocalRepo(args[++i]);
+                        break;
+                    case "--no-local-repo":
+                        config.setNoLocalRepo(true);
+                        break;
+                    case "--mirror":
+                        checkArgumentExists(args, i, "--mirror");
+                        config.addMirror(args[++i]);
+                        break;
+                    case "--connect-timeout-ms":
+                        checkArgumentExists(args, i, "--connect-timeout-ms");
+                        config.setConnectTimeoutMs(Integer.parseInt(args[++i]));
+                        break;
+                    case "--read-timeout-ms":
+                        checkArgumentExists(args, i, "--read-timeout-ms");
+                        config.setReadTimeoutMs(Integer.parseInt(args[++i]));
+                        break;
+                    case "--max-retries":
+                        checkArgumentExists(args, i, "--max-retries");
+                        config.setMaxRetries(Integer.parseInt(args[++i]));
+                        break;
+                    case "--fixed-concurrency":
+                        config.setFixedConcurrency(true);
+                        break;
+                    case "--stream":
+                        checkArgumentExists(args, i, "--stream");
+                        config.setStreamFile(args[++i]);
+                        break;
+                    case "--stream-flush":
+                        checkArgumentExists(args, i, "--stream-flush");
+                        config.setStreamFlush(Integer.parseInt(args[++i]));
+                        break;
+                    case "--stream-flush-ms":
+                        checkArgumentExists(args, i, "--stream-flush-ms");
+                        config.setStreamFlushMs(Long.parseLong(args[++i]));
+                        break;
+                    case "--deadline":
+                        checkArgumentExists(args, i, "--deadline");
+                        config.setDeadlineSeconds(Double.parseDouble(args[++i]));
+                        break;
+                    case "--analytics":
+                        checkArgumentExists(args, i, "--analytics");
+                        config.setAnalyticsFile(args[++i]);
+                        break;
+                    case "--diff":
+                        checkArgumentExists(args, i, "--diff");
+                        config.setDiffFile(args[++i]);
+                        break;
+                    case "--crawl":
+                        checkArgumentExists(args, i, "--crawl");
+                        config.setCrawlDir(args[++i]);
+                        break;
+                    case "--crawl-group":
+                        checkArgumentExists(args, i, "--crawl-group");
+                        for (String group : args[++i].split(",")) {
+                            if (!group.isBlank()) {
+                                config.addCrawlGroup(group.trim());
+                            }
+                        }
+                        break;
+                    case "--crawl-depth":
+                        checkArgumentExists(args, i, "--crawl-depth");
+                        config.setCrawlDepth(Integer.parseInt(args[++i]));
+                        break;
+                    case "--offheap-mb":
+                        checkArgumentExists(args, i, "--offheap-mb");
+                        config.setOffHeapMb(Long.parseLong(args[++i]));
+                        break;
+                    case "--model-cache":
+                        checkArgumentExists(args, i, "--model-cache");
+                        config.setModelCache(Long.parseLong(args[++i]));
+                        break;
+                    case "--max-in-flight":
+                        checkArgumentExists(args, i, "--max-in-flight");
+                        config.setMaxInFlight(Integer.parseInt(args[++i]));
+                        break;
+                    case "--metrics-json":
+                        checkArgumentExists(args, i, "--metrics-json");
+                        config.setMetricsFile(args[++i]);
+                        break;
+                    case "--raw-pom":
+                        config.setEffectivePom(false);
+                        break;
+                    case "--snapshot-in":
+                        checkArgumentExists(args, i, "--snapshot-in");
+                        config.setSnapshotIn(args[++i]);
+                        break;
+                    case "--snapshot-out":
+                        checkArgumentExists(args, i, "--snapshot-out");
+                        config.setSnapshotOut(args[++i]);
+                        break;
+                    case "--roots-file":
+                        checkArgumentExists(args, i, "--roots-file");
+                        config.setRootsFile(args[++i]);
+                        break;
+                    case "--daemon":
+                        config.setDaemon(true);
+                        break;
+                    case "--daemon-port":
+                        checkArgumentExists(args, i, "--daemon-port");
+                        config.setDaemonPort(Integer.parseInt(args[++i]));
+                        break;
+                    case "--daemon-max-mb":
+                        checkArgumentExists(args, i, "--daemon-max-mb");
+                        config.setDaemonMaxMb(Long.parseLong(args[++i]));
+                        break;
+                    case "--no-daemon":
+                        config.setNoDaemon(true);
                         break;
                     case "--help":
                         printHelp();
@@ -130,7 +910,131 @@ public class Main {
     }
     
     private static void validateConfig(Config config) {
-        if (!config.isTestMode()) {
+        if (config.getParallelism() < 1) {
+            System.err.println("Ошибка: --parallelism должен быть >= 1");
+            System.exit(1);
+        }
+        if (config.getMaxInFlight() < 1) {
+            System.err.println("Ошибка: --max-in-flight должен быть >= 1");
+            System.exit(1);
+        }
+        if (config.getMaxRetries() < 0) {
+            System.err.println("Ошибка: --max-retries должен быть >= 0");
+            System.exit(1);
+        }
+        if (config.getStreamFlush() < 1 || config.getStreamFlushMs() < 0) {
+            System.err.println("Ошибка: --stream-flush должен быть >= 1, --stream-flush-ms >= 0");
+            System.exit(1);
+        }
+        if (config.getDeadlineSeconds() < 0) {
+            System.err.println("Ошибка: --deadline должен быть >= 0");
+            System.exit(1);
+        }
+        if ((config.getStreamFile() != null || config.getDeadlineSeconds() > 0)
+                && (config.isTestMode() || config.isDaemon())) {
+            System.err.println("Ошибка: --stream и --deadline работают только при разрешении из репозитория");
+            System.exit(1);
+        }
+        if (config.getOffHeapMb() < 0 || config.getModelCache() < 0) {
+            System.err.println("Ошибка: --offheap-mb и --model-cache должны быть >= 0");
+            System.exit(1);
+        }
+        if ((!config.getCrawlGroups().isEmpty() || config.getCrawlDepth() >= 0) && config.getCrawlDir() == null) {
+            System.err.println("Ошибка: --crawl-group и --crawl-depth требуют --crawl");
+            System.exit(1);
+        }
+        if (config.getCrawlDir() != null && (config.isTestMode() || config.isDaemon()
+                || config.getSnapshotIn() != null || config.getSnapshotOut() != null || config.isExport()
+                || hasQueries(config) || config.isMediate() || config.isCondensation()
+                || config.getAnalyticsFile() != null || config.getDiffFile() != null)) {
+            System.err.println("Ошибка: --crawl пишет граф в журнал каталога и не сочетается с тестовым режимом,");
+            System.err.println("сервером, снимками, выгрузкой, запросами, аналитикой, сравнением, --mediate");
+            System.err.println("и --condensation");
+            System.exit(1);
+        }
+        if (config.getConnectTimeoutMs() <= 0 || config.getReadTimeoutMs() <= 0) {
+            System.err.println("Ошибка: таймауты должны быть > 0");
+            System.exit(1);
+        }
+        if (config.getExportFormat() != null) {
+            try {
+                GraphExporter.Format format = GraphExporter.Format.fromName(config.getExportFormat());
+                if (format != GraphExporter.Format.DOT
+                        && config.getOutputFile().toLowerCase(Locale.ROOT).endsWith(".png")) {
+                    System.err.println("Ошибка: PNG строится только из формата dot");
+                    System.exit(1);
+                }
+            } catch (IllegalArgumentException e) {
+                System.err.println("Ошибка: --format: " + e.getMessage());
+                System.exit(1);
+            }
+        }
+        if ((config.getExportDepth() >= 0 || config.getExportRoot() != null || config.isCollapseCycles())
+                && !config.isExport()) {
+            System.err.println("Ошибка: --export-depth, --export-root и --collapse-cycles требуют --output или --format");
+            System.exit(1);
+        }
+        if (config.getExportRoot() != null && config.getExportRoot().split(":").length != 3) {
+            System.err.println("Ошибка: --export-root должен быть groupId:artifactId:version");
+            System.exit(1);
+        }
+        for (String pattern : new String[] { config.getWhyPattern(), config.getDependentsPattern(),
+                config.getClosurePattern() }) {
+            List<String> parts = pattern != null ? Arrays.asList(pattern.split(":", -1)) : null;
+            if (parts != null && (parts.size() > 3 || parts.contains(""))) {
+                System.err.println("Ошибка: шаблон запроса должен быть artifactId, groupId:artifactId или "
+                    + "groupId:artifactId:version: " + pattern);
+                System.exit(1);
+            }
+        }
+        if (!config.isTestMode() && config.getRepoUrl().replace(",", "").isBlank()) {
+            System.err.println("Ошибка: --repo-url: не указан ни один удалённый репозиторий");
+            System.exit(1);
+        }
+        if (config.getLocalRepo() != null && !Files.isDirectory(Paths.get(config.getLocalRepo()))) {
+            System.err.println("Ошибка: --local-repo: каталог не найден: " + config.getLocalRepo());
+            System.exit(1);
+        }
+        for (String mirror : config.getMirrors()) {
+            try {
+                if (!Files.isDirectory(LocalRepository.of(mirror).getRoot())) {
+                    System.err.println("Ошибка: --mirror: каталог не найден: " + mirror);
+                    System.exit(1);
+                }
+            } catch (IllegalArgumentException e) {
+                System.err.println("Ошибка: --mirror: " + e.getMessage());
+                System.exit(1);
+            }
+        }
+        if (config.getDaemonPort() < 0 || config.getDaemonPort() > 65535) {
+            System.err.println("Ошибка: --daemon-port должен быть от 0 до 65535");
+            System.exit(1);
+        }
+        if (config.isDaemon()) {
+            if (config.isTestMode() || config.getRootsFile() != null || config.getPackageName() != null
+                    || config.getSnapshotIn() != null || config.getSnapshotOut() != null
+                    || config.getAnalyticsFile() != null || config.getDiffFile() != null) {
+                System.err.println("Ошибка: --daemon принимает только параметры репозитория, кэша и загрузки");
+                System.exit(1);
+            }
+            if (config.getDaemonMaxMb() < 16) {
+                System.err.println("Ошибка: --daemon-max-mb должен быть >= 16");
+                System.exit(1);
+            }
+            if (config.isOffline() && config.getCacheDir() == null) {
+                System.err.println("Ошибка: --offline требует --cache-dir");
+                System.exit(1);
+            }
+        } else if (!config.isTestMode() && config.getRootsFile() != null) {
+            if (config.getPackageName() != null || config.getVersion() != null) {
+                System.err.println("Ошибка: --roots-file нельзя сочетать с --package/--version");
+                System.exit(1);
+            }
+            if (config.isOffline() && config.getCacheDir() == null) {
+                System.err.println("Ошибка: --offline требует --cache-dir");
+                System.exit(1);
+            }
+        } else if (!config.isTestMode()) {
             if (config.getPackageName() == null) {
                 System.err.println("Ошибка: укажите --package");
                 System.exit(1);
@@ -143,11 +1047,19 @@ public class Main {
                 System.err.println("Ошибка: --package должен быть groupId:artifactId");
                 System.exit(1);
             }
+            if (config.isOffline() && config.getCacheDir() == null) {
+                System.err.println("Ошибка: --offline требует --cache-dir");
+                System.exit(1);
+            }
         } else {
             if (config.getTestRepoPath() == null) {
                 System.err.println("Ошибка: укажите --test-repo-path");
                 System.exit(1);
             }
+            if (config.getSnapshotIn() != null) {
+                System.err.println("Ошибка: в тестовом режиме снимок читается через --test-repo-path");
+                System.exit(1);
+            }
         }
     }
     
@@ -157,13 +1069,89 @@ public class Main {
         System.out.println("\nОпции:");
         System.out.println("  --package <groupId:artifactId>   Maven пакет");
         System.out.println("  --version <version>              Версия");
-        System.out.println("  --repo-url <url>                 URL репозитория");
+        System.out.println("  --repo-url <url>                 URL репозитория; несколько через запятую -");
+        System.out.println("                                   опрашиваются по порядку");
+        System.out.println("  --local-repo <путь>              Локальный репозиторий (по умолчанию ~/.m2/repository):");
+        System.out.println("                                   POM из него читаются до обращения к сети");
+        System.out.println("  --no-local-repo                  Не читать локальный репозиторий");
+        System.out.println("  --mirror <путь|file://...>       Зеркало на диске (можно несколько): после локального");
+        System.out.println("                                   репозитория, до удалённых");
         System.out.println("  --test-mode                      Тестовый режим");
-        System.out.println("  --test-repo-path <путь>          Путь к тестовому файлу");
-        System.out.println("  --output <имя>                   Имя файла графа");
+        System.out.println("  --test-repo-path <путь>          Путь к тестовому файлу или снимку графа");
+        System.out.println("  --output <имя>                   Выгрузить граф в файл: .mmd (Mermaid), .dot,");
+        System.out.println("                                   .graphml или .png (через Graphviz dot)");
+        System.out.println("  --format <mermaid|dot|graphml>   Формат выгрузки (по умолчанию по расширению)");
+        System.out.println("  --export-depth <n>               Выгружать узлы не дальше n рёбер от корней");
+        System.out.println("  --export-root <g:a:v>            Выгружать только поддерево узла");
+        System.out.println("  --collapse-cycles                Свернуть циклы (сильно связные компоненты) в узлы");
+        System.out.println("  --parallelism <n>                Число параллельных загрузок POM / потоков разбора");
+        System.out.println("                                   тестового файла (1 - последовательно)");
+        System.out.println("  --cache-dir <путь>               Каталог локального кэша POM");
+        System.out.println("  --offline                        Работать только из кэша, без сети");
+        System.out.println("  --cache-max-mb <n>               Максимальный размер кэша в МБ (по умолчанию 512)");
+        System.out.println("  --connect-timeout-ms <мс>        Таймаут соединения (по умолчанию 5000)");
+        System.out.println("  --read-timeout-ms <мс>           Таймаут ответа (по умолчанию 5000)");
+        System.out.println("  --max-in-flight <n>              Максимум одновременных HTTP-запросов к репозиторию");
+        System.out.println("                                   (по умолчанию 16); фактический предел подбирается");
+        System.out.println("                                   по задержкам и ответам 429/503");
+        System.out.println("  --fixed-concurrency              Не подбирать предел, всегда --max-in-flight");
+        System.out.println("  --max-retries <n>                Повторов после таймаута, обрыва, 429/502/503/504");
+        System.out.println("                                   (по умолчанию 3, с растущей задержкой)");
+        System.out.println("  --condensation                   Вывести DAG конденсации (циклы свёрнуты в узлы)");
+        System.out.println("  --mediate                        Выбрать версии как Maven (ближайшая побеждает), вывести");
+        System.out.println("                                   итоговый набор и конфликты; POM отброшенных версий");
+        System.out.println("                                   не загружаются");
+        System.out.println("  --metrics-json <путь>            Записать метрики запуска (время этапов, HTTP, кэш,");
+        System.out.println("                                   задержки по хостам, размер графа) в JSON");
+        System.out.println("  --raw-pom                        Не строить эффективный POM (parent, ${...},");
+        System.out.println("                                   dependencyManagement, BOM) - только явные версии");
+        System.out.println("  --snapshot-in <путь>             Двоичный снимок прошлого запуска: узлы-релизы из него");
+        System.out.println("                                   не загружаются, SNAPSHOT-версии перепроверяются");
+        System.out.println("  --snapshot-out <путь>            Записать двоичный снимок графа");
+        System.out.println("  --roots-file <путь>              Пакетный режим: корни groupId:artifactId:version");
+        System.out.println("                                   по одному на строку, общий граф и кэш");
+        System.out.println("  --why <шаблон>                   Какие корни тянут артефакт и кратчайший путь от каждого;");
+        System.out.println("                                   шаблон artifactId, g:a или g:a:v, можно * и ?");
+        System.out.println("  --dependents <шаблон>            Прямые и транзитивные зависимые артефакта");
+        System.out.println("  --closure <шаблон>               Транзитивные зависимости артефакта");
+        System.out.println("  --analytics <путь>               Аналитика графа (глубина, степени, самые нужные");
+        System.out.println("                                   артефакты, общие для корней узлы, критический путь):");
+        System.out.println("                                   .csv - таблица по узлам, иначе JSON");
+        System.out.println("  --diff <путь>                    Сравнить граф со старым (снимок или тестовый файл):");
+        System.out.println("                                   добавленные, удалённые и сменившие версию артефакты");
+        System.out.println("                                   с путями от корня");
+        System.out.println("  --stream <путь|->                Писать узлы и рёбра в NDJSON по мере разрешения;");
+        System.out.println("                                   \"-\" - в stdout (остальной вывод уходит в stderr)");
+        System.out.println("  --stream-flush <n>               Сбрасывать поток каждые n записей (по умолчанию 64)");
+        System.out.println("  --stream-flush-ms <мс>           И не реже чем раз в столько мс (по умолчанию 1000)");
+        System.out.println("  --deadline <с>                   Остановить разрешение через столько секунд после");
+        System.out.println("                                   запуска; граф и поток остаются корректными, неполными");
+        System.out.println("  --crawl <каталог>                Обход экосистемы от --package/--version или");
+        System.out.println("                                   --roots-file с ограниченной памятью: граф вне кучи,");
+        System.out.println("                                   очередь и журнал graph.tsv в каталоге; повторный");
+        System.out.println("                                   запуск продолжает обход с контрольной точки");
+        System.out.println("  --crawl-group <префикс>          Раскрывать только groupId с префиксом (можно несколько");
+        System.out.println("                                   или через запятую), остальные - листья");
+        System.out.println("  --crawl-depth <n>                Раскрывать узлы не дальше n рёбер от семян");
+        System.out.println("  --offheap-mb <n>                 Память графа вне кучи в МБ, сверх - файлы подкачки");
+        System.out.println("                                   (по умолчанию 256)");
+        System.out.println("  --model-cache <n>                Родителей и BOM в памяти (LRU; по умолчанию без");
+        System.out.println("                                   ограничения, при --crawl - " + CRAWL_MODEL_CACHE + ")");
+        System.out.println("  --daemon                         Режим сервера: держать кэши в памяти и отвечать");
+        System.out.println("                                   на /resolve и /cycles по HTTP на 127.0.0.1");
+        System.out.println("  --daemon-port <порт>             Порт сервера (по умолчанию " + ResolverDaemon.DEFAULT_PORT + ")");
+        System.out.println("  --daemon-max-mb <n>              Память под кэши сервера в МБ (по умолчанию 256)");
+        System.out.println("  --no-daemon                      Не обращаться к запущенному серверу");
         System.out.println("  --help                           Справка");
         System.out.println("\nПримеры:");
         System.out.println("  java -jar maven-dep-graph.jar --package com.google.code.gson:gson --version 2.10.1");
+        System.out.println("  java -jar maven-dep-graph.jar --roots-file services.txt --parallelism 16");
+        System.out.println("  java -jar maven-dep-graph.jar --daemon --cache-dir ~/.mavengraph --parallelism 16");
         System.out.println("  java -jar maven-dep-graph.jar --test-mode --test-repo-path test.txt");
+        System.out.println("  java -jar maven-dep-graph.jar --test-mode --test-repo-path graph.snap");
+        System.out.println("  java -jar maven-dep-graph.jar --test-mode --test-repo-path test.txt --output graph.mmd");
+        System.out.println("  java -jar maven-dep-graph.jar --roots-file services.txt --stream - --deadline 60 | jq .");
+        System.out.println("  java -jar maven-dep-graph.jar --roots-file seeds.txt --crawl crawl --crawl-group org.apache");
+        System.out.println("  java -jar maven-dep-graph.jar --roots-file services.txt --why 'org.apache.logging.*:log4j-core'");
     }
 }
\ No newline at end of file
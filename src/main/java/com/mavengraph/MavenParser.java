@@ -1,28 +1,302 @@
 package com.mavengraph;
 
 import java.io.*;
-import java.net.*;
-import javax.xml.parsers.*;
-import org.w3c.dom.*;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.concurrent.*;
 import java.util.*;
 
 public class MavenParser {
+    private PomCache cache;
+    private PomFetcher fetcher;
+    private volatile EffectivePomResolver resolver = new EffectivePomResolver();
+    private boolean effectivePom = true;
+    // groupId:artifactId:version -> первые 8 байт SHA-256 загруженного POM (для снимков графа)
+    private final ConcurrentHashMap<String, Long> pomHashes = new ConcurrentHashMap<>();
+    // Готовые списки зависимостей релизов в памяти (режим сервера); null - выключено
+    private BoundedCache<String, Memoized> memo;
+    // Источники на диске (~/.m2, зеркала) в порядке опроса - до удалённых репозиториев
+    private List<LocalRepository> localRepositories = Collections.emptyList();
+    // Артефакты, зависимости которых получить не удалось: id -> ошибка (до успешной попытки)
+    private final ConcurrentHashMap<String, String> failures = new ConcurrentHashMap<>();
+    
+    /**
+     * Чтение POM из одного удалённого репозитория; IOException - в нём POM нет
+     * или он недоступен, пробуется следующий.
+     */
+    private interface RemoteRead<T> {
+        T read(String pomUrl) throws Exception;
+    }
+    
+    /**
+     * Запомненный результат getDependencies: список и хэш POM.
+     */
+    static class Memoized {
+        final List<String> dependencies;
+        final long pomHash;
+        
+        Memoized(List<String> dependencies, long pomHash) {
+            this.dependencies = Collections.unmodifiableList(new ArrayList<>(dependencies));
+            this.pomHash = pomHash;
+        }
+        
+        long weight() {
+            long bytes = 96;
+            for (String dependency : dependencies) {
+                bytes += 56 + dependency.length();
+            }
+            return bytes;
+        }
+    }
+    
+    public MavenParser() {
+        this(new PomFetcher(5000, 5000, 16));
+    }
+    
+    public MavenParser(PomFetcher fetcher) {
+        this.fetcher = fetcher;
+    }
+    
+    public void setCache(PomCache cache) { this.cache = cache; }
+    
+    public boolean isEffectivePom() { return effectivePom; }
+    
+    /**
+     * true (по умолчанию) - зависимости берутся из эффективного POM (parent, свойства,
+     * dependencyManagement, BOM); false - только то, что явно записано в самом POM.
+     */
+    public void setEffectivePom(boolean effectivePom) { this.effectivePom = effectivePom; }
+    
+    /**
+     * Общий кэш родительских POM и BOM. Парсеры, обслуживающие один запуск,
+     * могут делить один resolver.
+     */
+    public EffectivePomResolver getResolver() { return resolver; }
+    public void setResolver(EffectivePomResolver resolver) { this.resolver = resolver; }
+    
+    public List<LocalRepository> getLocalRepositories() { return localRepositories; }
+    
+    /**
+     * Репозитории на диске, опрашиваемые по порядку до удалённых. POM, найденный
+     * в одном из них, не загружается по сети и не кладётся в кэш (он и так локальный).
+     */
+    public void setLocalRepositories(List<LocalRepository> localRepositories) {
+        this.localRepositories = new ArrayList<>(localRepositories);
+    }
+    
+    public ResolutionMetrics getMetrics() { return fetcher.getMetrics(); }
+    
+    /**
+     * Метрики общие для парсера и его загрузчика.
+     */
+    public void setMetrics(ResolutionMetrics metrics) { fetcher.setMetrics(metrics); }
+    
+    /**
+     * Держать в памяти до maxBytes готовых списков зависимостей релизных версий,
+     * чтобы повторные запросы не загружали и не разбирали POM. SNAPSHOT-версии
+     * не запоминаются. Хэши POM в этом режиме хранятся вместе со списками и
+     * вытесняются вместе с ними.
+     */
+    public void enableMemo(long maxBytes) {
+        memo = new BoundedCache<>(maxBytes, (key, value) -> 2L * key.length() + value.weight());
+    }
+    
+    BoundedCache<String, Memoized> getMemo() { return memo; }
+    
+    /**
+     * Хэш POM, загруженного этим парсером; 0, если POM не загружался.
+     */
+    public long getPomHash(String groupId, String artifactId, String version) {
+        String id = groupId + ":" + artifactId + ":" + version;
+        Long hash = pomHashes.get(id);
+        if (hash == null && memo != null) {
+            Memoized memoized = memo.get(id);
+            return memoized != null ? memoized.pomHash : 0;
+        }
+        return hash != null ? hash : 0;
+    }
+    
+    /**
+     * Ошибка последней попытки получить зависимости артефакта; null - они получены
+     * (или не запрашивались). Пустой список от getDependencies с ошибкой - не "нет зависимостей".
+     */
+    public String getFailure(String groupId, String artifactId, String version) {
+        return failures.get(groupId + ":" + artifactId + ":" + version);
+    }
     
     public List<String> getDependencies(String groupId, String artifactId, String version, String repoUrl) {
         List<String> dependencies = new ArrayList<>();
+        Memoized memoized = recall(groupId, artifactId, version);
+        if (memoized != null) {
+            return new ArrayList<>(memoized.dependencies);
+        }
         
         try {
-            String pomUrl = buildPomUrl(groupId, artifactId, version, repoUrl);
-            String pomContent = downloadPomFile(pomUrl);
-            dependencies = parseDependenciesFromPom(pomContent);
+            byte[] local;
+            if (effectivePom) {
+                dependencies = resolver.resolveDependencies(loadModel(groupId, artifactId, version, repoUrl),
+                    (g, a, v) -> loadModel(g, a, v, repoUrl));
+            } else if ((local = readLocal(groupId, artifactId, version)) != null) {
+                rememberHash(groupId, artifactId, version, local);
+                dependencies = timedParse(groupId + ":" + artifactId + ":" + version, new ByteArrayInputStream(local));
+            } else {
+                dependencies = fromRemotes(groupId, artifactId, version, repoUrl, pomUrl -> {
+                    if (cache == null) {
+                        return streamDependencies(groupId, artifactId, version, pomUrl);
+                    }
+                    byte[] pomContent = loadPom(pomUrl, version.endsWith("-SNAPSHOT"));
+                    rememberHash(groupId, artifactId, version, pomContent);
+                    return timedParse(pomUrl, new ByteArrayInputStream(pomContent));
+                });
+            }
+            resolved(groupId, artifactId, version, dependencies);
             
         } catch (Exception e) {
-            System.err.println("Ошибка: " + e.getMessage());
+            fail(groupId, artifactId, version, e);
         }
         
         return dependencies;
     }
     
+    /**
+     * Неблокирующий вариант getDependencies: поток не ждёт ответа сервера.
+     * Ошибки, как и в синхронном варианте, выводятся и дают пустой список.
+     */
+    public CompletableFuture<List<String>> getDependenciesAsync(String groupId, String artifactId,
+                                                                String version, String repoUrl) {
+        Memoized memoized = recall(groupId, artifactId, version);
+        if (memoized != null) {
+            return CompletableFuture.completedFuture(new ArrayList<>(memoized.dependencies));
+        }
+        List<String> pomUrls = pomUrls(groupId, artifactId, version, repoUrl);
+        String pomUrl = pomUrls.isEmpty() ? groupId + ":" + artifactId + ":" + version : pomUrls.get(0);
+        
+        CompletableFuture<byte[]> content;
+        try {
+            byte[] local = readLocal(groupId, artifactId, version);
+            if (local != null) {
+                content = CompletableFuture.completedFuture(local);
+            } else if (pomUrls.isEmpty()) {
+                content = CompletableFuture.failedFuture(noRemotes(groupId, artifactId, version));
+            } else {
+                content = fetchRemoteAsync(pomUrls, 0, version.endsWith("-SNAPSHOT"));
+            }
+        } catch (IOException e) {
+            content = CompletableFuture.failedFuture(e);
+        }
+        
+        return content.thenApply(pomContent -> {
+            try {
+                rememberHash(groupId, artifactId, version, pomContent);
+                List<String> dependencies;
+                if (effectivePom) {
+                    // Родители и BOM обычно уже в кэше resolver, иначе загружаются здесь синхронно
+                    dependencies = resolver.resolveDependencies(
+                        timedParseModel(pomUrl, new ByteArrayInputStream(pomContent)),
+                        (g, a, v) -> loadModel(g, a, v, repoUrl));
+                } else {
+                    dependencies = timedParse(pomUrl, new ByteArrayInputStream(pomContent));
+                }
+                resolved(groupId, artifactId, version, dependencies);
+                return dependencies;
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }).exceptionally(e -> {
+            fail(groupId, artifactId, version,
+                e instanceof CompletionException && e.getCause() != null ? e.getCause() : e);
+            return new ArrayList<>();
+        });
+    }
+    
+    /**
+     * Асинхронно получить POM из i-го удалённого репозитория (с кэшем, как loadPom);
+     * если там его нет или репозиторий недоступен - из следующего.
+     */
+    private CompletableFuture<byte[]> fetchRemoteAsync(List<String> pomUrls, int i, boolean snapshot) {
+        String pomUrl = pomUrls.get(i);
+        PomCache.Entry cached = cache != null ? lookup(pomUrl) : null;
+        CompletableFuture<PomCache.Entry> entry;
+        if (cached != null && (!snapshot || cache.isOffline())) {
+            entry = CompletableFuture.completedFuture(cached);
+        } else if (cache != null && cache.isOffline()) {
+            entry = CompletableFuture.failedFuture(new IOException("нет в кэше (offline): " + pomUrl));
+        } else {
+            entry = fetcher.fetchAsync(pomUrl, cached).thenApply(fresh -> {
+                if (cache != null && fresh != cached && (!fresh.isMissing() || !snapshot)) {
+                    cache.put(pomUrl, fresh);
+                }
+                return fresh;
+            });
+        }
+        CompletableFuture<byte[]> content = entry.thenApply(e -> {
+            try {
+                return contentOrFail(e, pomUrl);
+            } catch (IOException ex) {
+                throw new CompletionException(ex);
+            }
+        });
+        if (i + 1 == pomUrls.size()) {
+            return content;
+        }
+        return content.handle((bytes, error) -> error == null
+                ? CompletableFuture.completedFuture(bytes)
+                : fetchRemoteAsync(pomUrls, i + 1, snapshot))
+            .thenCompose(next -> next);
+    }
+    
+    /**
+     * POM из первого локального репозитория, где он есть; null - ни в одном нет.
+     */
+    private byte[] readLocal(String groupId, String artifactId, String version) throws IOException {
+        if (localRepositories.isEmpty()) {
+            return null;
+        }
+        for (LocalRepository repository : localRepositories) {
+            byte[] content = repository.read(groupId, artifactId, version);
+            if (content != null) {
+                getMetrics().recordLocalRead(true);
+                return content;
+            }
+        }
+        getMetrics().recordLocalRead(false);
+        return null;
+    }
+    
+    /**
+     * Прочитать POM из удалённых репозиториев по порядку: первый, где чтение удалось.
+     * Если не удалось нигде, бросается ошибка последнего.
+     */
+    private <T> T fromRemotes(String groupId, String artifactId, String version, String repoUrl,
+                              RemoteRead<T> read) throws Exception {
+        IOException failure = null;
+        for (String pomUrl : pomUrls(groupId, artifactId, version, repoUrl)) {
+            try {
+                return read.read(pomUrl);
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+        throw failure != null ? failure : noRemotes(groupId, artifactId, version);
+    }
+    
+    private static IOException noRemotes(String groupId, String artifactId, String version) {
+        return new IOException("нет удалённых репозиториев для " + groupId + ":" + artifactId + ":" + version);
+    }
+    
+    /**
+     * URL POM во всех удалённых репозиториях: repoUrl - один URL или несколько через запятую.
+     */
+    private List<String> pomUrls(String groupId, String artifactId, String version, String repoUrl) {
+        List<String> urls = new ArrayList<>(1);
+        for (String repository : repoUrl.split(",")) {
+            if (!repository.isBlank()) {
+                urls.add(buildPomUrl(groupId, artifactId, version, repository.trim()));
+            }
+        }
+        return urls;
+    }
+    
     private String buildPomUrl(String groupId, String artifactId, String version, String repoUrl) {
         String groupPath = groupId.replace('.', '/');
         
@@ -35,77 +309,217 @@ public class MavenParser {
         return url;
     }
     
-    private String downloadPomFile(String url) throws IOException {
-        HttpURLConnection connection = null;
-        try {
-            URL pomUrl = new URL(url);
-            connection = (HttpURLConnection) pomUrl.openConnection();
-            connection.setRequestMethod("GET");
-            connection.setConnectTimeout(5000);
-            connection.setReadTimeout(5000);
-            
-            int responseCode = connection.getResponseCode();
-            if (responseCode != 200) {
-                throw new IOException("HTTP ошибка: " + responseCode);
-            }
-            
-            BufferedReader reader = new BufferedReader(
-                new InputStreamReader(connection.getInputStream())
-            );
-            
-            StringBuilder content = new StringBuilder();
-            String line;
-            while ((line = reader.readLine()) != null) {
-                content.append(line);
+    /**
+     * Получить POM: релизные версии берутся из кэша без обращения к сети,
+     * SNAPSHOT перепроверяются условным запросом (ETag/Last-Modified).
+     */
+    private byte[] loadPom(String url, boolean snapshot) throws IOException {
+        PomCache.Entry cached = lookup(url);
+        if (cached != null && (!snapshot || cache.isOffline())) {
+            return contentOrFail(cached, url);
+        }
+        if (cache.isOffline()) {
+            throw new IOException("нет в кэше (offline): " + url);
+        }
+        
+        PomCache.Entry fresh = downloadPomFile(url, cached);
+        if (fresh != cached) {
+            // 404 для релизов тоже запоминаем, на сутки (PomCache.MISSING_TTL_MS):
+            // повторный запуск не пойдёт в сеть
+            if (!fresh.isMissing() || !snapshot) {
+                cache.put(url, fresh);
             }
-            reader.close();
-            
-            return content.toString();
-            
-        } finally {
-            if (connection != null) {
-                connection.disconnect();
+        }
+        return contentOrFail(fresh, url);
+    }
+    
+    /**
+     * Загрузить и разобрать POM целиком (для эффективного POM и его родителей).
+     */
+    private PomModel loadModel(String groupId, String artifactId, String version, String repoUrl) throws Exception {
+        byte[] local = readLocal(groupId, artifactId, version);
+        if (local != null) {
+            rememberHash(groupId, artifactId, version, local);
+            return timedParseModel(groupId + ":" + artifactId + ":" + version, new ByteArrayInputStream(local));
+        }
+        return fromRemotes(groupId, artifactId, version, repoUrl, pomUrl -> {
+            if (cache == null) {
+                try (DigestingStream in = new DigestingStream(fetcher.openStream(pomUrl))) {
+                    PomModel model = timedParseModel(pomUrl, in);
+                    pomHashes.put(groupId + ":" + artifactId + ":" + version, in.hash());
+                    return model;
+                }
             }
+            byte[] pomContent = loadPom(pomUrl, version.endsWith("-SNAPSHOT"));
+            rememberHash(groupId, artifactId, version, pomContent);
+            return timedParseModel(pomUrl, new ByteArrayInputStream(pomContent));
+        });
+    }
+    
+    private void rememberHash(String groupId, String artifactId, String version, byte[] pomContent) {
+        pomHashes.put(groupId + ":" + artifactId + ":" + version, hash64(PomCache.sha256Bytes(pomContent)));
+    }
+    
+    private void resolved(String groupId, String artifactId, String version, List<String> dependencies) {
+        String id = groupId + ":" + artifactId + ":" + version;
+        if (failures.remove(id) != null) {
+            getMetrics().recordResolved(id);
         }
+        memorize(groupId, artifactId, version, dependencies);
     }
     
-    private List<String> parseDependenciesFromPom(String pomContent) throws Exception {
-        List<String> dependencies = new ArrayList<>();
-        
-        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-        DocumentBuilder builder = factory.newDocumentBuilder();
-        Document doc = builder.parse(new ByteArrayInputStream(pomContent.getBytes()));
+    /**
+     * Зависимости не получены: ошибка выводится и запоминается, чтобы поддерево
+     * не пропало молча - граф отметит узел нераскрытым, метрики перечислят его.
+     */
+    private void fail(String groupId, String artifactId, String version, Throwable error) {
+        String id = groupId + ":" + artifactId + ":" + version;
+        String message = String.valueOf(error.getMessage());
+        System.err.println("Ошибка: " + id + ": " + message);
+        failures.put(id, message);
+        getMetrics().recordFailure(id, message);
+    }
+    
+    /**
+     * Забыть хэш и ошибку артефакта: обход экосистемы сохраняет их сам и не
+     * держит в куче по записи на каждый загруженный POM.
+     */
+    void forget(String groupId, String artifactId, String version) {
+        String id = groupId + ":" + artifactId + ":" + version;
+        pomHashes.remove(id);
+        failures.remove(id);
+    }
+    
+    private Memoized recall(String groupId, String artifactId, String version) {
+        return memo != null && !version.endsWith("-SNAPSHOT")
+            ? memo.get(groupId + ":" + artifactId + ":" + version) : null;
+    }
+    
+    /**
+     * Запомнить успешный результат; хэш переезжает из pomHashes в запись memo.
+     */
+    private void memorize(String groupId, String artifactId, String version, List<String> dependencies) {
+        if (memo == null || version.endsWith("-SNAPSHOT")) {
+            return;
+        }
+        String id = groupId + ":" + artifactId + ":" + version;
+        Long hash = pomHashes.remove(id);
+        memo.put(id, new Memoized(dependencies, hash != null ? hash : 0));
+    }
+    
+    private static long hash64(byte[] digest) {
+        long hash = 0;
+        for (int i = 0; i < 8; i++) {
+            hash = (hash << 8) | (digest[i] & 0xFF);
+        }
+        return hash;
+    }
+    
+    /**
+     * Буферизованный поток, попутно считающий SHA-256 прочитанного.
+     * Разбор может остановиться до конца файла, поэтому остаток дочитывается в hash().
+     * XMLStreamReader.close() исходный поток не закрывает, но встроенный в JDK разборщик
+     * закрывает его сам, дочитав документ до конца; вызывающий закрывает поток
+     * (try-with-resources) уже после hash() на случай, если разбор остановился раньше.
+     */
+    private static class DigestingStream extends BufferedInputStream {
+        private final MessageDigest digest;
+        private boolean closed;
         
-        NodeList dependencyNodes = doc.getElementsByTagName("dependency");
+        DigestingStream(InputStream in) {
+            super(new DigestInputStream(in, PomCache.newSha256()));
+            this.digest = ((DigestInputStream) this.in).getMessageDigest();
+        }
         
-        for (int i = 0; i < dependencyNodes.getLength(); i++) {
-            Element dependency = (Element) dependencyNodes.item(i);
-            
-            String groupId = getElementText(dependency, "groupId");
-            String artifactId = getElementText(dependency, "artifactId");
-            String version = getElementText(dependency, "version");
-            String scope = getElementText(dependency, "scope");
-            
-            if ("test".equals(scope)) {
-                continue;
-            }
-            if (version == null || version.contains("$")) {
-                continue;
-            }
-            
-            if (groupId != null && artifactId != null) {
-                dependencies.add(groupId + ":" + artifactId + ":" + version);
+        long hash() throws IOException {
+            // Закрытый разборщиком поток прочитан до конца; иначе дочитываем остаток
+            // из-под буфера (байты в буфере уже прошли через digest), чтобы хэш покрывал весь файл
+            if (!closed) {
+                byte[] rest = new byte[8192];
+                while (in.read(rest) >= 0) {
+                    // пропускаем
+                }
             }
+            return hash64(digest.digest());
         }
         
+        @Override
+        public void close() throws IOException {
+            closed = true;
+            super.close();
+        }
+    }
+    
+    private PomCache.Entry lookup(String url) {
+        ResolutionEvents.PomCacheLookup event = new ResolutionEvents.PomCacheLookup();
+        event.begin();
+        PomCache.Entry cached = cache.get(url);
+        getMetrics().recordCacheLookup(cached != null);
+        if (event.shouldCommit()) {
+            event.url = url;
+            event.hit = cached != null;
+            event.commit();
+        }
+        return cached;
+    }
+    
+    private byte[] contentOrFail(PomCache.Entry entry, String url) throws IOException {
+        if (entry.isMissing()) {
+            throw new IOException("HTTP ошибка: 404 (" + url + ")");
+        }
+        return entry.getContent();
+    }
+    
+    /**
+     * Без кэша POM разбирается прямо из потока ответа, без промежуточной копии.
+     */
+    private List<String> streamDependencies(String groupId, String artifactId, String version,
+                                            String url) throws Exception {
+        try (DigestingStream in = new DigestingStream(fetcher.openStream(url))) {
+            // Загрузка и разбор идут одновременно, поэтому их времена в метриках перекрываются
+            List<String> dependencies = timedParse(url, in);
+            pomHashes.put(groupId + ":" + artifactId + ":" + version, in.hash());
+            return dependencies;
+        }
+    }
+    
+    /**
+     * Скачать POM. Если передана закэшированная запись, запрос условный и при 304
+     * возвращается она же. Ответ 404 возвращается как запись без содержимого.
+     */
+    private PomCache.Entry downloadPomFile(String url, PomCache.Entry cached) throws IOException {
+        return fetcher.fetch(url, cached);
+    }
+    
+    private List<String> timedParse(String url, InputStream pomContent) throws Exception {
+        ResolutionEvents.PomParse event = new ResolutionEvents.PomParse();
+        event.begin();
+        long start = System.nanoTime();
+        List<String> dependencies = parseDependenciesFromPom(pomContent);
+        getMetrics().recordStage(ResolutionMetrics.Stage.PARSE, System.nanoTime() - start);
+        if (event.shouldCommit()) {
+            event.url = url;
+            event.dependencies = dependencies.size();
+            event.commit();
+        }
         return dependencies;
     }
     
-    private String getElementText(Element parent, String tagName) {
-        NodeList nodes = parent.getElementsByTagName(tagName);
-        if (nodes.getLength() > 0) {
-            return nodes.item(0).getTextContent().trim();
+    private PomModel timedParseModel(String url, InputStream pomContent) throws Exception {
+        ResolutionEvents.PomParse event = new ResolutionEvents.PomParse();
+        event.begin();
+        long start = System.nanoTime();
+        PomModel model = PomReader.readModel(pomContent);
+        getMetrics().recordStage(ResolutionMetrics.Stage.PARSE, System.nanoTime() - start);
+        if (event.shouldCommit()) {
+            event.url = url;
+            event.dependencies = model.getDependencies().size();
+            event.commit();
         }
-        return null;
+        return model;
+    }
+    
+    private List<String> parseDependenciesFromPom(InputStream pomContent) throws Exception {
+        return PomReader.readDependencies(pomContent);
     }
 }
\ No newline at end of file
@@ -0,0 +1,178 @@
+package com.mavengraph;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Поток NDJSON с узлами и рёбрами по мере разрешения - по одной JSON-записи на строку:
+ *
+ *   {"type":"node","id":"g:a:v","depth":1}
+ *   {"type":"edge","from":"g:a:v","to":"g:b:v"}
+ *   {"type":"failure","id":"g:a:v","error":"..."}
+ *   {"type":"summary","complete":true,...}
+ *
+ * Записи копятся в памяти и уходят в выходной поток только целыми строками:
+ * после flushEvery записей, раз в flushIntervalMs (фоновый поток) и сразу для
+ * failure и summary. Поэтому файл, оборванный падением процесса, остаётся
+ * корректным NDJSON без последних несброшенных записей. Ошибка записи (например,
+ * закрытый потребителем канал) выключает поток, но не прерывает разрешение.
+ */
+public class NdjsonStream implements DependencyGraph.Listener, Closeable {
+    private final OutputStream out;
+    private final int flushEvery;
+    private final long startNanos = System.nanoTime();
+    private final StringBuilder pending = new StringBuilder();
+    private final Thread flusher;
+    private int pendingRecords;
+    private long nodes;
+    private long edges;
+    private long failures;
+    private IOException error;
+    private boolean closed;
+
+    /**
+     * flushEvery - записей между сбросами (1 - каждая запись сразу);
+     * flushIntervalMs - наибольшая задержка записи при медленном разрешении (0 - без неё).
+     */
+    public NdjsonStream(OutputStream out, int flushEvery, long flushIntervalMs) {
+        if (flushEvery < 1) {
+            throw new IllegalArgumentException("flushEvery должен быть >= 1");
+        }
+        this.out = out;
+        this.flushEvery = flushEvery;
+        if (flushIntervalMs > 0) {
+            flusher = new Thread(() -> flushPeriodically(flushIntervalMs), "ndjson-flush");
+            flusher.setDaemon(true);
+            flusher.start();
+        } else {
+            flusher = null;
+        }
+    }
+
+    @Override
+    public synchronized void onNode(String id, int depth) {
+        nodes++;
+        StringBuilder sb = begin("node");
+        sb.append(",\"id\":");
+        Json.appendQuoted(sb, id);
+        sb.append(",\"depth\":").append(depth);
+        end(false);
+    }
+
+    @Override
+    public synchronized void onEdge(String from, String to) {
+        edges++;
+        StringBuilder sb = begin("edge");
+        sb.append(",\"from\":");
+        Json.appendQuoted(sb, from);
+        sb.append(",\"to\":");
+        Json.appendQuoted(sb, to);
+        end(false);
+    }
+
+    @Override
+    public synchronized void onFailure(String id, String message) {
+        failures++;
+        StringBuilder sb = begin("failure");
+        sb.append(",\"id\":");
+        Json.appendQuoted(sb, id);
+        sb.append(",\"error\":");
+        Json.appendQuoted(sb, message);
+        end(true);
+    }
+
+    /**
+     * Итоговая запись: достроен ли граф, почему остановлен, сколько узлов, рёбер,
+     * ошибок и циклов. Пишется последней, в том числе при остановке по сроку или отмене.
+     */
+    public synchronized void summary(DependencyGraph graph) {
+        summary(graph.getStopReason(), graph.getCycles().size());
+    }
+
+    /**
+     * Итоговая запись обхода экосистемы (Crawler): циклы при нём не ищутся, поля cycles нет.
+     */
+    public synchronized void summary(String stopReason) {
+        summary(stopReason, -1);
+    }
+
+    private void summary(String stopReason, int cycles) {
+        StringBuilder sb = begin("summary");
+        sb.append(",\"complete\":").append(stopReason == null && failures == 0);
+        sb.append(",\"stopReason\":").append(Json.quote(stopReason));
+        sb.append(",\"nodes\":").append(nodes);
+        sb.append(",\"edges\":").append(edges);
+        sb.append(",\"failed\":").append(failures);
+        if (cycles >= 0) {
+            sb.append(",\"cycles\":").append(cycles);
+        }
+        sb.append(",\"elapsedMs\":").append(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+        end(true);
+    }
+
+    public synchronized long getNodes() { return nodes; }
+    public synchronized long getEdges() { return edges; }
+
+    private StringBuilder begin(String type) {
+        pending.append("{\"type\":\"").append(type).append('"');
+        return pending;
+    }
+
+    private void end(boolean flush) {
+        pending.append("}\n");
+        if (flush || ++pendingRecords >= flushEvery) {
+            flush();
+        }
+    }
+
+    /**
+     * Записать накопленные строки и сбросить выходной поток.
+     */
+    public synchronized void flush() {
+        if (pending.length() > 0 && error == null && !closed) {
+            try {
+                out.write(pending.toString().getBytes(StandardCharsets.UTF_8));
+                out.flush();
+            } catch (IOException e) {
+                error = e;
+                System.err.println("Ошибка записи потока NDJSON, дальше не пишется: " + e.getMessage());
+            }
+        }
+        pending.setLength(0);
+        pendingRecords = 0;
+    }
+
+    private void flushPeriodically(long intervalMs) {
+        try {
+            while (true) {
+                Thread.sleep(intervalMs);
+                synchronized (this) {
+                    if (closed) {
+                        return;
+                    }
+                    flush();
+                }
+            }
+        } catch (InterruptedException e) {
+            // close()
+        }
+    }
+
+    /**
+     * Первая ошибка записи или null.
+     */
+    public synchronized IOException getError() { return error; }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            flush();
+            closed = true;
+        }
+        if (flusher != null) {
+            flusher.interrupt();
+        }
+        out.close();
+    }
+}
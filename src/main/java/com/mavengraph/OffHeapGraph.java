@@ -0,0 +1,222 @@
+package com.mavengraph;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+/**
+ * Таблица узлов и рёбер вне кучи для обхода экосистем, где узлов больше, чем
+ * помещается в GraphStore: все данные лежат в SpillBuffer с общим бюджетом, при
+ * его превышении - в файлах подкачки. Размер кучи от числа узлов не зависит.
+ *
+ *   ids   - [int длина][UTF-8 groupId:artifactId:version] подряд;
+ *   nodes - на узел два long: смещение id и смещение списка рёбер + 1 (0 - не раскрыт);
+ *   index - открытая адресация, слот [int хэш][int узел + 1], заполнение до 1/2;
+ *   edges - на раскрытый узел [int число][int узел]...
+ *
+ * Методы синхронизированы: таблицу можно читать из других потоков во время обхода.
+ */
+public class OffHeapGraph implements Closeable {
+    private static final int INITIAL_SLOTS = 1 << 16;
+
+    private final SpillBuffer.Budget budget;
+    private final Path spillDir;
+    private final SpillBuffer ids;
+    private final SpillBuffer nodes;
+    private final SpillBuffer edges;
+    private SpillBuffer index;
+    private long indexSlots;
+    private long idsSize;
+    private long edgesSize;
+    private int nodeCount;
+    private int expandedCount;
+    private long edgeCount;
+    private byte[] scratch = new byte[256];
+
+    public OffHeapGraph(SpillBuffer.Budget budget, Path spillDir) throws IOException {
+        this.budget = budget;
+        this.spillDir = spillDir;
+        this.ids = new SpillBuffer(budget, spillDir, "ids");
+        this.nodes = new SpillBuffer(budget, spillDir, "nodes");
+        this.edges = new SpillBuffer(budget, spillDir, "edges");
+        this.indexSlots = INITIAL_SLOTS;
+        this.index = new SpillBuffer(budget, spillDir, "index");
+        index.ensure(indexSlots * 8);
+    }
+
+    public synchronized int nodeCount() { return nodeCount; }
+    public synchronized int expandedCount() { return expandedCount; }
+    public synchronized long edgeCount() { return edgeCount; }
+
+    /**
+     * Номер узла или -1.
+     */
+    public synchronized int find(String id) {
+        byte[] bytes = id.getBytes(StandardCharsets.UTF_8);
+        int hash = hash(bytes);
+        long mask = indexSlots - 1;
+        for (long slot = hash & mask; ; slot = (slot + 1) & mask) {
+            int node = index.getInt(slot * 8 + 4) - 1;
+            if (node < 0) {
+                return -1;
+            }
+            if (index.getInt(slot * 8) == hash && idEquals(node, bytes)) {
+                return node;
+            }
+        }
+    }
+
+    /**
+     * Номер узла; новый узел получает следующий номер. Новый ли он - nodeCount() до и после вызова.
+     */
+    public synchronized int getOrAdd(String id) throws IOException {
+        byte[] bytes = id.getBytes(StandardCharsets.UTF_8);
+        int hash = hash(bytes);
+        long mask = indexSlots - 1;
+        long slot = hash & mask;
+        for (; ; slot = (slot + 1) & mask) {
+            int node = index.getInt(slot * 8 + 4) - 1;
+            if (node < 0) {
+                break;
+            }
+            if (index.getInt(slot * 8) == hash && idEquals(node, bytes)) {
+                return node;
+            }
+        }
+
+        int node = nodeCount++;
+        long offset = idsSize;
+        ids.ensure(offset + 4 + bytes.length);
+        ids.putInt(offset, bytes.length);
+        ids.put(offset + 4, bytes, bytes.length);
+        // Следующая запись выравнивается на 4 байта, чтобы длина не пересекала куски
+        idsSize = (offset + 4 + bytes.length + 3) & ~3L;
+        nodes.ensure((long) nodeCount * 16);
+        nodes.putLong((long) node * 16, offset);
+
+        index.putInt(slot * 8, hash);
+        index.putInt(slot * 8 + 4, node + 1);
+        if ((long) nodeCount * 2 > indexSlots) {
+            rehash();
+        }
+        return node;
+    }
+
+    public synchronized String id(int node) {
+        long offset = nodes.getLong((long) node * 16);
+        int length = ids.getInt(offset);
+        byte[] bytes = new byte[length];
+        ids.get(offset + 4, bytes, length);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public synchronized boolean isExpanded(int node) {
+        return nodes.getLong((long) node * 16 + 8) != 0;
+    }
+
+    /**
+     * Записать зависимости узла (один раз на узел).
+     */
+    public synchronized void setEdges(int node, int[] targets, int count) throws IOException {
+        if (isExpanded(node)) {
+            throw new IllegalStateException("узел уже раскрыт: " + id(node));
+        }
+        long offset = edgesSize;
+        edges.ensure(offset + 4 + 4L * count);
+        edges.putInt(offset, count);
+        for (int i = 0; i < count; i++) {
+            edges.putInt(offset + 4 + 4L * i, targets[i]);
+        }
+        edgesSize = offset + 4 + 4L * count;
+        nodes.putLong((long) node * 16 + 8, offset + 1);
+        expandedCount++;
+        edgeCount += count;
+    }
+
+    /**
+     * Зависимости узла или null, если он не раскрыт.
+     */
+    public synchronized int[] edges(int node) {
+        long offset = nodes.getLong((long) node * 16 + 8) - 1;
+        if (offset < 0) {
+            return null;
+        }
+        int[] targets = new int[edges.getInt(offset)];
+        for (int i = 0; i < targets.length; i++) {
+            targets[i] = edges.getInt(offset + 4 + 4L * i);
+        }
+        return targets;
+    }
+
+    public long getDirectBytes() {
+        return ids.getDirectBytes() + nodes.getDirectBytes() + edges.getDirectBytes() + index.getDirectBytes();
+    }
+
+    public long getSpilledBytes() {
+        return ids.getSpilledBytes() + nodes.getSpilledBytes() + edges.getSpilledBytes() + index.getSpilledBytes();
+    }
+
+    private boolean idEquals(int node, byte[] bytes) {
+        long offset = nodes.getLong((long) node * 16);
+        int length = ids.getInt(offset);
+        if (length != bytes.length) {
+            return false;
+        }
+        if (scratch.length < length) {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+        ids.get(offset + 4, scratch, length);
+        for (int i = 0; i < length; i++) {
+            if (scratch[i] != bytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Удвоить индекс: слоты переносятся по сохранённым хэшам, без чтения id.
+     */
+    private void rehash() throws IOException {
+        long newSlots = indexSlots * 2;
+        SpillBuffer grown = new SpillBuffer(budget, spillDir, "index");
+        grown.ensure(newSlots * 8);
+        long mask = newSlots - 1;
+        for (long slot = 0; slot < indexSlots; slot++) {
+            int node = index.getInt(slot * 8 + 4);
+            if (node == 0) {
+                continue;
+            }
+            int hash = index.getInt(slot * 8);
+            long target = hash & mask;
+            while (grown.getInt(target * 8 + 4) != 0) {
+                target = (target + 1) & mask;
+            }
+            grown.putInt(target * 8, hash);
+            grown.putInt(target * 8 + 4, node);
+        }
+        index.close();
+        index = grown;
+        indexSlots = newSlots;
+    }
+
+    private static int hash(byte[] bytes) {
+        // FNV-1a с перемешиванием: младшие биты выбирают слот
+        int h = 0x811C9DC5;
+        for (byte b : bytes) {
+            h = (h ^ (b & 0xFF)) * 0x01000193;
+        }
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        return h;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        ids.close();
+        nodes.close();
+        edges.close();
+        index.close();
+    }
+}
@@ -0,0 +1,278 @@
+package com.mavengraph;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Локальный кэш POM-файлов на диске.
+ * Содержимое хранится по SHA-256 (objects/), ссылки URL -> хэш лежат в refs/
+ * вместе с ETag/Last-Modified для перепроверки SNAPSHOT-версий.
+ * Закэшированный 404 живёт MISSING_TTL_MS: временная недоступность репозитория
+ * не должна запоминаться навсегда. Без сети (offline) он действует бессрочно.
+ */
+public class PomCache {
+    static final long MISSING_TTL_MS = 24 * 60 * 60 * 1000L;
+
+    private final Path objectsDir;
+    private final Path refsDir;
+    private final long maxBytes;
+    private final boolean offline;
+    private final AtomicLong totalBytes = new AtomicLong();
+
+    /**
+     * Запись кэша: содержимое POM и заголовки для условного запроса.
+     * content == null означает закэшированный 404.
+     */
+    public static class Entry {
+        private final byte[] content;
+        private final String etag;
+        private final String lastModified;
+
+        public Entry(byte[] content, String etag, String lastModified) {
+            this.content = content;
+            this.etag = etag;
+            this.lastModified = lastModified;
+        }
+
+        public byte[] getContent() { return content; }
+        public String getEtag() { return etag; }
+        public String getLastModified() { return lastModified; }
+        public boolean isMissing() { return content == null; }
+    }
+
+    public PomCache(Path dir, long maxBytes, boolean offline) throws IOException {
+        this.objectsDir = dir.resolve("objects");
+        this.refsDir = dir.resolve("refs");
+        this.maxBytes = maxBytes;
+        this.offline = offline;
+        Files.createDirectories(objectsDir);
+        Files.createDirectories(refsDir);
+        totalBytes.set(scanObjectsSize());
+    }
+
+    public boolean isOffline() { return offline; }
+
+    /**
+     * Найти запись по URL. Возвращает null, если в кэше ничего нет.
+     */
+    public Entry get(String url) {
+        Path ref = refPath(url);
+        if (!Files.exists(ref)) {
+            return null;
+        }
+
+        try {
+            Properties props = readProperties(ref);
+            String hash = props.getProperty("sha256");
+            byte[] content = null;
+            if (hash == null && !offline && isExpired(props.getProperty("missingAt"))) {
+                // Устаревший 404 - спросим репозиторий снова
+                return null;
+            }
+            if (hash != null) {
+                Path object = objectPath(hash);
+                content = Files.readAllBytes(object);
+                if (!hash.equals(sha256(content))) {
+                    // Испорченный объект - считаем, что записи нет
+                    Files.deleteIfExists(ref);
+                    return null;
+                }
+                touch(object);
+            }
+            touch(ref);
+            return new Entry(content, props.getProperty("etag"), props.getProperty("lastModified"));
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    public void put(String url, Entry entry) {
+        try {
+            Properties props = new Properties();
+            props.setProperty("url", url);
+            if (entry.getEtag() != null) {
+                props.setProperty("etag", entry.getEtag());
+            }
+            if (entry.getLastModified() != null) {
+                props.setProperty("lastModified", entry.getLastModified());
+            }
+
+            if (entry.isMissing()) {
+                props.setProperty("missingAt", Long.toString(System.currentTimeMillis()));
+            } else {
+                String hash = sha256(entry.getContent());
+                Path object = objectPath(hash);
+                if (!Files.exists(object)) {
+                    Files.createDirectories(object.getParent());
+                    createObject(object, entry.getContent());
+                }
+                props.setProperty("sha256", hash);
+            }
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            props.store(out, null);
+            writeAtomically(refPath(url), out.toByteArray());
+        } catch (IOException e) {
+            System.err.println("Ошибка записи в кэш: " + e.getMessage());
+            return;
+        }
+
+        if (totalBytes.get() > maxBytes) {
+            evict();
+        }
+    }
+
+    /**
+     * Записать объект, если его ещё нет. Размер кэша увеличивает только поток, который
+     * создал файл: проверка и перенос идут под той же блокировкой, что и вытеснение,
+     * поэтому одинаковое содержимое из двух потоков не считается дважды.
+     */
+    private void createObject(Path object, byte[] content) throws IOException {
+        Path tmp = Files.createTempFile(object.getParent(), "tmp", ".part");
+        try {
+            Files.write(tmp, content);
+            synchronized (this) {
+                if (Files.exists(object)) {
+                    return;
+                }
+                Files.move(tmp, object, StandardCopyOption.ATOMIC_MOVE);
+                totalBytes.addAndGet(content.length);
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private static boolean isExpired(String missingAt) {
+        try {
+            return missingAt == null || System.currentTimeMillis() - Long.parseLong(missingAt) > MISSING_TTL_MS;
+        } catch (NumberFormatException e) {
+            return true;
+        }
+    }
+
+    /**
+     * Удаляет давно не использованные записи, пока размер кэша не станет меньше лимита.
+     */
+    private synchronized void evict() {
+        if (totalBytes.get() <= maxBytes) {
+            return;
+        }
+
+        try {
+            List<Path> refs;
+            try (Stream<Path> stream = Files.list(refsDir)) {
+                refs = new ArrayList<>(stream.toList());
+            }
+            refs.sort(Comparator.comparing(PomCache::lastModifiedTime));
+
+            Map<String, Integer> refCounts = new HashMap<>();
+            Map<Path, String> refHashes = new HashMap<>();
+            for (Path ref : refs) {
+                String hash = readProperties(ref).getProperty("sha256");
+                if (hash != null) {
+                    refHashes.put(ref, hash);
+                    refCounts.merge(hash, 1, Integer::sum);
+                }
+            }
+
+            // Освобождаем с запасом, чтобы не запускать вытеснение на каждой записи
+            long target = maxBytes * 9 / 10;
+            for (Path ref : refs) {
+                if (totalBytes.get() <= target) {
+                    break;
+                }
+                Files.deleteIfExists(ref);
+                String hash = refHashes.get(ref);
+                if (hash != null && refCounts.merge(hash, -1, Integer::sum) == 0) {
+                    Path object = objectPath(hash);
+                    long size = Files.exists(object) ? Files.size(object) : 0;
+                    if (Files.deleteIfExists(object)) {
+                        totalBytes.addAndGet(-size);
+                    }
+                }
+            }
+        } catch (IOException | UncheckedIOException e) {
+            System.err.println("Ошибка очистки кэша: " + e.getMessage());
+        }
+    }
+
+    private long scanObjectsSize() throws IOException {
+        try (Stream<Path> stream = Files.walk(objectsDir)) {
+            return stream.filter(Files::isRegularFile).mapToLong(p -> {
+                try {
+                    return Files.size(p);
+                } catch (IOException e) {
+                    return 0;
+                }
+            }).sum();
+        }
+    }
+
+    private Path objectPath(String hash) {
+        return objectsDir.resolve(hash.substring(0, 2)).resolve(hash);
+    }
+
+    private Path refPath(String url) {
+        return refsDir.resolve(sha256(url.getBytes(StandardCharsets.UTF_8)) + ".properties");
+    }
+
+    private static Properties readProperties(Path file) throws IOException {
+        Properties props = new Properties();
+        try (InputStream in = Files.newInputStream(file)) {
+            props.load(in);
+        }
+        return props;
+    }
+
+    private static void writeAtomically(Path target, byte[] data) throws IOException {
+        Path tmp = Files.createTempFile(target.getParent(), "tmp", ".part");
+        try {
+            Files.write(tmp, data);
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private static void touch(Path file) throws IOException {
+        Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+    }
+
+    private static FileTime lastModifiedTime(Path file) {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    static String sha256(byte[] data) {
+        byte[] digest = sha256Bytes(data);
+        StringBuilder hex = new StringBuilder(digest.length * 2);
+        for (byte b : digest) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16));
+            hex.append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    static byte[] sha256Bytes(byte[] data) {
+        return newSha256().digest(data);
+    }
+
+    static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,590 @@
+package com.mavengraph;
+
+import java.io.*;
+import java.net.URI;
+import java.net.http.*;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Загрузка POM через общий HttpClient: HTTP/2 с повторным использованием соединений,
+ * сжатие gzip и неблокирующие ответы. Для каждого репозитория (схема + хост + порт)
+ * свой предел одновременных запросов - адаптивный (ConcurrencyLimiter) или постоянный
+ * maxInFlight; лишние запросы ждут в очереди, не занимая потоков.
+ *
+ * Таймауты, обрывы и ответы 429/502/503/504 повторяются с экспоненциальной задержкой
+ * и полным джиттером; Retry-After приостанавливает отправку в этот репозиторий.
+ * После BREAKER_THRESHOLD неудач подряд предохранитель репозитория размыкается:
+ * запросы сразу завершаются ошибкой, через паузу пропускается один пробный.
+ */
+public class PomFetcher {
+    private static final int INITIAL_LIMIT = 8;
+    private static final long BACKOFF_BASE_MS = 200;
+    private static final long BACKOFF_MAX_MS = 10_000;
+    private static final long RETRY_AFTER_MAX_MS = 60_000;
+    private static final int BREAKER_THRESHOLD = 10;
+    private static final long BREAKER_OPEN_MS = 2_000;
+    private static final long BREAKER_MAX_OPEN_MS = 60_000;
+
+    private final HttpClient client;
+    private final Duration readTimeout;
+    private final int maxInFlight;
+    private final ConcurrentHashMap<String, Repository> repositories = new ConcurrentHashMap<>();
+    private volatile int maxRetries = 3;
+    private volatile boolean adaptive = true;
+    // Паузы и часы задаются в тестах, чтобы не ждать секундами
+    private volatile long backoffBaseMs = BACKOFF_BASE_MS;
+    private volatile long breakerOpenMs = BREAKER_OPEN_MS;
+    private volatile long retryAfterMaxMs = RETRY_AFTER_MAX_MS;
+    private volatile LongSupplier clock = System::nanoTime;
+    private ResolutionMetrics metrics = new ResolutionMetrics();
+
+    public PomFetcher(int connectTimeoutMs, int readTimeoutMs, int maxInFlight) {
+        this.client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_2)
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+            .build();
+        this.readTimeout = Duration.ofMillis(readTimeoutMs);
+        this.maxInFlight = maxInFlight;
+    }
+
+    public ResolutionMetrics getMetrics() { return metrics; }
+    public void setMetrics(ResolutionMetrics metrics) { this.metrics = metrics; }
+
+    public int getMaxRetries() { return maxRetries; }
+
+    /**
+     * Сколько раз повторять запрос после таймаута, обрыва или 429/502/503/504 (0 - не повторять).
+     */
+    public void setMaxRetries(int maxRetries) { this.maxRetries = maxRetries; }
+
+    public boolean isAdaptive() { return adaptive; }
+
+    /**
+     * true (по умолчанию) - предел одновременных запросов подбирается по задержкам
+     * и отказам, не выше maxInFlight; false - всегда maxInFlight.
+     */
+    public void setAdaptive(boolean adaptive) { this.adaptive = adaptive; }
+
+    /**
+     * Начальная задержка повтора (по умолчанию BACKOFF_BASE_MS).
+     */
+    void setBackoffBaseMs(long backoffBaseMs) { this.backoffBaseMs = backoffBaseMs; }
+
+    /**
+     * Первая пауза разомкнутого предохранителя (по умолчанию BREAKER_OPEN_MS).
+     */
+    void setBreakerOpenMs(long breakerOpenMs) { this.breakerOpenMs = breakerOpenMs; }
+
+    /**
+     * Наибольшая пауза по Retry-After (по умолчанию RETRY_AFTER_MAX_MS).
+     */
+    void setRetryAfterMaxMs(long retryAfterMaxMs) { this.retryAfterMaxMs = retryAfterMaxMs; }
+
+    /**
+     * Часы в наносекундах для предохранителя, пауз и пределов; задаются до первого запроса.
+     */
+    void setClock(LongSupplier clock) { this.clock = clock; }
+
+    /**
+     * Текущий предел одновременных запросов по репозиториям.
+     */
+    public Map<String, Integer> getConcurrencyLimits() {
+        Map<String, Integer> limits = new TreeMap<>();
+        for (Repository repository : repositories.values()) {
+            limits.put(repository.key, repository.limit());
+        }
+        return limits;
+    }
+
+    /**
+     * Асинхронно скачать POM. Если передана закэшированная запись, запрос условный
+     * и при 304 возвращается она же. Ответ 404 - запись без содержимого.
+     */
+    public CompletableFuture<PomCache.Entry> fetchAsync(String url, PomCache.Entry cached) {
+        HttpRequest.Builder request = request(url);
+        if (cached != null) {
+            if (cached.getEtag() != null) {
+                request.header("If-None-Match", cached.getEtag());
+            }
+            if (cached.getLastModified() != null) {
+                request.header("If-Modified-Since", cached.getLastModified());
+            }
+        }
+
+        return send(request.build(), HttpResponse.BodyHandlers.ofByteArray()).thenApply(sent -> {
+            HttpResponse<byte[]> response = sent.response;
+            sent.timer.finish(response.statusCode(), response.body().length, null);
+            try {
+                return toEntry(response, cached);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        });
+    }
+
+    /**
+     * Синхронный вариант fetchAsync.
+     */
+    public PomCache.Entry fetch(String url, PomCache.Entry cached) throws IOException {
+        try {
+            return fetchAsync(url, cached).join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * Открыть тело ответа как поток, чтобы разбирать POM без промежуточной копии.
+     */
+    public InputStream openStream(String url) throws IOException {
+        HttpRequest request = request(url).build();
+
+        Sent<InputStream> sent;
+        try {
+            sent = send(request, HttpResponse.BodyHandlers.ofInputStream()).join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e.getCause());
+        }
+
+        // Загрузка считается завершённой при закрытии потока: тогда известен объём тела.
+        // Место в пределе освобождается уже по заголовкам ответа
+        HttpResponse<InputStream> response = sent.response;
+        FetchTimer timer = sent.timer;
+        int status = response.statusCode();
+        InputStream body = new FilterInputStream(response.body()) {
+            private boolean closed;
+            private long bytes;
+
+            @Override
+            public int read() throws IOException {
+                int b = super.read();
+                if (b >= 0) {
+                    bytes++;
+                }
+                return b;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                int n = super.read(buffer, offset, length);
+                if (n > 0) {
+                    bytes += n;
+                }
+                return n;
+            }
+
+            @Override
+            public void close() throws IOException {
+                if (!closed) {
+                    closed = true;
+                    timer.finish(status, bytes, null);
+                }
+                super.close();
+            }
+        };
+        if (response.statusCode() != 200) {
+            body.close();
+            throw new IOException("HTTP ошибка: " + response.statusCode());
+        }
+        return isGzip(response) ? new GZIPInputStream(body) : body;
+    }
+
+    /**
+     * GET с gzip. HTTP/2 только по https, где он выбирается при установке TLS: по http
+     * клиент с HTTP_2 предлагает Upgrade: h2c в каждом запросе, а репозитории его
+     * не принимают - лишние заголовки туда и обратно на каждом POM.
+     */
+    private HttpRequest.Builder request(String url) {
+        URI uri = URI.create(url);
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri)
+            .timeout(readTimeout)
+            .header("Accept-Encoding", "gzip")
+            .GET();
+        if ("http".equalsIgnoreCase(uri.getScheme())) {
+            request.version(HttpClient.Version.HTTP_1_1);
+        }
+        return request;
+    }
+
+    /**
+     * Ответ, прошедший предел и повторы, и замер последней попытки.
+     */
+    private static class Sent<T> {
+        final HttpResponse<T> response;
+        final FetchTimer timer;
+
+        Sent(HttpResponse<T> response, FetchTimer timer) {
+            this.response = response;
+            this.timer = timer;
+        }
+    }
+
+    private <T> CompletableFuture<Sent<T>> send(HttpRequest request, HttpResponse.BodyHandler<T> handler) {
+        CompletableFuture<Sent<T>> result = new CompletableFuture<>();
+        attempt(repository(request.uri()), request, handler, 0, result);
+        return result;
+    }
+
+    /**
+     * Одна попытка: ждёт места в пределе репозитория, отправляет запрос и по ответу
+     * подстраивает предел, предохранитель и при необходимости планирует повтор.
+     */
+    private <T> void attempt(Repository repository, HttpRequest request, HttpResponse.BodyHandler<T> handler,
+                             int attempt, CompletableFuture<Sent<T>> result) {
+        String url = request.uri().toString();
+        repository.submit(result, () -> {
+            // Предохранитель проверяется при отправке, а не при постановке в очередь:
+            // иначе после размыкания ушли бы все уже ожидающие запросы
+            if (!repository.allow()) {
+                repository.inFlight.decrementAndGet();
+                metrics.recordBreakerRejection();
+                result.completeExceptionally(new IOException("репозиторий " + repository.key
+                    + " отключён после " + BREAKER_THRESHOLD + " ошибок подряд (" + url + ")"));
+                return;
+            }
+            // Время считается с момента отправки, ожидание в очереди лимита не входит
+            FetchTimer timer = new FetchTimer(url);
+            int inFlight = repository.inFlight.get();
+            long start = clock.getAsLong();
+            client.sendAsync(request, handler).whenComplete((response, error) -> {
+                long rtt = clock.getAsLong() - start;
+                if (error != null) {
+                    Throwable cause = unwrap(error);
+                    timer.finish(0, 0, cause);
+                    repository.onFailure(true);
+                    repository.release();
+                    if (cause instanceof IOException) {
+                        retryOrFail(repository, request, handler, attempt, result, 0, (IOException) cause);
+                    } else {
+                        result.completeExceptionally(cause);
+                    }
+                    return;
+                }
+
+                int status = response.statusCode();
+                if (!isRetryable(status)) {
+                    if (status >= 500) {
+                        repository.onFailure(false);
+                    } else {
+                        repository.onSuccess(rtt, inFlight);
+                    }
+                    repository.release();
+                    result.complete(new Sent<>(response, timer));
+                    return;
+                }
+
+                timer.finish(status, 0, null);
+                discard(response);
+                long retryAfterMs = Math.min(retryAfterMaxMs, retryAfterMillis(response));
+                if (retryAfterMs > 0) {
+                    repository.pause(retryAfterMs);
+                }
+                if (status == 429) {
+                    // Репозиторий жив и просит сбавить темп - на предохранитель не влияет
+                    repository.onOverload();
+                } else {
+                    repository.onFailure(true);
+                }
+                repository.release();
+                retryOrFail(repository, request, handler, attempt, result, retryAfterMs,
+                    new IOException("HTTP ошибка: " + status));
+            });
+        });
+    }
+
+    private <T> void retryOrFail(Repository repository, HttpRequest request, HttpResponse.BodyHandler<T> handler,
+                                 int attempt, CompletableFuture<Sent<T>> result, long retryAfterMs,
+                                 IOException failure) {
+        if (attempt >= maxRetries) {
+            result.completeExceptionally(attempt == 0 ? failure
+                : new IOException(failure.getMessage() + " (попыток: " + (attempt + 1) + ")", failure));
+            return;
+        }
+        metrics.recordRetry();
+        // Полный джиттер: случайная задержка до экспоненты, чтобы повторы не шли волной
+        long ceiling = backoffCeilingMs(backoffBaseMs, attempt);
+        long delayMs = Math.max(ThreadLocalRandom.current().nextLong(ceiling + 1), retryAfterMs);
+        Scheduler.INSTANCE.schedule(() -> attempt(repository, request, handler, attempt + 1, result),
+            delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Наибольшая задержка перед повтором после попытки attempt (с нуля):
+     * baseMs, удваиваясь, но не больше BACKOFF_MAX_MS.
+     */
+    static long backoffCeilingMs(long baseMs, int attempt) {
+        return Math.min(BACKOFF_MAX_MS, baseMs << Math.min(attempt, 20));
+    }
+
+    private static boolean isRetryable(int status) {
+        return status == 429 || status == 502 || status == 503 || status == 504;
+    }
+
+    /**
+     * Retry-After в секундах или как HTTP-дата; 0, если заголовка нет или он не разобран.
+     * Ограничение сверху (retryAfterMaxMs) накладывает вызывающий.
+     */
+    static long retryAfterMillis(HttpResponse<?> response) {
+        String value = response.headers().firstValue("Retry-After").orElse(null);
+        if (value == null) {
+            return 0;
+        }
+        long millis;
+        try {
+            millis = Long.parseLong(value.trim()) * 1000;
+        } catch (NumberFormatException e) {
+            try {
+                millis = ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli()
+                    - System.currentTimeMillis();
+            } catch (DateTimeParseException ex) {
+                return 0;
+            }
+        }
+        return Math.max(0, millis);
+    }
+
+    private static void discard(HttpResponse<?> response) {
+        if (response.body() instanceof InputStream) {
+            try {
+                ((InputStream) response.body()).close();
+            } catch (IOException e) {
+                // тело отказа не нужно
+            }
+        }
+    }
+
+    private Repository repository(URI uri) {
+        String key = uri.getScheme() + "://" + uri.getAuthority();
+        return repositories.computeIfAbsent(key, Repository::new);
+    }
+
+    /**
+     * Общий поток для отложенных повторов и снятия пауз Retry-After; создаётся при первом повторе.
+     */
+    private static class Scheduler {
+        static final ScheduledExecutorService INSTANCE = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "pom-retry");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Состояние одного репозитория: предел, очередь, пауза Retry-After и предохранитель.
+     */
+    private class Repository {
+        final String key;
+        final ConcurrencyLimiter limiter = new ConcurrencyLimiter(INITIAL_LIMIT, maxInFlight, clock);
+        final AtomicInteger inFlight = new AtomicInteger();
+        final Queue<Runnable> waiting = new ConcurrentLinkedQueue<>();
+        final AtomicBoolean drainScheduled = new AtomicBoolean();
+        volatile long pausedUntilNanos;
+        // Предохранитель: openUntilNanos == 0 - замкнут (запросы идут)
+        private int consecutiveFailures;
+        private long openUntilNanos;
+        private long openMs = breakerOpenMs;
+        private boolean probing;
+
+        Repository(String key) {
+            this.key = key;
+        }
+
+        int limit() {
+            return adaptive ? limiter.getLimit() : maxInFlight;
+        }
+
+        /**
+         * Можно ли отправить запрос: предохранитель замкнут или это пробный запрос после паузы.
+         */
+        synchronized boolean allow() {
+            if (openUntilNanos == 0) {
+                return true;
+            }
+            if (clock.getAsLong() < openUntilNanos || probing) {
+                return false;
+            }
+            probing = true;
+            return true;
+        }
+
+        void onSuccess(long rttNanos, int inFlightAtSend) {
+            limiter.onSuccess(rttNanos, inFlightAtSend);
+            synchronized (this) {
+                consecutiveFailures = 0;
+                if (openUntilNanos != 0) {
+                    System.err.println("Репозиторий " + key + " снова отвечает");
+                }
+                openUntilNanos = 0;
+                openMs = breakerOpenMs;
+                probing = false;
+            }
+        }
+
+        void onOverload() {
+            limiter.onDrop();
+            synchronized (this) {
+                probing = false;
+            }
+        }
+
+        /**
+         * Неудачная попытка; overload - таймаут, обрыв или 502/503/504, после которых предел уменьшается.
+         */
+        void onFailure(boolean overload) {
+            if (overload) {
+                limiter.onDrop();
+            }
+            synchronized (this) {
+                if (openUntilNanos != 0) {
+                    // Пробный запрос не прошёл: пауза удваивается. Ошибки запросов,
+                    // отправленных до размыкания, паузу не продлевают
+                    if (probing) {
+                        openMs = Math.min(BREAKER_MAX_OPEN_MS, openMs * 2);
+                        openUntilNanos = clock.getAsLong() + TimeUnit.MILLISECONDS.toNanos(openMs);
+                        probing = false;
+                    }
+                } else if (++consecutiveFailures >= BREAKER_THRESHOLD) {
+                    openUntilNanos = clock.getAsLong() + TimeUnit.MILLISECONDS.toNanos(openMs);
+                    System.err.println("Репозиторий " + key + ": " + consecutiveFailures
+                        + " ошибок подряд, запросы отклоняются " + openMs + " мс");
+                }
+            }
+        }
+
+        /**
+         * Retry-After: новые запросы в репозиторий не отправляются ближайшие millis мс.
+         */
+        void pause(long millis) {
+            long until = clock.getAsLong() + TimeUnit.MILLISECONDS.toNanos(millis);
+            if (until > pausedUntilNanos) {
+                pausedUntilNanos = until;
+            }
+        }
+
+        void submit(CompletableFuture<?> result, Runnable send) {
+            waiting.add(() -> {
+                try {
+                    send.run();
+                } catch (RuntimeException e) {
+                    release();
+                    result.completeExceptionally(e);
+                }
+            });
+            drain();
+        }
+
+        void release() {
+            inFlight.decrementAndGet();
+            drain();
+        }
+
+        private void drain() {
+            while (true) {
+                long pause = pausedUntilNanos - clock.getAsLong();
+                if (pause > 0 && !waiting.isEmpty()) {
+                    if (drainScheduled.compareAndSet(false, true)) {
+                        Scheduler.INSTANCE.schedule(() -> {
+                            drainScheduled.set(false);
+                            drain();
+                        }, pause, TimeUnit.NANOSECONDS);
+                    }
+                    return;
+                }
+                int current = inFlight.get();
+                if (current >= limit() || waiting.isEmpty()) {
+                    return;
+                }
+                if (!inFlight.compareAndSet(current, current + 1)) {
+                    continue;
+                }
+                Runnable task = waiting.poll();
+                if (task == null) {
+                    inFlight.decrementAndGet();
+                    // Задачу могли добавить между проверкой и decrement - проверяем ещё раз
+                    continue;
+                }
+                task.run();
+            }
+        }
+    }
+
+    /**
+     * Замер одной загрузки: метрики запуска и событие JFR.
+     */
+    private class FetchTimer {
+        private final String url;
+        private final long start = System.nanoTime();
+        private final ResolutionEvents.PomFetch event = new ResolutionEvents.PomFetch();
+
+        FetchTimer(String url) {
+            this.url = url;
+            event.begin();
+        }
+
+        void finish(int status, long bytes, Throwable error) {
+            metrics.recordFetch(url, status, bytes, System.nanoTime() - start);
+            event.end();
+            if (event.shouldCommit()) {
+                event.url = url;
+                event.host = ResolutionMetrics.hostOf(url);
+                event.status = status;
+                event.bytes = bytes;
+                event.error = error != null ? error.getMessage() : null;
+                event.commit();
+            }
+        }
+    }
+
+    private static PomCache.Entry toEntry(HttpResponse<byte[]> response, PomCache.Entry cached) throws IOException {
+        int status = response.statusCode();
+        if (status == 304 && cached != null) {
+            return cached;
+        }
+        if (status == 404) {
+            return new PomCache.Entry(null, null, null);
+        }
+        if (status != 200) {
+            throw new IOException("HTTP ошибка: " + status);
+        }
+
+        byte[] body = response.body();
+        if (isGzip(response)) {
+            try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+                body = in.readAllBytes();
+            }
+        }
+        return new PomCache.Entry(body,
+            response.headers().firstValue("ETag").orElse(null),
+            response.headers().firstValue("Last-Modified").orElse(null));
+    }
+
+    private static boolean isGzip(HttpResponse<?> response) {
+        return response.headers().firstValue("Content-Encoding")
+            .map(value -> value.equalsIgnoreCase("gzip"))
+            .orElse(false);
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        if (error instanceof CompletionException && error.getCause() != null) {
+            error = error.getCause();
+        }
+        if (error instanceof HttpTimeoutException) {
+            return new IOException("таймаут: " + error.getMessage(), error);
+        }
+        return error;
+    }
+}
@@ -0,0 +1,100 @@
+package com.mavengraph;
+
+import java.util.*;
+
+/**
+ * Содержимое одного POM в том виде, как оно записано в файле: без наследования
+ * от parent, без подстановки ${...} и без применения dependencyManagement.
+ * Эффективную модель строит EffectivePomResolver.
+ */
+public class PomModel {
+    private String groupId;
+    private String artifactId;
+    private String version;
+    private String packaging;
+    private String parentGroupId;
+    private String parentArtifactId;
+    private String parentVersion;
+    private final Map<String, String> properties = new LinkedHashMap<>();
+    private final List<Dependency> dependencies = new ArrayList<>();
+    private final List<Dependency> managedDependencies = new ArrayList<>();
+
+    /**
+     * Элемент dependency из dependencies или dependencyManagement.
+     * Отсутствующие поля - null.
+     */
+    public static class Dependency {
+        private final String groupId;
+        private final String artifactId;
+        private final String version;
+        private final String type;
+        private final String classifier;
+        private final String scope;
+        private final String optional;
+
+        public Dependency(String groupId, String artifactId, String version, String type,
+                          String classifier, String scope, String optional) {
+            this.groupId = groupId;
+            this.artifactId = artifactId;
+            this.version = version;
+            this.type = type;
+            this.classifier = classifier;
+            this.scope = scope;
+            this.optional = optional;
+        }
+
+        public String getGroupId() { return groupId; }
+        public String getArtifactId() { return artifactId; }
+        public String getVersion() { return version; }
+        public String getType() { return type; }
+        public String getClassifier() { return classifier; }
+        public String getScope() { return scope; }
+        public String getOptional() { return optional; }
+
+        /**
+         * Ключ управления версией, как в Maven: groupId:artifactId:type[:classifier].
+         */
+        public String getManagementKey() {
+            String key = groupId + ":" + artifactId + ":" + (type != null ? type : "jar");
+            return classifier != null ? key + ":" + classifier : key;
+        }
+
+        public boolean isImport() {
+            return "import".equals(scope) && "pom".equals(type);
+        }
+    }
+
+    public String getGroupId() { return groupId; }
+    public String getArtifactId() { return artifactId; }
+    public String getVersion() { return version; }
+    public String getPackaging() { return packaging; }
+    public String getParentGroupId() { return parentGroupId; }
+    public String getParentArtifactId() { return parentArtifactId; }
+    public String getParentVersion() { return parentVersion; }
+    public Map<String, String> getProperties() { return properties; }
+    public List<Dependency> getDependencies() { return dependencies; }
+    public List<Dependency> getManagedDependencies() { return managedDependencies; }
+
+    public boolean hasParent() {
+        return parentGroupId != null && parentArtifactId != null && parentVersion != null;
+    }
+
+    /**
+     * groupId проекта; если он не указан, наследуется от parent.
+     */
+    public String getEffectiveGroupId() {
+        return groupId != null ? groupId : parentGroupId;
+    }
+
+    public String getEffectiveVersion() {
+        return version != null ? version : parentVersion;
+    }
+
+    void setGroupId(String groupId) { this.groupId = groupId; }
+    void setArtifactId(String artifactId) { this.artifactId = artifactId; }
+    void setVersion(String version) { this.version = version; }
+    void setPackaging(String packaging) { this.packaging = packaging; }
+    void setParentGroupId(String parentGroupId) { this.parentGroupId = parentGroupId; }
+    void setParentArtifactId(String parentArtifactId) { this.parentArtifactId = parentArtifactId; }
+    void setParentVersion(String parentVersion) { this.parentVersion = parentVersion; }
+}
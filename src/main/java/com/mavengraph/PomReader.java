@@ -0,0 +1,174 @@
+package com.mavengraph;
+
+import java.io.*;
+import java.util.*;
+import javax.xml.stream.*;
+
+/**
+ * Потоковый (StAX) разбор POM за один проход.
+ * readDependencies берёт только прямые зависимости из project/dependencies;
+ * readModel дополнительно читает координаты, parent, properties и dependencyManagement.
+ * Блоки build/plugins и profiles пропускаются в обоих случаях.
+ */
+public class PomReader {
+    private static final XMLInputFactory FACTORY = createFactory();
+    // Поля dependency в порядке аргументов конструктора PomModel.Dependency
+    private static final String[] DEPENDENCY_FIELDS = {
+        "groupId", "artifactId", "version", "type", "classifier", "scope", "optional"
+    };
+
+    private static XMLInputFactory createFactory() {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, false);
+        return factory;
+    }
+
+    /**
+     * Прочитать прямые зависимости в формате groupId:artifactId:version.
+     * Зависимости со scope test и с неразрешёнными версиями (${...}) пропускаются.
+     * XMLStreamReader.close() освобождает только разборщик; поток закрывает вызывающий
+     * (встроенный в JDK разборщик, дочитав документ, может закрыть его и сам).
+     */
+    public static List<String> readDependencies(InputStream in) throws XMLStreamException {
+        List<String> dependencies = new ArrayList<>();
+        XMLStreamReader reader = FACTORY.createXMLStreamReader(in);
+        try {
+            int depth = 0;
+            boolean inDependencies = false;
+            boolean inDependency = false;
+            String groupId = null;
+            String artifactId = null;
+            String version = null;
+            String scope = null;
+
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    depth++;
+                    String name = reader.getLocalName();
+
+                    if (depth == 2 && name.equals("dependencies")) {
+                        inDependencies = true;
+                    } else if (inDependencies && depth == 3 && name.equals("dependency")) {
+                        inDependency = true;
+                        groupId = artifactId = version = scope = null;
+                    } else if (inDependency && depth == 4) {
+                        // getElementText() съедает закрывающий тег
+                        switch (name) {
+                            case "groupId": groupId = reader.getElementText().trim(); depth--; break;
+                            case "artifactId": artifactId = reader.getElementText().trim(); depth--; break;
+                            case "version": version = reader.getElementText().trim(); depth--; break;
+                            case "scope": scope = reader.getElementText().trim(); depth--; break;
+                            default: break;
+                        }
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    if (inDependency && depth == 3) {
+                        inDependency = false;
+                        if (!"test".equals(scope) && version != null && !version.contains("$")
+                                && groupId != null && artifactId != null) {
+                            dependencies.add(groupId + ":" + artifactId + ":" + version);
+                        }
+                    } else if (inDependencies && depth == 2) {
+                        inDependencies = false;
+                    }
+                    depth--;
+                }
+            }
+        } finally {
+            reader.close();
+        }
+        return dependencies;
+    }
+
+    /**
+     * Прочитать POM как есть: координаты, parent, properties, dependencies
+     * и dependencyManagement без подстановки свойств. Поток закрывает вызывающий.
+     */
+    public static PomModel readModel(InputStream in) throws XMLStreamException {
+        PomModel model = new PomModel();
+        XMLStreamReader reader = FACTORY.createXMLStreamReader(in);
+        try {
+            int depth = 0;
+            // Контейнер второго уровня, внутри которого сейчас разбор: parent, properties, ...
+            String section = null;
+            boolean inManagedList = false;
+            boolean inDependency = false;
+            String[] fields = new String[DEPENDENCY_FIELDS.length];
+
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    depth++;
+                    String name = reader.getLocalName();
+
+                    if (depth == 2) {
+                        switch (name) {
+                            case "groupId": model.setGroupId(reader.getElementText().trim()); depth--; break;
+                            case "artifactId": model.setArtifactId(reader.getElementText().trim()); depth--; break;
+                            case "version": model.setVersion(reader.getElementText().trim()); depth--; break;
+                            case "packaging": model.setPackaging(reader.getElementText().trim()); depth--; break;
+                            case "parent":
+                            case "properties":
+                            case "dependencies":
+                            case "dependencyManagement":
+                                section = name;
+                                break;
+                            default: break;
+                        }
+                    } else if (depth == 3 && "parent".equals(section)) {
+                        switch (name) {
+                            case "groupId": model.setParentGroupId(reader.getElementText().trim()); depth--; break;
+                            case "artifactId": model.setParentArtifactId(reader.getElementText().trim()); depth--; break;
+                            case "version": model.setParentVersion(reader.getElementText().trim()); depth--; break;
+                            default: break;
+                        }
+                    } else if (depth == 3 && "properties".equals(section)) {
+                        model.getProperties().put(name, reader.getElementText().trim());
+                        depth--;
+                    } else if (depth == 3 && "dependencyManagement".equals(section) && name.equals("dependencies")) {
+                        inManagedList = true;
+                    } else if (name.equals("dependency") && (depth == 3 && "dependencies".equals(section)
+                            || depth == 4 && inManagedList)) {
+                        inDependency = true;
+                        Arrays.fill(fields, null);
+                    } else if (inDependency && depth == (inManagedList ? 5 : 4)) {
+                        int field = dependencyField(name);
+                        if (field >= 0) {
+                            fields[field] = reader.getElementText().trim();
+                            depth--;
+                        }
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    if (inDependency && depth == (inManagedList ? 4 : 3)) {
+                        inDependency = false;
+                        if (fields[0] != null && fields[1] != null) {
+                            PomModel.Dependency dependency = new PomModel.Dependency(
+                                fields[0], fields[1], fields[2], fields[3], fields[4], fields[5], fields[6]);
+                            (inManagedList ? model.getManagedDependencies() : model.getDependencies()).add(dependency);
+                        }
+                    } else if (inManagedList && depth == 3) {
+                        inManagedList = false;
+                    } else if (depth == 2) {
+                        section = null;
+                    }
+                    depth--;
+                }
+            }
+        } finally {
+            reader.close();
+        }
+        return model;
+    }
+
+    private static int dependencyField(String name) {
+        for (int i = 0; i < DEPENDENCY_FIELDS.length; i++) {
+            if (DEPENDENCY_FIELDS[i].equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,75 @@
+package com.mavengraph;
+
+import jdk.jfr.*;
+
+/**
+ * События JDK Flight Recorder для разрешения зависимостей.
+ * Пока запись JFR не включена, commit() ничего не стоит; включить можно так:
+ * java -XX:StartFlightRecording=filename=run.jfr -jar maven-dep-graph.jar ...
+ */
+public final class ResolutionEvents {
+    private ResolutionEvents() {
+    }
+
+    @Name("com.mavengraph.PomFetch")
+    @Label("Загрузка POM")
+    @Category({ "Maven Dependency Graph", "Сеть" })
+    @StackTrace(false)
+    public static class PomFetch extends Event {
+        @Label("URL")
+        public String url;
+
+        @Label("Хост")
+        public String host;
+
+        @Label("HTTP статус")
+        @Description("0, если запрос завершился ошибкой")
+        public int status;
+
+        @Label("Получено байт")
+        @DataAmount
+        public long bytes;
+
+        @Label("Ошибка")
+        public String error;
+    }
+
+    @Name("com.mavengraph.PomCacheLookup")
+    @Label("Поиск POM в кэше")
+    @Category({ "Maven Dependency Graph", "Кэш" })
+    @StackTrace(false)
+    public static class PomCacheLookup extends Event {
+        @Label("URL")
+        public String url;
+
+        @Label("Попадание")
+        public boolean hit;
+    }
+
+    @Name("com.mavengraph.PomParse")
+    @Label("Разбор POM")
+    @Category({ "Maven Dependency Graph", "Разбор" })
+    @StackTrace(false)
+    public static class PomParse extends Event {
+        @Label("URL")
+        public String url;
+
+        @Label("Зависимостей")
+        public int dependencies;
+    }
+
+    @Name("com.mavengraph.ResolutionStage")
+    @Label("Этап разрешения")
+    @Category({ "Maven Dependency Graph", "Граф" })
+    @StackTrace(false)
+    public static class ResolutionStage extends Event {
+        @Label("Этап")
+        public String stage;
+
+        @Label("Узлов")
+        public int nodes;
+
+        @Label("Рёбер")
+        public int edges;
+    }
+}
@@ -0,0 +1,355 @@
+package com.mavengraph;
+
+import java.io.*;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Метрики одного запуска: время по этапам, объём загрузок, HTTP-статусы,
+ * попадания в кэш, задержки загрузки по хостам и артефактам, размер и глубина графа.
+ * Потокобезопасен: обновляется из потоков загрузки без блокировок.
+ * Итог пишется в JSON (--metrics-json), подробная картина - события JFR (ResolutionEvents).
+ */
+public class ResolutionMetrics {
+
+    /**
+     * Этапы разрешения. fetch и parse - суммы по всем запросам (в параллельном режиме
+     * могут превышать общее время), expand, cycles и load - настенное время этапа.
+     */
+    public enum Stage {
+        FETCH("fetch"), PARSE("parse"), EXPAND("expand"), CYCLES("cycles"), LOAD("load");
+
+        private final String key;
+
+        Stage(String key) {
+            this.key = key;
+        }
+
+        public String getKey() { return key; }
+    }
+
+    // Корзины гистограммы задержек, мс: [0,1), [1,2), [2,4), ..., [32768, +inf)
+    private static final int BUCKETS = 17;
+    private static final int SLOWEST_LIMIT = 20;
+
+    private final long startNanos = System.nanoTime();
+    private final LongAdder[] stageNanos = adders(Stage.values().length);
+    private final LongAdder[] stageCounts = adders(Stage.values().length);
+    private final LongAdder bytesDownloaded = new LongAdder();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder cacheMisses = new LongAdder();
+    private final LongAdder localHits = new LongAdder();
+    private final LongAdder localMisses = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder breakerRejections = new LongAdder();
+    // Артефакты, которые не удалось разрешить: groupId:artifactId:version -> последняя ошибка
+    private final ConcurrentHashMap<String, String> failures = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, LongAdder> statusCounts = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, LatencyStats> hosts = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, LatencyStats> artifacts = new ConcurrentHashMap<>();
+    // Наибольшее число артефактов в failures и artifacts (обход экосистемы)
+    private volatile int trackedLimit = Integer.MAX_VALUE;
+
+    // Статистика графа: заполняется после построения
+    private long[] nodesAtDepth = new long[8];
+    private int maxDepthReached = -1;
+    private int nodes;
+    private int edges;
+    private int maxOutDegree;
+    private int components;
+    private int cyclicComponents;
+
+    /**
+     * Задержки загрузок одного хоста или одного артефакта.
+     */
+    private static class LatencyStats {
+        final LongAdder requests = new LongAdder();
+        final LongAdder errors = new LongAdder();
+        final LongAdder totalNanos = new LongAdder();
+        final LongAdder bytes = new LongAdder();
+        final AtomicLongArray histogram = new AtomicLongArray(BUCKETS);
+        final AtomicLong maxNanos = new AtomicLong();
+        volatile int lastStatus;
+
+        void record(int status, long bytes, long nanos) {
+            requests.increment();
+            if (status == 0 || status >= 400) {
+                errors.increment();
+            }
+            totalNanos.add(nanos);
+            this.bytes.add(bytes);
+            histogram.incrementAndGet(bucket(nanos));
+            lastStatus = status;
+            maxNanos.accumulateAndGet(nanos, Math::max);
+        }
+    }
+
+    /**
+     * Хранить по отдельности не больше limit артефактов в списках ошибок и самых
+     * медленных загрузок: при обходе миллионов POM иначе растёт куча. Остальные
+     * учитываются только в общих счётчиках.
+     */
+    public void setTrackedLimit(int limit) {
+        this.trackedLimit = limit;
+    }
+
+    public void recordStage(Stage stage, long nanos) {
+        stageNanos[stage.ordinal()].add(nanos);
+        stageCounts[stage.ordinal()].increment();
+    }
+
+    /**
+     * Одна загрузка POM. status == 0 - запрос не дошёл до ответа (таймаут, обрыв).
+     */
+    public void recordFetch(String url, int status, long bytes, long nanos) {
+        recordStage(Stage.FETCH, nanos);
+        bytesDownloaded.add(bytes);
+        statusCounts.computeIfAbsent(status == 0 ? "error" : Integer.toString(status), k -> new LongAdder())
+            .increment();
+        hosts.computeIfAbsent(hostOf(url), k -> new LatencyStats()).record(status, bytes, nanos);
+        LatencyStats stats = artifacts.size() < trackedLimit
+            ? artifacts.computeIfAbsent(url, k -> new LatencyStats()) : artifacts.get(url);
+        if (stats != null) {
+            stats.record(status, bytes, nanos);
+        }
+    }
+
+    public void recordCacheLookup(boolean hit) {
+        (hit ? cacheHits : cacheMisses).increment();
+    }
+
+    /**
+     * Запрос запланирован на повтор после таймаута, обрыва или 429/502/503/504.
+     */
+    public void recordRetry() {
+        retries.increment();
+    }
+
+    /**
+     * Запрос отклонён без отправки: предохранитель репозитория разомкнут.
+     */
+    public void recordBreakerRejection() {
+        breakerRejections.increment();
+    }
+
+    /**
+     * Зависимости артефакта не получены (после всех повторов); его поддерево в графе пустое.
+     */
+    public void recordFailure(String id, String message) {
+        if (failures.size() < trackedLimit || failures.containsKey(id)) {
+            failures.put(id, message);
+        }
+    }
+
+    /**
+     * Артефакт всё же разрешён позже в том же запуске - из списка ошибок убирается.
+     */
+    public void recordResolved(String id) {
+        failures.remove(id);
+    }
+
+    /**
+     * POM найден (или не найден ни в одном) в локальных репозиториях.
+     */
+    public void recordLocalRead(boolean found) {
+        (found ? localHits : localMisses).increment();
+    }
+
+    /**
+     * Узел впервые посещён обходом на данной глубине.
+     */
+    public synchronized void recordNodeDepth(int depth) {
+        if (depth >= nodesAtDepth.length) {
+            nodesAtDepth = Arrays.copyOf(nodesAtDepth, Math.max(depth + 1, nodesAtDepth.length * 2));
+        }
+        nodesAtDepth[depth]++;
+        maxDepthReached = Math.max(maxDepthReached, depth);
+    }
+
+    /**
+     * Размер готового графа и число компонент.
+     */
+    public synchronized void recordGraph(GraphStore store, SccAnalyzer.Result scc) {
+        nodes = store.nodeCount();
+        edges = store.edgeCount();
+        int[] offsets = store.offsets();
+        maxOutDegree = 0;
+        for (int n = 0; n < nodes; n++) {
+            maxOutDegree = Math.max(maxOutDegree, offsets[n + 1] - offsets[n]);
+        }
+        components = scc.componentCount();
+        cyclicComponents = 0;
+        for (int c = 0; c < components; c++) {
+            if (scc.isCyclic(c)) {
+                cyclicComponents++;
+            }
+        }
+    }
+
+    public long getStageNanos(Stage stage) { return stageNanos[stage.ordinal()].sum(); }
+    public long getBytesDownloaded() { return bytesDownloaded.sum(); }
+    public long getCacheHits() { return cacheHits.sum(); }
+    public long getCacheMisses() { return cacheMisses.sum(); }
+    public long getLocalHits() { return localHits.sum(); }
+    public long getLocalMisses() { return localMisses.sum(); }
+    public long getRetries() { return retries.sum(); }
+    public long getBreakerRejections() { return breakerRejections.sum(); }
+    public Map<String, String> getFailures() { return new TreeMap<>(failures); }
+
+    public long getStatusCount(String status) {
+        LongAdder count = statusCounts.get(status);
+        return count == null ? 0 : count.sum();
+    }
+
+    /**
+     * Итоговая сводка в JSON.
+     */
+    public synchronized String toJson() {
+        StringBuilder sb = new StringBuilder(4096);
+        sb.append("{\n");
+        sb.append("  \"elapsedMs\": ").append(Json.number(millis(System.nanoTime() - startNanos))).append(",\n");
+
+        sb.append("  \"stages\": {");
+        Stage[] stages = Stage.values();
+        for (int i = 0; i < stages.length; i++) {
+            sb.append(i == 0 ? "\n" : ",\n");
+            sb.append("    ").append(Json.quote(stages[i].getKey())).append(": {\"totalMs\": ")
+                .append(Json.number(millis(stageNanos[i].sum())))
+                .append(", \"count\": ").append(stageCounts[i].sum()).append('}');
+        }
+        sb.append("\n  },\n");
+
+        sb.append("  \"bytesDownloaded\": ").append(bytesDownloaded.sum()).append(",\n");
+        sb.append("  \"cache\": {\"hits\": ").append(cacheHits.sum())
+            .append(", \"misses\": ").append(cacheMisses.sum()).append("},\n");
+        sb.append("  \"localRepository\": {\"hits\": ").append(localHits.sum())
+            .append(", \"misses\": ").append(localMisses.sum()).append("},\n");
+
+        sb.append("  \"retries\": ").append(retries.sum())
+            .append(",\n  \"breakerRejections\": ").append(breakerRejections.sum()).append(",\n");
+
+        sb.append("  \"failed\": [");
+        List<Map.Entry<String, String>> failed = new ArrayList<>(new TreeMap<>(failures).entrySet());
+        for (int i = 0; i < failed.size(); i++) {
+            sb.append(i == 0 ? "\n" : ",\n").append("    {\"artifact\": ").append(Json.quote(failed.get(i).getKey()))
+                .append(", \"error\": ").append(Json.quote(failed.get(i).getValue())).append('}');
+        }
+        sb.append(failed.isEmpty() ? "],\n" : "\n  ],\n");
+
+        sb.append("  \"httpStatus\": {");
+        appendCounts(sb, new TreeMap<>(statusCounts));
+        sb.append("},\n");
+
+        sb.append("  \"latencyBucketsMs\": [");
+        for (int b = 0; b < BUCKETS; b++) {
+            sb.append(b == 0 ? "" : ", ").append(b == 0 ? 0 : 1L << (b - 1));
+        }
+        sb.append("],\n");
+
+        sb.append("  \"hosts\": [");
+        List<Map.Entry<String, LatencyStats>> hostList = new ArrayList<>(hosts.entrySet());
+        hostList.sort(Map.Entry.comparingByKey());
+        for (int i = 0; i < hostList.size(); i++) {
+            sb.append(i == 0 ? "\n" : ",\n").append("    ");
+            appendLatency(sb, "host", hostList.get(i).getKey(), hostList.get(i).getValue(), true);
+        }
+        sb.append(hostList.isEmpty() ? "],\n" : "\n  ],\n");
+
+        sb.append("  \"slowestArtifacts\": [");
+        List<Map.Entry<String, LatencyStats>> slowest = new ArrayList<>(artifacts.entrySet());
+        slowest.sort((a, b) -> Long.compare(b.getValue().maxNanos.get(), a.getValue().maxNanos.get()));
+        int limit = Math.min(SLOWEST_LIMIT, slowest.size());
+        for (int i = 0; i < limit; i++) {
+            sb.append(i == 0 ? "\n" : ",\n").append("    ");
+            appendLatency(sb, "url", slowest.get(i).getKey(), slowest.get(i).getValue(), false);
+        }
+        sb.append(limit == 0 ? "],\n" : "\n  ],\n");
+
+        sb.append("  \"graph\": {\"nodes\": ").append(nodes)
+            .append(", \"edges\": ").append(edges)
+            .append(", \"maxOutDegree\": ").append(maxOutDegree)
+            .append(", \"avgOutDegree\": ").append(Json.number(nodes == 0 ? 0 : (double) edges / nodes))
+            .append(", \"components\": ").append(components)
+            .append(", \"cyclicComponents\": ").append(cyclicComponents)
+            .append(", \"maxDepth\": ").append(maxDepthReached < 0 ? "null" : Integer.toString(maxDepthReached))
+            .append(", \"nodesAtDepth\": [");
+        for (int d = 0; d <= maxDepthReached; d++) {
+            sb.append(d == 0 ? "" : ", ").append(nodesAtDepth[d]);
+        }
+        sb.append("]}\n");
+        sb.append("}\n");
+        return sb.toString();
+    }
+
+    public void writeJson(Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Files.write(file, toJson().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void appendCounts(StringBuilder sb, Map<String, LongAdder> counts) {
+        boolean first = true;
+        for (Map.Entry<String, LongAdder> entry : counts.entrySet()) {
+            sb.append(first ? "" : ", ").append(Json.quote(entry.getKey())).append(": ").append(entry.getValue().sum());
+            first = false;
+        }
+    }
+
+    private static void appendLatency(StringBuilder sb, String keyName, String key, LatencyStats stats,
+                                      boolean withHistogram) {
+        long requests = stats.requests.sum();
+        sb.append('{').append(Json.quote(keyName)).append(": ").append(Json.quote(key))
+            .append(", \"requests\": ").append(requests)
+            .append(", \"errors\": ").append(stats.errors.sum())
+            .append(", \"bytes\": ").append(stats.bytes.sum())
+            .append(", \"avgMs\": ").append(Json.number(requests == 0 ? 0 : millis(stats.totalNanos.sum()) / requests))
+            .append(", \"maxMs\": ").append(Json.number(millis(stats.maxNanos.get())));
+        if (withHistogram) {
+            sb.append(", \"histogram\": [");
+            for (int b = 0; b < BUCKETS; b++) {
+                sb.append(b == 0 ? "" : ", ").append(stats.histogram.get(b));
+            }
+            sb.append(']');
+        } else {
+            sb.append(", \"status\": ").append(stats.lastStatus);
+        }
+        sb.append('}');
+    }
+
+    private static int bucket(long nanos) {
+        long ms = nanos / 1_000_000;
+        if (ms <= 0) {
+            return 0;
+        }
+        return Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(ms));
+    }
+
+    static String hostOf(String url) {
+        try {
+            String host = URI.create(url).getHost();
+            return host != null ? host : url;
+        } catch (IllegalArgumentException e) {
+            return url;
+        }
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    private static LongAdder[] adders(int count) {
+        LongAdder[] result = new LongAdder[count];
+        for (int i = 0; i < count; i++) {
+            result[i] = new LongAdder();
+        }
+        return result;
+    }
+}
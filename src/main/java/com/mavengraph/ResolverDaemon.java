@@ -0,0 +1,467 @@
+package com.mavengraph;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Режим сервера: процесс живёт долго, держит в памяти разобранные POM (списки
+ * зависимостей, parent и BOM) и готовые ответы и отвечает на запросы по HTTP
+ * на 127.0.0.1. Повторные запросы не платят за запуск JVM, холодный JIT и сеть.
+ *
+ * <pre>
+ * GET  /resolve?root=g:a:v[&amp;depth=2][&amp;format=json|text][&amp;condensation=true]
+ * GET  /cycles?root=g:a:v[&amp;depth=2][&amp;format=json|text]
+ * GET  /status      кэши и память
+ * GET  /metrics     ResolutionMetrics в JSON
+ * POST /shutdown
+ * </pre>
+ * Параметры repo, effectivePom и sources необязательны: если они не совпадают с
+ * настройками сервера, возвращается 409 (клиент тогда разрешает граф сам). sources -
+ * строка {@link #sources(Config)}: локальный репозиторий, зеркала, кэш и --offline.
+ *
+ * Память ограничена --daemon-max-mb: три четверти - списки зависимостей в MavenParser,
+ * четверть - готовые ответы. Если после запроса живые объекты (занятое после последней
+ * сборки мусора) занимают больше HEAP_PRESSURE от -Xmx, ответы сбрасываются, списки
+ * сокращаются вдвое, а кэш parent/BOM создаётся заново.
+ */
+public class ResolverDaemon {
+    public static final int DEFAULT_PORT = 7391;
+    static final int MAX_DEPTH = 8;
+    private static final int HANDLER_THREADS = 8;
+    private static final double HEAP_PRESSURE = 0.85;
+
+    private final Config config;
+    private final MavenParser parser;
+    private final ResolutionMetrics metrics;
+    private final BoundedCache<String, byte[]> responses;
+    // Одинаковые запросы, пришедшие одновременно, ждут одно разрешение
+    private final ConcurrentHashMap<String, CompletableFuture<byte[]>> inFlight = new ConcurrentHashMap<>();
+    private final CountDownLatch stopped = new CountDownLatch(1);
+    private final long startedAt = System.currentTimeMillis();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder resolutions = new LongAdder();
+    private final LongAdder pressureEvents = new LongAdder();
+    private HttpServer server;
+    private ExecutorService executor;
+
+    public ResolverDaemon(Config config, MavenParser parser, ResolutionMetrics metrics) {
+        long budget = config.getDaemonMaxMb() * 1024 * 1024;
+        this.config = config;
+        this.parser = parser;
+        this.metrics = metrics;
+        parser.enableMemo(budget / 4 * 3);
+        this.responses = new BoundedCache<>(budget / 4, (key, body) -> 2L * key.length() + body.length + 64);
+    }
+
+    public void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), config.getDaemonPort()), 0);
+        executor = Executors.newFixedThreadPool(HANDLER_THREADS, r -> {
+            Thread t = new Thread(r, "daemon-http");
+            t.setDaemon(true);
+            return t;
+        });
+        server.setExecutor(executor);
+        server.createContext("/resolve", exchange -> handle(exchange, "GET", () -> resolve(exchange, false)));
+        server.createContext("/cycles", exchange -> handle(exchange, "GET", () -> resolve(exchange, true)));
+        server.createContext("/status", exchange -> handle(exchange, "GET", this::status));
+        server.createContext("/metrics", exchange -> handle(exchange, "GET",
+            () -> Response.json(200, metrics.toJson())));
+        server.createContext("/shutdown", exchange -> handle(exchange, "POST", () -> {
+            stopped.countDown();
+            return Response.json(200, "{\"stopping\":true}");
+        }));
+        server.start();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Ждать POST /shutdown, затем остановить сервер.
+     */
+    public void awaitShutdown() throws InterruptedException {
+        stopped.await();
+        stop();
+    }
+
+    public void stop() {
+        stopped.countDown();
+        if (server != null) {
+            server.stop(1);
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Ответ обработчика: код, тип и тело.
+     */
+    private static class Response {
+        final int status;
+        final String contentType;
+        final byte[] body;
+
+        Response(int status, String contentType, byte[] body) {
+            this.status = status;
+            this.contentType = contentType;
+            this.body = body;
+        }
+
+        static Response json(int status, String json) {
+            return new Response(status, "application/json; charset=utf-8", json.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static Response error(int status, String message) {
+            return json(status, "{\"error\":" + Json.quote(message) + "}");
+        }
+    }
+
+    /**
+     * Ошибка запроса, которую нужно вернуть клиенту с данным кодом.
+     */
+    private static class RequestException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        final int status;
+
+        RequestException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    private void handle(HttpExchange exchange, String method, Supplier<Response> handler) throws IOException {
+        requests.increment();
+        Response response;
+        try {
+            if (!method.equals(exchange.getRequestMethod())) {
+                response = Response.error(405, "ожидается " + method);
+            } else {
+                response = handler.get();
+            }
+        } catch (RequestException e) {
+            response = Response.error(e.status, e.getMessage());
+        } catch (RuntimeException e) {
+            System.err.println("Ошибка обработки " + exchange.getRequestURI() + ": " + e);
+            response = Response.error(500, String.valueOf(e.getMessage()));
+        }
+
+        try (OutputStream out = exchange.getResponseBody()) {
+            exchange.getResponseHeaders().set("Content-Type", response.contentType);
+            exchange.sendResponseHeaders(response.status, response.body.length);
+            out.write(response.body);
+        }
+    }
+
+    private Response resolve(HttpExchange exchange, boolean cyclesOnly) {
+        Map<String, String> params = queryParams(exchange);
+        String repo = params.get("repo");
+        String effective = params.get("effectivePom");
+        String clientSources = params.get("sources");
+        if ((repo != null && !repo.equals(config.getRepoUrl()))
+                || (effective != null && Boolean.parseBoolean(effective) != config.isEffectivePom())
+                || (clientSources != null && !clientSources.equals(sources(config)))) {
+            throw new RequestException(409, "сервер обслуживает " + config.getRepoUrl()
+                + " (effectivePom=" + config.isEffectivePom() + ", " + sources(config) + ")");
+        }
+
+        String root = params.get("root");
+        String[] parts = root != null ? root.split(":") : new String[0];
+        if (parts.length != 3 || parts[0].isEmpty() || parts[1].isEmpty() || parts[2].isEmpty()) {
+            throw new RequestException(400, "root должен быть groupId:artifactId:version");
+        }
+        int depth;
+        try {
+            depth = Integer.parseInt(params.getOrDefault("depth", "2"));
+        } catch (NumberFormatException e) {
+            throw new RequestException(400, "depth должен быть числом");
+        }
+        if (depth < 1 || depth > MAX_DEPTH) {
+            throw new RequestException(400, "depth должен быть от 1 до " + MAX_DEPTH);
+        }
+        boolean text = "text".equals(params.get("format"));
+        boolean condensation = Boolean.parseBoolean(params.get("condensation"));
+
+        String key = (cyclesOnly ? "cycles " : "resolve ") + root + " " + depth + (text ? " text" : " json")
+            + (condensation ? " condensation" : "");
+        byte[] body = responses.get(key);
+        if (body == null) {
+            body = singleFlight(key, () -> render(key, parts, depth, cyclesOnly, text, condensation));
+        }
+        return text
+            ? new Response(200, "text/plain; charset=utf-8", body)
+            : new Response(200, "application/json; charset=utf-8", body);
+    }
+
+    private byte[] singleFlight(String key, Supplier<byte[]> compute) {
+        CompletableFuture<byte[]> created = new CompletableFuture<>();
+        CompletableFuture<byte[]> existing = inFlight.putIfAbsent(key, created);
+        if (existing != null) {
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+            }
+        }
+        try {
+            byte[] body = compute.get();
+            created.complete(body);
+            return body;
+        } catch (RuntimeException e) {
+            created.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, created);
+        }
+    }
+
+    private byte[] render(String key, String[] root, int depth, boolean cyclesOnly, boolean text,
+                          boolean condensation) {
+        long start = System.nanoTime();
+        DependencyGraph graph = new DependencyGraph(depth);
+        graph.setParallelism(config.getParallelism());
+        graph.setMetrics(metrics);
+        DependencyNode rootNode = graph.getOrCreateNode(root[0], root[1], root[2]);
+        graph.buildGraph(rootNode, parser, config.getRepoUrl());
+        resolutions.increment();
+        double resolveMs = (System.nanoTime() - start) / 1_000_000.0;
+
+        byte[] body;
+        if (text) {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            PrintStream out = new PrintStream(buffer, false, StandardCharsets.UTF_8);
+            if (cyclesOnly) {
+                printCycles(out, graph);
+            } else {
+                out.println("\n=== Этап 2: Прямые зависимости ===");
+                Main.printDependencies(out, dependencyIds(rootNode));
+                out.println("\n=== Этап 3: Граф зависимостей ===");
+                graph.printGraph(out);
+                if (condensation) {
+                    graph.printCondensation(out);
+                }
+            }
+            out.flush();
+            body = buffer.toByteArray();
+        } else {
+            body = (cyclesOnly ? cyclesJson(graph, rootNode, depth, resolveMs)
+                : graphJson(graph, rootNode, depth, resolveMs)).getBytes(StandardCharsets.UTF_8);
+        }
+
+        // SNAPSHOT-версии могут измениться в репозитории, а неполный из-за ошибок граф
+        // стоит построить заново - такие ответы не запоминаются
+        if (!hasSnapshot(graph) && graph.getFailures().isEmpty()) {
+            responses.put(key, body);
+        }
+        relieveMemoryPressure();
+        return body;
+    }
+
+    private static void printCycles(PrintStream out, DependencyGraph graph) {
+        if (graph.getCycleComponents().isEmpty()) {
+            out.println("Циклов не найдено");
+            return;
+        }
+        for (DependencyCycle cycle : graph.getCycleComponents()) {
+            out.println(cycle);
+        }
+    }
+
+    private static String graphJson(DependencyGraph graph, DependencyNode root, int depth, double resolveMs) {
+        GraphStore store = graph.getStore();
+        StringBuilder sb = new StringBuilder(256 + store.nodeCount() * 64);
+        sb.append("{\"root\":").append(Json.quote(root.getId()));
+        sb.append(",\"depth\":").append(depth);
+        sb.append(",\"nodeCount\":").append(store.nodeCount());
+        sb.append(",\"edgeCount\":").append(store.edgeCount());
+        sb.append(",\"resolveMs\":").append(Json.number(resolveMs));
+        sb.append(",\"nodes\":[");
+        for (DependencyNode node : graph.getAllNodes()) {
+            if (node.getIndex() > 0) {
+                sb.append(',');
+            }
+            sb.append("{\"id\":").append(Json.quote(node.getId())).append(",\"dependencies\":");
+            appendArray(sb, dependencyIds(node));
+            sb.append('}');
+        }
+        sb.append("],\"cycles\":");
+        appendCycles(sb, graph);
+        return sb.append('}').toString();
+    }
+
+    private static String cyclesJson(DependencyGraph graph, DependencyNode root, int depth, double resolveMs) {
+        StringBuilder sb = new StringBuilder(256);
+        sb.append("{\"root\":").append(Json.quote(root.getId()));
+        sb.append(",\"depth\":").append(depth);
+        sb.append(",\"nodeCount\":").append(graph.getStore().nodeCount());
+        sb.append(",\"resolveMs\":").append(Json.number(resolveMs));
+        sb.append(",\"cycles\":");
+        appendCycles(sb, graph);
+        return sb.append('}').toString();
+    }
+
+    private static void appendCycles(StringBuilder sb, DependencyGraph graph) {
+        sb.append('[');
+        boolean first = true;
+        for (DependencyCycle cycle : graph.getCycleComponents()) {
+            sb.append(first ? "" : ",").append("{\"members\":");
+            appendArray(sb, cycle.getMembers());
+            sb.append(",\"path\":");
+            appendArray(sb, cycle.getExamplePath());
+            sb.append('}');
+            first = false;
+        }
+        sb.append(']');
+    }
+
+    private static void appendArray(StringBuilder sb, List<String> values) {
+        sb.append('[');
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            Json.appendQuoted(sb, values.get(i));
+        }
+        sb.append(']');
+    }
+
+    private static List<String> dependencyIds(DependencyNode node) {
+        List<String> ids = new ArrayList<>();
+        for (DependencyNode dependency : node.getDependencies()) {
+            ids.add(dependency.getId());
+        }
+        return ids;
+    }
+
+    private static boolean hasSnapshot(DependencyGraph graph) {
+        GraphStore store = graph.getStore();
+        for (int i = 0; i < store.nodeCount(); i++) {
+            if (store.version(i).endsWith("-SNAPSHOT")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Источники POM помимо repoUrl одной строкой: ответы сервера и клиента совпадают,
+     * только если совпадает и она.
+     */
+    static String sources(Config config) {
+        String local = config.isNoLocalRepo() ? "нет"
+            : config.getLocalRepo() != null ? config.getLocalRepo() : "~/.m2/repository";
+        return "localRepo=" + local
+            + ", mirrors=" + config.getMirrors()
+            + ", cacheDir=" + (config.getCacheDir() != null ? config.getCacheDir() : "нет")
+            + ", offline=" + config.isOffline();
+    }
+
+    /**
+     * Если куча почти заполнена, освободить кэши: сначала ответы, затем половину
+     * списков зависимостей и кэш parent/BOM.
+     */
+    private void relieveMemoryPressure() {
+        long used = liveHeap();
+        if (used < Runtime.getRuntime().maxMemory() * HEAP_PRESSURE) {
+            return;
+        }
+        pressureEvents.increment();
+        responses.clear();
+        parser.getMemo().shrink(0.5);
+        parser.setResolver(config.getModelCache() > 0
+            ? new EffectivePomResolver(config.getModelCache()) : new EffectivePomResolver());
+        System.err.println("Предупреждение: куча заполнена (" + (used >> 20) + " МБ), кэши сервера сокращены");
+    }
+
+    /**
+     * Занятое в куче после последней сборки мусора по каждому пулу. totalMemory() -
+     * freeMemory() включает ещё не собранный мусор и между сборками почти всегда
+     * близко к размеру кучи, поэтому для решения о сбросе кэшей не годится.
+     * Если JVM не сообщает такие данные, берётся текущее занятое.
+     */
+    private static long liveHeap() {
+        long used = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() != MemoryType.HEAP) {
+                continue;
+            }
+            MemoryUsage afterGc = pool.getCollectionUsage();
+            if (afterGc == null) {
+                return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+            }
+            used += afterGc.getUsed();
+        }
+        return used;
+    }
+
+    private Response status() {
+        Runtime runtime = Runtime.getRuntime();
+        StringBuilder sb = new StringBuilder(512);
+        sb.append("{\"repoUrl\":").append(Json.quote(config.getRepoUrl()));
+        sb.append(",\"effectivePom\":").append(config.isEffectivePom());
+        sb.append(",\"sources\":").append(Json.quote(sources(config)));
+        sb.append(",\"pid\":").append(ProcessHandle.current().pid());
+        sb.append(",\"uptimeMs\":").append(System.currentTimeMillis() - startedAt);
+        sb.append(",\"requests\":").append(requests.sum());
+        sb.append(",\"resolutions\":").append(resolutions.sum());
+        sb.append(",\"inFlight\":").append(inFlight.size());
+        sb.append(",\"memo\":");
+        appendCache(sb, parser.getMemo());
+        sb.append(",\"responses\":");
+        appendCache(sb, responses);
+        sb.append(",\"sharedModels\":").append(parser.getResolver().getSharedModelCount());
+        sb.append(",\"heap\":{\"usedBytes\":").append(runtime.totalMemory() - runtime.freeMemory());
+        sb.append(",\"liveBytes\":").append(liveHeap());
+        sb.append(",\"maxBytes\":").append(runtime.maxMemory());
+        sb.append(",\"pressureEvents\":").append(pressureEvents.sum());
+        sb.append(",\"gcCount\":").append(gcCount()).append("}}");
+        return Response.json(200, sb.toString());
+    }
+
+    private static void appendCache(StringBuilder sb, BoundedCache<?, ?> cache) {
+        sb.append("{\"entries\":").append(cache.size());
+        sb.append(",\"bytes\":").append(cache.getWeight());
+        sb.append(",\"maxBytes\":").append(cache.getMaxWeight());
+        sb.append(",\"hits\":").append(cache.getHits());
+        sb.append(",\"misses\":").append(cache.getMisses());
+        sb.append(",\"evictions\":").append(cache.getEvictions()).append('}');
+    }
+
+    private static long gcCount() {
+        long count = 0;
+        for (java.lang.management.GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, gc.getCollectionCount());
+        }
+        return count;
+    }
+
+    private static Map<String, String> queryParams(HttpExchange exchange) {
+        Map<String, String> params = new HashMap<>();
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null) {
+            return params;
+        }
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0) {
+                params.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                    URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return params;
+    }
+}
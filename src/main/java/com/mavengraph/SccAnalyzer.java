@@ -0,0 +1,274 @@
+package com.mavengraph;
+
+import java.util.*;
+
+/**
+ * Поиск сильно связных компонент (итеративный алгоритм Тарьяна) за O(V+E).
+ * Рекурсия заменена явным стеком, поэтому глубина графа не ограничена стеком потока.
+ */
+public class SccAnalyzer {
+
+    /**
+     * Результат разбиения на компоненты. Номера компонент идут в обратном
+     * топологическом порядке: рёбра конденсации ведут от большего номера к меньшему.
+     */
+    public static class Result {
+        private final GraphStore store;
+        private final int[] component;
+        private final int componentCount;
+        private final int[] memberOffsets;
+        private final int[] members;
+        private final BitSet selfLoops;
+        private int[] sources;
+
+        private Result(GraphStore store, int[] component, int componentCount, BitSet selfLoops) {
+            this.store = store;
+            this.component = component;
+            this.componentCount = componentCount;
+            this.selfLoops = selfLoops;
+
+            // Группируем узлы по компонентам (сортировка подсчётом)
+            memberOffsets = new int[componentCount + 1];
+            for (int c : component) {
+                memberOffsets[c + 1]++;
+            }
+            for (int c = 0; c < componentCount; c++) {
+                memberOffsets[c + 1] += memberOffsets[c];
+            }
+            members = new int[component.length];
+            int[] fill = Arrays.copyOf(memberOffsets, componentCount);
+            for (int node = 0; node < component.length; node++) {
+                members[fill[component[node]]++] = node;
+            }
+        }
+
+        public int componentOf(int node) { return component[node]; }
+        public int componentCount() { return componentCount; }
+
+        public int componentSize(int comp) {
+            return memberOffsets[comp + 1] - memberOffsets[comp];
+        }
+
+        /**
+         * Узлы компоненты в порядке возрастания номеров.
+         */
+        public int[] members(int comp) {
+            return Arrays.copyOfRange(members, memberOffsets[comp], memberOffsets[comp + 1]);
+        }
+
+        // Доступ к узлам компоненты без копирования: memberAt(i) для i в [memberStart, memberEnd)
+        int memberStart(int comp) { return memberOffsets[comp]; }
+        int memberEnd(int comp) { return memberOffsets[comp + 1]; }
+        int memberAt(int i) { return members[i]; }
+
+        /**
+         * Первый узел каждой компоненты без входящих рёбер конденсации, по возрастанию
+         * номеров. Корни графа, для которого они не заданы: из них достижим любой узел,
+         * в том числе цикл, в который не ведёт ни одно ребро. Считаются при первом обращении.
+         */
+        public synchronized int[] sources() {
+            if (sources == null) {
+                int[] offsets = store.offsets();
+                int[] targets = store.targets();
+                boolean[] hasIncoming = new boolean[componentCount];
+                for (int v = 0; v < component.length; v++) {
+                    for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+                        int d = component[targets[e]];
+                        if (d != component[v]) {
+                            hasIncoming[d] = true;
+                        }
+                    }
+                }
+                int[] result = new int[componentCount];
+                int count = 0;
+                for (int c = 0; c < componentCount; c++) {
+                    if (!hasIncoming[c]) {
+                        result[count++] = members[memberOffsets[c]];
+                    }
+                }
+                result = Arrays.copyOf(result, count);
+                Arrays.sort(result);
+                sources = result;
+            }
+            return sources.clone();
+        }
+
+        /**
+         * Компонента циклическая, если в ней больше одного узла или есть петля.
+         */
+        public boolean isCyclic(int comp) {
+            return componentSize(comp) > 1 || selfLoops.get(members[memberOffsets[comp]]);
+        }
+
+        /**
+         * Все циклические компоненты с примером цикла для каждой,
+         * упорядоченные по первому узлу компоненты.
+         */
+        public List<DependencyCycle> cycles() {
+            List<int[]> cyclic = new ArrayList<>();
+            for (int c = 0; c < componentCount; c++) {
+                if (isCyclic(c)) {
+                    cyclic.add(members(c));
+                }
+            }
+            cyclic.sort(Comparator.comparingInt(m -> m[0]));
+
+            int[] parent = new int[component.length];
+            List<DependencyCycle> result = new ArrayList<>(cyclic.size());
+            for (int[] comp : cyclic) {
+                List<String> memberIds = new ArrayList<>(comp.length);
+                for (int node : comp) {
+                    memberIds.add(store.id(node));
+                }
+                result.add(new DependencyCycle(memberIds, examplePath(comp[0], parent)));
+            }
+            return result;
+        }
+
+        /**
+         * BFS внутри компоненты от start до узла с ребром обратно в start.
+         */
+        private List<String> examplePath(int start, int[] parent) {
+            int[] offsets = store.offsets();
+            int[] targets = store.targets();
+            int comp = component[start];
+
+            ArrayDeque<Integer> queue = new ArrayDeque<>();
+            List<Integer> touched = new ArrayList<>();
+            parent[start] = start + 1;
+            touched.add(start);
+            queue.add(start);
+            int last = -1;
+
+            search:
+            while (!queue.isEmpty()) {
+                int v = queue.poll();
+                for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+                    int w = targets[e];
+                    if (w == start) {
+                        last = v;
+                        break search;
+                    }
+                    if (component[w] == comp && parent[w] == 0) {
+                        parent[w] = v + 1;
+                        touched.add(w);
+                        queue.add(w);
+                    }
+                }
+            }
+
+            LinkedList<String> path = new LinkedList<>();
+            path.add(store.id(start));
+            for (int v = last; v != start; v = parent[v] - 1) {
+                path.addFirst(store.id(v));
+            }
+            path.addFirst(store.id(start));
+
+            for (int v : touched) {
+                parent[v] = 0;
+            }
+            return path;
+        }
+
+        /**
+         * Рёбра DAG конденсации {из компоненты, в компоненту} без повторов.
+         */
+        public List<int[]> condensationEdges() {
+            int[] offsets = store.offsets();
+            int[] targets = store.targets();
+            int[] lastSource = new int[componentCount];
+            Arrays.fill(lastSource, -1);
+
+            List<int[]> edges = new ArrayList<>();
+            for (int c = componentCount - 1; c >= 0; c--) {
+                for (int i = memberOffsets[c]; i < memberOffsets[c + 1]; i++) {
+                    int v = members[i];
+                    for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+                        int d = component[targets[e]];
+                        if (d != c && lastSource[d] != c) {
+                            lastSource[d] = c;
+                            edges.add(new int[] { c, d });
+                        }
+                    }
+                }
+            }
+            return edges;
+        }
+    }
+
+    public static Result analyze(GraphStore store) {
+        int n = store.nodeCount();
+        int[] offsets = store.offsets();
+        int[] targets = store.targets();
+
+        int[] index = new int[n];
+        Arrays.fill(index, -1);
+        int[] low = new int[n];
+        int[] component = new int[n];
+        BitSet onStack = new BitSet(n);
+        BitSet selfLoops = new BitSet(n);
+
+        int[] stack = new int[n];
+        int stackSize = 0;
+        int[] callNode = new int[n];
+        int[] callEdge = new int[n];
+        int callSize = 0;
+
+        int counter = 0;
+        int componentCount = 0;
+
+        for (int root = 0; root < n; root++) {
+            if (index[root] != -1) {
+                continue;
+            }
+
+            index[root] = low[root] = counter++;
+            stack[stackSize++] = root;
+            onStack.set(root);
+            callNode[callSize] = root;
+            callEdge[callSize] = offsets[root];
+            callSize++;
+
+            while (callSize > 0) {
+                int v = callNode[callSize - 1];
+                int e = callEdge[callSize - 1];
+
+                if (e < offsets[v + 1]) {
+                    callEdge[callSize - 1] = e + 1;
+                    int w = targets[e];
+                    if (w == v) {
+                        selfLoops.set(v);
+                    }
+                    if (index[w] == -1) {
+                        index[w] = low[w] = counter++;
+                        stack[stackSize++] = w;
+                        onStack.set(w);
+                        callNode[callSize] = w;
+                        callEdge[callSize] = offsets[w];
+                        callSize++;
+                    } else if (onStack.get(w)) {
+                        low[v] = Math.min(low[v], index[w]);
+                    }
+                    continue;
+                }
+
+                callSize--;
+                if (low[v] == index[v]) {
+                    int w;
+                    do {
+                        w = stack[--stackSize];
+                        onStack.clear(w);
+                        component[w] = componentCount;
+                    } while (w != v);
+                    componentCount++;
+                }
+                if (callSize > 0) {
+                    int parent = callNode[callSize - 1];
+                    low[parent] = Math.min(low[parent], low[v]);
+                }
+            }
+        }
+
+        return new Result(store, component, componentCount, selfLoops);
+    }
+}
@@ -0,0 +1,181 @@
+package com.mavengraph;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Растущий массив байт вне кучи с адресацией long. Куски по CHUNK_SIZE выделяются
+ * как direct ByteBuffer, пока хватает общего бюджета; следующие - как отображённые
+ * в память участки файла подкачки, страницы которого ОС сама сбрасывает на диск
+ * и подгружает. В куче - только массив ссылок на куски.
+ *
+ * int и long читаются и пишутся по выровненным смещениям (кратным 4 и 8), поэтому
+ * никогда не пересекают границу куска. Новая память заполнена нулями.
+ * Не потокобезопасен.
+ */
+public class SpillBuffer implements Closeable {
+    static final int CHUNK_SHIFT = 22;
+    static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    /**
+     * Общий для нескольких буферов предел памяти под direct-куски.
+     */
+    public static class Budget {
+        private final long limit;
+        private final AtomicLong used = new AtomicLong();
+
+        public Budget(long limit) {
+            this.limit = limit;
+        }
+
+        boolean tryReserve(long bytes) {
+            while (true) {
+                long current = used.get();
+                if (current + bytes > limit) {
+                    return false;
+                }
+                if (used.compareAndSet(current, current + bytes)) {
+                    return true;
+                }
+            }
+        }
+
+        void release(long bytes) {
+            used.addAndGet(-bytes);
+        }
+
+        public long getLimit() { return limit; }
+        public long getUsed() { return used.get(); }
+    }
+
+    private final Budget budget;
+    private final Path spillDir;
+    private final String name;
+    private ByteBuffer[] chunks = new ByteBuffer[0];
+    private int chunkCount;
+    private int directChunks;
+    private FileChannel spill;
+    private long spilledChunks;
+
+    /**
+     * spillDir - каталог для файла подкачки (создаётся только при превышении бюджета
+     * и удаляется при закрытии); name - префикс его имени.
+     */
+    public SpillBuffer(Budget budget, Path spillDir, String name) {
+        this.budget = budget;
+        this.spillDir = spillDir;
+        this.name = name;
+    }
+
+    /**
+     * Обеспечить адреса [0, size).
+     */
+    public void ensure(long size) throws IOException {
+        int needed = (int) ((size + CHUNK_SIZE - 1) >>> CHUNK_SHIFT);
+        if (needed > chunks.length) {
+            chunks = Arrays.copyOf(chunks, Math.max(needed, chunks.length + chunks.length / 2));
+        }
+        while (chunkCount < needed) {
+            chunks[chunkCount++] = allocate();
+        }
+    }
+
+    private ByteBuffer allocate() throws IOException {
+        if (spill == null && budget.tryReserve(CHUNK_SIZE)) {
+            try {
+                ByteBuffer chunk = ByteBuffer.allocateDirect(CHUNK_SIZE);
+                directChunks++;
+                return chunk;
+            } catch (OutOfMemoryError e) {
+                // Бюджет больше -XX:MaxDirectMemorySize (по умолчанию равен -Xmx) - дальше файл
+                budget.release(CHUNK_SIZE);
+            }
+        }
+        if (spill == null) {
+            Files.createDirectories(spillDir);
+            Path file = Files.createTempFile(spillDir, name + "-", ".spill");
+            spill = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                StandardOpenOption.DELETE_ON_CLOSE);
+        }
+        return spill.map(FileChannel.MapMode.READ_WRITE, (spilledChunks++) << CHUNK_SHIFT, CHUNK_SIZE);
+    }
+
+    public long capacity() {
+        return (long) chunkCount << CHUNK_SHIFT;
+    }
+
+    public int getInt(long offset) {
+        return chunks[(int) (offset >>> CHUNK_SHIFT)].getInt((int) (offset & CHUNK_MASK));
+    }
+
+    public void putInt(long offset, int value) {
+        chunks[(int) (offset >>> CHUNK_SHIFT)].putInt((int) (offset & CHUNK_MASK), value);
+    }
+
+    public long getLong(long offset) {
+        return chunks[(int) (offset >>> CHUNK_SHIFT)].getLong((int) (offset & CHUNK_MASK));
+    }
+
+    public void putLong(long offset, long value) {
+        chunks[(int) (offset >>> CHUNK_SHIFT)].putLong((int) (offset & CHUNK_MASK), value);
+    }
+
+    /**
+     * Скопировать length байт начиная с offset в dst; участок может пересекать куски.
+     */
+    public void get(long offset, byte[] dst, int length) {
+        int done = 0;
+        while (done < length) {
+            ByteBuffer chunk = chunks[(int) ((offset + done) >>> CHUNK_SHIFT)];
+            int position = (int) ((offset + done) & CHUNK_MASK);
+            int n = Math.min(length - done, CHUNK_SIZE - position);
+            chunk.get(position, dst, done, n);
+            done += n;
+        }
+    }
+
+    public void put(long offset, byte[] src, int length) {
+        int done = 0;
+        while (done < length) {
+            ByteBuffer chunk = chunks[(int) ((offset + done) >>> CHUNK_SHIFT)];
+            int position = (int) ((offset + done) & CHUNK_MASK);
+            int n = Math.min(length - done, CHUNK_SIZE - position);
+            chunk.put(position, src, done, n);
+            done += n;
+        }
+    }
+
+    /**
+     * Байт в direct-кусках (в пределах бюджета).
+     */
+    public long getDirectBytes() {
+        return (long) directChunks << CHUNK_SHIFT;
+    }
+
+    /**
+     * Байт в файле подкачки.
+     */
+    public long getSpilledBytes() {
+        return spilledChunks << CHUNK_SHIFT;
+    }
+
+    /**
+     * Вернуть бюджет и удалить файл подкачки; память direct-кусков освобождает GC.
+     */
+    @Override
+    public void close() throws IOException {
+        budget.release(getDirectBytes());
+        directChunks = 0;
+        chunkCount = 0;
+        chunks = new ByteBuffer[0];
+        if (spill != null) {
+            spill.close();
+            spill = null;
+        }
+    }
+}
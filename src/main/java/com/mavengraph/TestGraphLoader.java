@@ -0,0 +1,332 @@
+package com.mavengraph;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Загрузка графа в тестовом формате ("A -> B,C") прямо в GraphStore.
+ * Файл отображается в память и разбирается по байтам без строки на каждую линию;
+ * большие файлы делятся на куски по границам строк и разбираются параллельно.
+ */
+public class TestGraphLoader {
+    private static final int CHUNK_SIZE = 16 * 1024 * 1024;
+
+    /**
+     * Статистика загрузки.
+     */
+    public static class Stats {
+        private final int nodes;
+        private final long edges;
+        private final long bytes;
+        private final long elapsedNanos;
+
+        Stats(int nodes, long edges, long bytes, long elapsedNanos) {
+            this.nodes = nodes;
+            this.edges = edges;
+            this.bytes = bytes;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public int getNodes() { return nodes; }
+        public long getEdges() { return edges; }
+        public long getBytes() { return bytes; }
+        public long getElapsedNanos() { return elapsedNanos; }
+
+        public double getEdgesPerSecond() {
+            return elapsedNanos == 0 ? 0 : edges * 1_000_000_000.0 / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Загружено: %d узлов, %d рёбер за %.1f мс (%.0f рёбер/с)",
+                nodes, edges, elapsedNanos / 1_000_000.0, getEdgesPerSecond());
+        }
+    }
+
+    /**
+     * Разобрать файл и добавить узлы (groupId = artifactId = имя, версия "1.0") и рёбра в store.
+     * Порядок узлов и рёбер совпадает с порядком в файле.
+     */
+    public static Stats load(Path file, GraphStore store, int threads) throws IOException {
+        long startTime = System.nanoTime();
+        long edges = 0;
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            List<long[]> ranges = splitAtLines(channel, size);
+
+            if (threads <= 1 || ranges.size() == 1) {
+                for (long[] range : ranges) {
+                    edges += merge(parseChunk(channel, range[0], range[1]), store);
+                }
+            } else {
+                ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, ranges.size()));
+                try {
+                    List<Future<Chunk>> futures = new ArrayList<>(ranges.size());
+                    for (long[] range : ranges) {
+                        futures.add(executor.submit(() -> parseChunk(channel, range[0], range[1])));
+                    }
+                    // Слияние строго по порядку кусков, пока остальные ещё разбираются
+                    for (Future<Chunk> future : futures) {
+                        edges += merge(future.get(), store);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Загрузка прервана", e);
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof IOException) {
+                        throw (IOException) cause;
+                    }
+                    throw new IOException(cause);
+                } finally {
+                    executor.shutdownNow();
+                }
+            }
+
+            store.compact();
+            return new Stats(store.nodeCount(), edges, size, System.nanoTime() - startTime);
+        }
+    }
+
+    /**
+     * Границы кусков: каждый кусок, кроме последнего, заканчивается сразу после '\n'.
+     */
+    private static List<long[]> splitAtLines(FileChannel channel, long size) throws IOException {
+        List<long[]> ranges = new ArrayList<>();
+        ByteBuffer probe = ByteBuffer.allocate(4096);
+        long start = 0;
+
+        while (start < size) {
+            long end = Math.min(size, start + CHUNK_SIZE);
+            while (end < size) {
+                probe.clear();
+                int read = channel.read(probe, end);
+                if (read <= 0) {
+                    end = size;
+                    break;
+                }
+                int newline = -1;
+                for (int i = 0; i < read; i++) {
+                    if (probe.get(i) == '\n') {
+                        newline = i;
+                        break;
+                    }
+                }
+                if (newline >= 0) {
+                    end += newline + 1;
+                    break;
+                }
+                end += read;
+            }
+            ranges.add(new long[] { start, Math.min(end, size) });
+            start = end;
+        }
+
+        if (ranges.isEmpty()) {
+            ranges.add(new long[] { 0, 0 });
+        }
+        return ranges;
+    }
+
+    /**
+     * Разбор куска прямо из отображённого буфера, без копии в кучу: кусок
+     * заканчивается на границе строки, поэтому переносить хвост строки не нужно.
+     */
+    private static Chunk parseChunk(FileChannel channel, long start, long end) throws IOException {
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        Chunk chunk = new Chunk(buffer);
+        int limit = buffer.limit();
+        int pos = 0;
+
+        while (pos < limit) {
+            int lineEnd = pos;
+            while (lineEnd < limit && buffer.get(lineEnd) != '\n') {
+                lineEnd++;
+            }
+            parseLine(buffer, pos, lineEnd, chunk);
+            pos = lineEnd + 1;
+        }
+        chunk.releaseBuffer();
+        return chunk;
+    }
+
+    private static void parseLine(ByteBuffer buf, int from, int to, Chunk chunk) {
+        while (from < to && isSpace(buf.get(from))) from++;
+        while (to > from && isSpace(buf.get(to - 1))) to--;
+        if (from == to || buf.get(from) == '#') {
+            return;
+        }
+
+        int arrow = indexOfArrow(buf, from, to);
+        if (arrow < 0 || indexOfArrow(buf, arrow + 2, to) >= 0) {
+            return;
+        }
+
+        int parentEnd = arrow;
+        while (parentEnd > from && isSpace(buf.get(parentEnd - 1))) parentEnd--;
+        if (parentEnd == from) {
+            return;
+        }
+        int parent = chunk.nameId(from, parentEnd);
+
+        int pos = arrow + 2;
+        while (pos < to) {
+            int comma = pos;
+            while (comma < to && buf.get(comma) != ',') {
+                comma++;
+            }
+            int childStart = pos;
+            int childEnd = comma;
+            while (childStart < childEnd && isSpace(buf.get(childStart))) childStart++;
+            while (childEnd > childStart && isSpace(buf.get(childEnd - 1))) childEnd--;
+            if (childStart < childEnd) {
+                chunk.addEdge(parent, chunk.nameId(childStart, childEnd));
+            }
+            pos = comma + 1;
+        }
+    }
+
+    private static int indexOfArrow(ByteBuffer buf, int from, int to) {
+        for (int i = from; i + 1 < to; i++) {
+            if (buf.get(i) == '-' && buf.get(i + 1) == '>') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isSpace(byte b) {
+        return b >= 0 && b <= ' ';
+    }
+
+    /**
+     * Перенос куска в общий граф: локальные номера имён -> узлы store.
+     */
+    private static long merge(Chunk chunk, GraphStore store) {
+        int[] global = new int[chunk.nameCount];
+        for (int i = 0; i < chunk.nameCount; i++) {
+            String name = chunk.names[i];
+            global[i] = store.getOrCreateNode(name, name, "1.0");
+        }
+        for (int i = 0; i < chunk.edgeCount; i++) {
+            chunk.edgeSrc[i] = global[chunk.edgeSrc[i]];
+            chunk.edgeDst[i] = global[chunk.edgeDst[i]];
+        }
+        store.addEdges(chunk.edgeSrc, chunk.edgeDst, chunk.edgeCount);
+        return chunk.edgeCount;
+    }
+
+    /**
+     * Результат разбора одного куска: локальная таблица имён и рёбра в её номерах.
+     * Имя превращается в String один раз - при первой встрече в куске;
+     * копируются только байты этого имени.
+     */
+    private static class Chunk {
+        private ByteBuffer buffer;
+        private int[] slots = filled(1024);
+        private int[] hashes = new int[256];
+        private int[] starts = new int[256];
+        private int[] lengths = new int[256];
+        private String[] names = new String[256];
+        private int nameCount;
+        private int[] edgeSrc = new int[1024];
+        private int[] edgeDst = new int[1024];
+        private int edgeCount;
+
+        Chunk(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        int nameId(int start, int end) {
+            int hash = 1;
+            for (int i = start; i < end; i++) {
+                hash = 31 * hash + buffer.get(i);
+            }
+            hash ^= hash >>> 16;
+
+            int mask = slots.length - 1;
+            int slot = hash & mask;
+            while (slots[slot] >= 0) {
+                int id = slots[slot];
+                if (hashes[id] == hash && sameBytes(starts[id], lengths[id], start, end - start)) {
+                    return id;
+                }
+                slot = (slot + 1) & mask;
+            }
+
+            int id = nameCount++;
+            if (id == names.length) {
+                int capacity = id * 2;
+                hashes = Arrays.copyOf(hashes, capacity);
+                starts = Arrays.copyOf(starts, capacity);
+                lengths = Arrays.copyOf(lengths, capacity);
+                names = Arrays.copyOf(names, capacity);
+            }
+            hashes[id] = hash;
+            starts[id] = start;
+            lengths[id] = end - start;
+            byte[] bytes = new byte[end - start];
+            buffer.get(start, bytes);
+            names[id] = new String(bytes, StandardCharsets.UTF_8);
+            slots[slot] = id;
+
+            if (nameCount * 2 > slots.length) {
+                rehash();
+            }
+            return id;
+        }
+
+        void addEdge(int from, int to) {
+            if (edgeCount == edgeSrc.length) {
+                edgeSrc = Arrays.copyOf(edgeSrc, edgeCount * 2);
+                edgeDst = Arrays.copyOf(edgeDst, edgeCount * 2);
+            }
+            edgeSrc[edgeCount] = from;
+            edgeDst[edgeCount] = to;
+            edgeCount++;
+        }
+
+        void releaseBuffer() {
+            buffer = null;
+            slots = null;
+            hashes = starts = lengths = null;
+        }
+
+        private boolean sameBytes(int aStart, int aLength, int bStart, int bLength) {
+            if (aLength != bLength) {
+                return false;
+            }
+            for (int i = 0; i < aLength; i++) {
+                if (buffer.get(aStart + i) != buffer.get(bStart + i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void rehash() {
+            slots = filled(slots.length * 2);
+            int mask = slots.length - 1;
+            for (int id = 0; id < nameCount; id++) {
+                int slot = hashes[id] & mask;
+                while (slots[slot] >= 0) {
+                    slot = (slot + 1) & mask;
+                }
+                slots[slot] = id;
+            }
+        }
+
+        private static int[] filled(int capacity) {
+            int[] result = new int[capacity];
+            Arrays.fill(result, -1);
+            return result;
+        }
+    }
+}
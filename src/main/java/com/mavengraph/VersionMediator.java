@@ -0,0 +1,305 @@
+package com.mavengraph;
+
+import java.io.PrintStream;
+import java.util.*;
+
+/**
+ * Выбор версий по правилу Maven "ближайший побеждает": из всех версий одного
+ * groupId:artifactId остаётся та, что ближе к корню, при равной глубине - объявленная
+ * раньше. Один обход в ширину от корня, O(V+E): поддеревья проигравших версий
+ * не обходятся, как и в Maven.
+ */
+public class VersionMediator {
+
+    private VersionMediator() {
+    }
+
+    /**
+     * Конфликт версий одного артефакта: выбранная версия, путь к ней от корня
+     * и все версии, встреченные при обходе.
+     */
+    public static class Conflict {
+        private final Result result;
+        private final GraphStore store;
+        private final int winner;
+        private final int[] versions;
+
+        private Conflict(Result result, int winner, int[] versions) {
+            this.result = result;
+            this.store = result.store;
+            this.winner = winner;
+            this.versions = versions;
+        }
+
+        /**
+         * groupId:artifactId
+         */
+        public String getArtifact() {
+            return store.groupId(winner) + ":" + store.artifactId(winner);
+        }
+
+        public int getWinner() { return winner; }
+
+        /**
+         * Узлы от корня до выбранной версии включительно.
+         */
+        public int[] getPath() { return result.pathTo(winner); }
+
+        /**
+         * Узлы всех встреченных версий в порядке обнаружения; первая - выбранная.
+         */
+        public int[] getVersions() { return versions.clone(); }
+
+        @Override
+        public String toString() {
+            List<String> seen = new ArrayList<>(versions.length);
+            for (int node : versions) {
+                seen.add(store.version(node));
+            }
+            int[] path = getPath();
+            List<String> hops = new ArrayList<>(path.length);
+            for (int node : path) {
+                hops.add(store.id(node));
+            }
+            return getArtifact() + ": выбрана " + store.version(winner) + " из [" + String.join(", ", seen)
+                + "], путь: " + String.join(" -> ", hops);
+        }
+    }
+
+    /**
+     * Итог для одного корня: действующий набор узлов и конфликты.
+     */
+    public static class Result {
+        private final GraphStore store;
+        private final int root;
+        private final int[] effective;
+        private final int[] depths;
+        private final int[] parent;
+        private final int[] losers;
+        private final List<Conflict> conflicts;
+
+        private Result(GraphStore store, int root, int[] effective, int[] depths, int[] parent,
+                       int[] losers, List<Conflict> conflicts) {
+            this.store = store;
+            this.root = root;
+            this.effective = effective;
+            this.depths = depths;
+            this.parent = parent;
+            this.losers = losers;
+            this.conflicts = conflicts;
+        }
+
+        public int getRoot() { return root; }
+
+        /**
+         * Выбранные узлы (по одному на groupId:artifactId) в порядке обхода, корень первым.
+         */
+        public int[] getEffective() { return effective.clone(); }
+
+        /**
+         * Глубина i-го узла getEffective().
+         */
+        public int depthAt(int i) { return depths[i]; }
+
+        /**
+         * Отброшенные версии: узлы, на которые есть ребро из действующего набора,
+         * но их артефакт уже выбран в другой версии.
+         */
+        public int[] getLosers() { return losers.clone(); }
+
+        public List<Conflict> getConflicts() { return conflicts; }
+
+        /**
+         * Путь от корня до узла действующего набора; null, если узел в набор не вошёл.
+         */
+        public int[] pathTo(int node) {
+            if (node != root && (node >= parent.length || parent[node] < 0)) {
+                return null;
+            }
+            int length = 1;
+            for (int v = node; v != root; v = parent[v]) {
+                length++;
+            }
+            int[] path = new int[length];
+            int v = node;
+            for (int i = length - 1; i > 0; i--) {
+                path[i] = v;
+                v = parent[v];
+            }
+            path[0] = root;
+            return path;
+        }
+
+        public void print(PrintStream out) {
+            out.println(store.id(root) + ": выбрано " + effective.length + " артефактов, отброшено версий: "
+                + losers.length + ", конфликтов: " + conflicts.size());
+            for (int i = 1; i < effective.length; i++) {
+                out.println("  " + store.id(effective[i]) + " (глубина " + depths[i] + ")");
+            }
+            for (Conflict conflict : conflicts) {
+                out.println("  Конфликт " + conflict);
+            }
+        }
+    }
+
+    /**
+     * Выбрать версии для корня, обходя не дальше maxDepth рёбер (узлы на глубине
+     * maxDepth входят в набор, но не раскрываются - так же строится DependencyGraph).
+     */
+    public static Result mediate(GraphStore store, int root, int maxDepth) {
+        int[] offsets = store.offsets();
+        int[] targets = store.targets();
+        int nodes = store.nodeCount();
+        Winners winners = new Winners(64);
+        int[] parent = new int[nodes];
+        Arrays.fill(parent, -1);
+
+        int[] queue = new int[16];
+        int[] depth = new int[16];
+        int head = 0;
+        int tail = 0;
+        queue[tail] = root;
+        depth[tail++] = 0;
+        winners.putIfAbsent(key(store, root), root);
+
+        // Отброшенные версии и выбранный узел, которому проиграла каждая
+        BitSet lost = new BitSet(nodes);
+        int[] losers = new int[16];
+        int[] beatenBy = new int[16];
+        int loserCount = 0;
+
+        while (head < tail) {
+            int v = queue[head];
+            int d = depth[head++];
+            if (d >= maxDepth) {
+                continue;
+            }
+            for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+                int w = targets[e];
+                int winner = winners.putIfAbsent(key(store, w), w);
+                if (winner < 0) {
+                    parent[w] = v;
+                    if (tail == queue.length) {
+                        queue = Arrays.copyOf(queue, tail * 2);
+                        depth = Arrays.copyOf(depth, tail * 2);
+                    }
+                    queue[tail] = w;
+                    depth[tail++] = d + 1;
+                } else if (winner != w && !lost.get(w)) {
+                    lost.set(w);
+                    if (loserCount == losers.length) {
+                        losers = Arrays.copyOf(losers, loserCount * 2);
+                        beatenBy = Arrays.copyOf(beatenBy, loserCount * 2);
+                    }
+                    beatenBy[loserCount] = winner;
+                    losers[loserCount++] = w;
+                }
+            }
+        }
+
+        List<Conflict> conflicts = new ArrayList<>();
+        Result result = new Result(store, root, Arrays.copyOf(queue, tail), Arrays.copyOf(depth, tail), parent,
+            Arrays.copyOf(losers, loserCount), conflicts);
+        if (loserCount == 0) {
+            return result;
+        }
+
+        // Группировка проигравших по выбранному узлу подсчётом: конфликты идут
+        // в порядке первого отброшенного узла, версии внутри - в порядке обнаружения.
+        int[] conflictOf = new int[nodes];
+        Arrays.fill(conflictOf, -1);
+        int[] winnerOf = new int[loserCount];
+        int[] sizes = new int[loserCount + 1];
+        int conflictCount = 0;
+        for (int i = 0; i < loserCount; i++) {
+            int winner = beatenBy[i];
+            if (conflictOf[winner] < 0) {
+                conflictOf[winner] = conflictCount;
+                winnerOf[conflictCount++] = winner;
+            }
+            sizes[conflictOf[winner] + 1]++;
+        }
+        for (int c = 0; c < conflictCount; c++) {
+            sizes[c + 1] += sizes[c];
+        }
+        int[] grouped = new int[loserCount];
+        int[] fill = Arrays.copyOf(sizes, conflictCount);
+        for (int i = 0; i < loserCount; i++) {
+            grouped[fill[conflictOf[beatenBy[i]]]++] = losers[i];
+        }
+        for (int c = 0; c < conflictCount; c++) {
+            int[] versions = new int[sizes[c + 1] - sizes[c] + 1];
+            versions[0] = winnerOf[c];
+            System.arraycopy(grouped, sizes[c], versions, 1, versions.length - 1);
+            conflicts.add(new Conflict(result, winnerOf[c], versions));
+        }
+        return result;
+    }
+
+    /**
+     * Ключ артефакта без версии: номера groupId и artifactId в таблице строк.
+     */
+    static long key(GraphStore store, int node) {
+        return ((long) store.groupIndex(node) << 32) | (store.artifactIndex(node) & 0xFFFFFFFFL);
+    }
+
+    /**
+     * groupId:artifactId -> выбранный узел. Открытая адресация по long-ключам:
+     * на каждое ребро обхода приходится один поиск, без упаковки в Long.
+     */
+    static class Winners {
+        private long[] keys;
+        private int[] values;
+        private int size;
+
+        Winners(int capacity) {
+            keys = new long[capacity];
+            values = new int[capacity];
+            Arrays.fill(values, -1);
+        }
+
+        /**
+         * Узел, уже выбранный для ключа, или -1, если ключа не было (тогда выбирается node).
+         */
+        int putIfAbsent(long key, int node) {
+            int mask = keys.length - 1;
+            int slot = spread(key) & mask;
+            while (values[slot] >= 0) {
+                if (keys[slot] == key) {
+                    return values[slot];
+                }
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            values[slot] = node;
+            if (++size * 2 > keys.length) {
+                rehash();
+            }
+            return -1;
+        }
+
+        private void rehash() {
+            long[] oldKeys = keys;
+            int[] oldValues = values;
+            keys = new long[oldKeys.length * 2];
+            values = new int[oldKeys.length * 2];
+            Arrays.fill(values, -1);
+            int mask = keys.length - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldValues[i] >= 0) {
+                    int slot = spread(oldKeys[i]) & mask;
+                    while (values[slot] >= 0) {
+                        slot = (slot + 1) & mask;
+                    }
+                    keys[slot] = oldKeys[i];
+                    values[slot] = oldValues[i];
+                }
+            }
+        }
+
+        private static int spread(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+}
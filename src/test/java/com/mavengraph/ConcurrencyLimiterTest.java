@@ -0,0 +1,97 @@
+package com.mavengraph;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrencyLimiterTest {
+    private static final long RTT = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    void dropHalvesLimit() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(8, 64);
+
+        limiter.onDrop();
+
+        assertEquals(4, limiter.getLimit());
+        assertEquals(1, limiter.getDecreases());
+    }
+
+    @Test
+    void limitNeverFallsBelowOne() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(1, 64);
+
+        limiter.onDrop();
+
+        assertEquals(1, limiter.getLimit());
+    }
+
+    @Test
+    void secondDropWaitsForSmoothedRtt() {
+        AtomicLong now = new AtomicLong();
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(16, 64, now::get);
+        limiter.onSuccess(TimeUnit.MILLISECONDS.toNanos(200), 16);
+
+        limiter.onDrop();
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(199));
+        limiter.onDrop();
+        assertEquals(8, limiter.getLimit(), "волна отказов за одно время ответа - одно уменьшение");
+
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(1));
+        limiter.onDrop();
+        assertEquals(4, limiter.getLimit());
+        assertEquals(2, limiter.getDecreases());
+    }
+
+    @Test
+    void successesGrowLimitWhileItIsUsed() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(4, 64);
+
+        for (int i = 0; i < 40; i++) {
+            limiter.onSuccess(RTT, limiter.getLimit());
+        }
+
+        assertTrue(limiter.getLimit() > 4, "предел: " + limiter.getLimit());
+        assertEquals(0, limiter.getDecreases());
+    }
+
+    @Test
+    void unusedLimitDoesNotGrow() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(8, 64);
+
+        for (int i = 0; i < 40; i++) {
+            limiter.onSuccess(RTT, 1);
+        }
+
+        assertEquals(8, limiter.getLimit());
+    }
+
+    @Test
+    void growthStopsAtMaxLimit() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(4, 6);
+
+        for (int i = 0; i < 200; i++) {
+            limiter.onSuccess(RTT, limiter.getLimit());
+        }
+
+        assertEquals(6, limiter.getLimit());
+    }
+
+    @Test
+    void latencyGrowthShrinksLimit() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(10, 64);
+        for (int i = 0; i < 10; i++) {
+            limiter.onSuccess(RTT, 1);
+        }
+
+        for (int i = 0; i < 20; i++) {
+            limiter.onSuccess(TimeUnit.MILLISECONDS.toNanos(200), 1);
+        }
+
+        assertEquals(9, limiter.getLimit());
+        assertEquals(1, limiter.getDecreases());
+    }
+}
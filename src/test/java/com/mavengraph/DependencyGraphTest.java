@@ -0,0 +1,213 @@
+package com.mavengraph;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DependencyGraphTest {
+    private static final String GROUP = "org.example";
+
+    @Test
+    void asyncResolutionBeatsLegacyConnectionsAndLatency() throws Exception {
+        // Прогрев обоих путей на отдельной заглушке: иначе в замер попадает загрузка
+        // и компиляция HttpClient, которая дольше самого разрешения
+        try (StubHttpServer warmup = repository()) {
+            resolve(warmup);
+            legacyWalk(warmup.url(), GROUP + ":app:1.0", new HashSet<>(), 0, 3);
+        }
+
+        try (StubHttpServer server = repository(); StubHttpServer legacyServer = repository()) {
+            long start = System.nanoTime();
+            DependencyGraph graph = resolve(server);
+            long asyncMs = (System.nanoTime() - start) / 1_000_000;
+
+            Set<String> visited = new HashSet<>();
+            start = System.nanoTime();
+            legacyWalk(legacyServer.url(), GROUP + ":app:1.0", visited, 0, 3);
+            long legacyMs = (System.nanoTime() - start) / 1_000_000;
+
+            assertEquals(51, server.requests());
+            assertEquals(server.requests(), legacyServer.requests(), "оба пути загружают каждый POM один раз");
+            assertEquals(visited.size(), graph.getStore().nodeCount());
+            assertTrue(server.connections() < legacyServer.connections(),
+                "соединений: " + server.connections() + " против " + legacyServer.connections());
+            assertTrue(asyncMs < legacyMs, "время: " + asyncMs + " мс против " + legacyMs + " мс");
+        }
+    }
+
+    @Test
+    void parallelBuildMatchesSequential() throws Exception {
+        // Два корня с общими поддеревьями, циклы из трёх и из двух узлов, отсутствующий POM;
+        // log через app-a на пределе глубины, а через app-b ближе - поддерево проходится заново
+        Map<String, List<String>> poms = Map.of(
+            "app-a", List.of("web", "core"),
+            "app-b", List.of("cli", "util"),
+            "web", List.of("core", "http", "missing"),
+            "core", List.of("util", "log"),
+            "cli", List.of("util", "http"),
+            "util", List.of("log"),
+            "log", List.of("format"),
+            "format", List.of("util"),
+            "http", List.of("json"),
+            "json", List.of("http"));
+        try (StubHttpServer server = new StubHttpServer()) {
+            int delay = 0;
+            for (Map.Entry<String, List<String>> pom : poms.entrySet()) {
+                List<String> dependencies = new ArrayList<>();
+                for (String dependency : pom.getValue()) {
+                    dependencies.add(GROUP + ":" + dependency + ":1.0");
+                }
+                // Разные задержки, чтобы параллельные загрузки завершались не по порядку обхода
+                int delayMs = delay++ % 4 * 5;
+                byte[] xml = StubHttpServer.pomXml(GROUP, pom.getKey(), "1.0", dependencies)
+                    .getBytes(StandardCharsets.UTF_8);
+                server.handle(StubHttpServer.path(GROUP, pom.getKey(), "1.0"), exchange -> {
+                    try {
+                        Thread.sleep(delayMs);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    StubHttpServer.respond(exchange, 200, xml);
+                });
+            }
+
+            for (boolean mediate : new boolean[] { false, true }) {
+                DependencyGraph sequential = build(server, 1, mediate);
+                DependencyGraph parallel = build(server, 8, mediate);
+
+                assertEquals(edges(sequential), edges(parallel));
+                assertEquals(cycles(sequential), cycles(parallel));
+                assertEquals(2, sequential.getCycleComponents().size(), cycles(sequential).toString());
+                assertEquals(Set.of(GROUP + ":missing:1.0"), sequential.getFailures().keySet());
+                assertEquals(sequential.getFailures(), parallel.getFailures());
+            }
+        }
+    }
+
+    private static DependencyGraph build(StubHttpServer server, int parallelism, boolean mediate) {
+        MavenParser parser = new MavenParser(new PomFetcher(5000, 5000, 8));
+        parser.setLocalRepositories(List.of());
+        DependencyGraph graph = new DependencyGraph(4);
+        graph.setParallelism(parallelism);
+        graph.setMediate(mediate);
+        graph.buildGraphs(List.of(graph.getOrCreateNode(GROUP, "app-a", "1.0"),
+            graph.getOrCreateNode(GROUP, "app-b", "1.0")), parser, server.url());
+        return graph;
+    }
+
+    /**
+     * Рёбра "from -> to" в порядке номеров узлов и соседей.
+     */
+    private static List<String> edges(DependencyGraph graph) {
+        GraphStore store = graph.getStore();
+        List<String> edges = new ArrayList<>();
+        for (int node = 0; node < store.nodeCount(); node++) {
+            for (int e = store.edgesStart(node); e < store.edgesEnd(node); e++) {
+                edges.add(store.id(node) + " -> " + store.id(store.targets()[e]));
+            }
+        }
+        return edges;
+    }
+
+    private static List<String> cycles(DependencyGraph graph) {
+        List<String> cycles = new ArrayList<>();
+        for (DependencyCycle cycle : graph.getCycleComponents()) {
+            cycles.add(cycle.getMembers() + " " + cycle.getExamplePath());
+        }
+        return cycles;
+    }
+
+    /**
+     * Разрешение от app через PomFetcher, 8 загрузок одновременно.
+     */
+    private static DependencyGraph resolve(StubHttpServer server) {
+        MavenParser parser = new MavenParser(new PomFetcher(5000, 5000, 8));
+        parser.setLocalRepositories(List.of());
+        parser.setEffectivePom(false);
+        DependencyGraph graph = new DependencyGraph(3);
+        graph.setParallelism(8);
+        graph.buildGraph(graph.getOrCreateNode(GROUP, "app", "1.0"), parser, server.url());
+        return graph;
+    }
+
+    /**
+     * app -> lib0..lib39 -> util0..util9 с задержкой 20 мс; каждый четвёртый lib
+     * и нечётные util отсутствуют: 404 на настоящих деревьях встречаются постоянно.
+     */
+    private static StubHttpServer repository() throws IOException {
+        StubHttpServer server = new StubHttpServer();
+        List<String> libs = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            libs.add(GROUP + ":lib" + i + ":1.0");
+            if (i % 4 != 3) {
+                server.pom(GROUP, "lib" + i, "1.0", List.of(GROUP + ":util" + i % 10 + ":1.0"));
+            }
+        }
+        for (int i = 0; i < 10; i += 2) {
+            server.pom(GROUP, "util" + i, "1.0", List.of());
+        }
+        server.pom(GROUP, "app", "1.0", libs);
+        server.setDelayMs(20);
+        return server;
+    }
+
+    /**
+     * Прежнее разрешение: обход в глубину по одному POM, каждый через новое
+     * HttpURLConnection с disconnect() в конце, 404 - узел без зависимостей.
+     */
+    private static void legacyWalk(String repoUrl, String id, Set<String> visited, int depth, int maxDepth)
+            throws Exception {
+        if (depth >= maxDepth || !visited.add(id)) {
+            return;
+        }
+        String[] parts = id.split(":");
+        String content;
+        try {
+            content = legacyDownload(repoUrl + StubHttpServer.path(parts[0], parts[1], parts[2]).substring(1));
+        } catch (IOException e) {
+            return;
+        }
+        for (String dependency : PomReader.readDependencies(
+                new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)))) {
+            legacyWalk(repoUrl, dependency, visited, depth + 1, maxDepth);
+        }
+    }
+
+    private static String legacyDownload(String url) throws IOException {
+        HttpURLConnection connection = null;
+        try {
+            connection = (HttpURLConnection) new URL(url).openConnection();
+            connection.setRequestMethod("GET");
+            connection.setConnectTimeout(5000);
+            connection.setReadTimeout(5000);
+            if (connection.getResponseCode() != 200) {
+                throw new IOException("HTTP ошибка: " + connection.getResponseCode());
+            }
+            StringBuilder content = new StringBuilder();
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(connection.getInputStream()))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    content.append(line);
+                }
+            }
+            return content.toString();
+        } finally {
+            if (connection != null) {
+                connection.disconnect();
+            }
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.mavengraph;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EffectivePomResolverTest {
+    private static final String PARENT = "<project><groupId>org.example</groupId><artifactId>parent</artifactId>"
+        + "<version>1</version><properties><lib.version>2.0</lib.version></properties>"
+        + "<dependencyManagement><dependencies><dependency><groupId>org.example</groupId>"
+        + "<artifactId>managed</artifactId><version>3.0</version></dependency></dependencies>"
+        + "</dependencyManagement></project>";
+    private static final String CHILD = "<project><parent><groupId>org.example</groupId>"
+        + "<artifactId>parent</artifactId><version>1</version></parent><artifactId>child</artifactId>"
+        + "<dependencies><dependency><groupId>org.example</groupId><artifactId>lib</artifactId>"
+        + "<version>${lib.version}</version></dependency><dependency><groupId>org.example</groupId>"
+        + "<artifactId>managed</artifactId></dependency></dependencies></project>";
+
+    @Test
+    void parentSuppliesPropertiesAndManagedVersions() throws Exception {
+        EffectivePomResolver resolver = new EffectivePomResolver();
+
+        List<String> dependencies = resolver.resolveDependencies(model(CHILD), (g, a, v) -> model(PARENT));
+
+        assertEquals(List.of("org.example:lib:2.0", "org.example:managed:3.0"), dependencies);
+    }
+
+    @Test
+    void failedParentFailsChildAndIsRetried() throws Exception {
+        EffectivePomResolver resolver = new EffectivePomResolver();
+        AtomicInteger loads = new AtomicInteger();
+        EffectivePomResolver.ModelSource flaky = (g, a, v) -> {
+            if (loads.incrementAndGet() == 1) {
+                throw new IOException("таймаут");
+            }
+            return model(PARENT);
+        };
+
+        IOException error = assertThrows(IOException.class, () -> resolver.resolveDependencies(model(CHILD), flaky));
+        assertTrue(error.getMessage().contains("parent org.example:parent:1"), error.getMessage());
+        assertEquals(0, resolver.getSharedModelCount(), "ошибка загрузки не запоминается");
+
+        assertEquals(List.of("org.example:lib:2.0", "org.example:managed:3.0"),
+            resolver.resolveDependencies(model(CHILD), flaky));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void failedBomFailsImporter() {
+        String importer = "<project><groupId>org.example</groupId><artifactId>app</artifactId><version>1</version>"
+            + "<dependencyManagement><dependencies><dependency><groupId>org.example</groupId>"
+            + "<artifactId>bom</artifactId><version>1</version><type>pom</type><scope>import</scope>"
+            + "</dependency></dependencies></dependencyManagement></project>";
+        EffectivePomResolver resolver = new EffectivePomResolver();
+
+        IOException error = assertThrows(IOException.class, () -> resolver.resolveDependencies(model(importer),
+            (g, a, v) -> {
+                throw new IOException("HTTP ошибка: 503");
+            }));
+        assertTrue(error.getMessage().contains("BOM org.example:bom:1"), error.getMessage());
+    }
+
+    @Test
+    void missingParentIsReportedForChild() throws IOException {
+        try (StubHttpServer server = new StubHttpServer()) {
+            server.content(StubHttpServer.path("org.example", "child", "1"), CHILD);
+            MavenParser parser = new MavenParser(new PomFetcher(1000, 1000, 4));
+            parser.setLocalRepositories(List.of());
+
+            assertTrue(parser.getDependencies("org.example", "child", "1", server.url()).isEmpty());
+            String failure = parser.getFailure("org.example", "child", "1");
+            assertNotNull(failure, "неполный список - ошибка артефакта");
+            assertTrue(failure.contains("parent org.example:parent:1"), failure);
+
+            server.content(StubHttpServer.path("org.example", "parent", "1"), PARENT);
+            assertEquals(List.of("org.example:lib:2.0", "org.example:managed:3.0"),
+                parser.getDependenciesAsync("org.example", "child", "1", server.url()).join());
+            assertNull(parser.getFailure("org.example", "child", "1"));
+        }
+    }
+
+    private static PomModel model(String xml) throws Exception {
+        return PomReader.readModel(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)));
+    }
+}
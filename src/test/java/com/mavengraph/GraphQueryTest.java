@@ -0,0 +1,82 @@
+package com.mavengraph;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GraphQueryTest {
+
+    @Test
+    void reachesCycleThroughAnotherMember() {
+        GraphStore store = store("a -> b", "b -> c", "c -> b");
+        GraphQuery query = query(store);
+
+        assertTrue(query.reaches(node(store, "a"), node(store, "c")), "a -> b, а b и c - один цикл");
+        assertTrue(query.reaches(node(store, "a"), node(store, "b")));
+        assertTrue(query.reaches(node(store, "c"), node(store, "c")));
+        assertFalse(query.reaches(node(store, "b"), node(store, "a")));
+    }
+
+    @Test
+    void reachesAgreesWithClosure() {
+        GraphStore store = store("a -> b", "a -> x", "b -> c", "c -> d", "d -> b", "d -> e", "x -> e",
+            "e -> f", "f -> e", "f -> g", "h -> c");
+        GraphQuery query = query(store);
+
+        for (int from = 0; from < store.nodeCount(); from++) {
+            BitSet closure = query.closure(from);
+            for (int to = 0; to < store.nodeCount(); to++) {
+                assertEquals(closure.get(to), query.reaches(from, to), store.id(from) + " -> " + store.id(to));
+            }
+        }
+    }
+
+    @Test
+    void whyStartsAtRootCycle() {
+        GraphStore store = store("a -> b", "f -> g", "g -> h", "h -> f");
+        GraphQuery query = query(store);
+
+        List<int[]> paths = query.why(node(store, "h"));
+
+        assertEquals(1, paths.size());
+        assertEquals("f:f:1.0 -> g:g:1.0 -> h:h:1.0", query.formatPath(paths.get(0)));
+    }
+
+    @Test
+    void matchUsesWildcards() {
+        GraphStore store = new GraphStore();
+        store.getOrCreateNode("org.apache.logging.log4j", "log4j-core", "2.17.1");
+        store.getOrCreateNode("org.apache.logging.log4j", "log4j-api", "2.17.1");
+        store.getOrCreateNode("com.example", "log4j-core", "1.0");
+        GraphQuery query = query(store);
+
+        assertEquals(2, query.match("log4j-core").length);
+        assertEquals(1, query.match("org.apache.*:log4j-core").length);
+        assertEquals(2, query.match("org.apache.logging.log4j:log4j-*").length);
+        assertEquals(1, query.match("org.apache.logging.log4j:log4j-???").length);
+        assertThrows(IllegalArgumentException.class, () -> query.match("a::b"));
+    }
+
+    /**
+     * Граф из строк "from -> to"; узел x - x:x:1.0.
+     */
+    private static GraphStore store(String... edges) {
+        GraphStore store = new GraphStore();
+        for (String edge : edges) {
+            String[] ends = edge.split(" -> ");
+            store.addEdge(store.getOrCreateNode(ends[0], ends[0], "1.0"), store.getOrCreateNode(ends[1], ends[1], "1.0"));
+        }
+        return store;
+    }
+
+    private static int node(GraphStore store, String name) {
+        return store.findNode(name, name, "1.0");
+    }
+
+    private static GraphQuery query(GraphStore store) {
+        return new GraphQuery(store, SccAnalyzer.analyze(store), new int[0]);
+    }
+}
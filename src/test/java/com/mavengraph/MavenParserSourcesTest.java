@@ -0,0 +1,124 @@
+package com.mavengraph;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MavenParserSourcesTest {
+    @TempDir
+    Path temp;
+
+    private StubHttpServer server;
+
+    @BeforeEach
+    void start() throws IOException {
+        server = new StubHttpServer();
+    }
+
+    @AfterEach
+    void stop() {
+        server.close();
+    }
+
+    @Test
+    void localRepositoryWins() throws IOException {
+        LocalRepository local = repository("local");
+        write(local, "org.example", "app", "1.0", List.of("org.example:local-dep:1.0"));
+        server.pom("org.example", "app", "1.0", List.of("org.example:remote-dep:1.0"));
+
+        for (boolean effectivePom : new boolean[] { false, true }) {
+            MavenParser parser = parser(List.of(local));
+            parser.setEffectivePom(effectivePom);
+
+            assertEquals(List.of("org.example:local-dep:1.0"),
+                parser.getDependencies("org.example", "app", "1.0", server.url()));
+            assertEquals(List.of("org.example:local-dep:1.0"),
+                parser.getDependenciesAsync("org.example", "app", "1.0", server.url()).join());
+        }
+        assertEquals(0, server.requests(), "при находке на диске в сеть не ходим");
+    }
+
+    @Test
+    void missFallsThroughToMirrorThenHttp() throws IOException {
+        LocalRepository local = repository("local");
+        LocalRepository mirror = repository("mirror");
+        write(mirror, "org.example", "mirrored", "1.0", List.of("org.example:from-mirror:1.0"));
+        server.pom("org.example", "remote", "1.0", List.of("org.example:from-http:1.0"));
+        MavenParser parser = parser(List.of(local, mirror));
+        parser.setEffectivePom(false);
+
+        assertEquals(List.of("org.example:from-mirror:1.0"),
+            parser.getDependencies("org.example", "mirrored", "1.0", server.url()));
+        assertEquals(0, server.requests());
+
+        assertEquals(List.of("org.example:from-http:1.0"),
+            parser.getDependencies("org.example", "remote", "1.0", server.url()));
+        assertEquals(1, server.requests());
+
+        MavenParser async = parser(List.of(local, mirror));
+        assertEquals(List.of("org.example:from-http:1.0"),
+            async.getDependenciesAsync("org.example", "remote", "1.0", server.url())
+                .orTimeout(10, TimeUnit.SECONDS).join());
+        assertEquals(2, server.requests());
+        assertNotEquals(0, parser.getPomHash("org.example", "remote", "1.0"));
+        assertEquals(async.getPomHash("org.example", "remote", "1.0"),
+            parser.getPomHash("org.example", "remote", "1.0"), "хэш при разборе из потока - по всему файлу");
+    }
+
+    @Test
+    void offlineNeverTouchesNetwork() throws IOException {
+        server.pom("org.example", "remote", "1.0", List.of("org.example:from-http:1.0"));
+
+        for (boolean effectivePom : new boolean[] { false, true }) {
+            MavenParser parser = parser(List.of(repository("local")));
+            parser.setEffectivePom(effectivePom);
+            parser.setCache(new PomCache(temp.resolve("cache-" + effectivePom), 1 << 20, true));
+
+            assertTrue(parser.getDependencies("org.example", "remote", "1.0", server.url()).isEmpty());
+            assertTrue(parser.getFailure("org.example", "remote", "1.0").contains("offline"),
+                parser.getFailure("org.example", "remote", "1.0"));
+            assertTrue(parser.getDependenciesAsync("org.example", "remote", "1.0", server.url())
+                .orTimeout(10, TimeUnit.SECONDS).join().isEmpty());
+        }
+        assertEquals(0, server.requests(), "в режиме offline запросов нет");
+    }
+
+    @Test
+    void noRemoteRepositoriesIsFailure() {
+        MavenParser parser = parser(List.of());
+        parser.setEffectivePom(false);
+
+        assertTrue(parser.getDependencies("org.example", "app", "1.0", "").isEmpty());
+        assertEquals("нет удалённых репозиториев для org.example:app:1.0",
+            parser.getFailure("org.example", "app", "1.0"));
+        assertTrue(parser.getDependenciesAsync("org.example", "app", "1.0", " , ").join().isEmpty());
+    }
+
+    private MavenParser parser(List<LocalRepository> repositories) {
+        MavenParser parser = new MavenParser(new PomFetcher(1000, 1000, 4));
+        parser.setLocalRepositories(repositories);
+        return parser;
+    }
+
+    private LocalRepository repository(String name) throws IOException {
+        return new LocalRepository(Files.createDirectories(temp.resolve(name)));
+    }
+
+    private static void write(LocalRepository repository, String groupId, String artifactId, String version,
+                              List<String> dependencies) throws IOException {
+        Path pom = repository.pomPath(groupId, artifactId, version);
+        Files.createDirectories(pom.getParent());
+        Files.write(pom, StubHttpServer.pomXml(groupId, artifactId, version, dependencies)
+            .getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,312 @@
+package com.mavengraph;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PomFetcherTest {
+    private StubHttpServer server;
+
+    @BeforeEach
+    void start() throws IOException {
+        server = new StubHttpServer();
+    }
+
+    @AfterEach
+    void stop() {
+        server.close();
+    }
+
+    @Test
+    void missingPomIsEntryWithoutContent() throws IOException {
+        PomFetcher fetcher = new PomFetcher(1000, 1000, 4);
+
+        PomCache.Entry entry = fetcher.fetch(server.url("/absent.pom"), null);
+
+        assertTrue(entry.isMissing());
+        assertEquals(1, server.requests(), "404 не повторяется");
+    }
+
+    @Test
+    void missingPomFailsStream() {
+        PomFetcher fetcher = new PomFetcher(1000, 1000, 4);
+
+        IOException error = assertThrows(IOException.class, () -> fetcher.openStream(server.url("/absent.pom")));
+        assertTrue(error.getMessage().contains("404"), error.getMessage());
+    }
+
+    @Test
+    void gzipBodyIsDecompressed() throws IOException {
+        byte[] pom = "<project/>".getBytes(StandardCharsets.UTF_8);
+        server.handle("/lib.pom", exchange -> {
+            exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+            exchange.getResponseHeaders().add("ETag", "\"v1\"");
+            StubHttpServer.respond(exchange, 200, gzip(pom));
+        });
+        PomFetcher fetcher = new PomFetcher(1000, 1000, 4);
+
+        PomCache.Entry entry = fetcher.fetch(server.url("/lib.pom"), null);
+        assertArrayEquals(pom, entry.getContent());
+        assertEquals("\"v1\"", entry.getEtag());
+        try (InputStream in = fetcher.openStream(server.url("/lib.pom"))) {
+            assertArrayEquals(pom, in.readAllBytes());
+        }
+    }
+
+    @Test
+    void notModifiedReturnsCachedEntry() throws IOException {
+        server.handle("/lib.pom", exchange -> {
+            boolean conditional = "\"v1\"".equals(exchange.getRequestHeaders().getFirst("If-None-Match"));
+            StubHttpServer.respond(exchange, conditional ? 304 : 200, new byte[0]);
+        });
+        PomCache.Entry cached = new PomCache.Entry(new byte[] { 1 }, "\"v1\"", null);
+        PomFetcher fetcher = new PomFetcher(1000, 1000, 4);
+
+        assertSame(cached, fetcher.fetch(server.url("/lib.pom"), cached));
+    }
+
+    @Test
+    void redirectIsFollowed() throws IOException {
+        server.content("/moved/lib.pom", "<project/>");
+        server.handle("/lib.pom", exchange -> {
+            exchange.getResponseHeaders().add("Location", server.url("/moved/lib.pom"));
+            StubHttpServer.respond(exchange, 301, new byte[0]);
+        });
+        PomFetcher fetcher = new PomFetcher(1000, 1000, 4);
+
+        PomCache.Entry entry = fetcher.fetch(server.url("/lib.pom"), null);
+
+        assertEquals("<project/>", new String(entry.getContent(), StandardCharsets.UTF_8));
+        assertEquals(2, server.requests());
+    }
+
+    @Test
+    void slowResponseTimesOut() {
+        CountDownLatch release = new CountDownLatch(1);
+        server.handle("/slow.pom", exchange -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            StubHttpServer.respond(exchange, 200, new byte[] { 1 });
+        });
+        PomFetcher fetcher = new PomFetcher(1000, 50, 4);
+        fetcher.setMaxRetries(0);
+
+        try {
+            // Сервер не ответит, пока не отпущен: ошибка возможна только по таймауту
+            IOException error = assertThrows(IOException.class, () -> fetcher.fetch(server.url("/slow.pom"), null));
+            assertTrue(error.getMessage().contains("таймаут"), error.getMessage());
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void queueDrainsWithinInFlightLimit() {
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        for (int i = 0; i < 40; i++) {
+            server.handle("/lib" + i + ".pom", exchange -> {
+                peak.accumulateAndGet(active.incrementAndGet(), Math::max);
+                sleep(20);
+                active.decrementAndGet();
+                StubHttpServer.respond(exchange, 200, new byte[] { 1 });
+            });
+        }
+        PomFetcher fetcher = new PomFetcher(1000, 5000, 4);
+        fetcher.setAdaptive(false);
+
+        List<CompletableFuture<PomCache.Entry>> futures = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            futures.add(fetcher.fetchAsync(server.url("/lib" + i + ".pom"), null));
+        }
+        for (CompletableFuture<PomCache.Entry> future : futures) {
+            assertFalse(future.orTimeout(10, TimeUnit.SECONDS).join().isMissing());
+        }
+
+        assertEquals(40, server.requests());
+        assertTrue(peak.get() <= 4, "одновременно запросов: " + peak.get());
+        assertEquals(4, fetcher.getConcurrencyLimits().values().iterator().next());
+    }
+
+    @Test
+    void backoffCeilingDoublesUpToMax() {
+        assertEquals(200, PomFetcher.backoffCeilingMs(200, 0));
+        assertEquals(400, PomFetcher.backoffCeilingMs(200, 1));
+        assertEquals(6400, PomFetcher.backoffCeilingMs(200, 5));
+        assertEquals(10_000, PomFetcher.backoffCeilingMs(200, 6));
+        assertEquals(10_000, PomFetcher.backoffCeilingMs(200, 1000));
+        assertEquals(8, PomFetcher.backoffCeilingMs(1, 3));
+    }
+
+    @Test
+    void unavailableIsRetried() throws IOException {
+        AtomicInteger calls = new AtomicInteger();
+        server.handle("/lib.pom", exchange -> StubHttpServer.respond(exchange,
+            calls.incrementAndGet() == 1 ? 503 : 200, new byte[] { 1 }));
+        PomFetcher fetcher = fastFetcher(8);
+
+        PomCache.Entry entry = fetcher.fetch(server.url("/lib.pom"), null);
+
+        assertArrayEquals(new byte[] { 1 }, entry.getContent());
+        assertEquals(2, server.requests());
+        assertEquals(1, fetcher.getMetrics().getRetries());
+        assertEquals(4, fetcher.getConcurrencyLimits().values().iterator().next(), "503 уменьшает предел вдвое");
+    }
+
+    @Test
+    void retryWaitsForRetryAfter() throws IOException {
+        List<Long> sentAt = new CopyOnWriteArrayList<>();
+        server.handle("/lib.pom", exchange -> {
+            sentAt.add(System.nanoTime());
+            if (sentAt.size() == 1) {
+                exchange.getResponseHeaders().add("Retry-After", "1");
+                StubHttpServer.respond(exchange, 429, new byte[0]);
+            } else {
+                StubHttpServer.respond(exchange, 200, new byte[] { 1 });
+            }
+        });
+        PomFetcher fetcher = fastFetcher(8);
+        // Retry-After: 1 сокращается до 50 мс; задержка повтора без него - не больше 1 мс
+        fetcher.setRetryAfterMaxMs(50);
+
+        fetcher.fetch(server.url("/lib.pom"), null);
+
+        assertEquals(2, sentAt.size());
+        long gapMs = TimeUnit.NANOSECONDS.toMillis(sentAt.get(1) - sentAt.get(0));
+        assertTrue(gapMs >= 50, "повтор раньше Retry-After: " + gapMs + " мс");
+        assertEquals(4, fetcher.getConcurrencyLimits().values().iterator().next(), "429 уменьшает предел вдвое");
+    }
+
+    @Test
+    void retriesGiveUpAfterMaxRetries() {
+        server.handle("/lib.pom", exchange -> StubHttpServer.respond(exchange, 503, new byte[0]));
+        PomFetcher fetcher = fastFetcher(8);
+        fetcher.setMaxRetries(2);
+
+        IOException error = assertThrows(IOException.class, () -> fetcher.fetch(server.url("/lib.pom"), null));
+
+        assertTrue(error.getMessage().contains("попыток: 3"), error.getMessage());
+        assertEquals(3, server.requests());
+        assertEquals(2, fetcher.getMetrics().getRetries());
+    }
+
+    @Test
+    void breakerOpensProbesAndCloses() {
+        AtomicInteger status = new AtomicInteger(500);
+        server.handle("/lib.pom", exchange -> StubHttpServer.respond(exchange, status.get(), new byte[] { 1 }));
+        AtomicLong now = new AtomicLong();
+        PomFetcher fetcher = fastFetcher(8);
+        fetcher.setClock(now::get);
+        fetcher.setBreakerOpenMs(100);
+        fetcher.setMaxRetries(0);
+        String url = server.url("/lib.pom");
+
+        for (int i = 0; i < 10; i++) {
+            assertThrows(IOException.class, () -> fetcher.fetch(url, null));
+        }
+        IOException rejected = assertThrows(IOException.class, () -> fetcher.fetch(url, null));
+        assertTrue(rejected.getMessage().contains("отключён"), rejected.getMessage());
+        assertEquals(10, server.requests(), "разомкнутый предохранитель не пропускает запросы");
+        assertEquals(1, fetcher.getMetrics().getBreakerRejections());
+
+        // Пробный запрос после паузы не прошёл: пауза удваивается до 200 мс
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+        assertThrows(IOException.class, () -> fetcher.fetch(url, null));
+        assertEquals(11, server.requests());
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+        assertThrows(IOException.class, () -> fetcher.fetch(url, null));
+        assertEquals(11, server.requests(), "после неудачной пробы пауза длиннее");
+
+        // Удачная проба замыкает предохранитель
+        status.set(200);
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+        assertDoesNotThrow(() -> fetcher.fetch(url, null));
+        assertDoesNotThrow(() -> fetcher.fetch(url, null));
+        assertEquals(13, server.requests());
+    }
+
+    @Test
+    void adaptiveLimitSettlesNearServerCapacity() {
+        // Сервер обрабатывает не больше capacity запросов сразу, остальным - 503;
+        // capacity меньше начального предела, так что перегрузка будет наверняка
+        int capacity = 4;
+        int count = 100;
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        for (int i = 0; i < count; i++) {
+            byte[] body = ("lib" + i).getBytes(StandardCharsets.UTF_8);
+            server.handle("/lib" + i + ".pom", exchange -> {
+                if (active.incrementAndGet() > capacity) {
+                    active.decrementAndGet();
+                    rejected.incrementAndGet();
+                    StubHttpServer.respond(exchange, 503, new byte[0]);
+                    return;
+                }
+                sleep(30);
+                active.decrementAndGet();
+                StubHttpServer.respond(exchange, 200, body);
+            });
+        }
+        PomFetcher fetcher = fastFetcher(32);
+        fetcher.setMaxRetries(20);
+
+        List<CompletableFuture<PomCache.Entry>> futures = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            futures.add(fetcher.fetchAsync(server.url("/lib" + i + ".pom"), null));
+        }
+        for (int i = 0; i < count; i++) {
+            PomCache.Entry entry = futures.get(i).orTimeout(30, TimeUnit.SECONDS).join();
+            assertEquals("lib" + i, new String(entry.getContent(), StandardCharsets.UTF_8), "POM потерян или перепутан");
+        }
+
+        int limit = fetcher.getConcurrencyLimits().values().iterator().next();
+        assertTrue(limit >= capacity / 2 && limit <= capacity * 2,
+            "предел " + limit + " далеко от возможностей сервера " + capacity);
+        assertTrue(rejected.get() > 0, "сервер ни разу не отказал - предел не проверялся");
+        assertEquals(count + rejected.get(), server.requests());
+    }
+
+    /**
+     * Загрузчик с повторами через миллисекунды, а не через сотни миллисекунд.
+     */
+    static PomFetcher fastFetcher(int maxInFlight) {
+        PomFetcher fetcher = new PomFetcher(1000, 5000, maxInFlight);
+        fetcher.setBackoffBaseMs(1);
+        return fetcher;
+    }
+
+    private static byte[] gzip(byte[] data) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(data);
+        }
+        return bytes.toByteArray();
+    }
+
+    static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
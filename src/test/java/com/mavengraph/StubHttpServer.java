@@ -0,0 +1,138 @@
+package com.mavengraph;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Репозиторий-заглушка для тестов на HttpServer из JDK: обработчики по точному пути,
+ * на остальное - 404. Считает запросы и TCP-соединения (по адресу клиента).
+ */
+class StubHttpServer implements AutoCloseable {
+    // Как у настоящих репозиториев: 404 с небольшим телом, соединение остаётся открытым
+    private static final byte[] NOT_FOUND = "<html><body>404 Not Found</body></html>".getBytes(StandardCharsets.UTF_8);
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final Map<String, HttpHandler> handlers = new ConcurrentHashMap<>();
+    private final AtomicInteger requests = new AtomicInteger();
+    private final Set<String> connections = ConcurrentHashMap.newKeySet();
+    private volatile int delayMs;
+
+    StubHttpServer() throws IOException {
+        // Без TCP_NODELAY заголовки и тело уходят разными пакетами и ответ ждёт delayed ACK
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(executor);
+        server.createContext("/", exchange -> {
+            requests.incrementAndGet();
+            connections.add(exchange.getRemoteAddress().toString());
+            HttpHandler handler = handlers.get(exchange.getRequestURI().getPath());
+            try {
+                if (delayMs > 0) {
+                    Thread.sleep(delayMs);
+                }
+                if (handler == null) {
+                    respond(exchange, 404, NOT_FOUND);
+                } else {
+                    handler.handle(exchange);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                exchange.close();
+            }
+        });
+        server.start();
+    }
+
+    /**
+     * Базовый URL с завершающим "/".
+     */
+    String url() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+    }
+
+    String url(String path) {
+        return url() + path.substring(1);
+    }
+
+    int requests() {
+        return requests.get();
+    }
+
+    int connections() {
+        return connections.size();
+    }
+
+    /**
+     * Задержка перед каждым ответом, как у удалённого репозитория.
+     */
+    void setDelayMs(int delayMs) {
+        this.delayMs = delayMs;
+    }
+
+    void handle(String path, HttpHandler handler) {
+        handlers.put(path, handler);
+    }
+
+    /**
+     * Отдавать по пути постоянное тело со статусом 200.
+     */
+    void content(String path, String body) {
+        handle(path, exchange -> respond(exchange, 200, body.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Положить POM groupId:artifactId:version с прямыми зависимостями в раскладке Maven.
+     */
+    void pom(String groupId, String artifactId, String version, List<String> dependencies) {
+        content(path(groupId, artifactId, version), pomXml(groupId, artifactId, version, dependencies));
+    }
+
+    static String path(String groupId, String artifactId, String version) {
+        return "/" + groupId.replace('.', '/') + "/" + artifactId + "/" + version + "/"
+            + artifactId + "-" + version + ".pom";
+    }
+
+    static String pomXml(String groupId, String artifactId, String version, List<String> dependencies) {
+        StringBuilder xml = new StringBuilder("<project><modelVersion>4.0.0</modelVersion>")
+            .append("<groupId>").append(groupId).append("</groupId>")
+            .append("<artifactId>").append(artifactId).append("</artifactId>")
+            .append("<version>").append(version).append("</version><dependencies>");
+        for (String dependency : dependencies) {
+            String[] parts = dependency.split(":");
+            xml.append("<dependency><groupId>").append(parts[0]).append("</groupId><artifactId>")
+                .append(parts[1]).append("</artifactId><version>").append(parts[2])
+                .append("</version></dependency>");
+        }
+        return xml.append("</dependencies></project>").toString();
+    }
+
+    static void respond(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+        if (body.length > 0) {
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}